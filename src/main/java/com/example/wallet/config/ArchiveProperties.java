@@ -0,0 +1,53 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the archival of old {@code wallet_transactions} months into segment files, see
+ * {@code TransactionArchiver}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.archive")
+public class ArchiveProperties {
+
+    /**
+     * Whether old months are moved out of the database and history reads include the segment files.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory of the segment files. Every instance serving history reads needs it.
+     */
+    private Path directory = Path.of("archive");
+
+    /**
+     * A month is archived once all of it is older than this.
+     */
+    private Duration age = Duration.ofDays(90);
+
+    /**
+     * How often the job runs. Every run also creates the monthly partitions ahead of time, enabled or not.
+     */
+    private Duration interval = Duration.ofHours(24);
+
+    /**
+     * Delay of the first run after start.
+     */
+    private Duration initialDelay = Duration.ofMinutes(1);
+
+    /**
+     * Monthly partitions kept ready after the current one (PostgreSQL).
+     */
+    private int partitionsAhead = 2;
+
+    /**
+     * Rows per compressed block of a segment. A history read decompresses whole blocks.
+     */
+    private int blockRows = 1024;
+}
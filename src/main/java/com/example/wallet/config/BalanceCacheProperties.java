@@ -0,0 +1,41 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the in-process read-through cache behind {@code WalletService.getBalance}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.balance-cache")
+public class BalanceCacheProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of cached wallets, least recently used ones are evicted first.
+     */
+    private long maximumSize = 100_000;
+
+    /**
+     * Entries expire this long after they were written.
+     */
+    private Duration ttl = Duration.ofSeconds(1);
+
+    private Mode mode = Mode.TTL;
+
+    public enum Mode {
+        /**
+         * Hits are served from memory. Writes made by other instances become visible after at most the TTL.
+         */
+        TTL,
+        /**
+         * Every hit is confirmed with a version-only query, so writes made by other instances are seen at once.
+         */
+        VERSION_PROBE
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of {@code POST /api/v1/wallets/balances}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.balance-lookup")
+public class BalanceLookupProperties {
+
+    /**
+     * Wallet ids bound to one {@code IN} statement.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Most wallet ids accepted in one request.
+     */
+    private int maxWallets = 10_000;
+}
@@ -0,0 +1,48 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Settings of the sharded balance mode of hot wallets, see {@code ShardedBalanceService}.
+ * All instances must be configured with the same wallets.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.balance-sharding")
+public class BalanceShardingProperties {
+
+    /**
+     * Wallets whose deposits are spread over slot rows. Wallets removed from the list are folded back on startup.
+     */
+    private Set<UUID> wallets = new LinkedHashSet<>();
+
+    /**
+     * Slot rows per sharded wallet, i.e. how many deposits to it may run concurrently.
+     */
+    private int slots = 16;
+
+    /**
+     * How often slot balances are folded into the wallet row.
+     */
+    private Duration compactionInterval = Duration.ofSeconds(1);
+
+    private BalanceRead balanceRead = BalanceRead.EXACT;
+
+    public enum BalanceRead {
+        /**
+         * Wallet row plus all slots, always up to date.
+         */
+        EXACT,
+        /**
+         * Wallet row only: one row read, lags behind by up to {@code compaction-interval} of deposits.
+         */
+        COMPACTED
+    }
+}
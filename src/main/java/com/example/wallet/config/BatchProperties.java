@@ -0,0 +1,24 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of {@code POST /api/v1/wallets/batch}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.batch")
+public class BatchProperties {
+
+    /**
+     * Items applied in one transaction in best-effort mode.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Largest atomic batch, all of which is applied in a single transaction.
+     */
+    private int maxAtomicItems = 10_000;
+}
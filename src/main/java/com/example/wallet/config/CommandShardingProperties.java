@@ -0,0 +1,36 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the single-writer shard executors, see {@code WalletCommandProcessor}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.command-sharding")
+public class CommandShardingProperties {
+
+    /**
+     * Whether updates and transfers run on the shard thread owning the wallet.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Number of shard threads, {@code 0} means one per available processor.
+     */
+    private int shards = 0;
+
+    /**
+     * Commands queued per shard before new ones are rejected with 503.
+     */
+    private int queueCapacity = 10_000;
+
+    /**
+     * Age after which a transfer hand-off whose credit did not complete is delivered again.
+     */
+    private Duration handoffRetryInterval = Duration.ofSeconds(5);
+}
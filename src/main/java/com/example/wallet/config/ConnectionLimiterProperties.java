@@ -0,0 +1,28 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the queue in front of the connection pool, see {@code ConcurrencyLimitingDataSource}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.connection-limiter")
+public class ConnectionLimiterProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Connections handed out at the same time, {@code 0} means the Hikari {@code maximum-pool-size}.
+     */
+    private int maxConcurrency = 0;
+
+    /**
+     * How long a caller may queue for a connection before the request fails.
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(30);
+}
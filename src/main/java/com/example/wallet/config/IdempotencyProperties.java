@@ -0,0 +1,31 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@code Idempotency-Key} store of wallet mutations.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * Completed keys kept in memory, so that replays are answered without touching the database.
+     */
+    private long cacheMaximumSize = 100_000;
+
+    /**
+     * How long a key is remembered, in memory and in the database. Clients must not retry later than that.
+     */
+    private Duration retention = Duration.ofHours(24);
+
+    /**
+     * How often keys older than {@link #retention} are deleted from the database.
+     */
+    private Duration cleanupInterval = Duration.ofMinutes(10);
+}
@@ -0,0 +1,48 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the in-memory ledger mode, see {@code LedgerEngine}. Only one instance may run with it enabled.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.ledger")
+public class LedgerProperties {
+
+    /**
+     * Whether balances are kept in memory and the tables are written by the projection only.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory of the journal segment files.
+     */
+    private Path journalDirectory = Path.of("ledger");
+
+    /**
+     * Size of one memory-mapped journal segment.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Whether a mutation waits until its journal record is forced to disk. Concurrent mutations share one force.
+     */
+    private boolean fsync = true;
+
+    /**
+     * Pause between projections of the journal into the tables once they are caught up.
+     */
+    private Duration projectionInterval = Duration.ofMillis(100);
+
+    /**
+     * Journal records projected per transaction.
+     */
+    private int projectionBatchSize = 1000;
+}
@@ -0,0 +1,37 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of balance long polling, {@code GET /api/v1/wallets/{walletId}?waitForChangeAfter=<version>}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.long-poll")
+public class LongPollProperties {
+
+    /**
+     * How long a request waits for a change before it is answered with 304. Keep it below the async request
+     * timeout of the container, 30 s on Tomcat.
+     */
+    private Duration timeout = Duration.ofSeconds(20);
+
+    /**
+     * How often the versions of all watched wallets are checked, in one query per {@code batch-size} wallets.
+     */
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    /**
+     * Wallets checked by one query.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Requests waiting at the same time, further ones are rejected with 503.
+     */
+    private int maxWaiters = 10_000;
+}
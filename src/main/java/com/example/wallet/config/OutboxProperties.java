@@ -0,0 +1,64 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the wallet event outbox and its relay.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.outbox")
+public class OutboxProperties {
+
+    /**
+     * Whether ledger writes also insert outbox rows.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Whether this instance drains the outbox. Several instances may, rows are claimed with {@code SKIP LOCKED}.
+     */
+    private boolean relayEnabled = true;
+
+    /**
+     * Where events go: {@code log} or {@code file}.
+     */
+    private String sink = "log";
+
+    /**
+     * NDJSON file the {@code file} sink appends to.
+     */
+    private Path file = Path.of("outbox", "wallet-events.ndjson");
+
+    /**
+     * Rows claimed, published and deleted per transaction.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Pause between polls once the outbox is drained.
+     */
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    /**
+     * Events younger than this are left for a later poll. Ids are taken at insert, not at commit, so a transaction
+     * still open may commit an event with a lower id after a newer one was relayed. It must exceed the longest wallet
+     * transaction, otherwise such an event is published out of order.
+     */
+    private Duration settleDelay = Duration.ofSeconds(1);
+
+    /**
+     * Full batches relayed in one poll before the relay yields its thread.
+     */
+    private int maxBatchesPerPoll = 20;
+
+    /**
+     * Upper bound of the backoff after the sink failed, it doubles from {@link #pollInterval}.
+     */
+    private Duration maxBackoff = Duration.ofSeconds(30);
+}
@@ -0,0 +1,35 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * R2DBC connection of the {@code reactive} profile, which serves the wallet API on WebFlux.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.reactive")
+public class ReactiveProperties {
+
+    /**
+     * R2DBC url of the same database as {@code spring.datasource.url}, e.g. {@code r2dbc:postgresql://db:5432/wallet}.
+     */
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    /**
+     * Connections of the R2DBC pool. A request waiting for one holds no thread.
+     */
+    private int maxPoolSize = 100;
+
+    /**
+     * How long a request waits for a pooled connection before it fails.
+     */
+    private Duration maxAcquireTime = Duration.ofSeconds(2);
+}
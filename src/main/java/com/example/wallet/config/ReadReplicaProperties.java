@@ -0,0 +1,34 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Read replica serving read-only transactions, see {@code ReadReplicaConfiguration}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.read-replica")
+public class ReadReplicaProperties {
+
+    private boolean enabled = false;
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    /**
+     * Size of the replica pool, separate from the pool of the primary.
+     */
+    private int maximumPoolSize = 20;
+
+    /**
+     * How long a reader may wait for a replica connection.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+}
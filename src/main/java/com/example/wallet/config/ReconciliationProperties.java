@@ -0,0 +1,47 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of balance snapshots and of the ledger reconciliation job.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.reconciliation")
+public class ReconciliationProperties {
+
+    /**
+     * How often {@code wallet.balance} is checked against the ledger.
+     */
+    private Duration interval = Duration.ofHours(1);
+
+    /**
+     * How often the ledger checkpoints in {@code wallet_balance_snapshots} are moved forward.
+     */
+    private Duration snapshotInterval = Duration.ofMinutes(15);
+
+    /**
+     * Ledger rows younger than this are left out of snapshots. It must exceed the longest wallet transaction,
+     * otherwise a row committed after its snapshot, with an older id, would never be counted.
+     */
+    private Duration settleDelay = Duration.ofMinutes(5);
+
+    /**
+     * Wallet id ranges of about the same number of wallets the work is split into.
+     */
+    private int partitions = 16;
+
+    /**
+     * Ranges processed at once, each holds a database connection.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Mismatches kept in the report, the count is always exact.
+     */
+    private int maxReportedMismatches = 1000;
+}
@@ -0,0 +1,72 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the contention-aware retry of wallet mutations, see {@code ContentionRetry}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.retry")
+public class RetryProperties {
+
+    /**
+     * Attempts per request including the first one.
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * Backoff before the first retry of a wallet without contention.
+     */
+    private Duration initialBackoff = Duration.ofNanos(200_000);
+
+    /**
+     * Growth of the backoff per further retry.
+     */
+    private double multiplier = 2.0;
+
+    /**
+     * Upper bound of a single backoff.
+     */
+    private Duration maxBackoff = Duration.ofMillis(50);
+
+    /**
+     * Sleep a random time up to the backoff instead of the backoff itself.
+     */
+    private boolean jitter = true;
+
+    /**
+     * A wallet that fails every attempt gets a backoff {@code 1 + contention-scale} times longer, {@code 0} turns
+     * the contention estimate off.
+     */
+    private double contentionScale = 8.0;
+
+    /**
+     * Weight of the latest attempt in the per-wallet contention estimate.
+     */
+    private double contentionWeight = 0.2;
+
+    /**
+     * Whether retries of a wallet are limited by its retry budget.
+     */
+    private boolean budgetEnabled = true;
+
+    /**
+     * Retries a wallet earns with every request.
+     */
+    private double budgetRatio = 0.2;
+
+    /**
+     * Retries a wallet can save up, also the budget of a wallet seen for the first time.
+     */
+    private int budgetCapacity = 20;
+
+    /**
+     * Wallets whose contention is tracked, the least recently used ones are forgotten.
+     */
+    private long maxTrackedWallets = 100_000;
+}
@@ -0,0 +1,52 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * How {@code WalletRepository.findByIdForUpdate} waits for a wallet row locked by another transaction.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.row-lock")
+public class RowLockProperties {
+
+    /**
+     * How to wait for a locked row, see {@link Mode}.
+     */
+    private Mode mode = Mode.TIMEOUT;
+
+    /**
+     * Longest wait for the row lock in {@code timeout} mode. Keep it well below the connection timeout of the pool:
+     * a waiting request holds its connection.
+     */
+    private Duration timeout = Duration.ofMillis(100);
+
+    /**
+     * Reject withdrawals the committed balance does not cover before locking the row.
+     */
+    private boolean validateBeforeLock = true;
+
+    public enum Mode {
+        /**
+         * Wait as long as the database lets it, on PostgreSQL without limit.
+         */
+        WAIT,
+        /**
+         * Wait up to {@code timeout}.
+         */
+        TIMEOUT,
+        /**
+         * Fail at once if the row is locked, {@code FOR UPDATE NOWAIT}.
+         */
+        NOWAIT,
+        /**
+         * Fail at once if the row is locked, {@code FOR UPDATE SKIP LOCKED}: the locked row is skipped instead of
+         * raising a database error, which on PostgreSQL would abort the whole transaction.
+         */
+        SKIP_LOCKED
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.wallet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the hot-wallet write combining mode of {@code WalletService.updateWallet}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet.write-combining")
+public class WriteCombiningProperties {
+
+    /**
+     * Collect concurrent updates of the same wallet into one row lock and one transaction.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Longest wait of the first request of a batch for followers. It stops waiting as soon as no other request of the
+     * wallet is in flight, a lone request is applied at once.
+     */
+    private Duration batchWindow = Duration.ofMillis(2);
+
+    /**
+     * Batch is applied immediately once it holds this many requests.
+     */
+    private int maxBatchSize = 64;
+}
@@ -0,0 +1,86 @@
+package com.example.wallet.controller;
+
+import com.example.wallet.controller.interfaces.ReactiveWalletControllerApi;
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.exceptions.UnsupportedInReactiveModeException;
+import com.example.wallet.service.reactive.ReactiveWalletService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@Profile("reactive")
+@RestController
+@RequestMapping("/api/v1/wallets")
+@RequiredArgsConstructor
+public class ReactiveWalletController implements ReactiveWalletControllerApi {
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String WALLET_VERSION = "Wallet-Version";
+    private static final String WAIT_FOR_CHANGE_AFTER = "waitForChangeAfter";
+
+    private final ReactiveWalletService walletService;
+
+    @PostMapping
+    public Mono<ResponseEntity<WalletResponse>> updateWallet(@Valid @RequestBody WalletRequest request,
+                                                             @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return rejectIdempotencyKey(idempotencyKey)
+                .then(walletService.updateWallet(request))
+                .map(ReactiveWalletController::versioned);
+    }
+
+    @PostMapping("/transfer")
+    public Mono<ResponseEntity<Void>> transferBetweenWallets(@Valid @RequestBody TransferRequest request,
+                                                             @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return rejectIdempotencyKey(idempotencyKey)
+                .then(walletService.transferBetweenWallets(request))
+                .thenReturn(ResponseEntity.ok().build());
+    }
+
+    @GetMapping("/{walletId}")
+    public Mono<ResponseEntity<WalletResponse>> getBalance(@PathVariable UUID walletId) {
+        return walletService.getBalance(walletId).map(ReactiveWalletController::versioned);
+    }
+
+    /**
+     * The rest of {@code WalletControllerApi} is not served by the reactive stack, it is rejected explicitly instead
+     * of falling through to a 404 as if the wallet or route did not exist.
+     */
+    @RequestMapping(path = {"/batch", "/balances", "/{walletId}/transactions", "/{walletId}/transactions/export"})
+    public Mono<Void> unsupported(ServerHttpRequest request) {
+        return Mono.error(new UnsupportedInReactiveModeException(
+                request.getMethod() + " " + request.getPath() + " is not served by the reactive stack"));
+    }
+
+    @GetMapping(value = "/{walletId}", params = WAIT_FOR_CHANGE_AFTER)
+    public Mono<Void> unsupportedLongPoll(ServerHttpRequest request) {
+        return unsupported(request);
+    }
+
+    /**
+     * A key cannot just be ignored: the client relies on a retry not being applied twice.
+     */
+    private static Mono<Void> rejectIdempotencyKey(String idempotencyKey) {
+        return idempotencyKey == null ? Mono.empty() : Mono.error(new UnsupportedInReactiveModeException(
+                "Idempotency-Key is not supported by the reactive stack"));
+    }
+
+    private static ResponseEntity<WalletResponse> versioned(WalletResponse response) {
+        return ResponseEntity.ok()
+                .header(WALLET_VERSION, response.version().toString())
+                .eTag("\"" + response.version() + "\"")
+                .body(response);
+    }
+}
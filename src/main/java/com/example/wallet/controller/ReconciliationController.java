@@ -0,0 +1,32 @@
+package com.example.wallet.controller;
+
+import com.example.wallet.controller.interfaces.ReconciliationControllerApi;
+import com.example.wallet.dto.ReconciliationReport;
+import com.example.wallet.service.reconciliation.LedgerReconciliationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Profile("!reactive")
+@RestController
+@RequestMapping("/api/v1/reconciliation")
+@RequiredArgsConstructor
+public class ReconciliationController implements ReconciliationControllerApi {
+    private final LedgerReconciliationService reconciliationService;
+
+    @GetMapping
+    public ResponseEntity<ReconciliationReport> getLastReport() {
+        return reconciliationService.getLastReport()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @PostMapping
+    public ResponseEntity<ReconciliationReport> reconcile() {
+        return ResponseEntity.ok(reconciliationService.reconcile());
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.wallet.controller;
+
+import com.example.wallet.controller.interfaces.UserWalletControllerApi;
+import com.example.wallet.service.lookup.BalanceLookupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.UUID;
+
+@Profile("!reactive")
+@RestController
+@RequestMapping("/api/v1/users")
+@RequiredArgsConstructor
+public class UserWalletController implements UserWalletControllerApi {
+    private final BalanceLookupService balanceLookupService;
+
+    @GetMapping("/{userId}/wallets")
+    public ResponseEntity<StreamingResponseBody> getWallets(@PathVariable UUID userId) {
+        BalanceLookupService.Lookup lookup = balanceLookupService.prepareForUser(userId);
+        return ResponseEntity.ok().header("Content-Type", MediaType.APPLICATION_JSON_VALUE).body(lookup::writeTo);
+    }
+}
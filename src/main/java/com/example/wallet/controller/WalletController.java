@@ -1,41 +1,174 @@
 package com.example.wallet.controller;
 
 import com.example.wallet.controller.interfaces.WalletControllerApi;
+import com.example.wallet.dto.BatchItemResult;
+import com.example.wallet.dto.BatchResponse;
+import com.example.wallet.dto.TransactionHistoryResponse;
 import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletOperation;
 import com.example.wallet.dto.WalletRequest;
 import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.enums.BatchMode;
+import com.example.wallet.enums.ExportFormat;
+import com.example.wallet.service.WalletBatchService;
 import com.example.wallet.service.WalletService;
+import com.example.wallet.service.history.TransactionExportService;
+import com.example.wallet.service.lookup.BalanceLookupService;
+import com.example.wallet.service.watch.WalletChangeWatcher;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+@Profile("!reactive")
 @RestController
 @RequestMapping("/api/v1/wallets")
 @RequiredArgsConstructor
 public class WalletController implements WalletControllerApi {
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String WALLET_VERSION = "Wallet-Version";
+    private static final String WALLET_MIN_VERSION = "Wallet-Min-Version";
+    private static final String WAIT_FOR_CHANGE_AFTER = "waitForChangeAfter";
+
     private final WalletService walletService;
+    private final WalletBatchService walletBatchService;
+    private final TransactionExportService transactionExportService;
+    private final WalletChangeWatcher walletChangeWatcher;
+    private final BalanceLookupService balanceLookupService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
-    public ResponseEntity<WalletResponse> updateWallet(@Valid @RequestBody WalletRequest request) {
-        return ResponseEntity.ok(walletService.updateWallet(request));
+    public CompletableFuture<ResponseEntity<WalletResponse>> updateWallet(@Valid @RequestBody WalletRequest request,
+                                                                          @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return walletService.updateWalletAsync(request, idempotencyKey).thenApply(WalletController::versioned);
     }
 
     @PostMapping("/transfer")
-    public ResponseEntity<Void> transferBetweenWallets(@Valid @RequestBody TransferRequest request) {
-        walletService.transferBetweenWallets(request);
-        return ResponseEntity.ok().build();
+    public CompletableFuture<ResponseEntity<Void>> transferBetweenWallets(@Valid @RequestBody TransferRequest request,
+                                                                          @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return walletService.transferBetweenWalletsAsync(request, idempotencyKey)
+                .thenApply(ignored -> ResponseEntity.ok().build());
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResponse> applyBatch(@RequestBody List<WalletOperation> operations,
+                                                    @RequestParam(defaultValue = "BEST_EFFORT") BatchMode mode) {
+        return ResponseEntity.ok(walletBatchService.apply(operations, mode));
+    }
+
+    @PostMapping(value = "/batch", consumes = APPLICATION_NDJSON, produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> applyBatchStream(InputStream body,
+                                                                  @RequestParam(defaultValue = "BEST_EFFORT") BatchMode mode) {
+        walletBatchService.checkAvailable();
+        StreamingResponseBody stream = output -> {
+            try (MappingIterator<WalletOperation> operations = objectMapper.readerFor(WalletOperation.class).readValues(body);
+                 SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(output)) {
+                walletBatchService.apply(operations, mode, result -> write(writer, result));
+            }
+        };
+        return ResponseEntity.ok().header("Content-Type", APPLICATION_NDJSON).body(stream);
     }
 
+    /**
+     * A request with {@code If-None-Match} is first checked against the wallet version alone, a match is answered
+     * with 304 without reading the balance.
+     */
     @GetMapping("/{walletId}")
-    public ResponseEntity<WalletResponse> getBalance(@PathVariable UUID walletId) {
-        return ResponseEntity.ok(walletService.getBalance(walletId));
+    public ResponseEntity<WalletResponse> getBalance(@PathVariable UUID walletId,
+                                                     @RequestHeader(value = WALLET_MIN_VERSION, required = false) Long minVersion,
+                                                     WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Long version = walletService.getBalanceVersion(walletId);
+            if (version != null && (minVersion == null || version >= minVersion)
+                    && webRequest.checkNotModified(eTag(version))) {
+                return null;
+            }
+        }
+        return versioned(walletService.getBalance(walletId, minVersion));
+    }
+
+    /**
+     * Answers at once if the wallet is already past {@code waitForChangeAfter}, otherwise once it moves, or with 304
+     * when {@code wallet.long-poll.timeout} passes first.
+     */
+    @GetMapping(value = "/{walletId}", params = WAIT_FOR_CHANGE_AFTER)
+    public CompletableFuture<ResponseEntity<WalletResponse>> awaitBalanceChange(@PathVariable UUID walletId,
+                                                                                @RequestParam(WAIT_FOR_CHANGE_AFTER) long afterVersion) {
+        Long version = walletService.getBalanceVersion(walletId);
+        if (version == null || version > afterVersion) {
+            return CompletableFuture.completedFuture(versioned(walletService.getBalance(walletId)));
+        }
+        return walletChangeWatcher.awaitChange(walletId, afterVersion)
+                .thenApply(response -> response != null ? versioned(response)
+                        : ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag(afterVersion)).build());
+    }
+
+    @PostMapping("/balances")
+    public ResponseEntity<StreamingResponseBody> getBalances(@RequestBody List<UUID> walletIds) {
+        BalanceLookupService.Lookup lookup = balanceLookupService.prepare(walletIds);
+        return ResponseEntity.ok().header("Content-Type", MediaType.APPLICATION_JSON_VALUE).body(lookup::writeTo);
+    }
+
+    @GetMapping("/{walletId}/transactions")
+    public ResponseEntity<TransactionHistoryResponse> getTransactionHistory(@PathVariable UUID walletId,
+                                                                            @RequestParam(required = false) String cursor,
+                                                                            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(walletService.getTransactionHistory(walletId, cursor, size));
+    }
+
+    @GetMapping("/{walletId}/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(@PathVariable UUID walletId,
+                                                                    @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        TransactionExportService.Export export = transactionExportService.prepare(walletId, format);
+        return ResponseEntity.ok()
+                .header("Content-Type", format.getMediaType())
+                .header("Content-Disposition", "attachment; filename=\"wallet-" + walletId + "-transactions."
+                        + format.getExtension() + "\"")
+                .body(export::writeTo);
+    }
+
+    private static ResponseEntity<WalletResponse> versioned(WalletResponse response) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (response.version() != null) {
+            builder.header(WALLET_VERSION, response.version().toString()).eTag(eTag(response.version()));
+        }
+        return builder.body(response);
+    }
+
+    private static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static void write(SequenceWriter writer, BatchItemResult result) {
+        try {
+            writer.write(result);
+            writer.flush();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
     }
 }
@@ -0,0 +1,40 @@
+package com.example.wallet.controller.interfaces;
+
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.dto.WalletResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * The part of {@link WalletControllerApi} served by the {@code reactive} profile, same paths and payloads.
+ */
+@Tag(name = "Reactive Wallet Controller")
+public interface ReactiveWalletControllerApi {
+
+    @Operation(summary = "Update wallet, Idempotency-Key is not supported by the reactive stack")
+    Mono<ResponseEntity<WalletResponse>> updateWallet(@Valid @RequestBody WalletRequest request,
+                                                      @RequestHeader String idempotencyKey);
+
+    @Operation(summary = "Transfer amount between wallet, Idempotency-Key is not supported by the reactive stack")
+    Mono<ResponseEntity<Void>> transferBetweenWallets(@Valid @RequestBody TransferRequest request,
+                                                      @RequestHeader String idempotencyKey);
+
+    @Operation(summary = "Get balance from wallet")
+    Mono<ResponseEntity<WalletResponse>> getBalance(@PathVariable UUID walletId);
+
+    @Operation(summary = "Batches, multi-wallet balances, history and export are not served by the reactive stack, 409")
+    Mono<Void> unsupported(ServerHttpRequest request);
+
+    @Operation(summary = "Long-polling the balance is not served by the reactive stack, 409")
+    Mono<Void> unsupportedLongPoll(ServerHttpRequest request);
+}
@@ -0,0 +1,16 @@
+package com.example.wallet.controller.interfaces;
+
+import com.example.wallet.dto.ReconciliationReport;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+
+@Tag(name = "Reconciliation Controller")
+public interface ReconciliationControllerApi {
+
+    @Operation(summary = "Get the last reconciliation report, 204 if none has run yet")
+    ResponseEntity<ReconciliationReport> getLastReport();
+
+    @Operation(summary = "Reconcile wallet balances against the ledger now")
+    ResponseEntity<ReconciliationReport> reconcile();
+}
@@ -0,0 +1,16 @@
+package com.example.wallet.controller.interfaces;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.UUID;
+
+@Tag(name = "User Wallet Controller")
+public interface UserWalletControllerApi {
+
+    @Operation(summary = "Get balances of all wallets of user as a streamed JSON array, ordered by wallet id")
+    ResponseEntity<StreamingResponseBody> getWallets(@PathVariable UUID userId);
+}
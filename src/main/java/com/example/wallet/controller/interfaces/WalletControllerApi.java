@@ -1,26 +1,66 @@
 package com.example.wallet.controller.interfaces;
 
+import com.example.wallet.dto.BatchResponse;
+import com.example.wallet.dto.TransactionHistoryResponse;
 import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletOperation;
 import com.example.wallet.dto.WalletRequest;
 import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.enums.BatchMode;
+import com.example.wallet.enums.ExportFormat;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Tag(name = "Wallet Controller")
 public interface WalletControllerApi {
 
-    @Operation(summary = "Update wallet")
-    ResponseEntity<WalletResponse> updateWallet(@Valid @RequestBody WalletRequest request);
+    @Operation(summary = "Update wallet, a repeated Idempotency-Key returns the stored response")
+    CompletableFuture<ResponseEntity<WalletResponse>> updateWallet(@Valid @RequestBody WalletRequest request,
+                                                                   @RequestHeader String idempotencyKey);
 
-    @Operation(summary = "Transfer amount between wallet")
-    ResponseEntity<Void> transferBetweenWallets(@Valid @RequestBody TransferRequest request);
+    @Operation(summary = "Transfer amount between wallet, a repeated Idempotency-Key is not applied again")
+    CompletableFuture<ResponseEntity<Void>> transferBetweenWallets(@Valid @RequestBody TransferRequest request,
+                                                                   @RequestHeader String idempotencyKey);
 
-    @Operation(summary = "Get balance from wallet")
-    ResponseEntity<WalletResponse> getBalance(@PathVariable UUID walletId);
+    @Operation(summary = "Apply a batch of updates and transfers, atomically or item by item")
+    ResponseEntity<BatchResponse> applyBatch(@RequestBody List<WalletOperation> operations,
+                                             @RequestParam BatchMode mode);
+
+    @Operation(summary = "Apply a newline-delimited stream of updates and transfers, results are streamed back")
+    ResponseEntity<StreamingResponseBody> applyBatchStream(InputStream body, @RequestParam BatchMode mode);
+
+    @Operation(summary = "Get balance from wallet, pass a Wallet-Version returned by a write as Wallet-Min-Version to read your own writes, "
+            + "an ETag as If-None-Match to get 304 while the wallet is unchanged")
+    ResponseEntity<WalletResponse> getBalance(@PathVariable UUID walletId,
+                                              @RequestHeader(value = "Wallet-Min-Version", required = false) Long minVersion,
+                                              WebRequest webRequest);
+
+    @Operation(summary = "Wait until the wallet version is above waitForChangeAfter and get the new balance, 304 if it does not change in time")
+    CompletableFuture<ResponseEntity<WalletResponse>> awaitBalanceChange(@PathVariable UUID walletId,
+                                                                         @RequestParam long waitForChangeAfter);
+
+    @Operation(summary = "Get transaction history of wallet, newest first, pass next_cursor as cursor for the next page")
+    ResponseEntity<TransactionHistoryResponse> getTransactionHistory(@PathVariable UUID walletId,
+                                                                     @RequestParam String cursor,
+                                                                     @RequestParam int size);
+
+    @Operation(summary = "Get balances of a list of wallets as a streamed JSON array, unknown wallets are left out")
+    ResponseEntity<StreamingResponseBody> getBalances(@RequestBody List<UUID> walletIds);
+
+    @Operation(summary = "Stream the full transaction history of wallet as NDJSON or CSV, newest first")
+    ResponseEntity<StreamingResponseBody> exportTransactions(@PathVariable UUID walletId,
+                                                             @RequestParam ExportFormat format);
 }
@@ -0,0 +1,85 @@
+package com.example.wallet.datasource;
+
+import com.example.wallet.config.ConnectionLimiterProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Wraps the application {@link DataSource} in a {@link ConcurrencyLimitingDataSource} when
+ * {@code wallet.connection-limiter.enabled} is set, which the {@code virtual-threads} profile does.
+ * <p>
+ * Meters: {@code wallet.connection.limiter.active}, {@code .waiting} and {@code .timeouts}.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "wallet.connection-limiter", name = "enabled", havingValue = "true")
+public class ConnectionLimiterConfiguration {
+
+    @Bean
+    static BeanPostProcessor connectionLimiterPostProcessor() {
+        return new LimiterPostProcessor();
+    }
+
+    @Bean
+    MeterBinder connectionLimiterMetrics(DataSource dataSource) {
+        return registry -> {
+            ConcurrencyLimitingDataSource limiter;
+            try {
+                limiter = dataSource.unwrap(ConcurrencyLimitingDataSource.class);
+            } catch (SQLException exception) {
+                return;
+            }
+            Gauge.builder("wallet.connection.limiter.active", limiter, ConcurrencyLimitingDataSource::getActive)
+                    .description("Connections held by callers admitted by the limiter")
+                    .register(registry);
+            Gauge.builder("wallet.connection.limiter.waiting", limiter, ConcurrencyLimitingDataSource::getWaiting)
+                    .description("Callers queued for a connection")
+                    .register(registry);
+            FunctionCounter.builder("wallet.connection.limiter.timeouts", limiter, ConcurrencyLimitingDataSource::getTimeouts)
+                    .description("Callers that gave up waiting for a connection")
+                    .register(registry);
+        };
+    }
+
+    private static class LimiterPostProcessor implements BeanPostProcessor, EnvironmentAware {
+        private ConnectionLimiterProperties properties;
+
+        @Override
+        public void setEnvironment(Environment environment) {
+            properties = Binder.get(environment)
+                    .bind("wallet.connection-limiter", ConnectionLimiterProperties.class)
+                    .orElseGet(ConnectionLimiterProperties::new);
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitingDataSource) {
+                return bean;
+            }
+            int maxConcurrency = properties.getMaxConcurrency();
+            if (maxConcurrency <= 0 && bean instanceof HikariDataSource hikari) {
+                maxConcurrency = hikari.getMaximumPoolSize();
+            }
+            if (maxConcurrency <= 0) {
+                log.warn("Connection limiter enabled but no max-concurrency for data source '{}', leaving it as is", beanName);
+                return bean;
+            }
+            log.info("Limiting data source '{}' to {} concurrent connections, acquire timeout {}",
+                    beanName, maxConcurrency, properties.getAcquireTimeout());
+            return new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, properties.getAcquireTimeout());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.wallet.datasource;
+
+import com.example.wallet.config.ReactiveProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Infrastructure of the {@code reactive} profile: WebFlux on Netty in place of Tomcat, and a pooled R2DBC
+ * connection to the same database the blocking stack uses.
+ * <p>
+ * The JDBC data source stays: Liquibase and the scheduled jobs still run on it. It is declared here, Spring Boot does
+ * not auto-configure one as soon as an R2DBC connection factory exists. Spring Boot's own R2DBC
+ * auto-configuration is excluded in {@code WalletApplication}, it would otherwise need an R2DBC url in every profile,
+ * and its {@link R2dbcTransactionManager} bean would keep the JPA transaction manager from being created. The R2DBC
+ * transaction manager therefore lives only inside the {@link TransactionalOperator}, and the R2DBC repositories are
+ * enabled here rather than by auto-configuration.
+ */
+@Slf4j
+@Profile("reactive")
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(DataSourceProperties.class)
+@EnableR2dbcRepositories(basePackages = "com.example.wallet.repository.reactive")
+public class ReactiveStackConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    ConnectionPool connectionFactory(ReactiveProperties properties) {
+        if (properties.getUrl() == null || properties.getUrl().isBlank()) {
+            throw new IllegalStateException("wallet.reactive.url must be set for the reactive profile");
+        }
+        ConnectionFactory target = ConnectionFactoryBuilder.withUrl(properties.getUrl())
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .build();
+        log.info("Serving the wallet API on WebFlux with an R2DBC pool of {} connections", properties.getMaxPoolSize());
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(target)
+                .name("r2dbc")
+                .initialSize(Math.min(10, properties.getMaxPoolSize()))
+                .maxSize(properties.getMaxPoolSize())
+                .maxAcquireTime(properties.getMaxAcquireTime())
+                .build());
+    }
+
+    /**
+     * Spring Data's R2DBC auto-configuration builds the entity template the repositories run on from this client.
+     */
+    @Bean
+    DatabaseClient r2dbcDatabaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    @Bean
+    TransactionalOperator reactiveTransactionalOperator(ConnectionFactory connectionFactory) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+}
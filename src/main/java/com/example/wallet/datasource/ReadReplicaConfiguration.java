@@ -0,0 +1,86 @@
+package com.example.wallet.datasource;
+
+import com.example.wallet.config.ReadReplicaProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Sends read-only transactions to the read replica when {@code wallet.read-replica.enabled} is set.
+ * <p>
+ * The application {@link DataSource} is wrapped in a {@link LazyConnectionDataSourceProxy}: a transaction gets its
+ * physical connection only at the first statement, after {@code @Transactional(readOnly = true)} has marked it read
+ * only, and read-only connections are taken from a separate Hikari pool of the replica. Everything else, Liquibase
+ * included, still goes to the primary. The replica may lag, see {@code ReplicaBalanceReader} for reads that must
+ * see the caller's own writes.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "wallet.read-replica", name = "enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    static BeanPostProcessor readReplicaPostProcessor() {
+        return new ReplicaPostProcessor();
+    }
+
+    private static class ReplicaPostProcessor implements BeanPostProcessor, EnvironmentAware, DisposableBean {
+        private ReadReplicaProperties properties;
+        private HikariDataSource replica;
+
+        @Override
+        public void setEnvironment(Environment environment) {
+            properties = Binder.get(environment)
+                    .bind("wallet.read-replica", ReadReplicaProperties.class)
+                    .orElseGet(ReadReplicaProperties::new);
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource) || bean instanceof LazyConnectionDataSourceProxy
+                    || replica != null) {
+                return bean;
+            }
+            if (properties.getUrl() == null || properties.getUrl().isBlank()) {
+                log.warn("Read replica enabled but no url for data source '{}', leaving it as is", beanName);
+                return bean;
+            }
+            replica = new HikariDataSource();
+            replica.setPoolName("replica");
+            replica.setJdbcUrl(properties.getUrl());
+            replica.setUsername(properties.getUsername());
+            replica.setPassword(properties.getPassword());
+            replica.setMaximumPoolSize(properties.getMaximumPoolSize());
+            replica.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+            replica.setReadOnly(true);
+            log.info("Routing read-only transactions of data source '{}' to replica pool of {} connections",
+                    beanName, properties.getMaximumPoolSize());
+
+            LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy();
+            routing.setTargetDataSource(dataSource);
+            routing.setReadOnlyDataSource(replica);
+            routing.setDefaultAutoCommit(true);
+            routing.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            routing.afterPropertiesSet();
+            return routing;
+        }
+
+        @Override
+        public void destroy() {
+            if (replica != null) {
+                replica.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.wallet.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record BalanceMismatch(
+
+        @JsonProperty("wallet_id")
+        UUID walletId,
+
+        BigDecimal balance,
+
+        @JsonProperty("expected_balance")
+        BigDecimal expectedBalance
+) {
+}
@@ -0,0 +1,35 @@
+package com.example.wallet.dto;
+
+import com.example.wallet.enums.BatchItemStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Result of one batch item. {@code wallets} holds the balances right after the item was applied:
+ * one wallet for an update, the source and the target wallet for a transfer.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResult(
+
+        int index,
+
+        BatchItemStatus status,
+
+        List<WalletResponse> wallets,
+
+        String error
+) {
+
+    public static BatchItemResult applied(int index, List<WalletResponse> wallets) {
+        return new BatchItemResult(index, BatchItemStatus.APPLIED, wallets, null);
+    }
+
+    public static BatchItemResult failed(int index, String error) {
+        return new BatchItemResult(index, BatchItemStatus.FAILED, null, error);
+    }
+
+    public static BatchItemResult rolledBack(int index) {
+        return new BatchItemResult(index, BatchItemStatus.ROLLED_BACK, null, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.wallet.dto;
+
+import com.example.wallet.enums.BatchMode;
+
+import java.util.List;
+
+public record BatchResponse(
+
+        BatchMode mode,
+
+        int applied,
+
+        int failed,
+
+        List<BatchItemResult> results
+) {
+}
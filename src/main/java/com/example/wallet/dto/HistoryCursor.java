@@ -0,0 +1,36 @@
+package com.example.wallet.dto;
+
+import com.example.wallet.exceptions.InvalidHistoryCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the history of a wallet: the last ledger row of the previous page.
+ * Clients see it as an opaque URL-safe token.
+ */
+public record HistoryCursor(LocalDateTime createdAt, UUID id) {
+
+    public static HistoryCursor of(WalletTransactionResponse transaction) {
+        return new HistoryCursor(transaction.createdAt(), transaction.id());
+    }
+
+    public static HistoryCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            return new HistoryCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    UUID.fromString(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException exception) {
+            throw new InvalidHistoryCursorException(token);
+        }
+    }
+
+    public String encode() {
+        String value = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.wallet.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Result of one reconciliation run. {@code mismatches} is capped, {@code mismatchCount} is not.
+ */
+public record ReconciliationReport(
+
+        @JsonProperty("started_at")
+        Instant startedAt,
+
+        @JsonProperty("duration_ms")
+        long durationMillis,
+
+        @JsonProperty("wallets_checked")
+        long walletsChecked,
+
+        @JsonProperty("ledger_rows_scanned")
+        long ledgerRowsScanned,
+
+        @JsonProperty("mismatch_count")
+        long mismatchCount,
+
+        List<BalanceMismatch> mismatches
+) {
+}
@@ -0,0 +1,23 @@
+package com.example.wallet.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * One page of history. {@code nextCursor} is passed as {@code cursor} to get the next page,
+ * it is {@code null} on the last one.
+ */
+public record TransactionHistoryResponse(
+
+        List<WalletTransactionResponse> transactions,
+
+        int size,
+
+        @JsonProperty("next_cursor")
+        String nextCursor,
+
+        @JsonProperty("has_next")
+        boolean hasNext
+) {
+}
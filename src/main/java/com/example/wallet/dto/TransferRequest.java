@@ -1,11 +1,11 @@
 package com.example.wallet.dto;
 
+import com.example.wallet.money.Money;
+import com.example.wallet.money.MoneyMax;
+import com.example.wallet.money.MoneyMin;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import jakarta.validation.constraints.DecimalMax;
-import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 
 public record TransferRequest(
@@ -19,8 +19,8 @@ public record TransferRequest(
         UUID toWalletId,
 
         @NotNull(message = "Amount cannot be null")
-        @DecimalMin(value = "0.01", message = "Amount must be at least 0.01")
-        @DecimalMax(value = "1000000", message = "Amount cannot exceed 1,000,000")
-        BigDecimal amount
-) {
+        @MoneyMin(value = "0.01", message = "Amount must be at least 0.01")
+        @MoneyMax(value = "1000000", message = "Amount cannot exceed 1,000,000")
+        Money amount
+) implements WalletOperation {
 }
@@ -0,0 +1,33 @@
+package com.example.wallet.dto;
+
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.money.Money;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Balance-change event published from the outbox, one per ledger row. {@code eventId} grows in insert order,
+ * consumers deduplicate by it since delivery is at least once.
+ */
+public record WalletEvent(
+
+        @JsonProperty("event_id")
+        long eventId,
+
+        @JsonProperty("transaction_id")
+        UUID transactionId,
+
+        @JsonProperty("wallet_id")
+        UUID walletId,
+
+        @JsonProperty("operation_type")
+        OperationType operationType,
+
+        Money amount,
+
+        @JsonProperty("created_at")
+        LocalDateTime createdAt
+) {
+}
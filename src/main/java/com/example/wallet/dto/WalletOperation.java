@@ -0,0 +1,15 @@
+package com.example.wallet.dto;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * Item of a batch: a {@link WalletRequest} or a {@link TransferRequest}, told apart by their JSON properties.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.DEDUCTION)
+@JsonSubTypes({
+        @JsonSubTypes.Type(WalletRequest.class),
+        @JsonSubTypes.Type(TransferRequest.class)
+})
+public sealed interface WalletOperation permits WalletRequest, TransferRequest {
+}
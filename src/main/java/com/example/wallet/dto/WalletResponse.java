@@ -1,15 +1,27 @@
 package com.example.wallet.dto;
 
+import com.example.wallet.money.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 
+/**
+ * @param version version of the wallet row the balance belongs to, sent as the {@code Wallet-Version} header rather
+ *                than in the body; {@code null} where it is not tracked
+ */
 public record WalletResponse(
 
         @JsonProperty("wallet_id")
         UUID walletId,
 
-        BigDecimal balance
+        Money balance,
+
+        @JsonIgnore
+        Long version
 ) {
+
+    public WalletResponse(UUID walletId, Money balance) {
+        this(walletId, balance, null);
+    }
 }
@@ -0,0 +1,22 @@
+package com.example.wallet.dto;
+
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.money.Money;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record WalletTransactionResponse(
+
+        UUID id,
+
+        @JsonProperty("operation_type")
+        OperationType operationType,
+
+        Money amount,
+
+        @JsonProperty("created_at")
+        LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,6 @@
+package com.example.wallet.enums;
+
+public enum BatchMode {
+    ATOMIC,
+    BEST_EFFORT
+}
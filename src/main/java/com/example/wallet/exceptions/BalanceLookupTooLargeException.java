@@ -0,0 +1,7 @@
+package com.example.wallet.exceptions;
+
+public class BalanceLookupTooLargeException extends RuntimeException {
+    public BalanceLookupTooLargeException(int maxWallets) {
+        super(String.format("Balances of at most %d wallets can be requested at once", maxWallets));
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.wallet.exceptions;
+
+public class BatchSizeExceededException extends RuntimeException{
+    public BatchSizeExceededException(int maxItems) {
+        super(String.format("Atomic batch cannot contain more than %d items", maxItems));
+    }
+}
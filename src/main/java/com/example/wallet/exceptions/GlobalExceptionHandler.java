@@ -4,14 +4,23 @@ import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
+import java.sql.SQLTransientConnectionException;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -42,6 +51,42 @@ public class GlobalExceptionHandler {
         return errorDetail;
     }
 
+    @ExceptionHandler(CannotAcquireLockException.class)
+    public ResponseEntity<ProblemDetail> handleCannotAcquireLockException(CannotAcquireLockException exception) {
+        log.warn("Lock not acquired in time: {}", exception.getMessage());
+        ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "The wallet is busy with another operation. Please retry.");
+        errorDetail.setProperty("details", "The wallet row stayed locked longer than the lock timeout.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorDetail);
+    }
+
+    /**
+     * No database connection within the pool's {@code connection-timeout} (or the connection limiter's
+     * {@code acquire-timeout}): the service is saturated, not broken.
+     */
+    @ExceptionHandler({CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class,
+            SQLTransientConnectionException.class})
+    public ResponseEntity<ProblemDetail> handleConnectionUnavailableException(Exception exception) {
+        log.warn("No database connection available: {}", exception.getMessage());
+        ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "The service is overloaded. Please retry.");
+        errorDetail.setProperty("details", "No database connection became available in time.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorDetail);
+    }
+
+    @ExceptionHandler(WalletContendedException.class)
+    public ResponseEntity<ProblemDetail> handleWalletContendedException(WalletContendedException exception) {
+        log.warn("Request shed: {}", exception.getMessage());
+        ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, "The wallet is saturated by concurrent operations. Please retry later.");
+        errorDetail.setProperty("details", exception.getMessage());
+        long retryAfterSeconds = Math.max(1, (exception.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(errorDetail);
+    }
+
     @ExceptionHandler(InsufficientFundsException.class)
     public ProblemDetail handleInsufficientFundsException(InsufficientFundsException exception) {
         log.warn("Insufficient funds: {}", exception.getMessage());
@@ -58,18 +103,81 @@ public class GlobalExceptionHandler {
         return errorDetail;
     }
 
+    @ExceptionHandler(BatchSizeExceededException.class)
+    public ProblemDetail handleBatchSizeExceededException(BatchSizeExceededException exception) {
+        log.warn("Batch rejected: {}", exception.getMessage());
+        ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.PAYLOAD_TOO_LARGE, "The batch is too large.");
+        errorDetail.setProperty("details", exception.getMessage());
+        return errorDetail;
+    }
+
+    @ExceptionHandler(UnsupportedInLedgerModeException.class)
+    public ProblemDetail handleUnsupportedInLedgerModeException(UnsupportedInLedgerModeException exception) {
+        log.warn("Rejected in ledger mode: {}", exception.getMessage());
+        ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "The operation is not available in ledger mode.");
+        errorDetail.setProperty("details", exception.getMessage());
+        return errorDetail;
+    }
+
+    @ExceptionHandler(UnsupportedInReactiveModeException.class)
+    public ProblemDetail handleUnsupportedInReactiveModeException(UnsupportedInReactiveModeException exception) {
+        log.warn("Rejected by the reactive stack: {}", exception.getMessage());
+        ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "The operation is not available in the reactive stack.");
+        errorDetail.setProperty("details", exception.getMessage());
+        return errorDetail;
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ProblemDetail handleRejectedExecutionException(RejectedExecutionException exception) {
+        log.warn("Command rejected, shard queue is full: {}", exception.getMessage());
+        ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "The service is overloaded. Please retry.");
+        errorDetail.setProperty("details", "The queue of the wallet's shard is full.");
+        return errorDetail;
+    }
+
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ProblemDetail handleIdempotencyKeyReuseException(IdempotencyKeyReuseException exception) {
+        log.warn("Idempotency key reused: {}", exception.getMessage());
+        ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.UNPROCESSABLE_ENTITY, "The idempotency key belongs to another request.");
+        errorDetail.setProperty("details", exception.getMessage());
+        return errorDetail;
+    }
+
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ProblemDetail handleInvalidIdempotencyKeyException(InvalidIdempotencyKeyException exception) {
+        log.warn("Invalid idempotency key: {}", exception.getMessage());
+        ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Invalid Idempotency-Key header.");
+        errorDetail.setProperty("details", exception.getMessage());
+        return errorDetail;
+    }
+
+    @ExceptionHandler(BalanceLookupTooLargeException.class)
+    public ProblemDetail handleBalanceLookupTooLargeException(BalanceLookupTooLargeException exception) {
+        log.warn("Balance lookup rejected: {}", exception.getMessage());
+        ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.PAYLOAD_TOO_LARGE, "Too many wallets requested.");
+        errorDetail.setProperty("details", exception.getMessage());
+        return errorDetail;
+    }
+
+    @ExceptionHandler(InvalidHistoryCursorException.class)
+    public ProblemDetail handleInvalidHistoryCursorException(InvalidHistoryCursorException exception) {
+        log.warn("Invalid history cursor: {}", exception.getMessage());
+        ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Invalid history cursor.");
+        errorDetail.setProperty("details", exception.getMessage());
+        return errorDetail;
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ProblemDetail handleMethodArgumentNotValidException(MethodArgumentNotValidException exception) {
-        String validationErrors = exception.getBindingResult()
-                .getFieldErrors()
-                .stream()
-                .map(error -> error.getField() + ": " + error.getDefaultMessage())
-                .collect(Collectors.joining("; "));
+        return invalidPayload(exception.getBindingResult());
+    }
 
-        log.warn("Validation failed for method arguments: {}", validationErrors);
-        ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Invalid request payload.");
-        errorDetail.setProperty("errors", validationErrors);
-        return errorDetail;
+    /**
+     * The WebFlux counterpart of {@link MethodArgumentNotValidException}, see the {@code reactive} profile.
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ProblemDetail handleWebExchangeBindException(WebExchangeBindException exception) {
+        return invalidPayload(exception.getBindingResult());
     }
 
     @ExceptionHandler(ConstraintViolationException.class)
@@ -85,6 +193,19 @@ public class GlobalExceptionHandler {
         return errorDetail;
     }
 
+    private static ProblemDetail invalidPayload(BindingResult bindingResult) {
+        String validationErrors = bindingResult
+                .getFieldErrors()
+                .stream()
+                .map(error -> error.getField() + ": " + error.getDefaultMessage())
+                .collect(Collectors.joining("; "));
+
+        log.warn("Validation failed for method arguments: {}", validationErrors);
+        ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Invalid request payload.");
+        errorDetail.setProperty("errors", validationErrors);
+        return errorDetail;
+    }
+
     @ExceptionHandler(Exception.class)
     public ProblemDetail handleGenericException(Exception exception) {
         log.error("An unhandled internal server error occurred: {}", exception.getMessage(), exception);
@@ -1,10 +1,10 @@
 package com.example.wallet.exceptions;
 
-import java.math.BigDecimal;
+import com.example.wallet.money.Money;
 
 public class InsufficientFundsException extends RuntimeException{
-    public InsufficientFundsException(String walletId, BigDecimal balance, BigDecimal amount) {
-        super(String.format("Insufficient funds in wallet %s. Current balance: %.2f, requested amount: %.2f",
+    public InsufficientFundsException(String walletId, Money balance, Money amount) {
+        super(String.format("Insufficient funds in wallet %s. Current balance: %s, requested amount: %s",
                 walletId, balance, amount));
     }
 }
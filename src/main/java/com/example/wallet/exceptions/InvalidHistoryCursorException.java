@@ -0,0 +1,7 @@
+package com.example.wallet.exceptions;
+
+public class InvalidHistoryCursorException extends RuntimeException {
+    public InvalidHistoryCursorException(String cursor) {
+        super("Invalid history cursor: " + cursor);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.wallet.exceptions;
+
+public class UnsupportedInLedgerModeException extends RuntimeException {
+    public UnsupportedInLedgerModeException(String message) {
+        super(message);
+    }
+}
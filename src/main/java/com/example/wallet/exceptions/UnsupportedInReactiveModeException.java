@@ -0,0 +1,7 @@
+package com.example.wallet.exceptions;
+
+public class UnsupportedInReactiveModeException extends RuntimeException {
+    public UnsupportedInReactiveModeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.wallet.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class WalletContendedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public WalletContendedException(String walletId, Duration retryAfter, Throwable cause) {
+        super("Wallet " + walletId + " is saturated, its retry budget is used up", cause);
+        this.retryAfter = retryAfter;
+    }
+}
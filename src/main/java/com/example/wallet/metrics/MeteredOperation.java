@@ -0,0 +1,16 @@
+package com.example.wallet.metrics;
+
+import com.example.wallet.enums.OperationType;
+
+public enum MeteredOperation {
+    DEPOSIT,
+    WITHDRAW,
+    TRANSFER,
+    BALANCE_READ,
+    COMBINED_UPDATE,
+    BATCH;
+
+    public static MeteredOperation of(OperationType operationType) {
+        return operationType == OperationType.WITHDRAW ? WITHDRAW : DEPOSIT;
+    }
+}
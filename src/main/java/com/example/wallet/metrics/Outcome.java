@@ -0,0 +1,39 @@
+package com.example.wallet.metrics;
+
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.exceptions.SameWalletTransferException;
+import com.example.wallet.exceptions.WalletContendedException;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+public enum Outcome {
+    SUCCESS,
+    INSUFFICIENT_FUNDS,
+    NOT_FOUND,
+    REJECTED,
+    LOCK_FAILURE,
+    SHED,
+    ERROR;
+
+    public static Outcome of(Throwable failure) {
+        if (failure == null) {
+            return SUCCESS;
+        }
+        if (failure instanceof InsufficientFundsException) {
+            return INSUFFICIENT_FUNDS;
+        }
+        if (failure instanceof EntityNotFoundException) {
+            return NOT_FOUND;
+        }
+        if (failure instanceof SameWalletTransferException) {
+            return REJECTED;
+        }
+        if (failure instanceof WalletContendedException) {
+            return SHED;
+        }
+        if (failure instanceof PessimisticLockingFailureException) {
+            return LOCK_FAILURE;
+        }
+        return ERROR;
+    }
+}
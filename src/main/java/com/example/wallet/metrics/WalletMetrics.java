@@ -0,0 +1,152 @@
+package com.example.wallet.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters of the wallet hot paths.
+ * <p>
+ * All meters are registered up front and looked up by enum ordinal, so recording does not build tags
+ * or allocate on the hot path. Start times are {@link System#nanoTime()} values taken by the caller.
+ * <ul>
+ *     <li>{@code wallet.operation} - end-to-end latency by operation and outcome, including commit and retries</li>
+ *     <li>{@code wallet.lock.acquire} - time spent locking and changing the wallet row</li>
+ *     <li>{@code wallet.retry.attempts} - attempts repeated after a lock failure</li>
+ *     <li>{@code wallet.retry.backoff} - time slept before a repeated attempt</li>
+ *     <li>{@code wallet.retry.shed} - requests rejected because the retry budget of their wallet was used up</li>
+ *     <li>{@code wallet.transaction.open} - how long a transaction stayed open, by completion status</li>
+ *     <li>{@code wallet.transaction.commit} - flush and commit latency</li>
+ * </ul>
+ */
+@Component
+public class WalletMetrics {
+    private static final MeteredOperation[] OPERATIONS = MeteredOperation.values();
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    private static final int COMMITTED = 0;
+    private static final int ROLLED_BACK = 1;
+
+    private final Timer[][] operationTimers = new Timer[OPERATIONS.length][OUTCOMES.length];
+    private final Timer[] lockTimers = new Timer[OPERATIONS.length];
+    private final Counter[] retryCounters = new Counter[OPERATIONS.length];
+    private final Timer[] backoffTimers = new Timer[OPERATIONS.length];
+    private final Counter[] shedCounters = new Counter[OPERATIONS.length];
+    private final Timer[][] transactionTimers = new Timer[OPERATIONS.length][2];
+    private final Timer[] commitTimers = new Timer[OPERATIONS.length];
+
+    public WalletMetrics(MeterRegistry registry) {
+        for (MeteredOperation operation : OPERATIONS) {
+            int op = operation.ordinal();
+            String operationTag = tag(operation);
+            for (Outcome outcome : OUTCOMES) {
+                operationTimers[op][outcome.ordinal()] = Timer.builder("wallet.operation")
+                        .description("Wallet operation latency")
+                        .tag("operation", operationTag)
+                        .tag("outcome", tag(outcome))
+                        .publishPercentileHistogram()
+                        .register(registry);
+            }
+            lockTimers[op] = Timer.builder("wallet.lock.acquire")
+                    .description("Time to lock and change the wallet row")
+                    .tag("operation", operationTag)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            retryCounters[op] = Counter.builder("wallet.retry.attempts")
+                    .description("Attempts repeated after a lock failure")
+                    .tag("operation", operationTag)
+                    .register(registry);
+            backoffTimers[op] = Timer.builder("wallet.retry.backoff")
+                    .description("Time slept before a repeated attempt")
+                    .tag("operation", operationTag)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            shedCounters[op] = Counter.builder("wallet.retry.shed")
+                    .description("Requests rejected because the retry budget of their wallet was used up")
+                    .tag("operation", operationTag)
+                    .register(registry);
+            transactionTimers[op][COMMITTED] = transactionTimer(registry, operationTag, "committed");
+            transactionTimers[op][ROLLED_BACK] = transactionTimer(registry, operationTag, "rolled_back");
+            commitTimers[op] = Timer.builder("wallet.transaction.commit")
+                    .description("Flush and commit latency")
+                    .tag("operation", operationTag)
+                    .register(registry);
+        }
+    }
+
+    public void recordOperation(MeteredOperation operation, long startedAt, Throwable failure) {
+        operationTimers[operation.ordinal()][Outcome.of(failure).ordinal()]
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLockAcquire(MeteredOperation operation, long startedAt) {
+        lockTimers[operation.ordinal()].record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRetries(MeteredOperation operation, int retries) {
+        if (retries > 0) {
+            retryCounters[operation.ordinal()].increment(retries);
+        }
+    }
+
+    public void recordBackoff(MeteredOperation operation, long nanos) {
+        backoffTimers[operation.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordShed(MeteredOperation operation) {
+        shedCounters[operation.ordinal()].increment();
+    }
+
+    /**
+     * Times the transaction bound to the current thread: open duration and commit latency.
+     */
+    public void monitorTransaction(MeteredOperation operation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionTimer(operation.ordinal(), System.nanoTime()));
+        }
+    }
+
+    private static Timer transactionTimer(MeterRegistry registry, String operationTag, String status) {
+        return Timer.builder("wallet.transaction.open")
+                .description("How long a wallet transaction stayed open")
+                .tag("operation", operationTag)
+                .tag("outcome", status)
+                .register(registry);
+    }
+
+    private static String tag(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+    private final class TransactionTimer implements TransactionSynchronization {
+        private final int operation;
+        private final long startedAt;
+        private long commitStartedAt;
+
+        private TransactionTimer(int operation, long startedAt) {
+            this.operation = operation;
+            this.startedAt = startedAt;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            commitStartedAt = System.nanoTime();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            long now = System.nanoTime();
+            if (status == STATUS_COMMITTED) {
+                commitTimers[operation].record(now - commitStartedAt, TimeUnit.NANOSECONDS);
+                transactionTimers[operation][COMMITTED].record(now - startedAt, TimeUnit.NANOSECONDS);
+            } else {
+                transactionTimers[operation][ROLLED_BACK].record(now - startedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
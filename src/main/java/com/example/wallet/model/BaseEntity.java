@@ -1,5 +1,6 @@
 package com.example.wallet.model;
 
+import com.example.wallet.util.TimeOrderedUuid;
 import jakarta.persistence.Column;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
@@ -30,10 +31,26 @@ public abstract class BaseEntity implements Serializable {
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
         if (id == null) {
-            id = UUID.randomUUID();
+            id = TimeOrderedUuid.next();
         }
     }
 
+    /**
+     * Assigns id and timestamps to an entity that is inserted without the persistence context.
+     */
+    public void prepareForInsert() {
+        onCreate();
+    }
+
+    /**
+     * Same as {@link #prepareForInsert()} for a row whose id and time were assigned before, e.g. in the ledger journal.
+     */
+    public void prepareForInsert(UUID id, LocalDateTime createdAt) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.updatedAt = createdAt;
+    }
+
     @PreUpdate
     protected void onUpdate() {
         this.updatedAt = LocalDateTime.now();
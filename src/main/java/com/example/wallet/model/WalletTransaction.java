@@ -1,10 +1,12 @@
 package com.example.wallet.model;
 
 import com.example.wallet.enums.OperationType;
+import com.example.wallet.money.Money;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -13,7 +15,6 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.math.BigDecimal;
 
 @Entity
 @Setter
@@ -23,7 +24,7 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class WalletTransaction extends BaseEntity {
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "wallet_id", nullable = false)
     private Wallet wallet;
 
@@ -31,5 +32,5 @@ public class WalletTransaction extends BaseEntity {
     private OperationType operationType;
 
     @Column(nullable = false)
-    private BigDecimal amount;
+    private Money amount;
 }
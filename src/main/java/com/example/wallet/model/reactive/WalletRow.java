@@ -0,0 +1,15 @@
+package com.example.wallet.model.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * The {@code wallet} row as read over R2DBC. The balance stays a {@link BigDecimal} as on the JDBC boundary,
+ * it is turned into {@code Money} by the service.
+ */
+@Table("wallet")
+public record WalletRow(@Id UUID id, UUID userId, BigDecimal balance, long version) {
+}
@@ -0,0 +1,16 @@
+package com.example.wallet.model.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A {@code wallet_transactions} ledger row as written over R2DBC.
+ */
+@Table("wallet_transactions")
+public record WalletTransactionRow(@Id UUID id, UUID walletId, String operationType, BigDecimal amount,
+                                   LocalDateTime createdAt) {
+}
@@ -0,0 +1,196 @@
+package com.example.wallet.money;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable amount of money with two decimal places, held as a {@code long} number of minor units (cents).
+ * <p>
+ * Arithmetic allocates at most the result object and never a {@link BigDecimal} or {@link java.math.BigInteger};
+ * it throws {@link ArithmeticException} on overflow instead of wrapping. The range is about ±92 quadrillion,
+ * narrower than the {@code NUMERIC(19, 2)} columns but far beyond any wallet balance. Conversion to and from
+ * {@code BigDecimal} happens only at the JDBC boundary, see {@link MoneyConverter}.
+ */
+@JsonSerialize(using = MoneyJsonSerializer.class)
+@JsonDeserialize(using = MoneyJsonDeserializer.class)
+public final class Money implements Comparable<Money>, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    /**
+     * Longest text of a value: sign, 17 integer digits, point and two decimals.
+     */
+    static final int MAX_CHARS = 21;
+
+    private static final long MINOR_PER_MAJOR = 100;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    public static Money ofMajor(long majorUnits) {
+        return ofMinor(Math.multiplyExact(majorUnits, MINOR_PER_MAJOR));
+    }
+
+    /**
+     * @throws ArithmeticException if the value has non-zero digits beyond the second decimal place or does not fit
+     */
+    public static Money of(BigDecimal value) {
+        return ofMinor(value.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Parses a plain decimal such as {@code -12}, {@code 0.5} or {@code 1000.50}. Zeros beyond the second decimal
+     * place are accepted, other digits there are rejected rather than rounded.
+     *
+     * @throws NumberFormatException if the text is not a plain decimal
+     * @throws ArithmeticException   if the value is not a whole number of cents or does not fit
+     */
+    public static Money of(CharSequence text) {
+        char[] chars = text.toString().toCharArray();
+        return parse(chars, 0, chars.length);
+    }
+
+    /**
+     * Same as {@link #of(CharSequence)} on {@code length} characters of {@code chars} from {@code offset},
+     * used by the JSON parser to read straight from its buffer.
+     */
+    public static Money parse(char[] chars, int offset, int length) {
+        int i = offset;
+        int to = offset + length;
+        boolean negative = false;
+        if (i < to && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long units = 0;
+        int integerDigits = 0;
+        for (; i < to && chars[i] != '.'; i++) {
+            units = Math.addExact(Math.multiplyExact(units, 10), digit(chars, offset, length, i));
+            integerDigits++;
+        }
+        int fractionDigits = 0;
+        if (i < to) {
+            for (i++; i < to; i++) {
+                int digit = digit(chars, offset, length, i);
+                if (fractionDigits < SCALE) {
+                    units = Math.addExact(Math.multiplyExact(units, 10), digit);
+                } else if (digit != 0) {
+                    throw new ArithmeticException("More than " + SCALE + " decimal places: " + new String(chars, offset, length));
+                }
+                fractionDigits++;
+            }
+        }
+        if (integerDigits + fractionDigits == 0) {
+            throw new NumberFormatException("Not a decimal: " + new String(chars, offset, length));
+        }
+        for (int scale = fractionDigits; scale < SCALE; scale++) {
+            units = Math.multiplyExact(units, 10);
+        }
+        return ofMinor(negative ? -units : units);
+    }
+
+    private static int digit(char[] chars, int offset, int length, int index) {
+        char c = chars[index];
+        if (c < '0' || c > '9') {
+            throw new NumberFormatException("Not a decimal: " + new String(chars, offset, length));
+        }
+        return c - '0';
+    }
+
+    public long minorUnits() {
+        return minorUnits;
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minorUnits));
+    }
+
+    public Money min(Money other) {
+        return minorUnits <= other.minorUnits ? this : other;
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return minorUnits < other.minorUnits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof Money money && minorUnits == money.minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    /**
+     * Plain decimal with exactly two decimal places, e.g. {@code -0.05} or {@code 1000.50}.
+     */
+    @Override
+    public String toString() {
+        char[] buffer = new char[MAX_CHARS];
+        int start = writeTo(buffer);
+        return new String(buffer, start, MAX_CHARS - start);
+    }
+
+    /**
+     * Writes {@link #toString()} right-aligned into a buffer of at least {@link #MAX_CHARS} characters.
+     *
+     * @return index of the first character written
+     */
+    int writeTo(char[] buffer) {
+        long remaining = Math.abs(minorUnits / MINOR_PER_MAJOR);
+        int minor = (int) Math.abs(minorUnits % MINOR_PER_MAJOR);
+        int position = MAX_CHARS;
+        buffer[--position] = (char) ('0' + minor % 10);
+        buffer[--position] = (char) ('0' + minor / 10);
+        buffer[--position] = '.';
+        do {
+            buffer[--position] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        if (minorUnits < 0) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+}
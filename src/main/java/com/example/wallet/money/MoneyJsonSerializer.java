@@ -0,0 +1,25 @@
+package com.example.wallet.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link Money} as a JSON number with two decimal places, the same text a {@code NUMERIC(19, 2)}
+ * {@code BigDecimal} produced.
+ */
+public class MoneyJsonSerializer extends StdSerializer<Money> {
+
+    public MoneyJsonSerializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public void serialize(Money value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        char[] buffer = new char[Money.MAX_CHARS];
+        int start = value.writeTo(buffer);
+        generator.writeNumber(buffer, start, Money.MAX_CHARS - start);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.wallet.money;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The {@link Money} must be at most {@link #value()}, a plain decimal. {@code null} is valid.
+ */
+@Documented
+@Constraint(validatedBy = MoneyMaxValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER, ElementType.RECORD_COMPONENT})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MoneyMax {
+
+    String value();
+
+    String message() default "must be at most {value}";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
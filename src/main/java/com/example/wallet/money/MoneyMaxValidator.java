@@ -0,0 +1,18 @@
+package com.example.wallet.money;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class MoneyMaxValidator implements ConstraintValidator<MoneyMax, Money> {
+    private Money bound;
+
+    @Override
+    public void initialize(MoneyMax constraint) {
+        bound = Money.of(constraint.value());
+    }
+
+    @Override
+    public boolean isValid(Money value, ConstraintValidatorContext context) {
+        return value == null || value.compareTo(bound) <= 0;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Plain JDBC access to {@code wallet_balance_snapshots}: ledger checkpoints of wallet balances.
+ * <p>
+ * Queries work on a range of wallet ids, bounds inclusive, and read ledger rows after the checkpoint only,
+ * through the {@code (wallet_id, created_at, id)} index. A checkpoint is a position in {@code (created_at, id)}: ids
+ * alone do not grow with time, rows written before time-ordered ids have random ones.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BalanceSnapshotRepository {
+    /**
+     * Ledger row {@code t} comes after the checkpoint {@code s} of its wallet, or the wallet has none yet.
+     */
+    static final String AFTER_CHECKPOINT =
+            "(s.last_created_at IS NULL OR (t.created_at, t.id) > (s.last_created_at, s.last_transaction_id))";
+    private static final String SIGNED_AMOUNT = "CASE WHEN t.operation_type = 'DEPOSIT' THEN t.amount ELSE -t.amount END";
+    private static final String LEDGER_BALANCES_SQL = """
+            SELECT w.id, w.balance
+                       + (SELECT COALESCE(SUM(b.balance), 0) FROM wallet_balance_slots b WHERE b.wallet_id = w.id) AS balance,
+                   COALESCE(s.balance, 0) + COALESCE(SUM(%s), 0) AS expected_balance,
+                   COUNT(t.id) AS ledger_rows
+            FROM wallet w
+            LEFT JOIN wallet_balance_snapshots s ON s.wallet_id = w.id
+            LEFT JOIN wallet_transactions t
+                   ON t.wallet_id = w.id AND %s
+            WHERE w.id BETWEEN ? AND ?
+            GROUP BY w.id, w.balance, s.balance
+            """.formatted(SIGNED_AMOUNT, AFTER_CHECKPOINT);
+    private static final String NEW_ENTRIES_SQL = """
+            SELECT t.wallet_id, t.id, t.created_at, %s AS amount, s.balance AS snapshot_balance
+            FROM wallet_transactions t
+            LEFT JOIN wallet_balance_snapshots s ON s.wallet_id = t.wallet_id
+            WHERE t.wallet_id BETWEEN ? AND ?
+              AND %s
+              AND t.created_at < ?
+            ORDER BY t.wallet_id, t.created_at, t.id
+            """.formatted(SIGNED_AMOUNT, AFTER_CHECKPOINT);
+
+    private static final String BOUNDARIES_SQL = """
+            SELECT id FROM (SELECT id, ROW_NUMBER() OVER (ORDER BY id) AS rn FROM wallet) numbered
+            WHERE MOD(rn, ?) = 0 ORDER BY id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Wallet ids that cut the wallets into {@code partitions} ranges of about the same size.
+     */
+    public List<UUID> findWalletIdBoundaries(int partitions) {
+        Long wallets = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet", Long.class);
+        long step = Math.max(1, (wallets == null ? 0 : wallets + partitions - 1) / partitions);
+        List<UUID> boundaries = jdbcTemplate.queryForList(BOUNDARIES_SQL, UUID.class, step);
+        return boundaries.size() < partitions ? boundaries : boundaries.subList(0, partitions - 1);
+    }
+
+    /**
+     * Current balance (wallet row plus balance slots) and the balance expected from the ledger, for every
+     * wallet in the range. A single statement, so both sides come from the same database snapshot.
+     */
+    public List<LedgerBalance> findLedgerBalances(UUID from, UUID to) {
+        return jdbcTemplate.query(LEDGER_BALANCES_SQL, (rs, rowNum) -> new LedgerBalance(
+                rs.getObject("id", UUID.class),
+                rs.getBigDecimal("balance"),
+                rs.getBigDecimal("expected_balance"),
+                rs.getLong("ledger_rows")), from, to);
+    }
+
+    /**
+     * Moves the checkpoints of the range over ledger rows created before {@code before}.
+     *
+     * @return the new checkpoints of wallets that had such rows
+     */
+    public List<Snapshot> findAdvancedSnapshots(UUID from, UUID to, LocalDateTime before) {
+        List<Snapshot> snapshots = new ArrayList<>();
+        RowCallbackHandler handler = rs -> {
+            UUID walletId = rs.getObject("wallet_id", UUID.class);
+            UUID transactionId = rs.getObject("id", UUID.class);
+            LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
+            BigDecimal amount = rs.getBigDecimal("amount");
+            Snapshot last = snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+            if (last != null && last.walletId().equals(walletId)) {
+                snapshots.set(snapshots.size() - 1,
+                        new Snapshot(walletId, last.balance().add(amount), createdAt, transactionId));
+            } else {
+                BigDecimal base = rs.getBigDecimal("snapshot_balance");
+                snapshots.add(new Snapshot(walletId, base == null ? amount : base.add(amount), createdAt, transactionId));
+            }
+        };
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement(NEW_ENTRIES_SQL);
+            statement.setFetchSize(1000);
+            statement.setObject(1, from);
+            statement.setObject(2, to);
+            statement.setTimestamp(3, Timestamp.valueOf(before));
+            return statement;
+        }, handler);
+        return snapshots;
+    }
+
+    public void saveAll(List<Snapshot> snapshots) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[] updated = jdbcTemplate.batchUpdate(
+                "UPDATE wallet_balance_snapshots SET balance = ?, last_created_at = ?, last_transaction_id = ?, created_at = ? "
+                        + "WHERE wallet_id = ?",
+                snapshots.stream().map(s -> new Object[]{s.balance(), Timestamp.valueOf(s.lastCreatedAt()),
+                        s.lastTransactionId(), now, s.walletId()}).toList());
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Snapshot s = snapshots.get(i);
+                inserts.add(new Object[]{s.walletId(), s.balance(), Timestamp.valueOf(s.lastCreatedAt()),
+                        s.lastTransactionId(), now});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO wallet_balance_snapshots (wallet_id, balance, last_created_at, last_transaction_id, created_at) "
+                            + "VALUES (?, ?, ?, ?, ?)",
+                    inserts);
+        }
+    }
+
+    /**
+     * @param ledgerRows ledger rows after the checkpoint that were summed
+     */
+    public record LedgerBalance(UUID walletId, BigDecimal balance, BigDecimal expectedBalance, long ledgerRows) {
+    }
+
+    /**
+     * The ledger balance of a wallet up to and including the row ({@code lastCreatedAt}, {@code lastTransactionId}).
+     */
+    public record Snapshot(UUID walletId, BigDecimal balance, LocalDateTime lastCreatedAt, UUID lastTransactionId) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.money.Money;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Plain JDBC access to {@code idempotency_keys}. Rows are written in the caller's transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the key. Fails with {@link org.springframework.dao.DuplicateKeyException} if it exists, or waits for
+     * the transaction that inserted it and then fails if that one commits.
+     */
+    public void insert(String key, long fingerprint) {
+        jdbcTemplate.update("INSERT INTO idempotency_keys (idempotency_key, fingerprint, created_at) VALUES (?, ?, ?)",
+                key, fingerprint, Timestamp.from(Instant.now()));
+    }
+
+    public void complete(String key, WalletResponse response) {
+        jdbcTemplate.update("UPDATE idempotency_keys SET wallet_id = ?, balance = ?, version = ? WHERE idempotency_key = ?",
+                response.walletId(), response.balance().toBigDecimal(), response.version(), key);
+    }
+
+    public Optional<StoredKey> find(String key) {
+        return jdbcTemplate.query("SELECT fingerprint, wallet_id, balance, version FROM idempotency_keys WHERE idempotency_key = ?",
+                (rs, rowNum) -> {
+                    UUID walletId = rs.getObject("wallet_id", UUID.class);
+                    WalletResponse response = walletId == null ? null : new WalletResponse(walletId,
+                            Money.of(rs.getBigDecimal("balance")), rs.getObject("version", Long.class));
+                    return new StoredKey(rs.getLong("fingerprint"), response);
+                }, key).stream().findFirst();
+    }
+
+    public int deleteCreatedBefore(Instant threshold) {
+        return jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?", Timestamp.from(threshold));
+    }
+
+    /**
+     * A completed key: {@code response} is {@code null} for transfers, which have no response body.
+     */
+    public record StoredKey(long fingerprint, WalletResponse response) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Plain JDBC access to the single row of {@code ledger_checkpoint}. Written in the projection's transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerCheckpointRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public long findProjectedSequence() {
+        Long sequence = jdbcTemplate.queryForObject("SELECT projected_sequence FROM ledger_checkpoint WHERE id = 1", Long.class);
+        return sequence == null ? 0 : sequence;
+    }
+
+    public void saveProjectedSequence(long sequence) {
+        jdbcTemplate.update("UPDATE ledger_checkpoint SET projected_sequence = ?, updated_at = ? WHERE id = 1",
+                sequence, Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
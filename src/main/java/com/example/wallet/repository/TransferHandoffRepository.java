@@ -0,0 +1,54 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.money.Money;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Plain JDBC access to {@code wallet_transfer_handoffs}. Rows are written in the caller's transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransferHandoffRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(Handoff handoff) {
+        jdbcTemplate.update("""
+                        INSERT INTO wallet_transfer_handoffs (id, from_wallet_id, to_wallet_id, amount, created_at)
+                        VALUES (?, ?, ?, ?, ?)""",
+                handoff.id(), handoff.fromWalletId(), handoff.toWalletId(), handoff.amount().toBigDecimal(),
+                Timestamp.valueOf(handoff.createdAt()));
+    }
+
+    /**
+     * @return false if the hand-off was already completed, possibly by a concurrent delivery that this call waited for
+     */
+    public boolean delete(UUID id) {
+        return jdbcTemplate.update("DELETE FROM wallet_transfer_handoffs WHERE id = ?", id) > 0;
+    }
+
+    public List<Handoff> findCreatedBefore(LocalDateTime threshold, int limit) {
+        return jdbcTemplate.query("""
+                        SELECT id, from_wallet_id, to_wallet_id, amount, created_at FROM wallet_transfer_handoffs
+                        WHERE created_at < ? ORDER BY created_at FETCH FIRST ? ROWS ONLY""",
+                (rs, rowNum) -> new Handoff(
+                        rs.getObject("id", UUID.class),
+                        rs.getObject("from_wallet_id", UUID.class),
+                        rs.getObject("to_wallet_id", UUID.class),
+                        Money.of(rs.getBigDecimal("amount")),
+                        rs.getTimestamp("created_at").toLocalDateTime()),
+                Timestamp.valueOf(threshold), limit);
+    }
+
+    /**
+     * The credit half of a transfer. {@code id} becomes the id of the credit ledger row.
+     */
+    public record Handoff(UUID id, UUID fromWalletId, UUID toWalletId, Money amount, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.money.Money;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface WalletBalanceRepository {
+
+    /**
+     * Adds {@code delta} to the balance and bumps the version in a single statement,
+     * unless the resulting balance would be negative.
+     *
+     * @return the new balance, or empty if the wallet does not exist or does not cover the delta
+     */
+    Optional<Money> addToBalanceIfCovered(UUID id, Money delta);
+
+    /**
+     * Adds every delta to its wallet and bumps the versions in one JDBC batch, without any balance check.
+     * Wallets are updated in the iteration order of {@code deltas}.
+     */
+    void addToBalances(Map<UUID, Money> deltas);
+
+    /**
+     * Reads the balance without loading the entity, used to explain a rejected conditional update.
+     */
+    Optional<Money> findBalance(UUID id);
+
+    /**
+     * Reads the balance together with the row version, which tells how fresh a replica read is.
+     */
+    Optional<VersionedBalance> findVersionedBalance(UUID id);
+
+    /**
+     * Reads balances and versions of many wallets in one statement, wallets that do not exist are left out.
+     */
+    Map<UUID, VersionedBalance> findVersionedBalances(Collection<UUID> ids);
+
+    /**
+     * Up to {@code limit} wallets of a user ordered by id, strictly after {@code afterId}; {@code null} for the first
+     * page.
+     */
+    List<WalletResponse> findUserBalancesAfter(UUID userId, UUID afterId, int limit);
+
+    record VersionedBalance(Money balance, long version) {
+    }
+}
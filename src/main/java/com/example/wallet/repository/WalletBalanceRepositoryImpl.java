@@ -0,0 +1,115 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.money.Money;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class WalletBalanceRepositoryImpl implements WalletBalanceRepository {
+    private static final String UPDATE_SQL = """
+            UPDATE wallet SET balance = balance + ?, version = version + 1, updated_at = ?
+            WHERE id = ? AND balance + ? >= 0""";
+    private static final String POSTGRES_UPDATE_RETURNING_SQL = UPDATE_SQL + " RETURNING balance";
+    private static final String H2_UPDATE_RETURNING_SQL = "SELECT balance FROM FINAL TABLE (" + UPDATE_SQL + ")";
+    private static final String ADD_SQL = "UPDATE wallet SET balance = balance + ?, version = version + 1, updated_at = ? WHERE id = ?";
+    private static final String SELECT_BALANCE_SQL = "SELECT balance FROM wallet WHERE id = ?";
+    private static final String SELECT_VERSIONED_BALANCE_SQL = "SELECT balance, version FROM wallet WHERE id = ?";
+    private static final String USER_BALANCES_SQL = "SELECT id, balance, version FROM wallet WHERE user_id = ? ORDER BY id FETCH FIRST ? ROWS ONLY";
+    private static final String USER_BALANCES_AFTER_SQL = "SELECT id, balance, version FROM wallet WHERE user_id = ? AND id > ? ORDER BY id FETCH FIRST ? ROWS ONLY";
+    private static final RowMapper<WalletResponse> USER_BALANCE = (rs, rowNum) ->
+            new WalletResponse(rs.getObject(1, UUID.class), Money.of(rs.getBigDecimal(2)), rs.getLong(3));
+    private static final ResultSetExtractor<Money> SINGLE_BALANCE = rs -> rs.next() ? Money.of(rs.getBigDecimal(1)) : null;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String updateReturningSql;
+
+    @Override
+    public Optional<Money> addToBalanceIfCovered(UUID id, Money delta) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        BigDecimal amount = delta.toBigDecimal();
+        String sql = updateReturningSql();
+        if (sql == null) {
+            int updated = jdbcTemplate.update(UPDATE_SQL, amount, now, id, amount);
+            return updated == 0 ? Optional.empty() : findBalance(id);
+        }
+        return Optional.ofNullable(jdbcTemplate.query(sql, SINGLE_BALANCE, amount, now, id, amount));
+    }
+
+    @Override
+    public void addToBalances(Map<UUID, Money> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(ADD_SQL, deltas.entrySet(), deltas.size(), (ps, delta) -> {
+            ps.setBigDecimal(1, delta.getValue().toBigDecimal());
+            ps.setTimestamp(2, now);
+            ps.setObject(3, delta.getKey());
+        });
+    }
+
+    @Override
+    public Optional<Money> findBalance(UUID id) {
+        return Optional.ofNullable(jdbcTemplate.query(SELECT_BALANCE_SQL, SINGLE_BALANCE, id));
+    }
+
+    @Override
+    public Optional<VersionedBalance> findVersionedBalance(UUID id) {
+        return Optional.ofNullable(jdbcTemplate.query(SELECT_VERSIONED_BALANCE_SQL,
+                rs -> rs.next() ? new VersionedBalance(Money.of(rs.getBigDecimal(1)), rs.getLong(2)) : null, id));
+    }
+
+    @Override
+    public Map<UUID, VersionedBalance> findVersionedBalances(Collection<UUID> ids) {
+        Map<UUID, VersionedBalance> balances = new HashMap<>();
+        if (ids.isEmpty()) {
+            return balances;
+        }
+        String sql = "SELECT id, balance, version FROM wallet WHERE id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        jdbcTemplate.query(sql, rs -> {
+            balances.put(rs.getObject(1, UUID.class), new VersionedBalance(Money.of(rs.getBigDecimal(2)), rs.getLong(3)));
+        }, ids.toArray());
+        return balances;
+    }
+
+    @Override
+    public List<WalletResponse> findUserBalancesAfter(UUID userId, UUID afterId, int limit) {
+        if (afterId == null) {
+            return jdbcTemplate.query(USER_BALANCES_SQL, USER_BALANCE, userId, limit);
+        }
+        return jdbcTemplate.query(USER_BALANCES_AFTER_SQL, USER_BALANCE, userId, afterId, limit);
+    }
+
+    /**
+     * @return a statement that updates and returns the balance in one round trip, or null if the database has none
+     */
+    private String updateReturningSql() {
+        String sql = updateReturningSql;
+        if (sql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            sql = switch (product == null ? "" : product) {
+                case "PostgreSQL" -> POSTGRES_UPDATE_RETURNING_SQL;
+                case "H2" -> H2_UPDATE_RETURNING_SQL;
+                default -> "";
+            };
+            updateReturningSql = sql;
+        }
+        return sql.isEmpty() ? null : sql;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.money.Money;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Plain JDBC access to {@code wallet_balance_slots}. Slot rows are never referenced by other tables,
+ * so locking them does not block ledger inserts the way locking the wallet row does.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletBalanceSlotRepository {
+    private static final String TOTAL_BALANCE_SQL = """
+            SELECT w.balance + COALESCE((SELECT SUM(s.balance) FROM wallet_balance_slots s WHERE s.wallet_id = w.id), 0)
+            FROM wallet w WHERE w.id = ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<UUID> findShardedWalletIds() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT wallet_id FROM wallet_balance_slots", UUID.class);
+    }
+
+    public int countSlots(UUID walletId) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet_balance_slots WHERE wallet_id = ?",
+                Integer.class, walletId);
+        return count == null ? 0 : count;
+    }
+
+    public void insertSlots(UUID walletId, int from, int to) {
+        jdbcTemplate.batchUpdate("INSERT INTO wallet_balance_slots (wallet_id, slot, balance) VALUES (?, ?, 0)",
+                IntStream.range(from, to).mapToObj(slot -> new Object[]{walletId, slot}).toList());
+    }
+
+    /**
+     * @return whether the slot exists
+     */
+    public boolean addToSlot(UUID walletId, int slot, Money amount) {
+        return jdbcTemplate.update("UPDATE wallet_balance_slots SET balance = balance + ? WHERE wallet_id = ? AND slot = ?",
+                amount.toBigDecimal(), walletId, slot) == 1;
+    }
+
+    /**
+     * Locks all slots of the wallet in slot order, so that concurrent lockers cannot deadlock.
+     *
+     * @return the slot balances, indexed by slot
+     */
+    public List<Money> lockSlots(UUID walletId) {
+        return jdbcTemplate.query("SELECT balance FROM wallet_balance_slots WHERE wallet_id = ? ORDER BY slot FOR UPDATE",
+                (rs, rowNum) -> Money.of(rs.getBigDecimal(1)), walletId);
+    }
+
+    public void setSlot(UUID walletId, int slot, Money balance) {
+        jdbcTemplate.update("UPDATE wallet_balance_slots SET balance = ? WHERE wallet_id = ? AND slot = ?",
+                balance.toBigDecimal(), walletId, slot);
+    }
+
+    public void deleteSlots(UUID walletId) {
+        jdbcTemplate.update("DELETE FROM wallet_balance_slots WHERE wallet_id = ?", walletId);
+    }
+
+    /**
+     * Wallet row plus all its slots, in one statement.
+     */
+    public Optional<Money> findTotalBalance(UUID walletId) {
+        return jdbcTemplate.query(TOTAL_BALANCE_SQL, (rs, rowNum) -> Money.of(rs.getBigDecimal(1)), walletId).stream().findFirst();
+    }
+}
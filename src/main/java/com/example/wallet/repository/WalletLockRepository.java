@@ -0,0 +1,18 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.model.Wallet;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface WalletLockRepository {
+
+    /**
+     * Loads the wallet and locks its row until the end of the transaction, waiting for a row locked by another
+     * transaction as configured by {@code wallet.row-lock}.
+     *
+     * @return the wallet, or empty if it does not exist
+     * @throws org.springframework.dao.CannotAcquireLockException if the row stays locked by another transaction
+     */
+    Optional<Wallet> findByIdForUpdate(UUID id);
+}
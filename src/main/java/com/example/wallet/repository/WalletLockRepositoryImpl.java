@@ -0,0 +1,86 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.config.RowLockProperties;
+import com.example.wallet.model.Wallet;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PessimisticLockException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Locks with native SQL: Hibernate drops lock timeout hints on PostgreSQL and all of them on H2.
+ * On PostgreSQL the timeout is set with {@code SET LOCAL lock_timeout} and reset once the row is locked, so it does not
+ * apply to the rest of the transaction; elsewhere it is a {@code FOR UPDATE WAIT} clause.
+ */
+@RequiredArgsConstructor
+public class WalletLockRepositoryImpl implements WalletLockRepository {
+    private static final String LOCK_SQL = "SELECT * FROM wallet WHERE id = ?1 FOR UPDATE";
+    private static final String EXISTS_SQL = "SELECT COUNT(*) FROM wallet WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RowLockProperties properties;
+    @PersistenceContext
+    private EntityManager entityManager;
+    private volatile Boolean postgres;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<Wallet> findByIdForUpdate(UUID id) {
+        RowLockProperties.Mode mode = properties.getMode();
+        long timeoutMillis = properties.getTimeout().toMillis();
+        String sql = switch (mode) {
+            case WAIT -> LOCK_SQL;
+            case TIMEOUT -> isPostgres() ? LOCK_SQL : LOCK_SQL + " WAIT " + timeoutMillis / 1000.0;
+            case NOWAIT -> LOCK_SQL + " NOWAIT";
+            case SKIP_LOCKED -> LOCK_SQL + " SKIP LOCKED";
+        };
+        boolean sessionTimeout = mode == RowLockProperties.Mode.TIMEOUT && isPostgres();
+        if (sessionTimeout) {
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '" + timeoutMillis + "ms'");
+        }
+        List<Wallet> wallets;
+        try {
+            wallets = entityManager.createNativeQuery(sql, Wallet.class).setParameter(1, id).getResultList();
+        } catch (PessimisticLockException | LockTimeoutException exception) {
+            throw locked(id, exception);
+        }
+        // After a timeout the transaction is aborted anyway, nothing to reset.
+        if (sessionTimeout) {
+            jdbcTemplate.execute("SET LOCAL lock_timeout = DEFAULT");
+        }
+        if (!wallets.isEmpty()) {
+            return Optional.of(wallets.get(0));
+        }
+        if (mode == RowLockProperties.Mode.SKIP_LOCKED && exists(id)) {
+            throw locked(id, null);
+        }
+        return Optional.empty();
+    }
+
+    private boolean exists(UUID id) {
+        Integer count = jdbcTemplate.queryForObject(EXISTS_SQL, Integer.class, id);
+        return count != null && count > 0;
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = "PostgreSQL".equals(jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName()));
+            postgres = result;
+        }
+        return result;
+    }
+
+    private static CannotAcquireLockException locked(UUID id, Throwable cause) {
+        return new CannotAcquireLockException("Wallet " + id + " is locked by another transaction", cause);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.dto.WalletEvent;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.model.WalletTransaction;
+import com.example.wallet.money.Money;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Plain JDBC access to {@code wallet_outbox}. Rows are written in the caller's transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletOutboxRepository {
+    private static final String INSERT_SQL = """
+            INSERT INTO wallet_outbox (transaction_id, wallet_id, operation_type, amount, created_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+    private static final String CLAIM_SQL = """
+            SELECT id, transaction_id, wallet_id, operation_type, amount, created_at
+            FROM wallet_outbox WHERE created_at < ? ORDER BY id
+            FETCH FIRST ? ROWS ONLY
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts one event per ledger row, the rows must already have their ids.
+     */
+    public void append(List<WalletTransaction> transactions) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, transactions, transactions.size(), (ps, transaction) -> {
+            ps.setObject(1, transaction.getId());
+            ps.setObject(2, transaction.getWallet().getId());
+            ps.setString(3, transaction.getOperationType().name());
+            ps.setBigDecimal(4, transaction.getAmount().toBigDecimal());
+            ps.setTimestamp(5, Timestamp.valueOf(transaction.getCreatedAt()));
+        });
+    }
+
+    /**
+     * Locks up to {@code limit} of the oldest events created before {@code before}, skipping rows another relay has
+     * claimed. The locks hold until the caller's transaction ends.
+     */
+    public List<WalletEvent> claimBatch(int limit, LocalDateTime before) {
+        return jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new WalletEvent(
+                rs.getLong("id"),
+                rs.getObject("transaction_id", UUID.class),
+                rs.getObject("wallet_id", UUID.class),
+                OperationType.valueOf(rs.getString("operation_type")),
+                Money.of(rs.getBigDecimal("amount")),
+                rs.getTimestamp("created_at").toLocalDateTime()), Timestamp.valueOf(before), limit);
+    }
+
+    public int deleteAll(List<WalletEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(events.size(), "?"));
+        return jdbcTemplate.update("DELETE FROM wallet_outbox WHERE id IN (" + placeholders + ")",
+                events.stream().map(WalletEvent::eventId).toArray());
+    }
+}
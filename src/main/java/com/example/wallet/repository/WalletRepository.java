@@ -1,9 +1,7 @@
 package com.example.wallet.repository;
 
 import com.example.wallet.model.Wallet;
-import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,9 +10,8 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface WalletRepository extends JpaRepository<Wallet, UUID> {
+public interface WalletRepository extends JpaRepository<Wallet, UUID>, WalletBalanceRepository, WalletLockRepository {
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT w FROM Wallet w WHERE w.id = :id")
-    Optional<Wallet> findByIdForUpdate(@Param("id") UUID id);
+    @Query("SELECT w.version FROM Wallet w WHERE w.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
 }
@@ -0,0 +1,16 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.model.WalletTransaction;
+
+import java.util.List;
+
+public interface WalletTransactionAppendRepository {
+
+    /**
+     * Inserts ledger rows in one JDBC batch, bypassing the persistence context.
+     * Ids and timestamps are assigned to the given entities that have none yet.
+     * Unless {@code wallet.outbox.enabled} is off, a balance-change event per row is inserted into the outbox
+     * in the same transaction.
+     */
+    void appendAll(List<WalletTransaction> transactions);
+}
@@ -0,0 +1,44 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.config.OutboxProperties;
+import com.example.wallet.model.WalletTransaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class WalletTransactionAppendRepositoryImpl implements WalletTransactionAppendRepository {
+    private static final String INSERT_SQL = """
+            INSERT INTO wallet_transactions (id, wallet_id, operation_type, amount, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final WalletOutboxRepository outboxRepository;
+    private final OutboxProperties outboxProperties;
+
+    @Override
+    public void appendAll(List<WalletTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        for (WalletTransaction transaction : transactions) {
+            if (transaction.getCreatedAt() == null) {
+                transaction.prepareForInsert();
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, transactions, transactions.size(), (ps, transaction) -> {
+            ps.setObject(1, transaction.getId());
+            ps.setObject(2, transaction.getWallet().getId());
+            ps.setString(3, transaction.getOperationType().name());
+            ps.setBigDecimal(4, transaction.getAmount().toBigDecimal());
+            ps.setTimestamp(5, Timestamp.valueOf(transaction.getCreatedAt()));
+            ps.setTimestamp(6, Timestamp.valueOf(transaction.getUpdatedAt()));
+        });
+        if (outboxProperties.isEnabled()) {
+            outboxRepository.append(transactions);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.dto.WalletTransactionResponse;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.money.Money;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plain JDBC access to {@code wallet_transactions} by month of {@code created_at}, for the archival job.
+ * <p>
+ * On PostgreSQL every month since the migration is a partition {@code wallet_transactions_pYYYYMM} (changeset 14)
+ * and is dropped whole. The months before are in the partition {@code wallet_transactions_legacy}: their rows are
+ * deleted month by month, the partition is dropped once its whole range is archived. Elsewhere, e.g. on H2, a month
+ * is a {@code created_at} range of the plain table and its rows are deleted. Reads go through the parent table with
+ * a {@code created_at} range either way, PostgreSQL prunes it to one partition.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletTransactionArchiveRepository {
+    private static final String PARTITION_PREFIX = "wallet_transactions_p";
+    private static final String LEGACY_PARTITION = "wallet_transactions_legacy";
+    private static final Pattern PARTITION_NAME = Pattern.compile(PARTITION_PREFIX + "(\\d{6})");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('(\\d{4}-\\d{2})-01 00:00:00'\\)");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String PARTITIONED_SQL = """
+            SELECT COUNT(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid
+            WHERE c.relname = 'wallet_transactions'
+            """;
+    private static final String PARTITIONS_SQL = """
+            SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class p ON p.oid = i.inhparent
+            WHERE p.relname = 'wallet_transactions'
+            """;
+    private static final String MONTHS_SQL = """
+            SELECT DISTINCT EXTRACT(YEAR FROM created_at) * 100 + EXTRACT(MONTH FROM created_at)
+            FROM wallet_transactions WHERE created_at < ?
+            """;
+    private static final String UNCOVERED_SQL = """
+            SELECT COUNT(*) FROM wallet_transactions t
+            LEFT JOIN wallet_balance_snapshots s ON s.wallet_id = t.wallet_id
+            WHERE t.created_at >= ? AND t.created_at < ?
+              AND %s
+            """.formatted(BalanceSnapshotRepository.AFTER_CHECKPOINT);
+    private static final String STREAM_SQL = """
+            SELECT wallet_id, id, operation_type, amount, created_at FROM wallet_transactions
+            WHERE created_at >= ? AND created_at < ?
+            ORDER BY wallet_id, created_at, id
+            """;
+    private static final String DELETE_SQL = "DELETE FROM wallet_transactions WHERE created_at >= ? AND created_at < ?";
+    private static final int STREAM_FETCH_SIZE = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean partitioned;
+
+    /**
+     * Creates the monthly partitions from {@code from} to {@code through} that do not exist yet, leaving out the
+     * months of the legacy partition. Without partitioning there is nothing to create.
+     */
+    public void createPartitions(YearMonth from, YearMonth through) {
+        if (!isPartitioned()) {
+            return;
+        }
+        YearMonth legacyEnd = findPartitions().legacyEnd();
+        YearMonth first = legacyEnd != null && legacyEnd.isAfter(from) ? legacyEnd : from;
+        for (YearMonth month = first; !month.isAfter(through); month = month.plusMonths(1)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition(month)
+                    + " PARTITION OF wallet_transactions FOR VALUES FROM ('" + month.atDay(1)
+                    + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+    }
+
+    /**
+     * Months before {@code month} that still hold ledger rows, oldest first. On PostgreSQL these are the monthly
+     * partitions, empty ones included, and the months of the legacy partition from its oldest row on.
+     */
+    public List<YearMonth> findMonthsBefore(YearMonth month) {
+        if (!isPartitioned()) {
+            return jdbcTemplate.queryForList(MONTHS_SQL, Integer.class, start(month)).stream()
+                    .map(value -> YearMonth.of(value / 100, value % 100))
+                    .sorted()
+                    .toList();
+        }
+        Partitions partitions = findPartitions();
+        List<YearMonth> months = new ArrayList<>();
+        if (partitions.legacyEnd() != null) {
+            Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM " + LEGACY_PARTITION,
+                    Timestamp.class);
+            YearMonth end = partitions.legacyEnd().isBefore(month) ? partitions.legacyEnd() : month;
+            for (YearMonth legacy = oldest == null ? end : YearMonth.from(oldest.toLocalDateTime());
+                 legacy.isBefore(end); legacy = legacy.plusMonths(1)) {
+                months.add(legacy);
+            }
+        }
+        partitions.months().stream().filter(partition -> partition.isBefore(month)).forEach(months::add);
+        return months;
+    }
+
+    /**
+     * Ledger rows of the month that the balance snapshot of their wallet does not include yet. Reconciliation
+     * sums exactly those, so they must stay in the table.
+     */
+    public long countNotInSnapshots(YearMonth month) {
+        Long count = jdbcTemplate.queryForObject(UNCOVERED_SQL, Long.class, start(month), start(month.plusMonths(1)));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Streams the ledger rows of the month ordered by wallet, then oldest first. Must run in a transaction,
+     * otherwise PostgreSQL fetches the whole result set at once.
+     */
+    public void streamMonth(YearMonth month, BiConsumer<UUID, WalletTransactionResponse> consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(rs.getObject("wallet_id", UUID.class),
+                new WalletTransactionResponse(
+                        rs.getObject("id", UUID.class),
+                        OperationType.valueOf(rs.getString("operation_type")),
+                        Money.of(rs.getBigDecimal("amount")),
+                        rs.getTimestamp("created_at").toLocalDateTime()));
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(STREAM_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            statement.setTimestamp(1, start(month));
+            statement.setTimestamp(2, start(month.plusMonths(1)));
+            return statement;
+        }, handler);
+    }
+
+    /**
+     * Removes the month from the table: detaches and drops its partition, or deletes its rows. The legacy partition
+     * goes once the month is the last of its range and nothing is left in it.
+     */
+    public void dropMonth(YearMonth month) {
+        if (!isPartitioned()) {
+            jdbcTemplate.update(DELETE_SQL, start(month), start(month.plusMonths(1)));
+            return;
+        }
+        Partitions partitions = findPartitions();
+        if (partitions.months().contains(month)) {
+            detachAndDrop(partition(month));
+            return;
+        }
+        jdbcTemplate.update(DELETE_SQL, start(month), start(month.plusMonths(1)));
+        YearMonth legacyEnd = partitions.legacyEnd();
+        if (legacyEnd != null && !month.plusMonths(1).isBefore(legacyEnd) && Boolean.FALSE.equals(
+                jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + LEGACY_PARTITION + ")", Boolean.class))) {
+            detachAndDrop(LEGACY_PARTITION);
+        }
+    }
+
+    private void detachAndDrop(String partition) {
+        jdbcTemplate.execute("ALTER TABLE wallet_transactions DETACH PARTITION " + partition);
+        jdbcTemplate.execute("DROP TABLE " + partition);
+    }
+
+    /**
+     * The monthly partitions, oldest first, and the month the legacy partition ends before, {@code null} once it
+     * is dropped.
+     */
+    private Partitions findPartitions() {
+        List<YearMonth> months = new ArrayList<>();
+        YearMonth[] legacyEnd = new YearMonth[1];
+        jdbcTemplate.query(PARTITIONS_SQL, (RowCallbackHandler) rs -> {
+            Matcher name = PARTITION_NAME.matcher(rs.getString("relname"));
+            if (name.matches()) {
+                months.add(YearMonth.parse(name.group(1), PARTITION_SUFFIX));
+            } else if (LEGACY_PARTITION.equals(rs.getString("relname"))) {
+                Matcher bound = UPPER_BOUND.matcher(rs.getString("bound"));
+                if (!bound.find()) {
+                    throw new IllegalStateException("Unexpected bound of " + LEGACY_PARTITION + ": " + rs.getString("bound"));
+                }
+                legacyEnd[0] = YearMonth.parse(bound.group(1));
+            }
+        });
+        months.sort(null);
+        return new Partitions(months, legacyEnd[0]);
+    }
+
+    private boolean isPartitioned() {
+        Boolean result = partitioned;
+        if (result == null) {
+            result = "PostgreSQL".equals(jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName()))
+                    && jdbcTemplate.queryForObject(PARTITIONED_SQL, Integer.class) > 0;
+            partitioned = result;
+        }
+        return result;
+    }
+
+    private static String partition(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    private static Timestamp start(YearMonth month) {
+        return Timestamp.valueOf(month.atDay(1).atStartOfDay());
+    }
+
+    private record Partitions(List<YearMonth> months, YearMonth legacyEnd) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.dto.WalletTransactionResponse;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface WalletTransactionHistoryRepository {
+
+    /**
+     * Up to {@code limit} ledger rows of the wallet, newest first, strictly older than ({@code createdAt}, {@code id});
+     * both {@code null} for the first page.
+     */
+    List<WalletTransactionResponse> findHistoryBefore(UUID walletId, LocalDateTime createdAt, UUID id, int limit);
+}
@@ -0,0 +1,53 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.dto.WalletTransactionResponse;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.money.Money;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Seeks on the {@code (wallet_id, created_at DESC, id DESC)} index: the cost of a page does not depend on
+ * how deep it is, unlike {@code OFFSET}.
+ */
+@RequiredArgsConstructor
+public class WalletTransactionHistoryRepositoryImpl implements WalletTransactionHistoryRepository {
+    private static final String COLUMNS = "SELECT id, operation_type, amount, created_at FROM wallet_transactions ";
+    private static final String FIRST_PAGE_SQL = COLUMNS + """
+            WHERE wallet_id = ?
+            ORDER BY created_at DESC, id DESC
+            FETCH FIRST ? ROWS ONLY
+            """;
+    private static final String NEXT_PAGE_SQL = COLUMNS + """
+            WHERE wallet_id = ? AND (created_at, id) < (?, ?)
+            ORDER BY created_at DESC, id DESC
+            FETCH FIRST ? ROWS ONLY
+            """;
+    private static final RowMapper<WalletTransactionResponse> ROW_MAPPER = (rs, rowNum) -> map(rs);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<WalletTransactionResponse> findHistoryBefore(UUID walletId, LocalDateTime createdAt, UUID id, int limit) {
+        if (createdAt == null) {
+            return jdbcTemplate.query(FIRST_PAGE_SQL, ROW_MAPPER, walletId, limit);
+        }
+        return jdbcTemplate.query(NEXT_PAGE_SQL, ROW_MAPPER, walletId, Timestamp.valueOf(createdAt), id, limit);
+    }
+
+    private static WalletTransactionResponse map(ResultSet rs) throws SQLException {
+        return new WalletTransactionResponse(
+                rs.getObject("id", UUID.class),
+                OperationType.valueOf(rs.getString("operation_type")),
+                Money.of(rs.getBigDecimal("amount")),
+                rs.getTimestamp("created_at").toLocalDateTime());
+    }
+}
@@ -5,5 +5,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.UUID;
 
-public interface WalletTransactionRepository extends JpaRepository<WalletTransaction, UUID> {
+public interface WalletTransactionRepository extends JpaRepository<WalletTransaction, UUID>,
+        WalletTransactionAppendRepository, WalletTransactionHistoryRepository {
 }
@@ -0,0 +1,18 @@
+package com.example.wallet.repository.reactive;
+
+import com.example.wallet.model.reactive.WalletRow;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+public interface ReactiveWalletLockRepository {
+
+    /**
+     * Same row lock as {@code WalletRepository.findByIdForUpdate}, held until the surrounding transaction ends and
+     * waiting for a row locked by another transaction as configured by {@code wallet.row-lock}.
+     *
+     * @return the wallet, empty if it does not exist, or a {@link org.springframework.dao.CannotAcquireLockException}
+     * error if the row stays locked by another transaction
+     */
+    Mono<WalletRow> findByIdForUpdate(UUID id);
+}
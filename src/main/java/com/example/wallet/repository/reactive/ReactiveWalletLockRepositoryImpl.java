@@ -0,0 +1,93 @@
+package com.example.wallet.repository.reactive;
+
+import com.example.wallet.config.RowLockProperties;
+import com.example.wallet.model.reactive.WalletRow;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.R2dbcException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * R2DBC counterpart of {@code WalletLockRepositoryImpl}, with the same SQL per mode: on PostgreSQL the timeout is a
+ * {@code SET LOCAL lock_timeout} reset once the row is locked, elsewhere a {@code FOR UPDATE WAIT} clause.
+ * A row that stays locked is a {@link CannotAcquireLockException}, retried by {@code ReactiveWalletService}.
+ */
+@RequiredArgsConstructor
+public class ReactiveWalletLockRepositoryImpl implements ReactiveWalletLockRepository {
+    private static final String LOCK_SQL = "SELECT id, user_id, balance, version FROM wallet WHERE id = :id FOR UPDATE";
+    private static final String EXISTS_SQL = "SELECT COUNT(*) FROM wallet WHERE id = :id";
+    /**
+     * {@code lock_not_available} of PostgreSQL, lock timeout of H2.
+     */
+    private static final Set<String> LOCK_NOT_AVAILABLE = Set.of("55P03", "HYT00");
+
+    private final DatabaseClient databaseClient;
+    private final ConnectionFactory connectionFactory;
+    private final RowLockProperties properties;
+
+    @Override
+    public Mono<WalletRow> findByIdForUpdate(UUID id) {
+        RowLockProperties.Mode mode = properties.getMode();
+        long timeoutMillis = properties.getTimeout().toMillis();
+        boolean postgres = "PostgreSQL".equals(connectionFactory.getMetadata().getName());
+        String sql = switch (mode) {
+            case WAIT -> LOCK_SQL;
+            case TIMEOUT -> postgres ? LOCK_SQL : LOCK_SQL + " WAIT " + timeoutMillis / 1000.0;
+            case NOWAIT -> LOCK_SQL + " NOWAIT";
+            case SKIP_LOCKED -> LOCK_SQL + " SKIP LOCKED";
+        };
+        boolean sessionTimeout = mode == RowLockProperties.Mode.TIMEOUT && postgres;
+        Mono<Void> setTimeout = sessionTimeout
+                ? databaseClient.sql("SET LOCAL lock_timeout = '" + timeoutMillis + "ms'").then()
+                : Mono.empty();
+        // After a timeout the transaction is aborted anyway, nothing to reset.
+        Mono<Void> resetTimeout = sessionTimeout
+                ? databaseClient.sql("SET LOCAL lock_timeout = DEFAULT").then()
+                : Mono.empty();
+        Mono<WalletRow> locked = databaseClient.sql(sql)
+                .bind("id", id)
+                .map((row, metadata) -> new WalletRow(row.get("id", UUID.class), row.get("user_id", UUID.class),
+                        row.get("balance", BigDecimal.class), row.get("version", Long.class)))
+                .one()
+                .onErrorMap(ReactiveWalletLockRepositoryImpl::isLockNotAvailable, exception -> locked(id, exception));
+        Mono<WalletRow> skipped = mode == RowLockProperties.Mode.SKIP_LOCKED
+                ? exists(id).flatMap(exists -> exists ? Mono.error(locked(id, null)) : Mono.empty())
+                : Mono.empty();
+        return setTimeout
+                .then(locked)
+                .flatMap(wallet -> resetTimeout.thenReturn(wallet))
+                .switchIfEmpty(skipped);
+    }
+
+    private Mono<Boolean> exists(UUID id) {
+        return databaseClient.sql(EXISTS_SQL)
+                .bind("id", id)
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one()
+                .map(count -> count > 0);
+    }
+
+    private static boolean isLockNotAvailable(Throwable exception) {
+        if (exception instanceof PessimisticLockingFailureException) {
+            return true;
+        }
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof R2dbcException r2dbcException
+                    && LOCK_NOT_AVAILABLE.contains(r2dbcException.getSqlState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static CannotAcquireLockException locked(UUID id, Throwable cause) {
+        return new CannotAcquireLockException("Wallet " + id + " is locked by another transaction", cause);
+    }
+}
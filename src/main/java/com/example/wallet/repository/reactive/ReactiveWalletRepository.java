@@ -0,0 +1,26 @@
+package com.example.wallet.repository.reactive;
+
+import com.example.wallet.model.reactive.WalletRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * R2DBC counterpart of {@code WalletRepository} for the {@code reactive} profile.
+ */
+public interface ReactiveWalletRepository extends R2dbcRepository<WalletRow, UUID>, ReactiveWalletLockRepository {
+
+    /**
+     * Writes the balance computed from the locked row and bumps the version, as a JPA flush of the entity would.
+     */
+    @Modifying
+    @Query("UPDATE wallet SET balance = :balance, version = version + 1, updated_at = :updatedAt WHERE id = :id")
+    Mono<Integer> updateBalance(@Param("id") UUID id, @Param("balance") BigDecimal balance,
+                                @Param("updatedAt") LocalDateTime updatedAt);
+}
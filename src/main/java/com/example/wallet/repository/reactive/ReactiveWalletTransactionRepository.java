@@ -0,0 +1,34 @@
+package com.example.wallet.repository.reactive;
+
+import com.example.wallet.model.reactive.WalletTransactionRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * R2DBC counterpart of {@code WalletTransactionRepository} for the {@code reactive} profile.
+ */
+public interface ReactiveWalletTransactionRepository extends R2dbcRepository<WalletTransactionRow, UUID> {
+
+    /**
+     * Inserts a ledger row with an id assigned up front, as {@code WalletTransactionRepository.appendAll} does.
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO wallet_transactions (id, wallet_id, operation_type, amount, created_at, updated_at)
+            VALUES (:#{#row.id}, :#{#row.walletId}, :#{#row.operationType}, :#{#row.amount}, :#{#row.createdAt}, :#{#row.createdAt})""")
+    Mono<Integer> append(@Param("row") WalletTransactionRow row);
+
+    /**
+     * The outbox event of a ledger row, written in the same transaction as {@code WalletOutboxRepository.append}.
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO wallet_outbox (transaction_id, wallet_id, operation_type, amount, created_at)
+            VALUES (:#{#row.id}, :#{#row.walletId}, :#{#row.operationType}, :#{#row.amount}, :#{#row.createdAt})""")
+    Mono<Integer> appendEvent(@Param("row") WalletTransactionRow row);
+}
@@ -0,0 +1,266 @@
+package com.example.wallet.service;
+
+import com.example.wallet.config.BatchProperties;
+import com.example.wallet.dto.BatchItemResult;
+import com.example.wallet.dto.BatchResponse;
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletOperation;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.enums.BatchItemStatus;
+import com.example.wallet.enums.BatchMode;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.exceptions.BatchSizeExceededException;
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.exceptions.SameWalletTransferException;
+import com.example.wallet.exceptions.UnsupportedInLedgerModeException;
+import com.example.wallet.metrics.MeteredOperation;
+import com.example.wallet.metrics.WalletMetrics;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.model.WalletTransaction;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.service.cache.BalanceCache;
+import com.example.wallet.service.ledger.LedgerEngine;
+import com.example.wallet.service.retry.ContentionRetry;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Applies many updates and transfers in few transactions.
+ * <p>
+ * Every transaction first locks all wallets its items touch, in the same UUID order that
+ * {@link WalletService#transferBetweenWallets} uses, so batches cannot deadlock with each other or with transfers.
+ * Items are then validated and applied in memory on the locked rows and the ledger rows of the whole
+ * transaction are written in one JDBC batch. A transaction that failed on a row lock (for example the
+ * {@code wallet.row-lock.timeout}) is retried through {@link ContentionRetry} like single updates and transfers.
+ * <ul>
+ *     <li>{@link BatchMode#ATOMIC}: one transaction, the first failing item rolls everything back.</li>
+ *     <li>{@link BatchMode#BEST_EFFORT}: one transaction per chunk, failing items are skipped.</li>
+ * </ul>
+ * Batches work on the wallet rows and are rejected in ledger mode, where the rows are only a projection.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WalletBatchService {
+    private final WalletRepository walletRepository;
+    private final WalletTransactionRepository walletTransactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final BatchProperties batchProperties;
+    private final WalletMetrics walletMetrics;
+    private final BalanceCache balanceCache;
+    private final LedgerEngine ledgerEngine;
+    private final ContentionRetry contentionRetry;
+
+    public BatchResponse apply(List<WalletOperation> items, BatchMode mode) {
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+        apply(items.iterator(), mode, results::add);
+        int applied = (int) results.stream().filter(result -> result.status() == BatchItemStatus.APPLIED).count();
+        int failed = (int) results.stream().filter(result -> result.status() == BatchItemStatus.FAILED).count();
+        return new BatchResponse(mode, applied, failed, results);
+    }
+
+    /**
+     * Streams results chunk by chunk as items are read. Atomic batches are read completely first.
+     */
+    public void apply(Iterator<WalletOperation> items, BatchMode mode, Consumer<BatchItemResult> sink) {
+        checkAvailable();
+        long startedAt = System.nanoTime();
+        try {
+            if (mode == BatchMode.ATOMIC) {
+                List<WalletOperation> all = new ArrayList<>();
+                while (items.hasNext()) {
+                    if (all.size() == batchProperties.getMaxAtomicItems()) {
+                        throw new BatchSizeExceededException(batchProperties.getMaxAtomicItems());
+                    }
+                    all.add(items.next());
+                }
+                applyAtomic(all).forEach(sink);
+            } else {
+                int firstIndex = 0;
+                List<WalletOperation> chunk = new ArrayList<>(batchProperties.getChunkSize());
+                while (items.hasNext()) {
+                    chunk.add(items.next());
+                    if (chunk.size() == batchProperties.getChunkSize() || !items.hasNext()) {
+                        applyBestEffort(chunk, firstIndex).forEach(sink);
+                        firstIndex += chunk.size();
+                        chunk.clear();
+                    }
+                }
+            }
+            walletMetrics.recordOperation(MeteredOperation.BATCH, startedAt, null);
+        } catch (RuntimeException exception) {
+            walletMetrics.recordOperation(MeteredOperation.BATCH, startedAt, exception);
+            throw exception;
+        }
+    }
+
+    /**
+     * Lets a streaming caller fail before it starts the response.
+     */
+    public void checkAvailable() {
+        if (ledgerEngine.isEnabled()) {
+            throw new UnsupportedInLedgerModeException("Batches are not available while wallet.ledger.enabled is on");
+        }
+    }
+
+    private List<BatchItemResult> applyAtomic(List<WalletOperation> items) {
+        try {
+            return inTransaction(items, 0, true);
+        } catch (ItemFailure failure) {
+            log.warn("Atomic batch of {} items rolled back at item {}: {}", items.size(), failure.index, failure.getMessage());
+            List<BatchItemResult> results = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                results.add(i == failure.index ? BatchItemResult.failed(i, failure.getMessage()) : BatchItemResult.rolledBack(i));
+            }
+            return results;
+        }
+    }
+
+    private List<BatchItemResult> applyBestEffort(List<WalletOperation> chunk, int firstIndex) {
+        try {
+            return inTransaction(chunk, firstIndex, false);
+        } catch (RuntimeException exception) {
+            log.warn("Batch chunk of {} items starting at {} failed: {}", chunk.size(), firstIndex, exception.getMessage());
+            List<BatchItemResult> results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(BatchItemResult.failed(firstIndex + i, "Transaction failed: " + exception.getMessage()));
+            }
+            return results;
+        }
+    }
+
+    private List<BatchItemResult> inTransaction(List<WalletOperation> items, int firstIndex, boolean atomic) {
+        Set<UUID> walletIds = walletIds(items);
+        return contentionRetry.execute(MeteredOperation.BATCH, walletIds, () -> transactionTemplate.execute(
+                status -> applyInTransaction(items, walletIds, firstIndex, atomic)));
+    }
+
+    private List<BatchItemResult> applyInTransaction(List<WalletOperation> items, Set<UUID> walletIds, int firstIndex,
+                                                     boolean atomic) {
+        walletMetrics.monitorTransaction(MeteredOperation.BATCH);
+        Map<UUID, Wallet> wallets = lockWallets(walletIds);
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+        List<WalletTransaction> ledger = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            int index = firstIndex + i;
+            try {
+                results.add(BatchItemResult.applied(index, applyItem(items.get(i), wallets, ledger)));
+            } catch (ConstraintViolationException | EntityNotFoundException | InsufficientFundsException |
+                     SameWalletTransferException exception) {
+                if (atomic) {
+                    throw new ItemFailure(index, exception.getMessage());
+                }
+                results.add(BatchItemResult.failed(index, exception.getMessage()));
+            }
+        }
+        walletTransactionRepository.appendAll(ledger);
+        wallets.keySet().forEach(balanceCache::invalidateAfterCommit);
+        return results;
+    }
+
+    private static Set<UUID> walletIds(List<WalletOperation> items) {
+        Set<UUID> ids = new TreeSet<>();
+        for (WalletOperation item : items) {
+            if (item instanceof WalletRequest update && update.walletId() != null) {
+                ids.add(update.walletId());
+            } else if (item instanceof TransferRequest transfer) {
+                if (transfer.fromWalletId() != null) {
+                    ids.add(transfer.fromWalletId());
+                }
+                if (transfer.toWalletId() != null) {
+                    ids.add(transfer.toWalletId());
+                }
+            }
+        }
+        return ids;
+    }
+
+    private Map<UUID, Wallet> lockWallets(Set<UUID> ids) {
+        long startedAt = System.nanoTime();
+        Map<UUID, Wallet> wallets = new HashMap<>();
+        for (UUID id : ids) {
+            walletRepository.findByIdForUpdate(id).ifPresent(wallet -> wallets.put(id, wallet));
+        }
+        walletMetrics.recordLockAcquire(MeteredOperation.BATCH, startedAt);
+        return wallets;
+    }
+
+    private List<WalletResponse> applyItem(WalletOperation item, Map<UUID, Wallet> wallets, List<WalletTransaction> ledger) {
+        Set<ConstraintViolation<WalletOperation>> violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        if (item instanceof TransferRequest transfer) {
+            return applyTransfer(transfer, wallets, ledger);
+        }
+        WalletRequest update = (WalletRequest) item;
+        Wallet wallet = lockedWallet(wallets, update.walletId());
+        if (update.operationType() == OperationType.WITHDRAW) {
+            debit(wallet, update.amount());
+        } else {
+            wallet.setBalance(wallet.getBalance().plus(update.amount()));
+        }
+        ledger.add(new WalletTransaction(wallet, update.operationType(), update.amount()));
+        return List.of(new WalletResponse(wallet.getId(), wallet.getBalance()));
+    }
+
+    private List<WalletResponse> applyTransfer(TransferRequest transfer, Map<UUID, Wallet> wallets, List<WalletTransaction> ledger) {
+        if (transfer.fromWalletId().equals(transfer.toWalletId())) {
+            throw new SameWalletTransferException("wallet from and wallet to has the same id: " + transfer.fromWalletId());
+        }
+        Wallet from = lockedWallet(wallets, transfer.fromWalletId());
+        Wallet to = lockedWallet(wallets, transfer.toWalletId());
+        debit(from, transfer.amount());
+        to.setBalance(to.getBalance().plus(transfer.amount()));
+        ledger.add(new WalletTransaction(from, OperationType.WITHDRAW, transfer.amount()));
+        ledger.add(new WalletTransaction(to, OperationType.DEPOSIT, transfer.amount()));
+        return List.of(new WalletResponse(from.getId(), from.getBalance()), new WalletResponse(to.getId(), to.getBalance()));
+    }
+
+    private static Wallet lockedWallet(Map<UUID, Wallet> wallets, UUID id) {
+        Wallet wallet = wallets.get(id);
+        if (wallet == null) {
+            throw new EntityNotFoundException("Wallet not found");
+        }
+        return wallet;
+    }
+
+    private static void debit(Wallet wallet, Money amount) {
+        if (wallet.getBalance().compareTo(amount) < 0) {
+            throw new InsufficientFundsException(wallet.getId().toString(), wallet.getBalance(), amount);
+        }
+        wallet.setBalance(wallet.getBalance().minus(amount));
+    }
+
+    /**
+     * Rolls back an atomic batch and carries the index of the item that caused it.
+     */
+    private static final class ItemFailure extends RuntimeException {
+        private final int index;
+
+        private ItemFailure(int index, String message) {
+            super(message, null, false, false);
+            this.index = index;
+        }
+    }
+}
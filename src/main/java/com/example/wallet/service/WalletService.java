@@ -1,45 +1,188 @@
 package com.example.wallet.service;
 
+import com.example.wallet.dto.HistoryCursor;
+import com.example.wallet.dto.TransactionHistoryResponse;
 import com.example.wallet.dto.TransferRequest;
 import com.example.wallet.dto.WalletRequest;
 import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.dto.WalletTransactionResponse;
 import com.example.wallet.enums.OperationType;
 import com.example.wallet.exceptions.InsufficientFundsException;
 import com.example.wallet.exceptions.SameWalletTransferException;
+import com.example.wallet.exceptions.UnsupportedInLedgerModeException;
+import com.example.wallet.metrics.MeteredOperation;
+import com.example.wallet.metrics.WalletMetrics;
 import com.example.wallet.model.Wallet;
 import com.example.wallet.model.WalletTransaction;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.TransferHandoffRepository;
+import com.example.wallet.repository.TransferHandoffRepository.Handoff;
 import com.example.wallet.repository.WalletRepository;
 import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.service.WalletWriteCombiner.BatchOutcome;
+import com.example.wallet.service.archive.TransactionArchive;
+import com.example.wallet.service.balance.BalanceMutationStrategy;
+import com.example.wallet.service.balance.ShardedBalanceService;
+import com.example.wallet.service.cache.BalanceCache;
+import com.example.wallet.service.idempotency.IdempotencyStore;
+import com.example.wallet.service.ledger.LedgerEngine;
+import com.example.wallet.service.replica.ReplicaBalanceReader;
+import com.example.wallet.service.retry.ContentionRetry;
+import com.example.wallet.service.shard.WalletCommandProcessor;
+import com.example.wallet.util.TimeOrderedUuid;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.CannotAcquireLockException;
-import org.springframework.dao.PessimisticLockingFailureException;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class WalletService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 500;
+
     private final WalletRepository walletRepository;
     private final WalletTransactionRepository walletTransactionRepository;
+    private final WalletWriteCombiner walletWriteCombiner;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceMutationStrategy balanceMutationStrategy;
+    private final ShardedBalanceService shardedBalanceService;
+    private final WalletMetrics walletMetrics;
+    private final BalanceCache balanceCache;
+    private final IdempotencyStore idempotencyStore;
+    private final LedgerEngine ledgerEngine;
+    private final WalletCommandProcessor commandProcessor;
+    private final TransferHandoffRepository transferHandoffRepository;
+    private final ContentionRetry contentionRetry;
+    private final ReplicaBalanceReader replicaBalanceReader;
+    private final TransactionArchive transactionArchive;
 
-    @Transactional
     public WalletResponse updateWallet(WalletRequest request) {
-        Wallet wallet = getWalletForUpdate(request.walletId());
-        validateOperation(wallet, request);
-        applyUpdateOperation(wallet, request);
+        return updateWallet(request, null);
+    }
+
+    /**
+     * With command sharding the update runs on the shard owning the wallet, see {@link WalletCommandProcessor}.
+     * Otherwise it runs on the calling thread and the returned future is already completed.
+     */
+    public CompletableFuture<WalletResponse> updateWalletAsync(WalletRequest request, String idempotencyKey) {
+        if (!commandProcessor.isEnabled()) {
+            return CompletableFuture.completedFuture(updateWallet(request, idempotencyKey));
+        }
+        return commandProcessor.submit(request.walletId(), () -> updateWallet(request, idempotencyKey));
+    }
+
+    /**
+     * In write combining mode concurrent requests for the same wallet are applied in batches,
+     * see {@link WalletWriteCombiner}. Each caller still gets its own response or exception.
+     * Requests with an idempotency key, requests to sharded wallets and requests on shard threads are never combined.
+     * In ledger mode requests go straight to the {@link LedgerEngine}, without a transaction and without retries,
+     * requests with an idempotency key are rejected there. Other requests are retried after lock failures by
+     * {@link ContentionRetry}.
+     */
+    public WalletResponse updateWallet(WalletRequest request, String idempotencyKey) {
+        MeteredOperation operation = MeteredOperation.of(request.operationType());
+        long startedAt = System.nanoTime();
+        try {
+            WalletResponse response;
+            if (ledgerEngine.isEnabled()) {
+                rejectIdempotencyKeyInLedgerMode(idempotencyKey);
+                response = ledgerEngine.update(request);
+            } else if (idempotencyKey == null && walletWriteCombiner.isEnabled() && !commandProcessor.isEnabled()
+                    && !shardedBalanceService.isSharded(request.walletId())) {
+                response = contentionRetry.execute(operation, request.walletId(),
+                        () -> walletWriteCombiner.submit(request, this::applyBatch));
+            } else {
+                long fingerprint = IdempotencyStore.fingerprint(request.walletId(), request.operationType(),
+                        request.amount());
+                response = contentionRetry.execute(operation, request.walletId(), () -> idempotencyStore.execute(
+                        idempotencyKey, fingerprint, () -> transactionTemplate.execute(status -> {
+                            idempotencyStore.claim(idempotencyKey, fingerprint);
+                            WalletResponse applied = applyUpdate(request, operation);
+                            idempotencyStore.complete(idempotencyKey, fingerprint, applied);
+                            return applied;
+                        })));
+            }
+            walletMetrics.recordOperation(operation, startedAt, null);
+            return response;
+        } catch (RuntimeException exception) {
+            walletMetrics.recordOperation(operation, startedAt, exception);
+            throw exception;
+        }
+    }
+
+    private WalletResponse applyUpdate(WalletRequest request, MeteredOperation operation) {
+        walletMetrics.monitorTransaction(operation);
+        balanceCache.invalidateAfterCommit(request.walletId());
+        Money delta = request.operationType() == OperationType.WITHDRAW ? request.amount().negate() : request.amount();
+        Money balance = applyBalanceChange(operation, request.walletId(), delta);
+
+        Wallet wallet = walletRepository.getReferenceById(request.walletId());
+        WalletTransaction transaction = new WalletTransaction(wallet, request.operationType(), request.amount());
+        walletTransactionRepository.appendAll(List.of(transaction));
+        return new WalletResponse(request.walletId(), balance, writtenVersion(request.walletId()));
+    }
+
+    /**
+     * Batches are applied to the locked entity regardless of the balance mutation strategy:
+     * the single row lock per batch is what write combining is about.
+     */
+    private List<BatchOutcome> applyBatch(UUID walletId, List<WalletRequest> requests) {
+        return transactionTemplate.execute(status -> {
+            walletMetrics.monitorTransaction(MeteredOperation.COMBINED_UPDATE);
+            balanceCache.invalidateAfterCommit(walletId);
+            long lockStartedAt = System.nanoTime();
+            Wallet wallet = getWalletForUpdate(walletId);
+            walletMetrics.recordLockAcquire(MeteredOperation.COMBINED_UPDATE, lockStartedAt);
+            List<BatchOutcome> outcomes = new ArrayList<>(requests.size());
+            List<WalletTransaction> transactions = new ArrayList<>(requests.size());
+            for (WalletRequest request : requests) {
+                try {
+                    validateOperation(wallet, request);
+                } catch (InsufficientFundsException exception) {
+                    outcomes.add(BatchOutcome.failure(exception));
+                    continue;
+                }
+                applyUpdateOperation(wallet, request);
 
-        WalletTransaction transaction = createTransaction(wallet, request);
-        wallet.getWalletTransactions().add(transaction);
-        return new WalletResponse(wallet.getId(), wallet.getBalance());
+                transactions.add(new WalletTransaction(wallet, request.operationType(), request.amount()));
+                outcomes.add(BatchOutcome.success(new WalletResponse(wallet.getId(), wallet.getBalance())));
+            }
+            walletTransactionRepository.appendAll(transactions);
+            Long version = writtenVersion(walletId);
+            if (version != null) {
+                outcomes.replaceAll(outcome -> outcome.response() == null ? outcome
+                        : BatchOutcome.success(new WalletResponse(walletId, outcome.response().balance(), version)));
+            }
+            return outcomes;
+        });
+    }
+
+    /**
+     * Version of the wallet row as written by the current transaction, the read-your-writes token of the replica.
+     * Not read unless the replica is enabled, it costs a query.
+     */
+    private Long writtenVersion(UUID walletId) {
+        return replicaBalanceReader.isEnabled() ? walletRepository.findVersionById(walletId).orElse(null) : null;
+    }
+
+    private Money applyBalanceChange(MeteredOperation operation, UUID walletId, Money delta) {
+        long startedAt = System.nanoTime();
+        try {
+            return shardedBalanceService.isSharded(walletId)
+                    ? shardedBalanceService.apply(walletId, delta)
+                    : balanceMutationStrategy.apply(walletId, delta);
+        } finally {
+            walletMetrics.recordLockAcquire(operation, startedAt);
+        }
     }
 
     public Wallet getWalletForUpdate(UUID id) {
@@ -55,71 +198,250 @@ public class WalletService {
     }
 
     private void applyUpdateOperation(Wallet wallet, WalletRequest request) {
-        BigDecimal walletBalance = wallet.getBalance();
-        BigDecimal amount = request.amount();
+        Money walletBalance = wallet.getBalance();
+        Money amount = request.amount();
         if (request.operationType() == OperationType.DEPOSIT) {
-            wallet.setBalance(walletBalance.add(amount));
+            wallet.setBalance(walletBalance.plus(amount));
         } else if (request.operationType() == OperationType.WITHDRAW) {
-            wallet.setBalance(walletBalance.subtract(amount));
+            wallet.setBalance(walletBalance.minus(amount));
         }
     }
 
-    private WalletTransaction createTransaction(Wallet wallet, WalletRequest request) {
-        WalletTransaction transaction = new WalletTransaction(wallet, request.operationType(), request.amount());
-        return walletTransactionRepository.save(transaction);
+    public WalletResponse getBalance(UUID walletId) {
+        return getBalance(walletId, null);
     }
 
-    @Transactional(readOnly = true)
-    public WalletResponse getBalance(UUID walletId) {
-        Wallet wallet = walletRepository.findById(walletId)
+    /**
+     * Version of the wallet row without reading the balance, the validator of conditional balance reads.
+     * {@code null} in ledger mode and for sharded wallets: their balance changes without the version moving.
+     */
+    public Long getBalanceVersion(UUID walletId) {
+        if (ledgerEngine.isEnabled() || shardedBalanceService.isSharded(walletId)) {
+            return null;
+        }
+        return walletRepository.findVersionById(walletId)
                 .orElseThrow(() -> new EntityNotFoundException("Wallet not found"));
-        return new WalletResponse(wallet.getId(), wallet.getBalance());
     }
 
     /**
-     * <a href="https://medium.com/@AlexanderObregon/using-springs-retryable-annotation-for-automatic-retries-c1d197bc199f">...</a>
+     * Runs without a transaction of its own, so that cache hits never take a connection from the pool.
+     * Sharded wallets are not cached: their deposits do not change the wallet row version.
+     * With the read replica enabled the balance is read there and the cache is not used, see
+     * {@link ReplicaBalanceReader} for {@code minVersion}.
      */
-    @Retryable(
-            retryFor = {CannotAcquireLockException.class, PessimisticLockingFailureException.class},
-            maxAttempts = 3,
-            backoff = @Backoff(delay = 100, multiplier = 2)
-    )
-    @Transactional
-    public void transferBetweenWallets(TransferRequest request) {
+    public WalletResponse getBalance(UUID walletId, Long minVersion) {
+        long startedAt = System.nanoTime();
+        try {
+            WalletResponse response;
+            if (ledgerEngine.isEnabled()) {
+                response = ledgerEngine.getBalance(walletId);
+            } else if (shardedBalanceService.isSharded(walletId)) {
+                response = new WalletResponse(walletId, shardedBalanceService.getBalance(walletId));
+            } else if (replicaBalanceReader.isEnabled()) {
+                response = replicaBalanceReader.getBalance(walletId, minVersion);
+            } else if (balanceCache.isEnabled()) {
+                response = balanceCache.getBalance(walletId);
+            } else {
+                response = walletRepository.findVersionedBalance(walletId)
+                        .map(balance -> new WalletResponse(walletId, balance.balance(), balance.version()))
+                        .orElseThrow(() -> new EntityNotFoundException("Wallet not found"));
+            }
+            walletMetrics.recordOperation(MeteredOperation.BALANCE_READ, startedAt, null);
+            return response;
+        } catch (RuntimeException exception) {
+            walletMetrics.recordOperation(MeteredOperation.BALANCE_READ, startedAt, exception);
+            throw exception;
+        }
+    }
+
+    /**
+     * Reads one page of the ledger of a wallet, newest first, seeking past {@code cursor}.
+     * The history is never loaded through the {@link Wallet} entity, so its size does not affect balance mutations.
+     * Archived months are merged in, see {@link TransactionArchive}.
+     */
+    @Transactional(readOnly = true)
+    public TransactionHistoryResponse getTransactionHistory(UUID walletId, String cursor, int size) {
+        if (!walletRepository.existsById(walletId)) {
+            throw new EntityNotFoundException("Wallet not found");
+        }
+        int pageSize = Math.min(Math.max(size, 1), MAX_HISTORY_PAGE_SIZE);
+        HistoryCursor after = cursor == null || cursor.isEmpty() ? null : HistoryCursor.decode(cursor);
+        LocalDateTime createdAt = after == null ? null : after.createdAt();
+        UUID id = after == null ? null : after.id();
+        List<WalletTransactionResponse> rows = transactionArchive.mergeHistoryBefore(walletId, createdAt, id, pageSize + 1,
+                walletTransactionRepository.findHistoryBefore(walletId, createdAt, id, pageSize + 1));
+        boolean hasNext = rows.size() > pageSize;
+        List<WalletTransactionResponse> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? HistoryCursor.of(page.get(pageSize - 1)).encode() : null;
+        return new TransactionHistoryResponse(page, pageSize, nextCursor, hasNext);
+    }
+
+    /**
+     * Lock failures are retried by {@link ContentionRetry}, tracked on both wallets. In ledger mode the transfer goes
+     * to the {@link LedgerEngine} as in {@link #updateWallet(WalletRequest, String)}.
+     */
+    public void transferBetweenWallets(TransferRequest request, String idempotencyKey) {
+        long startedAt = System.nanoTime();
+        try {
+            checkDistinctWallets(request);
+            if (ledgerEngine.isEnabled()) {
+                rejectIdempotencyKeyInLedgerMode(idempotencyKey);
+                ledgerEngine.transfer(request);
+            } else {
+                long fingerprint = IdempotencyStore.fingerprint(request.fromWalletId(), request.toWalletId(),
+                        request.amount());
+                contentionRetry.execute(MeteredOperation.TRANSFER, request.fromWalletId(), request.toWalletId(),
+                        () -> idempotencyStore.execute(idempotencyKey, fingerprint, () -> transactionTemplate.execute(status -> {
+                            idempotencyStore.claim(idempotencyKey, fingerprint);
+                            applyTransfer(request);
+                            idempotencyStore.complete(idempotencyKey, fingerprint, null);
+                            return null;
+                        })));
+            }
+            walletMetrics.recordOperation(MeteredOperation.TRANSFER, startedAt, null);
+        } catch (RuntimeException exception) {
+            walletMetrics.recordOperation(MeteredOperation.TRANSFER, startedAt, exception);
+            throw exception;
+        }
+    }
+
+    /**
+     * With command sharding a transfer between wallets of the same shard runs there in one transaction.
+     * Otherwise it is split in two phases:
+     * <ol>
+     *     <li>the source shard debits the source wallet and records a {@link Handoff} in the same transaction;</li>
+     *     <li>the destination shard credits the destination wallet and deletes the hand-off in one transaction,
+     *     see {@link #applyHandoff}.</li>
+     * </ol>
+     * The future completes once the debit is committed, the credit follows right behind it. A credit that fails is
+     * delivered again by {@code TransferHandoffRecovery}, so a committed transfer is always credited exactly once.
+     * Without command sharding, and in ledger mode, the transfer runs on the calling thread.
+     */
+    public CompletableFuture<Void> transferBetweenWalletsAsync(TransferRequest request, String idempotencyKey) {
+        if (!commandProcessor.isEnabled() || ledgerEngine.isEnabled()) {
+            transferBetweenWallets(request, idempotencyKey);
+            return CompletableFuture.completedFuture(null);
+        }
+        checkDistinctWallets(request);
+        long fingerprint = IdempotencyStore.fingerprint(request.fromWalletId(), request.toWalletId(),
+                request.amount());
+        if (commandProcessor.sameShard(request.fromWalletId(), request.toWalletId())) {
+            return commandProcessor.submit(request.fromWalletId(), () -> {
+                contentionRetry.execute(MeteredOperation.TRANSFER, request.fromWalletId(), request.toWalletId(),
+                        () -> idempotencyStore.execute(idempotencyKey, fingerprint, () -> transactionTemplate.execute(status -> {
+                            idempotencyStore.claim(idempotencyKey, fingerprint);
+                            applyTransfer(request);
+                            idempotencyStore.complete(idempotencyKey, fingerprint, null);
+                            return null;
+                        })));
+                return null;
+            });
+        }
+        return commandProcessor.submit(request.fromWalletId(), () -> {
+            Handoff handoff = contentionRetry.execute(MeteredOperation.TRANSFER, request.fromWalletId(),
+                    () -> debitForHandoff(request, idempotencyKey, fingerprint));
+            if (handoff != null) {
+                commandProcessor.submit(handoff.toWalletId(), () -> applyHandoff(handoff))
+                        .exceptionally(exception -> {
+                            log.warn("Credit of transfer hand-off {} failed, it is delivered again later: {}",
+                                    handoff.id(), exception.getMessage());
+                            return false;
+                        });
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return {@code null} if the idempotency key was replayed and nothing was debited
+     */
+    private Handoff debitForHandoff(TransferRequest request, String idempotencyKey, long fingerprint) {
+        Handoff[] created = new Handoff[1];
+        idempotencyStore.execute(idempotencyKey, fingerprint, () -> transactionTemplate.execute(status -> {
+            idempotencyStore.claim(idempotencyKey, fingerprint);
+            walletMetrics.monitorTransaction(MeteredOperation.TRANSFER);
+            UUID fromId = request.fromWalletId();
+            UUID toId = request.toWalletId();
+            if (!walletRepository.existsById(toId)) {
+                throw new EntityNotFoundException("Wallet not found");
+            }
+            balanceCache.invalidateAfterCommit(fromId);
+            applyBalanceChange(MeteredOperation.TRANSFER, fromId, request.amount().negate());
+            walletTransactionRepository.appendAll(List.of(new WalletTransaction(
+                    walletRepository.getReferenceById(fromId), OperationType.WITHDRAW, request.amount())));
+            Handoff handoff = new Handoff(TimeOrderedUuid.next(), fromId, toId, request.amount(), LocalDateTime.now());
+            transferHandoffRepository.insert(handoff);
+            idempotencyStore.complete(idempotencyKey, fingerprint, null);
+            created[0] = handoff;
+            return null;
+        }));
+        return created[0];
+    }
+
+    /**
+     * Second phase of a cross-shard transfer, must run on the shard owning the destination wallet. The hand-off is
+     * deleted before the credit, in the same transaction, so a repeated delivery finds nothing and changes nothing.
+     * The credit ledger row gets a fresh time-ordered id like any other row.
+     *
+     * @return false if the hand-off was already applied
+     */
+    public boolean applyHandoff(Handoff handoff) {
+        Boolean applied = transactionTemplate.execute(status -> {
+            if (!transferHandoffRepository.delete(handoff.id())) {
+                return false;
+            }
+            walletMetrics.monitorTransaction(MeteredOperation.TRANSFER);
+            balanceCache.invalidateAfterCommit(handoff.toWalletId());
+            applyBalanceChange(MeteredOperation.TRANSFER, handoff.toWalletId(), handoff.amount());
+            WalletTransaction credit = new WalletTransaction(walletRepository.getReferenceById(handoff.toWalletId()),
+                    OperationType.DEPOSIT, handoff.amount());
+            walletTransactionRepository.appendAll(List.of(credit));
+            return true;
+        });
+        return Boolean.TRUE.equals(applied);
+    }
+
+    private static void checkDistinctWallets(TransferRequest request) {
         if (request.fromWalletId().equals(request.toWalletId())) {
             String message = "wallet from and wallet to has the same id: " + request.fromWalletId();
             throw new SameWalletTransferException(message);
         }
+    }
+
+    /**
+     * The journal entry of the {@link LedgerEngine} cannot be rolled back with the idempotency record, and a failure
+     * after the append leaves the mutation applied: a keyed retry would apply it twice.
+     */
+    private static void rejectIdempotencyKeyInLedgerMode(String idempotencyKey) {
+        if (idempotencyKey != null) {
+            throw new UnsupportedInLedgerModeException("Idempotency-Key is not available while wallet.ledger.enabled is on");
+        }
+    }
+
+    private void applyTransfer(TransferRequest request) {
+        walletMetrics.monitorTransaction(MeteredOperation.TRANSFER);
         UUID fromId = request.fromWalletId();
         UUID toId = request.toWalletId();
+        Money amount = request.amount();
+        balanceCache.invalidateAfterCommit(fromId);
+        balanceCache.invalidateAfterCommit(toId);
 
-        Wallet firstToLock;
-        Wallet secondToLock;
-
+        // Rows are always changed in id order, so opposite transfers cannot deadlock.
+        // A rejected debit after the credit rolls back the whole transaction.
         if (fromId.compareTo(toId) < 0) {
-            firstToLock = getWalletForUpdate(fromId);
-            secondToLock = getWalletForUpdate(toId);
+            applyBalanceChange(MeteredOperation.TRANSFER, fromId, amount.negate());
+            applyBalanceChange(MeteredOperation.TRANSFER, toId, amount);
         } else {
-            secondToLock = getWalletForUpdate(toId);
-            firstToLock = getWalletForUpdate(fromId);
+            applyBalanceChange(MeteredOperation.TRANSFER, toId, amount);
+            applyBalanceChange(MeteredOperation.TRANSFER, fromId, amount.negate());
         }
 
-        Wallet walletFrom = fromId.equals(firstToLock.getId()) ? firstToLock : secondToLock;
-        Wallet walletTo = toId.equals(firstToLock.getId()) ? firstToLock : secondToLock;
-
-        if (walletFrom.getBalance().compareTo(request.amount()) < 0) {
-            throw new InsufficientFundsException(walletFrom.getId().toString(), walletFrom.getBalance(), request.amount());
-        }
-        walletFrom.setBalance(walletFrom.getBalance().subtract(request.amount()));
-        walletTo.setBalance(walletTo.getBalance().add(request.amount()));
-
-        WalletTransaction debitTransaction = new WalletTransaction(walletFrom, OperationType.WITHDRAW, request.amount());
-        WalletTransaction creditTransaction = new WalletTransaction(walletTo, OperationType.DEPOSIT, request.amount());
-
-        walletFrom.getWalletTransactions().add(debitTransaction);
-        walletTo.getWalletTransactions().add(creditTransaction);
+        Wallet walletFrom = walletRepository.getReferenceById(fromId);
+        Wallet walletTo = walletRepository.getReferenceById(toId);
+        WalletTransaction debitTransaction = new WalletTransaction(walletFrom, OperationType.WITHDRAW, amount);
+        WalletTransaction creditTransaction = new WalletTransaction(walletTo, OperationType.DEPOSIT, amount);
 
-        walletTransactionRepository.saveAll(List.of(debitTransaction, creditTransaction));
+        walletTransactionRepository.appendAll(List.of(debitTransaction, creditTransaction));
 
         log.info("debitTransaction id {} creditTransaction id {} from wallet {} to {}",
                 debitTransaction.getId(), creditTransaction.getId(), fromId, toId);
@@ -0,0 +1,215 @@
+package com.example.wallet.service;
+
+import com.example.wallet.config.WriteCombiningProperties;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.dto.WalletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Collects concurrent updates of the same wallet into short batches.
+ * <p>
+ * The first request of a batch becomes its leader: it waits up to the batch window for followers,
+ * seals the batch and applies it on its own thread through the given {@link BatchApplier}.
+ * Followers just wait for their own outcome, so no extra threads are involved.
+ * <p>
+ * The leader waits only while other requests of the wallet are in flight outside its batch, i.e. a previous batch
+ * is being applied or a request is about to join: a lone request is applied at once, and a batch is sealed as soon
+ * as the previous one is done. Waits use {@link ReentrantLock}, which does not pin a virtual thread to its carrier.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WalletWriteCombiner {
+    private final WriteCombiningProperties properties;
+    private final ConcurrentMap<UUID, Batch> openBatches = new ConcurrentHashMap<>();
+    /**
+     * Requests per wallet that entered {@link #submit} and whose batch has not been applied yet.
+     */
+    private final ConcurrentMap<UUID, Integer> inFlight = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public WalletResponse submit(WalletRequest request, BatchApplier applier) {
+        UUID walletId = request.walletId();
+        PendingUpdate pending = new PendingUpdate(request);
+        inFlight.merge(walletId, 1, Integer::sum);
+        while (true) {
+            Batch batch = openBatches.computeIfAbsent(walletId, id -> new Batch(properties.getMaxBatchSize()));
+            int position = batch.add(pending);
+            if (position == 0) {
+                runBatch(walletId, batch, applier);
+                break;
+            }
+            if (position > 0) {
+                break;
+            }
+            openBatches.remove(walletId, batch);
+        }
+        return pending.await();
+    }
+
+    private void runBatch(UUID walletId, Batch batch, BatchApplier applier) {
+        List<PendingUpdate> updates = batch.seal(properties.getBatchWindow().toNanos(),
+                () -> inFlight.getOrDefault(walletId, 0));
+        openBatches.remove(walletId, batch);
+
+        List<WalletRequest> requests = new ArrayList<>(updates.size());
+        for (PendingUpdate update : updates) {
+            requests.add(update.request);
+        }
+        try {
+            List<BatchOutcome> outcomes = applier.apply(walletId, requests);
+            for (int i = 0; i < updates.size(); i++) {
+                updates.get(i).complete(outcomes.get(i));
+            }
+            log.debug("Applied batch of {} updates to wallet {}", updates.size(), walletId);
+        } catch (Throwable exception) {
+            // Errors too: a follower whose future is never completed would wait forever.
+            updates.forEach(update -> update.future.completeExceptionally(exception));
+        } finally {
+            inFlight.computeIfPresent(walletId, (id, count) -> count == updates.size() ? null : count - updates.size());
+            Batch next = openBatches.get(walletId);
+            if (next != null) {
+                next.wake();
+            }
+        }
+    }
+
+    /**
+     * Applies all requests of one batch under a single row lock and transaction.
+     * Returns one outcome per request, in the same order.
+     */
+    @FunctionalInterface
+    public interface BatchApplier {
+        List<BatchOutcome> apply(UUID walletId, List<WalletRequest> requests);
+    }
+
+    public record BatchOutcome(WalletResponse response, RuntimeException failure) {
+
+        public static BatchOutcome success(WalletResponse response) {
+            return new BatchOutcome(response, null);
+        }
+
+        public static BatchOutcome failure(RuntimeException failure) {
+            return new BatchOutcome(null, failure);
+        }
+    }
+
+    private static final class PendingUpdate {
+        private final WalletRequest request;
+        private final CompletableFuture<WalletResponse> future = new CompletableFuture<>();
+
+        private PendingUpdate(WalletRequest request) {
+            this.request = request;
+        }
+
+        private void complete(BatchOutcome outcome) {
+            if (outcome.failure() != null) {
+                future.completeExceptionally(outcome.failure());
+            } else {
+                future.complete(outcome.response());
+            }
+        }
+
+        private WalletResponse await() {
+            try {
+                return future.join();
+            } catch (CompletionException exception) {
+                if (exception.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (exception.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw exception;
+            }
+        }
+    }
+
+    private static final class Batch {
+        private final int maxSize;
+        private final List<PendingUpdate> updates = new ArrayList<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private boolean sealed;
+
+        private Batch(int maxSize) {
+            this.maxSize = Math.max(1, maxSize);
+        }
+
+        /**
+         * @return position of the update in the batch, or -1 if the batch no longer accepts updates
+         */
+        private int add(PendingUpdate update) {
+            lock.lock();
+            try {
+                if (sealed) {
+                    return -1;
+                }
+                updates.add(update);
+                if (updates.size() >= maxSize) {
+                    sealed = true;
+                }
+                changed.signalAll();
+                return updates.size() - 1;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Wakes the leader to check again whether requests outside the batch are still in flight.
+         */
+        private void wake() {
+            lock.lock();
+            try {
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Waits until the batch is full, the window is over or no request of the wallet is in flight outside it.
+         *
+         * @param inFlight requests of the wallet in flight, including the ones of this batch
+         */
+        private List<PendingUpdate> seal(long windowNanos, IntSupplier inFlight) {
+            lock.lock();
+            try {
+                long remaining = windowNanos;
+                boolean interrupted = false;
+                while (!sealed && remaining > 0 && inFlight.getAsInt() > updates.size()) {
+                    try {
+                        remaining = changed.awaitNanos(remaining);
+                    } catch (InterruptedException exception) {
+                        interrupted = true;
+                        break;
+                    }
+                }
+                sealed = true;
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return List.copyOf(updates);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package com.example.wallet.service.archive;
+
+import com.example.wallet.dto.WalletTransactionResponse;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.money.Money;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only, memory-mapped file holding one archived month of {@code wallet_transactions}.
+ * <p>
+ * A segment is written once by {@link Writer}, front to back, and never changed. Rows are ordered by wallet, then
+ * oldest first, and cut into blocks of {@code blockRows}. Every block stores its columns apart, each deflated on its
+ * own with a CRC32C: ids as 16 raw bytes, operation types as one byte, amounts in minor units and the creation
+ * times as microsecond deltas, both as zig-zag varints. The wallet id is not stored per row; the wallet index behind
+ * the blocks gives the first row and the row count of every wallet, sorted by id the way the database compares
+ * UUIDs, and is searched in place in the mapping. A read of one wallet therefore inflates only the blocks its
+ * rows are in.
+ * <pre>
+ * blocks | wallet index: (msb, lsb, first row, rows) | block directory: per column (offset, length, raw length, crc)
+ *        | operation type names | footer (48 bytes)
+ * </pre>
+ * A segment is mapped as one buffer, so it is limited to 2 GB.
+ */
+public final class ArchiveSegment {
+    static final int MAGIC = 0x57545831;
+    static final int FORMAT_VERSION = 1;
+    static final int FOOTER_SIZE = 48;
+    static final int INDEX_ENTRY_SIZE = 24;
+    static final int DIRECTORY_ENTRY_SIZE = 20;
+    static final int COLUMNS = 4;
+    private static final int ID = 0;
+    private static final int TYPE = 1;
+    private static final int AMOUNT = 2;
+    private static final int CREATED_AT = 3;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int rows;
+    private final int blockRows;
+    private final int wallets;
+    private final long indexOffset;
+    private final long directoryOffset;
+    private final OperationType[] types;
+
+    private ArchiveSegment(Path file, MappedByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+        int footer = buffer.capacity() - FOOTER_SIZE;
+        if (footer < 0 || buffer.getInt(footer) != MAGIC || buffer.getInt(footer + 4) != FORMAT_VERSION) {
+            throw new IllegalStateException(file + " is not an archive segment of version " + FORMAT_VERSION);
+        }
+        this.rows = buffer.getInt(footer + 8);
+        this.blockRows = buffer.getInt(footer + 12);
+        this.wallets = buffer.getInt(footer + 20);
+        this.indexOffset = buffer.getLong(footer + 24);
+        this.directoryOffset = buffer.getLong(footer + 32);
+        int typesOffset = (int) buffer.getLong(footer + 40);
+        this.types = new OperationType[buffer.getInt(typesOffset)];
+        for (int i = 0, offset = typesOffset + 4; i < types.length; i++) {
+            byte[] name = new byte[buffer.get(offset)];
+            buffer.get(offset + 1, name);
+            types[i] = OperationType.valueOf(new String(name, StandardCharsets.US_ASCII));
+            offset += 1 + name.length;
+        }
+    }
+
+    public static ArchiveSegment open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException(file + " is larger than one mapping can hold");
+            }
+            return new ArchiveSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int wallets() {
+        return wallets;
+    }
+
+    /**
+     * @return the archived ledger rows of the wallet, oldest first
+     */
+    public List<WalletTransactionResponse> read(UUID walletId) {
+        int entry = find(walletId);
+        if (entry < 0) {
+            return List.of();
+        }
+        int offset = (int) (indexOffset + (long) entry * INDEX_ENTRY_SIZE);
+        int first = buffer.getInt(offset + 16);
+        int count = buffer.getInt(offset + 20);
+        List<WalletTransactionResponse> result = new ArrayList<>(count);
+        for (int block = first / blockRows; block <= (first + count - 1) / blockRows; block++) {
+            int blockStart = block * blockRows;
+            int size = Math.min(blockRows, rows - blockStart);
+            ByteBuffer ids = ByteBuffer.wrap(inflate(block, ID));
+            byte[] typeColumn = inflate(block, TYPE);
+            ByteBuffer amounts = ByteBuffer.wrap(inflate(block, AMOUNT));
+            ByteBuffer createdAt = ByteBuffer.wrap(inflate(block, CREATED_AT));
+            long micros = 0;
+            for (int row = 0; row < size; row++) {
+                micros += readVarLong(createdAt);
+                long minorUnits = readVarLong(amounts);
+                int index = blockStart + row;
+                if (index >= first && index < first + count) {
+                    result.add(new WalletTransactionResponse(
+                            new UUID(ids.getLong(row * 16), ids.getLong(row * 16 + 8)),
+                            types[typeColumn[row]],
+                            Money.ofMinor(minorUnits),
+                            fromMicros(micros)));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Binary search in the mapped wallet index.
+     */
+    private int find(UUID walletId) {
+        int low = 0;
+        int high = wallets - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = (int) (indexOffset + (long) middle * INDEX_ENTRY_SIZE);
+            int comparison = compare(buffer.getLong(offset), buffer.getLong(offset + 8), walletId);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private byte[] inflate(int block, int column) {
+        int entry = (int) (directoryOffset + ((long) block * COLUMNS + column) * DIRECTORY_ENTRY_SIZE);
+        int offset = (int) buffer.getLong(entry);
+        int length = buffer.getInt(entry + 8);
+        byte[] raw = new byte[buffer.getInt(entry + 12)];
+        ByteBuffer compressed = buffer.slice(offset, length);
+        CRC32C crc = new CRC32C();
+        crc.update(compressed.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(entry + 16)) {
+            throw new IllegalStateException(file + " is corrupt in block " + block);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int inflated = 0;
+            while (inflated < raw.length) {
+                int read = inflater.inflate(raw, inflated, raw.length - inflated);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new DataFormatException("block ends early");
+                }
+                inflated += read;
+            }
+            return raw;
+        } catch (DataFormatException exception) {
+            throw new IllegalStateException(file + " is corrupt in block " + block, exception);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Orders UUIDs as unsigned 128-bit numbers, like PostgreSQL and H2 do, unlike {@link UUID#compareTo}.
+     */
+    static int compare(long mostSigBits, long leastSigBits, UUID other) {
+        int comparison = Long.compareUnsigned(mostSigBits, other.getMostSignificantBits());
+        return comparison != 0 ? comparison : Long.compareUnsigned(leastSigBits, other.getLeastSignificantBits());
+    }
+
+    static int compare(UUID first, UUID second) {
+        return compare(first.getMostSignificantBits(), first.getLeastSignificantBits(), second);
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.write((int) (zigZag & 0x7F) | 0x80);
+            zigZag >>>= 7;
+        }
+        out.write((int) zigZag);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long zigZag = 0;
+        int shift = 0;
+        byte next;
+        do {
+            next = in.get();
+            zigZag |= (long) (next & 0x7F) << shift;
+            shift += 7;
+        } while (next < 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    /**
+     * Writes a segment to a temporary file next to {@code target} and moves it into place once complete, so a
+     * segment file either is whole or does not exist. Rows must come ordered by wallet, then by time and id.
+     */
+    public static final class Writer implements Closeable {
+        private static final OperationType[] TYPES = OperationType.values();
+
+        private final Path target;
+        private final Path temporary;
+        private final int blockRows;
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final CRC32C crc = new CRC32C();
+        private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream directory = new ByteArrayOutputStream();
+        private final long[] idMsb;
+        private final long[] idLsb;
+        private final byte[] types;
+        private final long[] amounts;
+        private final long[] micros;
+        private byte[] compressed = new byte[8192];
+        private int blockSize;
+        private int blocks;
+        private int rows;
+        private int wallets;
+        private UUID wallet;
+        private int walletFirstRow;
+        private long lastMicros;
+        private UUID lastId;
+        private boolean sealed;
+
+        public Writer(Path target, int blockRows) {
+            if (blockRows < 1) {
+                throw new IllegalArgumentException("A block must hold at least one row");
+            }
+            this.target = target;
+            this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            this.blockRows = blockRows;
+            this.idMsb = new long[blockRows];
+            this.idLsb = new long[blockRows];
+            this.types = new byte[blockRows];
+            this.amounts = new long[blockRows];
+            this.micros = new long[blockRows];
+            try {
+                this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+        }
+
+        public int rows() {
+            return rows;
+        }
+
+        public void append(UUID walletId, WalletTransactionResponse transaction) {
+            long time = toMicros(transaction.createdAt());
+            if (!walletId.equals(wallet)) {
+                if (wallet != null && compare(walletId, wallet) < 0) {
+                    throw new IllegalStateException("Wallet " + walletId + " comes after " + wallet);
+                }
+                closeWallet();
+                wallet = walletId;
+                walletFirstRow = rows;
+            } else if (time < lastMicros || time == lastMicros && compare(transaction.id(), lastId) <= 0) {
+                throw new IllegalStateException("Ledger row " + transaction.id() + " of wallet " + walletId + " is out of order");
+            }
+            lastMicros = time;
+            lastId = transaction.id();
+            idMsb[blockSize] = transaction.id().getMostSignificantBits();
+            idLsb[blockSize] = transaction.id().getLeastSignificantBits();
+            types[blockSize] = (byte) transaction.operationType().ordinal();
+            amounts[blockSize] = transaction.amount().minorUnits();
+            micros[blockSize] = time;
+            blockSize++;
+            rows++;
+            if (blockSize == blockRows) {
+                writeBlock();
+            }
+        }
+
+        /**
+         * Completes the file, forces it to disk and moves it to its name.
+         *
+         * @return rows written
+         */
+        public int seal() {
+            try {
+                if (blockSize > 0) {
+                    writeBlock();
+                }
+                closeWallet();
+                long indexOffset = out.size();
+                index.writeTo(out);
+                long directoryOffset = out.size();
+                directory.writeTo(out);
+                long typesOffset = out.size();
+                out.writeInt(TYPES.length);
+                for (OperationType type : TYPES) {
+                    byte[] name = type.name().getBytes(StandardCharsets.US_ASCII);
+                    out.writeByte(name.length);
+                    out.write(name);
+                }
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(rows);
+                out.writeInt(blockRows);
+                out.writeInt(blocks);
+                out.writeInt(wallets);
+                out.writeLong(indexOffset);
+                out.writeLong(directoryOffset);
+                out.writeLong(typesOffset);
+                out.flush();
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IllegalStateException(target + " would be larger than one mapping can hold");
+                }
+                channel.force(true);
+                channel.close();
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+                sealed = true;
+                return rows;
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        /**
+         * Deletes the temporary file of a segment that was not sealed.
+         */
+        @Override
+        public void close() {
+            deflater.end();
+            if (sealed) {
+                return;
+            }
+            try {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        private void closeWallet() {
+            if (wallet == null) {
+                return;
+            }
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE)
+                    .putLong(wallet.getMostSignificantBits())
+                    .putLong(wallet.getLeastSignificantBits())
+                    .putInt(walletFirstRow)
+                    .putInt(rows - walletFirstRow);
+            index.writeBytes(entry.array());
+            wallets++;
+            wallet = null;
+        }
+
+        private void writeBlock() {
+            ByteBuffer ids = ByteBuffer.allocate(blockSize * 16);
+            ByteArrayOutputStream amountColumn = new ByteArrayOutputStream(blockSize * 3);
+            ByteArrayOutputStream createdAtColumn = new ByteArrayOutputStream(blockSize * 3);
+            long previous = 0;
+            for (int row = 0; row < blockSize; row++) {
+                ids.putLong(idMsb[row]).putLong(idLsb[row]);
+                writeVarLong(amountColumn, amounts[row]);
+                writeVarLong(createdAtColumn, micros[row] - previous);
+                previous = micros[row];
+            }
+            writeColumn(ids.array(), ids.capacity());
+            writeColumn(types, blockSize);
+            writeColumn(amountColumn.toByteArray(), amountColumn.size());
+            writeColumn(createdAtColumn.toByteArray(), createdAtColumn.size());
+            blocks++;
+            blockSize = 0;
+        }
+
+        private void writeColumn(byte[] raw, int length) {
+            deflater.reset();
+            deflater.setInput(raw, 0, length);
+            deflater.finish();
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                size += deflater.deflate(compressed, size, compressed.length - size);
+            }
+            crc.reset();
+            crc.update(compressed, 0, size);
+            ByteBuffer entry = ByteBuffer.allocate(DIRECTORY_ENTRY_SIZE)
+                    .putLong(out.size())
+                    .putInt(size)
+                    .putInt(length)
+                    .putInt((int) crc.getValue());
+            directory.writeBytes(entry.array());
+            try {
+                out.write(compressed, 0, size);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+}
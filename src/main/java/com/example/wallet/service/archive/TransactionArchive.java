@@ -0,0 +1,208 @@
+package com.example.wallet.service.archive;
+
+import com.example.wallet.config.ArchiveProperties;
+import com.example.wallet.dto.WalletTransactionResponse;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The archived months of the ledger: one {@link ArchiveSegment} per month, named
+ * {@code wallet-transactions-<yyyy-MM>.seg}, all mapped at start.
+ * <p>
+ * History reads merge the rows still in {@code wallet_transactions} with the segments, newest first. A row in both
+ * is returned once: a month is added here before it is dropped from the database, so no read misses it in between.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionArchive {
+    private static final String SEGMENT_PREFIX = "wallet-transactions-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final ArchiveProperties properties;
+    private final ConcurrentNavigableMap<YearMonth, ArchiveSegment> segments = new ConcurrentSkipListMap<>();
+
+    /**
+     * Maps the segments in the directory and deletes the temporary files of writes that did not finish.
+     */
+    @PostConstruct
+    void open() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            Files.createDirectories(properties.getDirectory());
+            try (Stream<Path> files = Files.list(properties.getDirectory())) {
+                for (Path file : files.toList()) {
+                    String name = file.getFileName().toString();
+                    if (!name.startsWith(SEGMENT_PREFIX)) {
+                        continue;
+                    }
+                    if (name.endsWith(SEGMENT_SUFFIX)) {
+                        YearMonth month = YearMonth.parse(name.substring(SEGMENT_PREFIX.length(),
+                                name.length() - SEGMENT_SUFFIX.length()));
+                        segments.put(month, ArchiveSegment.open(file));
+                    } else if (name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        log.info("Mapped {} archived ledger months from {}", segments.size(), properties.getDirectory().toAbsolutePath());
+    }
+
+    public boolean contains(YearMonth month) {
+        return segments.containsKey(month);
+    }
+
+    public ArchiveSegment.Writer writer(YearMonth month) {
+        return new ArchiveSegment.Writer(file(month), properties.getBlockRows());
+    }
+
+    /**
+     * Maps the sealed segment of the month, from now on history reads include it.
+     */
+    public ArchiveSegment add(YearMonth month) {
+        ArchiveSegment segment = ArchiveSegment.open(file(month));
+        segments.put(month, segment);
+        return segment;
+    }
+
+    /**
+     * Merges a page of history read from the table, newest first and strictly older than ({@code createdAt},
+     * {@code id}), with the archived rows of the wallet in the same range.
+     *
+     * @return up to {@code limit} rows, newest first
+     */
+    public List<WalletTransactionResponse> mergeHistoryBefore(UUID walletId, LocalDateTime createdAt, UUID id, int limit,
+                                                              List<WalletTransactionResponse> hot) {
+        if (segments.isEmpty()) {
+            return hot;
+        }
+        List<WalletTransactionResponse> merged = new ArrayList<>(limit);
+        Merge merge = new Merge(archived(walletId, createdAt, id), merged::add, limit);
+        hot.forEach(merge);
+        merge.finish();
+        return merged;
+    }
+
+    /**
+     * Feeds the whole history of the wallet to {@code consumer}, newest first: the rows streamed from the table go
+     * through the returned merge, {@link Merge#finish()} adds the archived rows older than all of them.
+     */
+    public Merge mergeHistory(UUID walletId, Consumer<WalletTransactionResponse> consumer) {
+        return new Merge(archived(walletId, null, null), consumer, Integer.MAX_VALUE);
+    }
+
+    private Path file(YearMonth month) {
+        return properties.getDirectory().resolve(SEGMENT_PREFIX + month + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Archived rows of the wallet, newest first, lazily segment by segment.
+     */
+    private Iterator<WalletTransactionResponse> archived(UUID walletId, LocalDateTime createdAt, UUID id) {
+        Iterator<ArchiveSegment> newestFirst = (createdAt == null ? segments : segments.headMap(YearMonth.from(createdAt), true))
+                .descendingMap().values().iterator();
+        return new Iterator<>() {
+            private List<WalletTransactionResponse> rows = List.of();
+            private int index = -1;
+
+            @Override
+            public boolean hasNext() {
+                while (index < 0 && newestFirst.hasNext()) {
+                    rows = newestFirst.next().read(walletId);
+                    index = rows.size() - 1;
+                    while (createdAt != null && index >= 0 && compare(rows.get(index), createdAt, id) <= 0) {
+                        index--;
+                    }
+                }
+                return index >= 0;
+            }
+
+            @Override
+            public WalletTransactionResponse next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return rows.get(index--);
+            }
+        };
+    }
+
+    /**
+     * Negative if the row comes first in history, i.e. is newer than ({@code createdAt}, {@code id}).
+     */
+    private static int compare(WalletTransactionResponse row, LocalDateTime createdAt, UUID id) {
+        int comparison = createdAt.compareTo(row.createdAt());
+        return comparison != 0 ? comparison : ArchiveSegment.compare(id, row.id());
+    }
+
+    /**
+     * Merges rows from the table, newest first, with the archived ones.
+     */
+    public static final class Merge implements Consumer<WalletTransactionResponse> {
+        private final Iterator<WalletTransactionResponse> archived;
+        private final Consumer<WalletTransactionResponse> consumer;
+        private final int limit;
+        private WalletTransactionResponse next;
+        private int emitted;
+
+        private Merge(Iterator<WalletTransactionResponse> archived, Consumer<WalletTransactionResponse> consumer, int limit) {
+            this.archived = archived;
+            this.consumer = consumer;
+            this.limit = limit;
+            this.next = archived.hasNext() ? archived.next() : null;
+        }
+
+        @Override
+        public void accept(WalletTransactionResponse row) {
+            while (next != null && compare(next, row.createdAt(), row.id()) < 0) {
+                emit(next);
+                advance();
+            }
+            if (next != null && next.id().equals(row.id())) {
+                advance();
+            }
+            emit(row);
+        }
+
+        public void finish() {
+            while (next != null && emitted < limit) {
+                emit(next);
+                advance();
+            }
+        }
+
+        private void emit(WalletTransactionResponse row) {
+            if (emitted < limit) {
+                consumer.accept(row);
+                emitted++;
+            }
+        }
+
+        private void advance() {
+            next = archived.hasNext() ? archived.next() : null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.wallet.service.archive;
+
+import com.example.wallet.config.ArchiveProperties;
+import com.example.wallet.repository.WalletTransactionArchiveRepository;
+import com.example.wallet.service.reconciliation.BalanceSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Moves months of {@code wallet_transactions} older than {@link ArchiveProperties#getAge()} into segment files and
+ * drops them from the database, oldest first.
+ * <p>
+ * Reconciliation sums the ledger rows after each wallet's balance snapshot, so a month is archived only once the
+ * snapshots include all of its rows; the job moves the snapshots forward itself before. A month is written to its
+ * segment, added to {@link TransactionArchive} and only then dropped; a run interrupted in between finds the
+ * segment and just drops the month.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionArchiver {
+    private final WalletTransactionArchiveRepository archiveRepository;
+    private final TransactionArchive archive;
+    private final BalanceSnapshotService snapshotService;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchiveProperties properties;
+
+    @Scheduled(fixedDelayString = "${wallet.archive.interval:24h}",
+            initialDelayString = "${wallet.archive.initial-delay:1m}")
+    public void scheduledArchive() {
+        try {
+            archive();
+        } catch (RuntimeException exception) {
+            log.warn("Ledger archival failed: {}", exception.getMessage());
+        }
+    }
+
+    /**
+     * Creates the partitions of the coming months, then archives whatever is old enough if enabled.
+     *
+     * @return number of months moved out of the database
+     */
+    public int archive() {
+        YearMonth current = YearMonth.now();
+        archiveRepository.createPartitions(current, current.plusMonths(properties.getPartitionsAhead()));
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        List<YearMonth> months = archiveRepository.findMonthsBefore(
+                YearMonth.from(LocalDateTime.now().minus(properties.getAge())));
+        if (months.isEmpty()) {
+            return 0;
+        }
+        snapshotService.takeSnapshots();
+        int archived = 0;
+        for (YearMonth month : months) {
+            long notInSnapshots = archiveRepository.countNotInSnapshots(month);
+            if (notInSnapshots > 0) {
+                log.warn("Ledger month {} is not archived, {} of its rows are not in balance snapshots yet",
+                        month, notInSnapshots);
+                continue;
+            }
+            archiveMonth(month);
+            archived++;
+        }
+        return archived;
+    }
+
+    private void archiveMonth(YearMonth month) {
+        if (!archive.contains(month)) {
+            try (ArchiveSegment.Writer writer = archive.writer(month)) {
+                transactionTemplate.executeWithoutResult(status -> archiveRepository.streamMonth(month, writer::append));
+                if (writer.rows() == 0) {
+                    transactionTemplate.executeWithoutResult(status -> archiveRepository.dropMonth(month));
+                    log.info("Dropped empty ledger month {}", month);
+                    return;
+                }
+                writer.seal();
+            }
+        }
+        ArchiveSegment segment = archive.add(month);
+        transactionTemplate.executeWithoutResult(status -> archiveRepository.dropMonth(month));
+        log.info("Archived {} ledger rows of {} wallets for {} to {}", segment.rows(), segment.wallets(), month,
+                segment.file());
+    }
+}
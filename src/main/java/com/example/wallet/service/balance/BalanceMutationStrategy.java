@@ -0,0 +1,22 @@
+package com.example.wallet.service.balance;
+
+import com.example.wallet.money.Money;
+
+import java.util.UUID;
+
+/**
+ * Changes the balance of a single wallet row inside the current transaction.
+ * <p>
+ * Selected with {@code wallet.balance-mutation.strategy}: {@code locking} (default) or {@code conditional-update}.
+ */
+public interface BalanceMutationStrategy {
+
+    /**
+     * Adds {@code delta} to the balance of the wallet.
+     *
+     * @return the balance after the change
+     * @throws jakarta.persistence.EntityNotFoundException if the wallet does not exist
+     * @throws com.example.wallet.exceptions.InsufficientFundsException if the balance would become negative
+     */
+    Money apply(UUID walletId, Money delta);
+}
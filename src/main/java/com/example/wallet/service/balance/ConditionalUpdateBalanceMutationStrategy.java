@@ -0,0 +1,35 @@
+package com.example.wallet.service.balance;
+
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.WalletRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Applies the change with one conditional {@code UPDATE ... RETURNING balance}.
+ * The row lock is held only by the statement itself, not across application code.
+ * A second query is issued only to explain a rejected update.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "wallet.balance-mutation.strategy", havingValue = "conditional-update")
+public class ConditionalUpdateBalanceMutationStrategy implements BalanceMutationStrategy {
+    private final WalletRepository walletRepository;
+
+    @Override
+    public Money apply(UUID walletId, Money delta) {
+        return walletRepository.addToBalanceIfCovered(walletId, delta)
+                .orElseThrow(() -> rejection(walletId, delta));
+    }
+
+    private RuntimeException rejection(UUID walletId, Money delta) {
+        return walletRepository.findBalance(walletId)
+                .<RuntimeException>map(balance -> new InsufficientFundsException(walletId.toString(), balance, delta.negate()))
+                .orElseGet(() -> new EntityNotFoundException("Wallet not found"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.wallet.service.balance;
+
+import com.example.wallet.config.RowLockProperties;
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.WalletRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Locks the wallet row with {@code SELECT ... FOR UPDATE}, validates in Java and lets Hibernate flush the UPDATE.
+ * <p>
+ * With {@code wallet.row-lock.validate-before-lock} a withdrawal is first checked against the committed balance,
+ * read without a lock, so a withdrawal that cannot succeed is rejected without queueing for the row.
+ * The check under the lock stays authoritative.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "wallet.balance-mutation.strategy", havingValue = "locking", matchIfMissing = true)
+public class LockingBalanceMutationStrategy implements BalanceMutationStrategy {
+    private final WalletRepository walletRepository;
+    private final RowLockProperties rowLockProperties;
+
+    @Override
+    public Money apply(UUID walletId, Money delta) {
+        if (delta.isNegative() && rowLockProperties.isValidateBeforeLock()) {
+            Money committed = walletRepository.findBalance(walletId)
+                    .orElseThrow(() -> new EntityNotFoundException("Wallet not found"));
+            if (committed.plus(delta).signum() < 0) {
+                throw new InsufficientFundsException(walletId.toString(), committed, delta.negate());
+            }
+        }
+        Wallet wallet = walletRepository.findByIdForUpdate(walletId)
+                .orElseThrow(() -> new EntityNotFoundException("Wallet not found"));
+        Money balance = wallet.getBalance().plus(delta);
+        if (balance.signum() < 0) {
+            throw new InsufficientFundsException(walletId.toString(), wallet.getBalance(), delta.negate());
+        }
+        wallet.setBalance(balance);
+        return balance;
+    }
+}
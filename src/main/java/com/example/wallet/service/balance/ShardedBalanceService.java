@@ -0,0 +1,161 @@
+package com.example.wallet.service.balance;
+
+import com.example.wallet.config.BalanceShardingProperties;
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.WalletBalanceSlotRepository;
+import com.example.wallet.repository.WalletRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sharded balance of hot wallets: the balance is the wallet row plus {@code slots} slot rows.
+ * <ul>
+ *     <li>deposits add to a random slot and never touch the wallet row, so N of them run concurrently;</li>
+ *     <li>withdrawals lock all slots in slot order, drain them and take the rest from the wallet row
+ *     with a conditional update, so the total never goes negative;</li>
+ *     <li>a compaction job periodically folds the slots back into the wallet row, which then holds
+ *     an almost current total that can be read as a single row.</li>
+ * </ul>
+ * Slots are always locked before the wallet row. Paths that lock only the wallet row (write combining,
+ * batches) keep working on it and see the compacted part of the balance only.
+ */
+@Slf4j
+@Component
+public class ShardedBalanceService {
+    private final WalletBalanceSlotRepository slotRepository;
+    private final WalletRepository walletRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceShardingProperties properties;
+    private final Set<UUID> shardedWallets;
+
+    public ShardedBalanceService(WalletBalanceSlotRepository slotRepository,
+                                 WalletRepository walletRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 BalanceShardingProperties properties) {
+        this.slotRepository = slotRepository;
+        this.walletRepository = walletRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.shardedWallets = Set.copyOf(properties.getWallets());
+    }
+
+    public boolean isSharded(UUID walletId) {
+        return !shardedWallets.isEmpty() && shardedWallets.contains(walletId);
+    }
+
+    /**
+     * Same contract as {@link BalanceMutationStrategy#apply}, runs in the caller's transaction.
+     */
+    public Money apply(UUID walletId, Money delta) {
+        if (delta.signum() >= 0) {
+            int slot = ThreadLocalRandom.current().nextInt(properties.getSlots());
+            if (!slotRepository.addToSlot(walletId, slot, delta)) {
+                throw new EntityNotFoundException("Wallet not found");
+            }
+        } else {
+            withdraw(walletId, delta.negate());
+        }
+        return slotRepository.findTotalBalance(walletId).orElseThrow(() -> new EntityNotFoundException("Wallet not found"));
+    }
+
+    public Money getBalance(UUID walletId) {
+        return (properties.getBalanceRead() == BalanceShardingProperties.BalanceRead.COMPACTED
+                ? walletRepository.findBalance(walletId)
+                : slotRepository.findTotalBalance(walletId))
+                .orElseThrow(() -> new EntityNotFoundException("Wallet not found"));
+    }
+
+    private void withdraw(UUID walletId, Money amount) {
+        List<Money> slots = slotRepository.lockSlots(walletId);
+        Money remaining = amount;
+        for (int slot = 0; slot < slots.size() && remaining.signum() > 0; slot++) {
+            Money available = slots.get(slot);
+            if (available.signum() > 0) {
+                Money taken = available.min(remaining);
+                slotRepository.setSlot(walletId, slot, available.minus(taken));
+                remaining = remaining.minus(taken);
+            }
+        }
+        if (remaining.signum() > 0 && walletRepository.addToBalanceIfCovered(walletId, remaining.negate()).isEmpty()) {
+            Money base = walletRepository.findBalance(walletId)
+                    .orElseThrow(() -> new EntityNotFoundException("Wallet not found"));
+            Money total = base.plus(slots.stream().reduce(Money.ZERO, Money::plus));
+            throw new InsufficientFundsException(walletId.toString(), total, amount);
+        }
+    }
+
+    /**
+     * Folds the slots into the wallet row, in its own transaction.
+     */
+    public void compact(UUID walletId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Money> slots = slotRepository.lockSlots(walletId);
+            Money sum = Money.ZERO;
+            for (int slot = 0; slot < slots.size(); slot++) {
+                if (slots.get(slot).signum() > 0) {
+                    sum = sum.plus(slots.get(slot));
+                    slotRepository.setSlot(walletId, slot, Money.ZERO);
+                }
+            }
+            if (sum.signum() > 0) {
+                walletRepository.addToBalanceIfCovered(walletId, sum);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.balance-sharding.compaction-interval:1s}")
+    public void compactAll() {
+        for (UUID walletId : shardedWallets) {
+            try {
+                compact(walletId);
+            } catch (RuntimeException exception) {
+                log.warn("Compaction of sharded wallet {} failed: {}", walletId, exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Creates missing slots of configured wallets and folds back wallets that are no longer configured.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void synchronizeSlots() {
+        for (UUID walletId : shardedWallets) {
+            enable(walletId);
+        }
+        for (UUID walletId : slotRepository.findShardedWalletIds()) {
+            if (!shardedWallets.contains(walletId)) {
+                compact(walletId);
+                transactionTemplate.executeWithoutResult(status -> slotRepository.deleteSlots(walletId));
+                log.info("Wallet {} is no longer sharded, slots folded back", walletId);
+            }
+        }
+    }
+
+    /**
+     * Creates the slot rows of a wallet if it has fewer than configured. Existing slots are kept.
+     */
+    public void enable(UUID walletId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!walletRepository.existsById(walletId)) {
+                log.warn("Sharded wallet {} does not exist", walletId);
+                return;
+            }
+            int existing = slotRepository.countSlots(walletId);
+            if (existing < properties.getSlots()) {
+                slotRepository.insertSlots(walletId, existing, properties.getSlots());
+                log.info("Wallet {} sharded over {} balance slots", walletId, properties.getSlots());
+            }
+        });
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.wallet.service.cache;
+
+import com.example.wallet.config.BalanceCacheProperties;
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.repository.WalletBalanceRepository.VersionedBalance;
+import com.example.wallet.repository.WalletRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Bounded read-through cache of wallet balances.
+ * <p>
+ * Writers do not remove entries, they replace them with a fresh {@link Invalidation} marker after commit.
+ * A reader only stores what it loaded if the entry it saw before going to the database is still in place,
+ * so a load that raced with a commit can never overwrite the invalidation.
+ */
+@Component
+public class BalanceCache {
+    private final BalanceCacheProperties properties;
+    private final WalletRepository walletRepository;
+    private final Cache<UUID, Entry> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter staleHits;
+    private final Counter evictions;
+
+    public BalanceCache(BalanceCacheProperties properties, WalletRepository walletRepository, MeterRegistry registry) {
+        this.properties = properties;
+        this.walletRepository = walletRepository;
+        this.hits = cacheRequests(registry, "hit");
+        this.misses = cacheRequests(registry, "miss");
+        this.staleHits = cacheRequests(registry, "stale");
+        this.evictions = Counter.builder("wallet.balance.cache.evictions")
+                .description("Balance cache entries evicted by size or expiry")
+                .register(registry);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .<UUID, Entry>removalListener((key, value, cause) -> {
+                    if (cause.wasEvicted()) {
+                        evictions.increment();
+                    }
+                })
+                .build();
+        Gauge.builder("wallet.balance.cache.size", cache, Cache::estimatedSize)
+                .description("Approximate number of cached balances")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public WalletResponse getBalance(UUID walletId) {
+        Entry observed = cache.getIfPresent(walletId);
+        if (observed instanceof CachedBalance cached) {
+            if (properties.getMode() == BalanceCacheProperties.Mode.TTL) {
+                hits.increment();
+                return cached.response();
+            }
+            Long version = walletRepository.findVersionById(walletId).orElse(null);
+            if (version != null && version == cached.version()) {
+                hits.increment();
+                return cached.response();
+            }
+            staleHits.increment();
+        } else {
+            misses.increment();
+        }
+
+        VersionedBalance balance = walletRepository.findVersionedBalance(walletId)
+                .orElseThrow(() -> new EntityNotFoundException("Wallet not found"));
+        CachedBalance loaded = new CachedBalance(new WalletResponse(walletId, balance.balance(), balance.version()),
+                balance.version());
+        if (observed == null) {
+            cache.asMap().putIfAbsent(walletId, loaded);
+        } else {
+            cache.asMap().replace(walletId, observed, loaded);
+        }
+        return loaded.response();
+    }
+
+    /**
+     * Invalidates the cached balance once the current transaction commits, or at once without a transaction.
+     */
+    public void invalidateAfterCommit(UUID walletId) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(walletId);
+                }
+            });
+        } else {
+            invalidate(walletId);
+        }
+    }
+
+    private void invalidate(UUID walletId) {
+        cache.put(walletId, new Invalidation());
+    }
+
+    private static Counter cacheRequests(MeterRegistry registry, String result) {
+        return Counter.builder("wallet.balance.cache.requests")
+                .description("Balance cache lookups")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private sealed interface Entry permits CachedBalance, Invalidation {
+    }
+
+    private record CachedBalance(WalletResponse response, long version) implements Entry {
+    }
+
+    /**
+     * Compared by identity: every invalidation is a new marker.
+     */
+    private static final class Invalidation implements Entry {
+    }
+}
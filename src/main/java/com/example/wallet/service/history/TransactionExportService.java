@@ -0,0 +1,137 @@
+package com.example.wallet.service.history;
+
+import com.example.wallet.dto.WalletTransactionResponse;
+import com.example.wallet.enums.ExportFormat;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.service.archive.TransactionArchive;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Writes the full statement of a wallet to the response in chunks.
+ * <p>
+ * Each chunk of {@value #CHUNK_SIZE} rows is read by a keyset query in its own short read-only transaction and
+ * written after that transaction ends, so memory stays bounded whatever the size of the history, and a slow client
+ * holds no pool connection while its socket drains. Rows committed during the export with a {@code created_at}
+ * older than the chunk already written are not included. Archived months are merged in behind the rows of the
+ * ledger, see {@link TransactionArchive}.
+ */
+@Slf4j
+@Service
+public class TransactionExportService {
+    private static final String CSV_HEADER = "id,operation_type,amount,created_at\n";
+    private static final int CHUNK_SIZE = 1_000;
+
+    private final WalletRepository walletRepository;
+    private final WalletTransactionRepository walletTransactionRepository;
+    private final TransactionArchive transactionArchive;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public TransactionExportService(WalletRepository walletRepository,
+                                    WalletTransactionRepository walletTransactionRepository,
+                                    TransactionArchive transactionArchive,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.walletRepository = walletRepository;
+        this.walletTransactionRepository = walletTransactionRepository;
+        this.transactionArchive = transactionArchive;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Checks the wallet up front, so that a missing one still gets a 404 before the response is committed.
+     */
+    public Export prepare(UUID walletId, ExportFormat format) {
+        if (!walletRepository.existsById(walletId)) {
+            throw new EntityNotFoundException("Wallet not found");
+        }
+        return output -> export(walletId, format, output);
+    }
+
+    private void export(UUID walletId, ExportFormat format, OutputStream output) throws IOException {
+        long startedAt = System.nanoTime();
+        long[] rows = new long[1];
+        try {
+            if (format == ExportFormat.CSV) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                writer.write(CSV_HEADER);
+                stream(walletId, rows, transaction -> writeCsv(writer, transaction));
+                writer.flush();
+            } else {
+                SequenceWriter writer = objectMapper.writer()
+                        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                        .withRootValueSeparator("\n").writeValues(output);
+                stream(walletId, rows, transaction -> writeJson(writer, transaction));
+                writer.flush();
+            }
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+        log.info("Exported {} transactions of wallet {} as {} in {} ms",
+                rows[0], walletId, format, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private void stream(UUID walletId, long[] rows, Consumer<WalletTransactionResponse> writer) {
+        TransactionArchive.Merge merge = transactionArchive.mergeHistory(walletId, transaction -> {
+            writer.accept(transaction);
+            rows[0]++;
+        });
+        List<WalletTransactionResponse> chunk = readChunk(walletId, null);
+        while (!chunk.isEmpty()) {
+            chunk.forEach(merge);
+            if (chunk.size() < CHUNK_SIZE) {
+                break;
+            }
+            chunk = readChunk(walletId, chunk.get(chunk.size() - 1));
+        }
+        merge.finish();
+    }
+
+    private List<WalletTransactionResponse> readChunk(UUID walletId, WalletTransactionResponse after) {
+        return readOnlyTransaction.execute(status -> walletTransactionRepository.findHistoryBefore(walletId,
+                after == null ? null : after.createdAt(), after == null ? null : after.id(), CHUNK_SIZE));
+    }
+
+    private static void writeCsv(Writer writer, WalletTransactionResponse transaction) {
+        try {
+            writer.write(transaction.id() + "," + transaction.operationType() + ","
+                    + transaction.amount().toString() + "," + transaction.createdAt() + "\n");
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static void writeJson(SequenceWriter writer, WalletTransactionResponse transaction) {
+        try {
+            writer.write(transaction);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Export {
+        void writeTo(OutputStream output) throws IOException;
+    }
+}
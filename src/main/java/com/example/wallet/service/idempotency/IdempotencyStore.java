@@ -0,0 +1,150 @@
+package com.example.wallet.service.idempotency;
+
+import com.example.wallet.config.IdempotencyProperties;
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.exceptions.IdempotencyKeyReuseException;
+import com.example.wallet.exceptions.InvalidIdempotencyKeyException;
+import com.example.wallet.repository.IdempotencyKeyRepository;
+import com.example.wallet.repository.IdempotencyKeyRepository.StoredKey;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Makes wallet mutations carrying an {@code Idempotency-Key} run at most once.
+ * <p>
+ * The first statement of the mutation's transaction inserts the key, the last one stores the response next to it,
+ * so the key and the balance change commit or roll back together. There is no lookup before the transaction:
+ * <ul>
+ *     <li>a replay of a recently completed key is answered from a bounded in-memory cache;</li>
+ *     <li>otherwise the key insert fails on the primary key, or waits for the in-flight original and then fails,
+ *     before the wallet row is locked, and the stored response is read back.</li>
+ * </ul>
+ * Failed mutations roll back the key too, so the client may retry them. A key sent with a different request
+ * is rejected with {@link IdempotencyKeyReuseException}.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository repository;
+    private final IdempotencyProperties properties;
+    private final Cache<String, StoredKey> completed;
+
+    public IdempotencyStore(IdempotencyKeyRepository repository, IdempotencyProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheMaximumSize())
+                .expireAfterWrite(properties.getRetention())
+                .build();
+    }
+
+    /**
+     * Hash of the request fields that must match when a key is replayed.
+     */
+    public static long fingerprint(Object... fields) {
+        StringJoiner joiner = new StringJoiner("|");
+        for (Object field : fields) {
+            joiner.add(String.valueOf(field));
+        }
+        return UUID.nameUUIDFromBytes(joiner.toString().getBytes(StandardCharsets.UTF_8)).getMostSignificantBits();
+    }
+
+    /**
+     * Runs {@code mutation}, which opens the transaction and calls {@link #claim} and {@link #complete} in it,
+     * unless the key was already completed. Without a key the mutation simply runs.
+     */
+    public WalletResponse execute(String key, long fingerprint, Supplier<WalletResponse> mutation) {
+        if (key == null) {
+            return mutation.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("Idempotency key must be 1 to " + MAX_KEY_LENGTH + " characters long");
+        }
+        StoredKey cached = completed.getIfPresent(key);
+        if (cached != null) {
+            return replay(key, fingerprint, cached);
+        }
+        try {
+            return mutation.get();
+        } catch (KeyAlreadyClaimedException exception) {
+            StoredKey stored = repository.find(key)
+                    .orElseThrow(() -> new IllegalStateException("Idempotency key " + key + " vanished after conflict"));
+            completed.put(key, stored);
+            return replay(key, fingerprint, stored);
+        }
+    }
+
+    /**
+     * Must be the first statement of the mutation's transaction, before any wallet row is locked.
+     */
+    public void claim(String key, long fingerprint) {
+        if (key == null) {
+            return;
+        }
+        try {
+            repository.insert(key, fingerprint);
+        } catch (DuplicateKeyException exception) {
+            throw new KeyAlreadyClaimedException();
+        }
+    }
+
+    /**
+     * Stores the response of a claimed key. {@code response} is {@code null} for transfers.
+     */
+    public void complete(String key, long fingerprint, WalletResponse response) {
+        if (key == null) {
+            return;
+        }
+        if (response != null) {
+            repository.complete(key, response);
+        }
+        StoredKey stored = new StoredKey(fingerprint, response);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                completed.put(key, stored);
+            }
+        });
+    }
+
+    @Scheduled(initialDelayString = "${wallet.idempotency.cleanup-interval:10m}",
+            fixedDelayString = "${wallet.idempotency.cleanup-interval:10m}")
+    public void deleteExpired() {
+        int deleted = repository.deleteCreatedBefore(Instant.now().minus(properties.getRetention()));
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private static WalletResponse replay(String key, long fingerprint, StoredKey stored) {
+        if (stored.fingerprint() != fingerprint) {
+            throw new IdempotencyKeyReuseException(key);
+        }
+        log.debug("Replaying idempotency key {}", key);
+        return stored.response();
+    }
+
+    /**
+     * Rolls back the transaction of a replayed key, before it touched any wallet.
+     */
+    private static final class KeyAlreadyClaimedException extends RuntimeException {
+
+        private KeyAlreadyClaimedException() {
+            super(null, null, false, false);
+        }
+    }
+}
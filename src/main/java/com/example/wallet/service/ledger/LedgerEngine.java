@@ -0,0 +1,204 @@
+package com.example.wallet.service.ledger;
+
+import com.example.wallet.config.BalanceShardingProperties;
+import com.example.wallet.config.LedgerProperties;
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.util.TimeOrderedUuid;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory ledger mode ({@code wallet.ledger.enabled}): balances live in memory and the tables are a projection.
+ * <ul>
+ *     <li>a mutation holds only the monitors of its wallets (two for a transfer, taken in UUID order) while it checks
+ *     the balance, appends one record to the {@link LedgerJournal} and changes the balance in memory, so the journal
+ *     holds the records of a wallet in the order they were applied;</li>
+ *     <li>it then waits outside the monitors until the journal is forced, together with concurrent mutations.
+ *     An appended mutation cannot be undone: if the force fails the caller gets the error, but the balance is
+ *     already changed and the next force makes the entry durable. Mutations are therefore never retried and take no
+ *     idempotency key;</li>
+ *     <li>balance reads take no lock;</li>
+ *     <li>{@link LedgerProjector} writes the journal into the tables in the background. On startup the journal is
+ *     recovered and its unprojected tail projected before the first request, so a wallet that is not in memory yet
+ *     is loaded from a current row on first use.</li>
+ * </ul>
+ * The tables, history and reconciliation lag behind by up to {@code projection-interval}. Only one instance may run
+ * in this mode, sharded balances and batches are not available in it.
+ * <ul>
+ *     <li>{@code wallet.ledger.projected} - journal entries written into the tables</li>
+ *     <li>{@code wallet.ledger.projection.lag} - durable journal entries not projected yet</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class LedgerEngine {
+    private final LedgerProperties properties;
+    private final LedgerProjector projector;
+    private final WalletRepository walletRepository;
+    private final LedgerJournal journal;
+    private final ConcurrentMap<UUID, Account> accounts = new ConcurrentHashMap<>();
+    private final Counter projectedCounter;
+    private volatile long projectedSequence;
+
+    public LedgerEngine(LedgerProperties properties,
+                        LedgerProjector projector,
+                        WalletRepository walletRepository,
+                        BalanceShardingProperties shardingProperties,
+                        MeterRegistry registry) {
+        if (properties.isEnabled() && !shardingProperties.getWallets().isEmpty()) {
+            throw new IllegalStateException("wallet.ledger.enabled cannot be combined with wallet.balance-sharding.wallets");
+        }
+        this.properties = properties;
+        this.projector = projector;
+        this.walletRepository = walletRepository;
+        this.journal = properties.isEnabled()
+                ? new LedgerJournal(properties.getJournalDirectory(), properties.getSegmentSize().toBytes(), properties.isFsync())
+                : null;
+        this.projectedCounter = Counter.builder("wallet.ledger.projected")
+                .description("Ledger journal entries written into the tables")
+                .register(registry);
+        Gauge.builder("wallet.ledger.projection.lag", this,
+                        engine -> engine.journal == null ? 0 : engine.journal.durableSequence() - engine.projectedSequence)
+                .description("Durable ledger journal entries not projected into the tables yet")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    public WalletResponse update(WalletRequest request) {
+        Account account = account(request.walletId());
+        Money amount = request.amount();
+        boolean withdraw = request.operationType() == OperationType.WITHDRAW;
+        Money balance;
+        long sequence;
+        synchronized (account) {
+            if (withdraw && account.balance.isLessThan(amount)) {
+                throw new InsufficientFundsException(account.id.toString(), account.balance, amount);
+            }
+            balance = withdraw ? account.balance.minus(amount) : account.balance.plus(amount);
+            sequence = journal.append(LedgerEntry.update(withdraw ? LedgerEntry.Kind.WITHDRAW : LedgerEntry.Kind.DEPOSIT,
+                    account.id, amount, TimeOrderedUuid.next(), Instant.now()));
+            account.balance = balance;
+        }
+        journal.awaitDurable(sequence);
+        return new WalletResponse(account.id, balance);
+    }
+
+    /**
+     * Same-wallet transfers must be rejected by the caller.
+     */
+    public void transfer(TransferRequest request) {
+        Account from = account(request.fromWalletId());
+        Account to = account(request.toWalletId());
+        Account first = from.id.compareTo(to.id) < 0 ? from : to;
+        Account second = first == from ? to : from;
+        Money amount = request.amount();
+        long sequence;
+        synchronized (first) {
+            synchronized (second) {
+                if (from.balance.isLessThan(amount)) {
+                    throw new InsufficientFundsException(from.id.toString(), from.balance, amount);
+                }
+                sequence = journal.append(LedgerEntry.transfer(from.id, to.id, amount,
+                        TimeOrderedUuid.next(), TimeOrderedUuid.next(), Instant.now()));
+                from.balance = from.balance.minus(amount);
+                to.balance = to.balance.plus(amount);
+            }
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    public WalletResponse getBalance(UUID walletId) {
+        return new WalletResponse(walletId, account(walletId).balance);
+    }
+
+    /**
+     * Projects everything durable in the journal, in batches of {@code projection-batch-size}.
+     */
+    @Scheduled(fixedDelayString = "${wallet.ledger.projection-interval:100ms}")
+    public synchronized void projectPending() {
+        if (!isEnabled()) {
+            return;
+        }
+        while (true) {
+            List<LedgerEntry> entries = journal.readAfter(projectedSequence, properties.getProjectionBatchSize());
+            if (entries.isEmpty()) {
+                return;
+            }
+            projector.project(entries);
+            projectedSequence = entries.get(entries.size() - 1).sequence();
+            projectedCounter.increment(entries.size());
+            journal.deleteSegmentsThrough(projectedSequence);
+        }
+    }
+
+    @PostConstruct
+    void recover() {
+        if (!isEnabled()) {
+            return;
+        }
+        projectedSequence = projector.findProjectedSequence();
+        journal.open(projectedSequence);
+        long pending = journal.durableSequence() - projectedSequence;
+        projectPending();
+        log.info("Ledger journal {} recovered, {} entries projected into the tables",
+                properties.getJournalDirectory().toAbsolutePath(), pending);
+    }
+
+    @PreDestroy
+    void close() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            projectPending();
+        } catch (RuntimeException exception) {
+            log.warn("Ledger projection on shutdown failed, the rest is projected on the next start: {}", exception.getMessage());
+        }
+        journal.close();
+    }
+
+    /**
+     * The row of a wallet that is not in memory yet is current: all its journal entries were projected on startup.
+     */
+    private Account account(UUID walletId) {
+        Account account = accounts.computeIfAbsent(walletId, id -> walletRepository.findBalance(id)
+                .map(balance -> new Account(id, balance))
+                .orElse(null));
+        if (account == null) {
+            throw new EntityNotFoundException("Wallet not found");
+        }
+        return account;
+    }
+
+    private static final class Account {
+        private final UUID id;
+        private volatile Money balance;
+
+        private Account(UUID id, Money balance) {
+            this.id = id;
+            this.balance = balance;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.wallet.service.ledger;
+
+import com.example.wallet.money.Money;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One mutation of the in-memory ledger as written to the journal.
+ * <p>
+ * Updates use {@code walletId} and {@code transactionId} only. A transfer debits {@code walletId} and credits
+ * {@code counterpartyId}, its ledger rows get {@code transactionId} and {@code counterTransactionId}.
+ *
+ * @param sequence position in the journal, {@code 0} until appended
+ */
+public record LedgerEntry(long sequence,
+                          Kind kind,
+                          UUID walletId,
+                          UUID counterpartyId,
+                          Money amount,
+                          UUID transactionId,
+                          UUID counterTransactionId,
+                          Instant createdAt) {
+
+    public static LedgerEntry update(Kind kind, UUID walletId, Money amount, UUID transactionId, Instant createdAt) {
+        return new LedgerEntry(0, kind, walletId, null, amount, transactionId, null, createdAt);
+    }
+
+    public static LedgerEntry transfer(UUID fromId, UUID toId, Money amount, UUID debitId, UUID creditId, Instant createdAt) {
+        return new LedgerEntry(0, Kind.TRANSFER, fromId, toId, amount, debitId, creditId, createdAt);
+    }
+
+    public enum Kind {
+        DEPOSIT, WITHDRAW, TRANSFER
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.wallet.service.ledger;
+
+import com.example.wallet.money.Money;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead journal of the in-memory ledger: fixed-size records in memory-mapped segment files named
+ * {@code journal-<first sequence>.seg}.
+ * <p>
+ * {@link #append} copies a record into the mapped segment under a short lock, without a system call.
+ * {@link #awaitDurable} then forces the mapped pages up to the caller's sequence: callers arriving while a force
+ * runs wait for it and share the next one, so a single force covers a whole group of mutations.
+ * Every record carries a CRC32C. {@link #open} scans the segments, clears the torn tail behind the last intact
+ * record and continues appending there.
+ */
+public class LedgerJournal implements Closeable {
+    static final int RECORD_SIZE = 96;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final LedgerEntry.Kind[] KINDS = LedgerEntry.Kind.values();
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final boolean fsync;
+    private final ConcurrentNavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32C checksum = new CRC32C();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushed = flushLock.newCondition();
+    private Segment active;
+    private boolean flushing;
+    private volatile long appendedSequence;
+    private volatile long durableSequence;
+
+    public LedgerJournal(Path directory, long segmentSize, boolean fsync) {
+        this.directory = directory;
+        this.recordsPerSegment = (int) Math.min(segmentSize / RECORD_SIZE, Integer.MAX_VALUE / RECORD_SIZE);
+        this.fsync = fsync;
+        if (recordsPerSegment < 1) {
+            throw new IllegalArgumentException("A journal segment must hold at least one record of " + RECORD_SIZE + " bytes");
+        }
+    }
+
+    /**
+     * Recovers the journal and prepares it for appending.
+     *
+     * @param projectedSequence last sequence already projected into the tables; the journal continues after it
+     *                          even if its own records end earlier
+     */
+    public void open(long projectedSequence) {
+        try {
+            Files.createDirectories(directory);
+            long last = 0;
+            boolean truncated = false;
+            for (Path file : listSegmentFiles()) {
+                long first = firstSequence(file);
+                if (truncated || (last != 0 && first != last + 1)) {
+                    Files.delete(file);
+                    truncated = true;
+                    continue;
+                }
+                Segment segment = mapSegment(file, first);
+                segments.put(first, segment);
+                int intact = countIntact(segment);
+                last = first + intact - 1;
+                if (intact < segment.capacity()) {
+                    clear(segment, intact);
+                    truncated = true;
+                }
+            }
+            if (last < projectedSequence) {
+                for (Segment segment : segments.values()) {
+                    Files.delete(segment.file());
+                }
+                segments.clear();
+                last = projectedSequence;
+            } else if (!segments.isEmpty() && segments.firstKey() > projectedSequence + 1) {
+                throw new IllegalStateException("Journal records after projected sequence " + projectedSequence
+                        + " are missing in " + directory);
+            }
+            appendedSequence = last;
+            durableSequence = last;
+            Map.Entry<Long, Segment> lastSegment = segments.lastEntry();
+            active = lastSegment != null && lastSegment.getValue().lastSequence() > last
+                    ? lastSegment.getValue()
+                    : newSegment(last + 1);
+            if (fsync) {
+                active.buffer().force();
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Writes the entry behind the previous one. The record is not durable before {@link #awaitDurable} returns.
+     *
+     * @return the sequence assigned to the entry
+     */
+    public long append(LedgerEntry entry) {
+        appendLock.lock();
+        try {
+            long sequence = appendedSequence + 1;
+            if (sequence > active.lastSequence()) {
+                active = newSegment(sequence);
+            }
+            encode(entry, sequence);
+            active.buffer().put(active.offset(sequence), record.array());
+            appendedSequence = sequence;
+            if (!fsync) {
+                durableSequence = sequence;
+            }
+            return sequence;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Returns once all records up to {@code sequence} are on disk, forcing them if no other caller is doing so.
+     */
+    public void awaitDurable(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+                flushing = true;
+                long from = durableSequence + 1;
+                long to = appendedSequence;
+                boolean forced = false;
+                flushLock.unlock();
+                try {
+                    force(from, to);
+                    forced = true;
+                } finally {
+                    flushLock.lock();
+                    if (forced) {
+                        durableSequence = to;
+                    }
+                    flushing = false;
+                    flushed.signalAll();
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public long durableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * Reads up to {@code max} durable entries following {@code after}.
+     */
+    public List<LedgerEntry> readAfter(long after, int max) {
+        long to = Math.min(durableSequence, after + max);
+        List<LedgerEntry> entries = new ArrayList<>((int) Math.max(to - after, 0));
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        for (long sequence = after + 1; sequence <= to; sequence++) {
+            Segment segment = segments.floorEntry(sequence).getValue();
+            segment.buffer().get(segment.offset(sequence), buffer.array());
+            entries.add(decode(buffer));
+        }
+        return entries;
+    }
+
+    /**
+     * Deletes the segments whose records are all at or before {@code sequence}, i.e. already projected.
+     */
+    public void deleteSegmentsThrough(long sequence) {
+        for (Segment segment : segments.values()) {
+            if (segment.lastSequence() > sequence) {
+                break;
+            }
+            segments.remove(segment.firstSequence());
+            try {
+                Files.deleteIfExists(segment.file());
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (fsync && !segments.isEmpty()) {
+            awaitDurable(appendedSequence);
+        }
+        segments.clear();
+    }
+
+    private void force(long from, long to) {
+        Long start = segments.floorKey(from);
+        for (Segment segment : segments.tailMap(start == null ? from : start).values()) {
+            if (segment.firstSequence() > to) {
+                break;
+            }
+            long first = Math.max(from, segment.firstSequence());
+            long last = Math.min(to, segment.lastSequence());
+            segment.buffer().force(segment.offset(first), (int) (last - first + 1) * RECORD_SIZE);
+        }
+    }
+
+    private void encode(LedgerEntry entry, long sequence) {
+        record.putInt(4, entry.kind().ordinal() + 1);
+        record.putLong(8, sequence);
+        putUuid(16, entry.walletId());
+        putUuid(32, entry.counterpartyId());
+        record.putLong(48, entry.amount().minorUnits());
+        record.putLong(56, entry.createdAt().toEpochMilli());
+        putUuid(64, entry.transactionId());
+        putUuid(80, entry.counterTransactionId());
+        checksum.reset();
+        checksum.update(record.array(), 4, RECORD_SIZE - 4);
+        record.putInt(0, (int) checksum.getValue());
+    }
+
+    private void putUuid(int index, UUID uuid) {
+        record.putLong(index, uuid == null ? 0 : uuid.getMostSignificantBits());
+        record.putLong(index + 8, uuid == null ? 0 : uuid.getLeastSignificantBits());
+    }
+
+    private static LedgerEntry decode(ByteBuffer buffer) {
+        return new LedgerEntry(
+                buffer.getLong(8),
+                KINDS[buffer.getInt(4) - 1],
+                getUuid(buffer, 16),
+                getUuid(buffer, 32),
+                Money.ofMinor(buffer.getLong(48)),
+                getUuid(buffer, 64),
+                getUuid(buffer, 80),
+                Instant.ofEpochMilli(buffer.getLong(56)));
+    }
+
+    private static UUID getUuid(ByteBuffer buffer, int index) {
+        long mostSigBits = buffer.getLong(index);
+        long leastSigBits = buffer.getLong(index + 8);
+        return mostSigBits == 0 && leastSigBits == 0 ? null : new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Counts the records at the start of the segment that are complete and in sequence.
+     */
+    private static int countIntact(Segment segment) {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        CRC32C crc = new CRC32C();
+        for (int index = 0; index < segment.capacity(); index++) {
+            segment.buffer().get(index * RECORD_SIZE, buffer.array());
+            crc.reset();
+            crc.update(buffer.array(), 4, RECORD_SIZE - 4);
+            int kind = buffer.getInt(4);
+            if (buffer.getInt(0) != (int) crc.getValue() || kind < 1 || kind > KINDS.length
+                    || buffer.getLong(8) != segment.firstSequence() + index) {
+                return index;
+            }
+        }
+        return segment.capacity();
+    }
+
+    /**
+     * Zeroes everything from the record at {@code index}, so stale records from before a crash
+     * can never line up with new sequences.
+     */
+    private static void clear(Segment segment, int index) {
+        byte[] zeros = new byte[256 * RECORD_SIZE];
+        int end = segment.capacity() * RECORD_SIZE;
+        for (int offset = index * RECORD_SIZE; offset < end; offset += zeros.length) {
+            segment.buffer().put(offset, zeros, 0, Math.min(zeros.length, end - offset));
+        }
+    }
+
+    private Segment newSegment(long firstSequence) throws IOException {
+        Segment segment = mapSegment(directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX)),
+                firstSequence);
+        segments.put(firstSequence, segment);
+        if (fsync) {
+            try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (IOException ignored) {
+                // Not every platform can open a directory; the file entry is then flushed with the next metadata write.
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * Maps an existing segment with its own size, so changing {@code segment-size} only affects new segments.
+     */
+    private Segment mapSegment(Path file, long firstSequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            int capacity = size >= RECORD_SIZE ? (int) (size / RECORD_SIZE) : recordsPerSegment;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+            return new Segment(firstSequence, capacity, file, buffer);
+        }
+    }
+
+    private List<Path> listSegmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted(Comparator.comparingLong(LedgerJournal::firstSequence))
+                    .toList();
+        }
+    }
+
+    private static long firstSequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private record Segment(long firstSequence, int capacity, Path file, MappedByteBuffer buffer) {
+
+        long lastSequence() {
+            return firstSequence + capacity - 1;
+        }
+
+        int offset(long sequence) {
+            return (int) (sequence - firstSequence) * RECORD_SIZE;
+        }
+    }
+}
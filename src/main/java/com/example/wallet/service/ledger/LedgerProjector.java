@@ -0,0 +1,76 @@
+package com.example.wallet.service.ledger;
+
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.model.WalletTransaction;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.LedgerCheckpointRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes journal entries of the in-memory ledger into {@code wallet_transactions} and {@code wallet}.
+ * <p>
+ * One call is one transaction: the ledger rows and their outbox events are inserted, the net change of every wallet
+ * is added to its row and {@code ledger_checkpoint} moves to the last entry, so each entry is projected exactly once.
+ * The entries of a wallet are journaled in the order they were applied, so a projected balance is always one the
+ * wallet really had.
+ */
+@Component
+@RequiredArgsConstructor
+public class LedgerProjector {
+    private final WalletRepository walletRepository;
+    private final WalletTransactionRepository walletTransactionRepository;
+    private final LedgerCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public long findProjectedSequence() {
+        return checkpointRepository.findProjectedSequence();
+    }
+
+    public void project(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            List<WalletTransaction> transactions = new ArrayList<>(entries.size());
+            Map<UUID, Money> deltas = new HashMap<>();
+            for (LedgerEntry entry : entries) {
+                LocalDateTime createdAt = LocalDateTime.ofInstant(entry.createdAt(), ZoneId.systemDefault());
+                switch (entry.kind()) {
+                    case DEPOSIT -> add(transactions, deltas, entry.walletId(), OperationType.DEPOSIT, entry.amount(),
+                            entry.transactionId(), createdAt);
+                    case WITHDRAW -> add(transactions, deltas, entry.walletId(), OperationType.WITHDRAW, entry.amount(),
+                            entry.transactionId(), createdAt);
+                    case TRANSFER -> {
+                        add(transactions, deltas, entry.walletId(), OperationType.WITHDRAW, entry.amount(),
+                                entry.transactionId(), createdAt);
+                        add(transactions, deltas, entry.counterpartyId(), OperationType.DEPOSIT, entry.amount(),
+                                entry.counterTransactionId(), createdAt);
+                    }
+                }
+            }
+            walletTransactionRepository.appendAll(transactions);
+            walletRepository.addToBalances(deltas);
+            checkpointRepository.saveProjectedSequence(entries.get(entries.size() - 1).sequence());
+        });
+    }
+
+    private void add(List<WalletTransaction> transactions, Map<UUID, Money> deltas, UUID walletId,
+                     OperationType operationType, Money amount, UUID transactionId, LocalDateTime createdAt) {
+        WalletTransaction transaction = new WalletTransaction(walletRepository.getReferenceById(walletId), operationType, amount);
+        transaction.prepareForInsert(transactionId, createdAt);
+        transactions.add(transaction);
+        deltas.merge(walletId, operationType == OperationType.WITHDRAW ? amount.negate() : amount, Money::plus);
+    }
+}
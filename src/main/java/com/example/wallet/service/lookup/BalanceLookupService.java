@@ -0,0 +1,148 @@
+package com.example.wallet.service.lookup;
+
+import com.example.wallet.config.BalanceLookupProperties;
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.exceptions.BalanceLookupTooLargeException;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletBalanceRepository.VersionedBalance;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.service.balance.ShardedBalanceService;
+import com.example.wallet.service.ledger.LedgerEngine;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Balances of many wallets in one request, written to the response as a JSON array while they are read.
+ * <p>
+ * A list of ids is read in chunks of {@code wallet.balance-lookup.batch-size}, one {@code IN} statement per chunk, so
+ * the number of bind parameters stays bounded; the wallets of a user are read in chunks of the same size by keyset
+ * on the wallet id. Each chunk is read in its own short read-only transaction, on the read replica when it is
+ * enabled, and written after it ends, so a slow client holds no pool connection. Balances of different chunks may
+ * therefore be read at different moments. Balances kept outside the wallet row, by the in-memory ledger and for
+ * sharded wallets, are taken from there as a single read would.
+ */
+@Service
+public class BalanceLookupService {
+    private final BalanceLookupProperties properties;
+    private final WalletRepository walletRepository;
+    private final UserRepository userRepository;
+    private final LedgerEngine ledgerEngine;
+    private final ShardedBalanceService shardedBalanceService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public BalanceLookupService(BalanceLookupProperties properties,
+                                WalletRepository walletRepository,
+                                UserRepository userRepository,
+                                LedgerEngine ledgerEngine,
+                                ShardedBalanceService shardedBalanceService,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.walletRepository = walletRepository;
+        this.userRepository = userRepository;
+        this.ledgerEngine = ledgerEngine;
+        this.shardedBalanceService = shardedBalanceService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Balances in the order of {@code walletIds}, repeated ids once, wallets that do not exist are left out.
+     */
+    public Lookup prepare(List<UUID> walletIds) {
+        if (walletIds.size() > properties.getMaxWallets()) {
+            throw new BalanceLookupTooLargeException(properties.getMaxWallets());
+        }
+        List<UUID> distinct = new ArrayList<>(new LinkedHashSet<>(walletIds));
+        return output -> write(output, writer -> {
+            for (int from = 0; from < distinct.size(); from += properties.getBatchSize()) {
+                List<UUID> batch = distinct.subList(from, Math.min(distinct.size(), from + properties.getBatchSize()));
+                readOnlyTransaction.execute(status -> lookUp(batch)).forEach(writer);
+            }
+        });
+    }
+
+    /**
+     * Checks the user up front, so that a missing one still gets a 404 before the response is committed.
+     */
+    public Lookup prepareForUser(UUID userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new EntityNotFoundException("User not found");
+        }
+        return output -> write(output, writer -> {
+            UUID after = null;
+            List<WalletResponse> chunk;
+            do {
+                UUID from = after;
+                chunk = readOnlyTransaction.execute(status -> walletRepository.findUserBalancesAfter(userId, from,
+                        properties.getBatchSize()).stream().map(this::resolve).toList());
+                chunk.forEach(writer);
+                after = chunk.isEmpty() ? null : chunk.get(chunk.size() - 1).walletId();
+            } while (chunk.size() == properties.getBatchSize());
+        });
+    }
+
+    private List<WalletResponse> lookUp(List<UUID> batch) {
+        Map<UUID, VersionedBalance> balances = walletRepository.findVersionedBalances(batch);
+        List<WalletResponse> responses = new ArrayList<>(balances.size());
+        for (UUID walletId : batch) {
+            VersionedBalance balance = balances.get(walletId);
+            if (balance != null) {
+                responses.add(resolve(new WalletResponse(walletId, balance.balance(), balance.version())));
+            }
+        }
+        return responses;
+    }
+
+    private WalletResponse resolve(WalletResponse row) {
+        if (ledgerEngine.isEnabled()) {
+            return ledgerEngine.getBalance(row.walletId());
+        }
+        if (shardedBalanceService.isSharded(row.walletId())) {
+            return new WalletResponse(row.walletId(), shardedBalanceService.getBalance(row.walletId()));
+        }
+        return row;
+    }
+
+    private void write(OutputStream output, Consumer<Consumer<WalletResponse>> reader) throws IOException {
+        try (SequenceWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValuesAsArray(output)) {
+            reader.accept(response -> write(writer, response));
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    private static void write(SequenceWriter writer, WalletResponse response) {
+        try {
+            writer.write(response);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Lookup {
+        void writeTo(OutputStream output) throws IOException;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.wallet.service.outbox;
+
+import com.example.wallet.config.OutboxProperties;
+import com.example.wallet.dto.WalletEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events as NDJSON to a local file and forces it to disk before the outbox rows are deleted.
+ * A stand-in for a broker, e.g. tailed by a shipper.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+    private final ObjectWriter writer;
+    private final FileChannel channel;
+
+    public FileOutboxSink(ObjectMapper objectMapper, OutboxProperties properties) throws IOException {
+        this.writer = objectMapper.writerFor(WalletEvent.class);
+        Path file = properties.getFile().toAbsolutePath();
+        Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void publish(List<WalletEvent> events) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(events.size() * 200);
+            for (WalletEvent event : events) {
+                writer.writeValue(buffer, event);
+                buffer.write('\n');
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.wallet.service.outbox;
+
+import com.example.wallet.dto.WalletEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Writes events to the application log, the default until a broker is wired in.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.outbox.sink", havingValue = "log", matchIfMissing = true)
+public class LoggingOutboxSink implements OutboxSink {
+
+    @Override
+    public void publish(List<WalletEvent> events) {
+        for (WalletEvent event : events) {
+            log.info("wallet event {} {} {} of wallet {}, transaction {}", event.eventId(), event.operationType(),
+                    event.amount(), event.walletId(), event.transactionId());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.wallet.service.outbox;
+
+import com.example.wallet.config.OutboxProperties;
+import com.example.wallet.dto.WalletEvent;
+import com.example.wallet.repository.WalletOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Drains {@code wallet_outbox} into the {@link OutboxSink} on the scheduler thread, so publishing never runs on
+ * the request path.
+ * <p>
+ * Each batch is claimed in id order with {@code FOR UPDATE SKIP LOCKED}, published and deleted in one transaction:
+ * delivery is at least once, and several relays never get the same rows. With more than one relay the order
+ * between batches is not guaranteed. Only events older than {@code settle-delay} are claimed, so an event whose
+ * transaction commits late is not overtaken by a newer id. A full batch is followed by the next one right away, up to
+ * {@code max-batches-per-poll}. When the sink throws, the batch rolls back and polling backs off exponentially,
+ * while writers keep appending to the table.
+ * <ul>
+ *     <li>{@code wallet.outbox.published} - events delivered to the sink</li>
+ *     <li>{@code wallet.outbox.failures} - batches the sink rejected</li>
+ *     <li>{@code wallet.outbox.lag} - age of events when they were delivered</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+    private final WalletOutboxRepository outboxRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties properties;
+    private final Counter publishedCounter;
+    private final Counter failureCounter;
+    private final Timer lagTimer;
+    private int consecutiveFailures;
+    private long backoffUntil;
+
+    public OutboxRelay(WalletOutboxRepository outboxRepository,
+                       OutboxSink sink,
+                       TransactionTemplate transactionTemplate,
+                       OutboxProperties properties,
+                       MeterRegistry registry) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.publishedCounter = Counter.builder("wallet.outbox.published")
+                .description("Wallet events delivered to the sink")
+                .register(registry);
+        this.failureCounter = Counter.builder("wallet.outbox.failures")
+                .description("Outbox batches the sink rejected")
+                .register(registry);
+        this.lagTimer = Timer.builder("wallet.outbox.lag")
+                .description("Age of wallet events when they were delivered")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.outbox.poll-interval:200ms}")
+    public void poll() {
+        if (!properties.isRelayEnabled() || System.nanoTime() - backoffUntil < 0) {
+            return;
+        }
+        try {
+            for (int i = 0; i < properties.getMaxBatchesPerPoll(); i++) {
+                if (relayBatch() < properties.getBatchSize()) {
+                    break;
+                }
+            }
+            consecutiveFailures = 0;
+        } catch (RuntimeException exception) {
+            failureCounter.increment();
+            consecutiveFailures++;
+            Duration backoff = backoff(consecutiveFailures);
+            backoffUntil = System.nanoTime() + backoff.toNanos();
+            log.warn("Outbox relay failed {} times in a row, next attempt in {}: {}",
+                    consecutiveFailures, backoff, exception.getMessage());
+        }
+    }
+
+    /**
+     * Claims, publishes and deletes one batch in a single transaction.
+     *
+     * @return number of events relayed
+     */
+    public int relayBatch() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<WalletEvent> events = outboxRepository.claimBatch(properties.getBatchSize(),
+                    LocalDateTime.now().minus(properties.getSettleDelay()));
+            if (events.isEmpty()) {
+                return 0;
+            }
+            sink.publish(events);
+            LocalDateTime deliveredAt = LocalDateTime.now();
+            for (WalletEvent event : events) {
+                lagTimer.record(Duration.between(event.createdAt(), deliveredAt));
+            }
+            outboxRepository.deleteAll(events);
+            return events.size();
+        });
+        if (relayed == null || relayed == 0) {
+            return 0;
+        }
+        publishedCounter.increment(relayed);
+        return relayed;
+    }
+
+    private Duration backoff(int failures) {
+        Duration backoff = properties.getPollInterval().multipliedBy(1L << Math.min(failures, 20));
+        return backoff.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : backoff;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.wallet.service.outbox;
+
+import com.example.wallet.dto.WalletEvent;
+
+import java.util.List;
+
+/**
+ * Destination of wallet events relayed from the outbox.
+ * <p>
+ * Called from the relay thread inside the claiming transaction. Returning normally means the batch is delivered
+ * and its rows are deleted; throwing leaves the rows for a later attempt, so events may be delivered twice.
+ * A sink that cannot keep up should block or throw rather than buffer without bound.
+ */
+public interface OutboxSink {
+
+    void publish(List<WalletEvent> events);
+}
@@ -0,0 +1,138 @@
+package com.example.wallet.service.reactive;
+
+import com.example.wallet.config.BalanceShardingProperties;
+import com.example.wallet.config.CommandShardingProperties;
+import com.example.wallet.config.LedgerProperties;
+import com.example.wallet.config.OutboxProperties;
+import com.example.wallet.config.RetryProperties;
+import com.example.wallet.config.WriteCombiningProperties;
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.exceptions.SameWalletTransferException;
+import com.example.wallet.model.reactive.WalletRow;
+import com.example.wallet.model.reactive.WalletTransactionRow;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.reactive.ReactiveWalletRepository;
+import com.example.wallet.repository.reactive.ReactiveWalletTransactionRepository;
+import com.example.wallet.util.TimeOrderedUuid;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Wallet updates, transfers and balance reads of the {@code reactive} profile, on R2DBC without blocking a thread.
+ * <p>
+ * Writes follow the locking path of {@code WalletService}: the wallet row is locked with {@code FOR UPDATE} as
+ * configured by {@code wallet.row-lock}, the balance is checked and written, and the ledger row and its outbox event are inserted in the same transaction.
+ * A transfer locks both rows in id order first, so opposite transfers cannot deadlock, with each other or with
+ * transfers of the blocking stack on another instance. A row that stays locked fails the transaction, which is run
+ * again up to {@code wallet.retry.max-attempts} times with an exponential backoff: a plain retry, without the
+ * contention estimate and budget of {@code ContentionRetry}.
+ * <p>
+ * The modes that keep balances outside the wallet row or move writes to other threads are not available here and
+ * fail the startup: the in-memory ledger, command sharding, balance sharding and write combining.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveWalletService {
+    private final ReactiveWalletRepository walletRepository;
+    private final ReactiveWalletTransactionRepository walletTransactionRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final OutboxProperties outboxProperties;
+    private final RetryBackoffSpec lockRetry;
+
+    public ReactiveWalletService(ReactiveWalletRepository walletRepository,
+                                 ReactiveWalletTransactionRepository walletTransactionRepository,
+                                 TransactionalOperator transactionalOperator,
+                                 OutboxProperties outboxProperties,
+                                 RetryProperties retryProperties,
+                                 LedgerProperties ledgerProperties,
+                                 CommandShardingProperties commandShardingProperties,
+                                 BalanceShardingProperties balanceShardingProperties,
+                                 WriteCombiningProperties writeCombiningProperties) {
+        requireDisabled(ledgerProperties.isEnabled(), "wallet.ledger.enabled");
+        requireDisabled(commandShardingProperties.isEnabled(), "wallet.command-sharding.enabled");
+        requireDisabled(!balanceShardingProperties.getWallets().isEmpty(), "wallet.balance-sharding.wallets");
+        requireDisabled(writeCombiningProperties.isEnabled(), "wallet.write-combining.enabled");
+        this.walletRepository = walletRepository;
+        this.walletTransactionRepository = walletTransactionRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.outboxProperties = outboxProperties;
+        this.lockRetry = Retry.backoff(Math.max(0, retryProperties.getMaxAttempts() - 1), retryProperties.getInitialBackoff())
+                .maxBackoff(retryProperties.getMaxBackoff())
+                .jitter(retryProperties.isJitter() ? 0.5 : 0)
+                .filter(CannotAcquireLockException.class::isInstance)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    public Mono<WalletResponse> updateWallet(WalletRequest request) {
+        return lock(request.walletId())
+                .flatMap(wallet -> apply(wallet, request.operationType(), request.amount()))
+                .as(transactionalOperator::transactional)
+                .retryWhen(lockRetry);
+    }
+
+    public Mono<Void> transferBetweenWallets(TransferRequest request) {
+        UUID fromId = request.fromWalletId();
+        UUID toId = request.toWalletId();
+        if (fromId.equals(toId)) {
+            return Mono.error(new SameWalletTransferException("wallet from and wallet to has the same id: " + fromId));
+        }
+        // Rows are always locked in id order, as in WalletService, so opposite transfers cannot deadlock.
+        boolean fromFirst = fromId.compareTo(toId) < 0;
+        return lock(fromFirst ? fromId : toId)
+                .zipWhen(first -> lock(fromFirst ? toId : fromId))
+                .flatMap(locked -> {
+                    WalletRow from = fromFirst ? locked.getT1() : locked.getT2();
+                    WalletRow to = fromFirst ? locked.getT2() : locked.getT1();
+                    return apply(from, OperationType.WITHDRAW, request.amount())
+                            .then(apply(to, OperationType.DEPOSIT, request.amount()));
+                })
+                .as(transactionalOperator::transactional)
+                .retryWhen(lockRetry)
+                .then();
+    }
+
+    public Mono<WalletResponse> getBalance(UUID walletId) {
+        return walletRepository.findById(walletId)
+                .map(wallet -> new WalletResponse(wallet.id(), Money.of(wallet.balance()), wallet.version()))
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException("Wallet not found")));
+    }
+
+    private Mono<WalletRow> lock(UUID walletId) {
+        return walletRepository.findByIdForUpdate(walletId)
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException("Wallet not found")));
+    }
+
+    private Mono<WalletResponse> apply(WalletRow wallet, OperationType operationType, Money amount) {
+        Money balance = Money.of(wallet.balance());
+        if (operationType == OperationType.WITHDRAW && balance.compareTo(amount) < 0) {
+            return Mono.error(new InsufficientFundsException(wallet.id().toString(), balance, amount));
+        }
+        Money updated = operationType == OperationType.WITHDRAW ? balance.minus(amount) : balance.plus(amount);
+        LocalDateTime now = LocalDateTime.now();
+        WalletTransactionRow transaction = new WalletTransactionRow(TimeOrderedUuid.next(), wallet.id(),
+                operationType.name(), amount.toBigDecimal(), now);
+        return walletRepository.updateBalance(wallet.id(), updated.toBigDecimal(), now)
+                .then(walletTransactionRepository.append(transaction))
+                .then(outboxProperties.isEnabled() ? walletTransactionRepository.appendEvent(transaction) : Mono.empty())
+                .thenReturn(new WalletResponse(wallet.id(), updated, wallet.version() + 1));
+    }
+
+    private static void requireDisabled(boolean enabled, String property) {
+        if (enabled) {
+            throw new IllegalStateException(property + " cannot be combined with the reactive profile");
+        }
+    }
+}
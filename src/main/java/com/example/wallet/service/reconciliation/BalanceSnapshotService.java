@@ -0,0 +1,60 @@
+package com.example.wallet.service.reconciliation;
+
+import com.example.wallet.config.ReconciliationProperties;
+import com.example.wallet.repository.BalanceSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves the ledger checkpoints of wallets forward, so that reconciliation only sums ledger rows written since.
+ * <p>
+ * A checkpoint is computed from the ledger alone (previous checkpoint plus newer rows), never copied from
+ * {@code wallet.balance}, so it cannot hide a mismatch. Rows younger than
+ * {@link ReconciliationProperties#getSettleDelay()} are left for the next run, since a transaction still open
+ * could still commit a row with an older {@code created_at}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceSnapshotService {
+    private final BalanceSnapshotRepository snapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ReconciliationProperties properties;
+
+    @Scheduled(fixedDelayString = "${wallet.reconciliation.snapshot-interval:15m}",
+            initialDelayString = "${wallet.reconciliation.snapshot-interval:15m}")
+    public void scheduledSnapshot() {
+        try {
+            takeSnapshots();
+        } catch (RuntimeException exception) {
+            log.warn("Balance snapshot failed: {}", exception.getMessage());
+        }
+    }
+
+    /**
+     * @return number of wallets whose checkpoint moved
+     */
+    public int takeSnapshots() {
+        LocalDateTime before = LocalDateTime.now().minus(properties.getSettleDelay());
+        int advanced = 0;
+        List<UUID> boundaries = snapshotRepository.findWalletIdBoundaries(properties.getPartitions());
+        for (WalletIdRange range : WalletIdRange.between(boundaries)) {
+            Integer saved = transactionTemplate.execute(status -> {
+                List<BalanceSnapshotRepository.Snapshot> snapshots =
+                        snapshotRepository.findAdvancedSnapshots(range.from(), range.to(), before);
+                snapshotRepository.saveAll(snapshots);
+                return snapshots.size();
+            });
+            advanced += saved == null ? 0 : saved;
+        }
+        log.info("Balance snapshots moved forward for {} wallets", advanced);
+        return advanced;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.wallet.service.reconciliation;
+
+import com.example.wallet.config.ReconciliationProperties;
+import com.example.wallet.dto.BalanceMismatch;
+import com.example.wallet.dto.ReconciliationReport;
+import com.example.wallet.repository.BalanceSnapshotRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks {@code wallet.balance} (plus balance slots) against the ledger.
+ * <p>
+ * The expected balance is the wallet's checkpoint in {@code wallet_balance_snapshots} plus the ledger rows
+ * after it, so the cost of a run follows the activity since the last snapshot, not the size of the history.
+ * Wallet id ranges are checked in parallel on a dedicated fork-join pool, one statement per range.
+ * <ul>
+ *     <li>{@code wallet.reconciliation.mismatches} - wallets that did not match in the last run</li>
+ *     <li>{@code wallet.reconciliation.duration} - run time</li>
+ *     <li>{@code wallet.reconciliation.ledger.rows} - ledger rows summed</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class LedgerReconciliationService {
+    private final BalanceSnapshotRepository snapshotRepository;
+    private final ReconciliationProperties properties;
+    private final ForkJoinPool pool;
+    private final AtomicReference<ReconciliationReport> lastReport = new AtomicReference<>();
+    private final AtomicLong lastMismatches = new AtomicLong();
+    private final Timer durationTimer;
+    private final Counter ledgerRowsCounter;
+
+    public LedgerReconciliationService(BalanceSnapshotRepository snapshotRepository,
+                                       ReconciliationProperties properties,
+                                       MeterRegistry registry) {
+        this.snapshotRepository = snapshotRepository;
+        this.properties = properties;
+        this.pool = new ForkJoinPool(properties.getParallelism());
+        Gauge.builder("wallet.reconciliation.mismatches", lastMismatches, AtomicLong::get)
+                .description("Wallets whose balance did not match the ledger in the last run")
+                .register(registry);
+        this.durationTimer = Timer.builder("wallet.reconciliation.duration")
+                .description("Ledger reconciliation run time")
+                .register(registry);
+        this.ledgerRowsCounter = Counter.builder("wallet.reconciliation.ledger.rows")
+                .description("Ledger rows summed by reconciliation")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.reconciliation.interval:1h}",
+            initialDelayString = "${wallet.reconciliation.interval:1h}")
+    public void scheduledReconciliation() {
+        try {
+            reconcile();
+        } catch (RuntimeException exception) {
+            log.warn("Ledger reconciliation failed: {}", exception.getMessage());
+        }
+    }
+
+    public synchronized ReconciliationReport reconcile() {
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        List<UUID> boundaries = snapshotRepository.findWalletIdBoundaries(properties.getPartitions());
+        List<WalletIdRange> ranges = WalletIdRange.between(boundaries);
+        RangeResult result = pool.invoke(new RangeTask(ranges, 0, ranges.size()));
+        long elapsed = System.nanoTime() - start;
+
+        List<BalanceMismatch> mismatches = result.mismatches.size() > properties.getMaxReportedMismatches()
+                ? List.copyOf(result.mismatches.subList(0, properties.getMaxReportedMismatches()))
+                : List.copyOf(result.mismatches);
+        ReconciliationReport report = new ReconciliationReport(startedAt, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                result.wallets, result.ledgerRows, result.mismatches.size(), mismatches);
+        lastReport.set(report);
+        lastMismatches.set(report.mismatchCount());
+        durationTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        ledgerRowsCounter.increment(result.ledgerRows);
+        if (report.mismatchCount() > 0) {
+            log.warn("Reconciliation found {} wallets not matching the ledger", report.mismatchCount());
+        }
+        return report;
+    }
+
+    public Optional<ReconciliationReport> getLastReport() {
+        return Optional.ofNullable(lastReport.get());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    private RangeResult check(WalletIdRange range) {
+        RangeResult result = new RangeResult();
+        for (BalanceSnapshotRepository.LedgerBalance balance : snapshotRepository.findLedgerBalances(range.from(), range.to())) {
+            result.wallets++;
+            result.ledgerRows += balance.ledgerRows();
+            if (balance.balance().compareTo(balance.expectedBalance()) != 0) {
+                result.mismatches.add(new BalanceMismatch(balance.walletId(), balance.balance(), balance.expectedBalance()));
+            }
+        }
+        return result;
+    }
+
+    private static final class RangeResult {
+        private long wallets;
+        private long ledgerRows;
+        private final List<BalanceMismatch> mismatches = new ArrayList<>();
+
+        private RangeResult merge(RangeResult other) {
+            wallets += other.wallets;
+            ledgerRows += other.ledgerRows;
+            mismatches.addAll(other.mismatches);
+            return this;
+        }
+    }
+
+    /**
+     * Splits the ranges in halves down to a single range per task.
+     */
+    private final class RangeTask extends RecursiveTask<RangeResult> {
+        private final List<WalletIdRange> ranges;
+        private final int from;
+        private final int to;
+
+        private RangeTask(List<WalletIdRange> ranges, int from, int to) {
+            this.ranges = ranges;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected RangeResult compute() {
+            if (to - from == 1) {
+                return check(ranges.get(from));
+            }
+            int middle = (from + to) >>> 1;
+            RangeTask left = new RangeTask(ranges, from, middle);
+            left.fork();
+            RangeResult right = new RangeTask(ranges, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.wallet.service.reconciliation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A range of wallet ids, both bounds inclusive, in the unsigned byte order the database compares UUIDs in.
+ */
+public record WalletIdRange(UUID from, UUID to) {
+    private static final UUID MIN = new UUID(0L, 0L);
+    private static final UUID MAX = new UUID(-1L, -1L);
+
+    /**
+     * Covers the whole id space with ranges ending at the given ascending boundaries, plus a last open range.
+     * Wallet ids are time-ordered, so boundaries are taken from the data rather than by splitting the space evenly.
+     */
+    public static List<WalletIdRange> between(List<UUID> boundaries) {
+        List<WalletIdRange> ranges = new ArrayList<>(boundaries.size() + 1);
+        UUID from = MIN;
+        for (UUID boundary : boundaries) {
+            ranges.add(new WalletIdRange(from, boundary));
+            if (boundary.equals(MAX)) {
+                return ranges;
+            }
+            from = successor(boundary);
+        }
+        ranges.add(new WalletIdRange(from, MAX));
+        return ranges;
+    }
+
+    private static UUID successor(UUID id) {
+        long low = id.getLeastSignificantBits() + 1;
+        long high = low == 0 ? id.getMostSignificantBits() + 1 : id.getMostSignificantBits();
+        return new UUID(high, low);
+    }
+}
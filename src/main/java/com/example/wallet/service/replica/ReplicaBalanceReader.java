@@ -0,0 +1,76 @@
+package com.example.wallet.service.replica;
+
+import com.example.wallet.config.ReadReplicaProperties;
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.repository.WalletBalanceRepository.VersionedBalance;
+import com.example.wallet.repository.WalletRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Balance reads served by the read replica, guarded by the wallet version.
+ * <p>
+ * Every write returns the version of the wallet it produced ({@code Wallet-Version} header). A client that must
+ * see its own write passes that version back as {@code Wallet-Min-Version}: a replica row older than that, or one
+ * the replica does not have yet, is not returned and the primary is read instead. Reads without a minimum version
+ * take whatever the replica has.
+ * <p>
+ * The primary is read in a read-write transaction: Spring Data runs its own read methods in read-only transactions,
+ * which would be routed to the replica again.
+ * <p>
+ * {@code wallet.replica.reads} - balance reads by {@code source}: {@code replica}, or {@code primary} after the
+ * replica turned out to lag.
+ */
+@Component
+public class ReplicaBalanceReader {
+    private final ReadReplicaProperties properties;
+    private final WalletRepository walletRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate primaryTransaction;
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+
+    public ReplicaBalanceReader(ReadReplicaProperties properties, WalletRepository walletRepository,
+                                PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        this.properties = properties;
+        this.walletRepository = walletRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.replicaReads = reads(registry, "replica");
+        this.primaryReads = reads(registry, "primary");
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * @param minVersion the lowest acceptable wallet version, {@code null} for any
+     */
+    public WalletResponse getBalance(UUID walletId, Long minVersion) {
+        Optional<VersionedBalance> read = readOnlyTransaction.execute(status -> walletRepository.findVersionedBalance(walletId));
+        if (read.isEmpty() || minVersion != null && read.get().version() < minVersion) {
+            primaryReads.increment();
+            read = primaryTransaction.execute(status -> walletRepository.findVersionedBalance(walletId));
+        } else {
+            replicaReads.increment();
+        }
+        VersionedBalance balance = read.orElseThrow(() -> new EntityNotFoundException("Wallet not found"));
+        return new WalletResponse(walletId, balance.balance(), balance.version());
+    }
+
+    private static Counter reads(MeterRegistry registry, String source) {
+        return Counter.builder("wallet.replica.reads")
+                .description("Balance reads with the read replica enabled")
+                .tag("source", source)
+                .register(registry);
+    }
+}
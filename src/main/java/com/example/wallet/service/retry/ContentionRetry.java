@@ -0,0 +1,169 @@
+package com.example.wallet.service.retry;
+
+import com.example.wallet.config.RetryProperties;
+import com.example.wallet.exceptions.WalletContendedException;
+import com.example.wallet.metrics.MeteredOperation;
+import com.example.wallet.metrics.WalletMetrics;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Retries wallet mutations that failed on a row lock ({@link PessimisticLockingFailureException}, including lock
+ * timeouts and deadlocks), shared by updates, transfers and batches.
+ * <ul>
+ *     <li>the backoff starts below a millisecond and grows by {@code multiplier} per retry, with full jitter;</li>
+ *     <li>every wallet keeps a contention estimate, the moving share of its attempts that failed on a lock,
+ *     which stretches the backoff up to {@code 1 + contention-scale} times on a hot wallet;</li>
+ *     <li>every request earns its wallet {@code budget-ratio} retries, up to {@code budget-capacity}. A retry of a
+ *     wallet with an empty budget is not attempted, the request fails with {@link WalletContendedException} (429)
+ *     instead, so a saturated wallet sheds load rather than multiplying it.</li>
+ * </ul>
+ * A transfer or a batch is tracked on all its wallets and its retries are paid by the most contended one. A mutation running
+ * inside an outer transaction is not retried, that transaction is rolled back anyway.
+ * <p>
+ * {@code wallet.retry.contended.wallets} - tracked wallets whose contention estimate is at least one half.
+ */
+@Component
+public class ContentionRetry {
+    private static final double CONTENDED = 0.5;
+
+    private final RetryProperties properties;
+    private final WalletMetrics walletMetrics;
+    private final Cache<UUID, WalletContention> wallets;
+
+    public ContentionRetry(RetryProperties properties, WalletMetrics walletMetrics, MeterRegistry registry) {
+        this.properties = properties;
+        this.walletMetrics = walletMetrics;
+        this.wallets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxTrackedWallets())
+                .build();
+        Gauge.builder("wallet.retry.contended.wallets", this, ContentionRetry::countContended)
+                .description("Tracked wallets whose contention estimate is at least one half")
+                .register(registry);
+    }
+
+    public <T> T execute(MeteredOperation operation, UUID walletId, Supplier<T> mutation) {
+        return execute(operation, walletId, null, mutation);
+    }
+
+    /**
+     * @param otherWalletId the second wallet of a transfer, {@code null} otherwise
+     */
+    public <T> T execute(MeteredOperation operation, UUID walletId, UUID otherWalletId, Supplier<T> mutation) {
+        return execute(operation, otherWalletId == null ? List.of(walletId) : List.of(walletId, otherWalletId), mutation);
+    }
+
+    /**
+     * @param walletIds every wallet the mutation locks; without any the mutation runs once, untracked
+     */
+    public <T> T execute(MeteredOperation operation, Collection<UUID> walletIds, Supplier<T> mutation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive() || walletIds.isEmpty()) {
+            return mutation.get();
+        }
+        List<WalletContention> tracked = walletIds.stream().map(this::track).toList();
+        int retries = 0;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    T result = mutation.get();
+                    record(tracked, false);
+                    return result;
+                } catch (PessimisticLockingFailureException exception) {
+                    record(tracked, true);
+                    if (attempt >= properties.getMaxAttempts()) {
+                        throw exception;
+                    }
+                    WalletContention hottest = tracked.stream()
+                            .max(Comparator.comparingDouble(WalletContention::estimate)).orElseThrow();
+                    long backoff = backoffNanos(attempt, hottest.estimate());
+                    if (properties.isBudgetEnabled() && !hottest.tryTakeRetry()) {
+                        walletMetrics.recordShed(operation);
+                        throw new WalletContendedException(hottest.walletId.toString(), Duration.ofNanos(backoff), exception);
+                    }
+                    long sleep = properties.isJitter() ? ThreadLocalRandom.current().nextLong(backoff + 1) : backoff;
+                    walletMetrics.recordBackoff(operation, sleep);
+                    LockSupport.parkNanos(sleep);
+                    retries++;
+                }
+            }
+        } finally {
+            walletMetrics.recordRetries(operation, retries);
+        }
+    }
+
+    /**
+     * Contention estimate of a wallet between {@code 0} and {@code 1}, {@code 0} for a wallet not tracked.
+     */
+    double contention(UUID walletId) {
+        WalletContention contention = wallets.getIfPresent(walletId);
+        return contention == null ? 0 : contention.estimate();
+    }
+
+    private WalletContention track(UUID walletId) {
+        WalletContention contention = wallets.get(walletId, id -> new WalletContention(id, properties.getBudgetCapacity()));
+        contention.earn(properties.getBudgetRatio(), properties.getBudgetCapacity());
+        return contention;
+    }
+
+    private void record(List<WalletContention> tracked, boolean failed) {
+        for (WalletContention contention : tracked) {
+            contention.record(failed, properties.getContentionWeight());
+        }
+    }
+
+    private long backoffNanos(int attempt, double contention) {
+        double backoff = properties.getInitialBackoff().toNanos()
+                * Math.pow(properties.getMultiplier(), attempt - 1)
+                * (1 + properties.getContentionScale() * contention);
+        return (long) Math.min(backoff, properties.getMaxBackoff().toNanos());
+    }
+
+    private long countContended() {
+        return wallets.asMap().values().stream().filter(contention -> contention.estimate() >= CONTENDED).count();
+    }
+
+    private static final class WalletContention {
+        private final UUID walletId;
+        private double estimate;
+        private double budget;
+
+        private WalletContention(UUID walletId, double budget) {
+            this.walletId = walletId;
+            this.budget = budget;
+        }
+
+        private synchronized double estimate() {
+            return estimate;
+        }
+
+        private synchronized void record(boolean failed, double weight) {
+            estimate += weight * ((failed ? 1 : 0) - estimate);
+        }
+
+        private synchronized void earn(double retries, int capacity) {
+            budget = Math.min(capacity, budget + retries);
+        }
+
+        private synchronized boolean tryTakeRetry() {
+            if (budget < 1) {
+                return false;
+            }
+            budget--;
+            return true;
+        }
+    }
+}
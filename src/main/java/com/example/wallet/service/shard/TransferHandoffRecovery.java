@@ -0,0 +1,52 @@
+package com.example.wallet.service.shard;
+
+import com.example.wallet.config.CommandShardingProperties;
+import com.example.wallet.repository.TransferHandoffRepository;
+import com.example.wallet.repository.TransferHandoffRepository.Handoff;
+import com.example.wallet.service.WalletService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Delivers credits of cross-shard transfers that did not complete, e.g. because the instance stopped between the
+ * two phases. Runs on startup and then every {@code handoff-retry-interval}, also with command sharding switched
+ * off, so no committed debit is left without its credit.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransferHandoffRecovery {
+    private static final int BATCH_SIZE = 500;
+
+    private final TransferHandoffRepository transferHandoffRepository;
+    private final WalletService walletService;
+    private final WalletCommandProcessor commandProcessor;
+    private final CommandShardingProperties properties;
+
+    @Scheduled(fixedDelayString = "${wallet.command-sharding.handoff-retry-interval:5s}")
+    public void deliverStale() {
+        LocalDateTime threshold = LocalDateTime.now().minus(properties.getHandoffRetryInterval());
+        List<Handoff> handoffs = transferHandoffRepository.findCreatedBefore(threshold, BATCH_SIZE);
+        int delivered = 0;
+        for (Handoff handoff : handoffs) {
+            try {
+                boolean applied = commandProcessor.isEnabled()
+                        ? commandProcessor.submit(handoff.toWalletId(), () -> walletService.applyHandoff(handoff)).join()
+                        : walletService.applyHandoff(handoff);
+                if (applied) {
+                    delivered++;
+                }
+            } catch (RuntimeException exception) {
+                log.warn("Transfer hand-off {} could not be delivered: {}", handoff.id(), exception.getMessage());
+            }
+        }
+        if (delivered > 0) {
+            log.info("Delivered {} stale transfer hand-offs", delivered);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.wallet.service.shard;
+
+import com.example.wallet.config.CommandShardingProperties;
+import com.example.wallet.config.LedgerProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer execution mode ({@code wallet.command-sharding.enabled}): every wallet is owned by one of a fixed
+ * set of shard threads, chosen by the hash of its id, and all updates and transfer halves of the wallet run on it
+ * one after another. Commands of one wallet therefore never wait for each other on a row lock and are not retried
+ * after lock conflicts, which shortens the tail latency on a hot wallet; commands of different shards run in
+ * parallel. On the one CPU it was measured on, throughput stayed the same as with row locks.
+ * <p>
+ * Each shard has a bounded queue, a command submitted to a full queue fails with
+ * {@link RejectedExecutionException}.
+ * <ul>
+ *     <li>{@code wallet.command.queue.wait} - time a command spent in the shard queue</li>
+ *     <li>{@code wallet.command.queue.size} - commands queued over all shards</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class WalletCommandProcessor {
+    private final ThreadPoolExecutor[] shards;
+    private final Timer queueWaitTimer;
+
+    public WalletCommandProcessor(CommandShardingProperties properties,
+                                  LedgerProperties ledgerProperties,
+                                  MeterRegistry registry) {
+        if (properties.isEnabled() && ledgerProperties.isEnabled()) {
+            throw new IllegalStateException("wallet.command-sharding.enabled cannot be combined with wallet.ledger.enabled");
+        }
+        int shardCount = properties.getShards() > 0 ? properties.getShards() : Runtime.getRuntime().availableProcessors();
+        this.shards = properties.isEnabled() ? new ThreadPoolExecutor[shardCount] : new ThreadPoolExecutor[0];
+        for (int i = 0; i < shards.length; i++) {
+            String name = "wallet-shard-" + i;
+            shards[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(properties.getQueueCapacity()), runnable -> new Thread(runnable, name));
+        }
+        this.queueWaitTimer = Timer.builder("wallet.command.queue.wait")
+                .description("Time a wallet command spent in its shard queue")
+                .register(registry);
+        Gauge.builder("wallet.command.queue.size", this,
+                        processor -> Arrays.stream(processor.shards).mapToInt(shard -> shard.getQueue().size()).sum())
+                .description("Wallet commands queued over all shards")
+                .register(registry);
+        if (isEnabled()) {
+            log.info("Wallet commands run on {} shard threads", shards.length);
+        }
+    }
+
+    public boolean isEnabled() {
+        return shards.length > 0;
+    }
+
+    public int shardOf(UUID walletId) {
+        return Math.floorMod(walletId.hashCode(), shards.length);
+    }
+
+    public boolean sameShard(UUID first, UUID second) {
+        return shardOf(first) == shardOf(second);
+    }
+
+    /**
+     * Runs {@code command} on the shard owning {@code walletId}. The future completes on the shard thread.
+     */
+    public <T> CompletableFuture<T> submit(UUID walletId, Supplier<T> command) {
+        long submittedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return command.get();
+            }, shards[shardOf(walletId)]);
+        } catch (RejectedExecutionException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor shard : shards) {
+            shard.shutdown();
+        }
+        for (ThreadPoolExecutor shard : shards) {
+            if (!shard.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Wallet shard did not drain in time, {} commands dropped", shard.shutdownNow().size());
+            }
+        }
+    }
+}
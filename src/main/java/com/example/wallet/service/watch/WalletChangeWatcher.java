@@ -0,0 +1,126 @@
+package com.example.wallet.service.watch;
+
+import com.example.wallet.config.LongPollProperties;
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.repository.WalletBalanceRepository.VersionedBalance;
+import com.example.wallet.repository.WalletRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parks balance long polls until the version of their wallet moves past the one the client has seen.
+ * <p>
+ * A waiting request holds no thread and no connection: it is a future in a map keyed by wallet. A single
+ * {@code wallet-long-poll} thread reads the versions of all watched wallets every {@code poll-interval}, one
+ * statement per {@code batch-size} wallets however many requests wait on them, and completes the futures of the
+ * wallets that changed. Polling rather than notifying from the writers also sees writes made by other instances and
+ * by every write path alike. A future that sees no change within {@code timeout} completes with {@code null}.
+ * <p>
+ * {@code wallet.balance.watchers} - requests currently waiting.
+ */
+@Slf4j
+@Component
+public class WalletChangeWatcher {
+    private final LongPollProperties properties;
+    private final WalletRepository walletRepository;
+    private final Map<UUID, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final ScheduledExecutorService poller;
+
+    public WalletChangeWatcher(LongPollProperties properties, WalletRepository walletRepository, MeterRegistry registry) {
+        this.properties = properties;
+        this.walletRepository = walletRepository;
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "wallet-long-poll"));
+        long interval = properties.getPollInterval().toMillis();
+        poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+        Gauge.builder("wallet.balance.watchers", waiting, AtomicInteger::get)
+                .description("Balance long polls waiting for a change")
+                .register(registry);
+    }
+
+    /**
+     * @return a future completed with the balance once the wallet version is above {@code afterVersion}, with
+     * {@code null} after the timeout, or failed with {@link EntityNotFoundException} if the wallet goes away
+     */
+    public CompletableFuture<WalletResponse> awaitChange(UUID walletId, long afterVersion) {
+        if (waiting.incrementAndGet() > properties.getMaxWaiters()) {
+            waiting.decrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many balance long polls"));
+        }
+        Waiter waiter = new Waiter(afterVersion, new CompletableFuture<>());
+        waiters.compute(walletId, (id, watching) -> {
+            Set<Waiter> set = watching != null ? watching : ConcurrentHashMap.newKeySet();
+            set.add(waiter);
+            return set;
+        });
+        waiter.future().whenComplete((response, exception) -> remove(walletId, waiter));
+        return waiter.future().completeOnTimeout(null, properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Answers everyone still waiting as if their timeout had passed, the clients poll again elsewhere.
+     */
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+        waiters.values().forEach(watching -> watching.forEach(waiter -> waiter.future().complete(null)));
+    }
+
+    private void poll() {
+        try {
+            List<UUID> walletIds = new ArrayList<>(waiters.keySet());
+            for (int from = 0; from < walletIds.size(); from += properties.getBatchSize()) {
+                List<UUID> batch = walletIds.subList(from, Math.min(walletIds.size(), from + properties.getBatchSize()));
+                Map<UUID, VersionedBalance> balances = walletRepository.findVersionedBalances(batch);
+                batch.forEach(walletId -> notify(walletId, balances.get(walletId)));
+            }
+        } catch (RuntimeException exception) {
+            log.warn("Failed to check watched wallets for changes", exception);
+        }
+    }
+
+    private void notify(UUID walletId, VersionedBalance balance) {
+        Set<Waiter> watching = waiters.get(walletId);
+        if (watching == null) {
+            return;
+        }
+        for (Waiter waiter : watching) {
+            if (balance == null) {
+                waiter.future().completeExceptionally(new EntityNotFoundException("Wallet not found"));
+            } else if (balance.version() > waiter.afterVersion()) {
+                waiter.future().complete(new WalletResponse(walletId, balance.balance(), balance.version()));
+            }
+        }
+    }
+
+    private void remove(UUID walletId, Waiter waiter) {
+        waiters.computeIfPresent(walletId, (id, watching) -> {
+            watching.remove(waiter);
+            return watching.isEmpty() ? null : watching;
+        });
+        waiting.decrementAndGet();
+    }
+
+    /**
+     * One per request, told apart by the future.
+     */
+    private record Waiter(long afterVersion, CompletableFuture<WalletResponse> future) {
+    }
+}
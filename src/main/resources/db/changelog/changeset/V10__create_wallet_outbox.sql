@@ -0,0 +1,15 @@
+-- liquibase formatted sql
+
+-- changeset denis:10
+-- comment: Outbox of wallet balance-change events, written with the ledger rows and drained by the relay
+
+CREATE TABLE IF NOT EXISTS wallet_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    transaction_id UUID NOT NULL,
+    wallet_id UUID NOT NULL,
+    operation_type VARCHAR(255) NOT NULL,
+    amount NUMERIC(19, 2) NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+-- rollback DROP TABLE wallet_outbox;
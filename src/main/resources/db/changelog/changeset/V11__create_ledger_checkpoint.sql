@@ -0,0 +1,14 @@
+-- liquibase formatted sql
+
+-- changeset denis:11
+-- comment: Last journal record of the in-memory ledger projected into wallet and wallet_transactions
+
+CREATE TABLE IF NOT EXISTS ledger_checkpoint (
+    id INT PRIMARY KEY,
+    projected_sequence BIGINT NOT NULL,
+    updated_at TIMESTAMP
+);
+
+INSERT INTO ledger_checkpoint (id, projected_sequence) VALUES (1, 0);
+
+-- rollback DROP TABLE ledger_checkpoint;
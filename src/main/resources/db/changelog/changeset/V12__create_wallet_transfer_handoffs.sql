@@ -0,0 +1,16 @@
+-- liquibase formatted sql
+
+-- changeset denis:12
+-- comment: Credits of cross-shard transfers whose debit is committed and credit is not yet
+
+CREATE TABLE IF NOT EXISTS wallet_transfer_handoffs (
+    id UUID PRIMARY KEY,
+    from_wallet_id UUID NOT NULL,
+    to_wallet_id UUID NOT NULL,
+    amount NUMERIC(19, 2) NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_wallet_transfer_handoffs_created_at ON wallet_transfer_handoffs (created_at);
+
+-- rollback DROP TABLE wallet_transfer_handoffs;
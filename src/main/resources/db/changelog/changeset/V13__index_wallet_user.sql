@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+
+-- changeset denis:13
+-- comment: Index for reading all wallets of a user in one statement
+
+CREATE INDEX IF NOT EXISTS idx_wallet_user_id
+    ON wallet (user_id, id);
+
+-- rollback DROP INDEX idx_wallet_user_id;
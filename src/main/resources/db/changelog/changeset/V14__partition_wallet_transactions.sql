@@ -0,0 +1,125 @@
+-- liquibase formatted sql
+
+-- PostgreSQL: wallet_transactions becomes partitioned by month of created_at without copying the ledger. The table
+-- as it is turns into the partition wallet_transactions_legacy covering everything before a cutoff two months ahead,
+-- new months get partitions wallet_transactions_pYYYYMM. Each step below holds its strong lock only briefly:
+-- the scans (constraint check, indexes) run with locks that let reads and writes go on.
+--
+-- The primary key becomes (id, created_at), PostgreSQL only enforces unique keys that contain the partition key.
+-- The legacy partition keeps a unique index on id. New rows get a freshly generated id each, and the writes that
+-- may repeat (ledger projection, transfer hand-off delivery) are deduplicated by the checkpoint or hand-off row
+-- committed with them, not by the primary key.
+
+-- changeset denis:14-backfill dbms:postgresql
+-- comment: Rows without created_at go to the oldest month, partitioning needs the key
+
+UPDATE wallet_transactions
+SET created_at = COALESCE(updated_at, (SELECT MIN(created_at) FROM wallet_transactions), now())
+WHERE created_at IS NULL;
+
+-- changeset denis:14-check dbms:postgresql splitStatements:false
+-- comment: Bound of the legacy partition; NOT VALID takes the table lock only to add the definition
+
+DO $$
+BEGIN
+    EXECUTE format('ALTER TABLE wallet_transactions ADD CONSTRAINT chk_wallet_transactions_legacy_range '
+                   'CHECK (created_at IS NOT NULL AND created_at < %L) NOT VALID',
+                   date_trunc('month', now()) + INTERVAL '2 months');
+END $$;
+
+-- rollback ALTER TABLE wallet_transactions DROP CONSTRAINT chk_wallet_transactions_legacy_range;
+
+-- changeset denis:14-validate dbms:postgresql
+-- comment: Scans the table under SHARE UPDATE EXCLUSIVE, so that attaching it later needs no scan
+
+ALTER TABLE wallet_transactions VALIDATE CONSTRAINT chk_wallet_transactions_legacy_range;
+
+-- changeset denis:14-key-index dbms:postgresql runInTransaction:false
+-- comment: Index of the new primary key, built without blocking writes
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_wallet_transactions_legacy_id_created_at
+    ON wallet_transactions (id, created_at);
+
+-- rollback DROP INDEX CONCURRENTLY IF EXISTS uq_wallet_transactions_legacy_id_created_at;
+
+-- changeset denis:14-id-index dbms:postgresql runInTransaction:false
+-- comment: Ids of the legacy partition stay unique once its primary key includes created_at
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_wallet_transactions_legacy_id ON wallet_transactions (id);
+
+-- rollback DROP INDEX CONCURRENTLY IF EXISTS uq_wallet_transactions_legacy_id;
+
+-- changeset denis:14-range-index dbms:postgresql runInTransaction:false
+-- comment: The archival job reads and deletes the legacy partition by month
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_wallet_transactions_legacy_created_at
+    ON wallet_transactions (created_at);
+
+-- rollback DROP INDEX CONCURRENTLY IF EXISTS idx_wallet_transactions_legacy_created_at;
+
+-- changeset denis:14 dbms:postgresql splitStatements:false
+-- comment: Partition wallet_transactions by month of created_at, attaching the existing table as the legacy partition
+
+ALTER TABLE wallet_transactions RENAME TO wallet_transactions_legacy;
+ALTER INDEX idx_wallet_transactions_wallet_created_id RENAME TO idx_wallet_transactions_legacy_wallet_created_id;
+ALTER INDEX idx_wallet_transactions_wallet_id_id RENAME TO idx_wallet_transactions_legacy_wallet_id_id;
+-- Proven by the validated check, no scan.
+ALTER TABLE wallet_transactions_legacy ALTER COLUMN created_at SET NOT NULL;
+-- The partition needs the primary key of the parent; both indexes are built already.
+ALTER TABLE wallet_transactions_legacy DROP CONSTRAINT wallet_transactions_pkey;
+ALTER TABLE wallet_transactions_legacy ADD CONSTRAINT wallet_transactions_legacy_pkey
+    PRIMARY KEY USING INDEX uq_wallet_transactions_legacy_id_created_at;
+
+CREATE TABLE wallet_transactions (
+    id UUID NOT NULL,
+    wallet_id UUID NOT NULL,
+    operation_type VARCHAR(255),
+    amount NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP,
+    CONSTRAINT pk_wallet_transactions PRIMARY KEY (id, created_at),
+    CONSTRAINT fk_wallet_transactions_wallet FOREIGN KEY (wallet_id) REFERENCES wallet (id)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_wallet_transactions_wallet_created_id ON wallet_transactions (wallet_id, created_at DESC, id DESC);
+CREATE INDEX idx_wallet_transactions_wallet_id_id ON wallet_transactions (wallet_id, id);
+CREATE INDEX idx_wallet_transactions_created_at ON wallet_transactions (created_at);
+
+-- The indexes and the foreign key of the legacy table match the ones above and are attached as they are.
+DO $$
+DECLARE
+    cutoff TIMESTAMP := substring(pg_get_constraintdef((SELECT oid FROM pg_constraint
+                                                        WHERE conname = 'chk_wallet_transactions_legacy_range'))
+                                  FROM '''([^'']+)''')::TIMESTAMP;
+    month_start TIMESTAMP;
+BEGIN
+    EXECUTE format('ALTER TABLE wallet_transactions ATTACH PARTITION wallet_transactions_legacy '
+                   'FOR VALUES FROM (MINVALUE) TO (%L)', cutoff);
+    month_start := cutoff;
+    WHILE month_start < cutoff + INTERVAL '2 months' LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF wallet_transactions FOR VALUES FROM (%L) TO (%L)',
+                       'wallet_transactions_p' || to_char(month_start, 'YYYYMM'), month_start,
+                       month_start + INTERVAL '1 month');
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+-- Rows outside every partition, e.g. from a clock far ahead. The archival job creates months in advance.
+CREATE TABLE wallet_transactions_default PARTITION OF wallet_transactions DEFAULT;
+
+-- rollback DROP TABLE wallet_transactions_default;
+-- rollback ALTER TABLE wallet_transactions DETACH PARTITION wallet_transactions_legacy;
+-- rollback DROP TABLE wallet_transactions;
+-- rollback ALTER TABLE wallet_transactions_legacy RENAME TO wallet_transactions;
+-- rollback ALTER TABLE wallet_transactions DROP CONSTRAINT wallet_transactions_legacy_pkey;
+-- rollback ALTER TABLE wallet_transactions ADD CONSTRAINT wallet_transactions_pkey PRIMARY KEY USING INDEX uq_wallet_transactions_legacy_id;
+-- rollback ALTER INDEX idx_wallet_transactions_legacy_wallet_created_id RENAME TO idx_wallet_transactions_wallet_created_id;
+-- rollback ALTER INDEX idx_wallet_transactions_legacy_wallet_id_id RENAME TO idx_wallet_transactions_wallet_id_id;
+-- rollback ALTER TABLE wallet_transactions ALTER COLUMN created_at DROP NOT NULL;
+
+-- changeset denis:14-range dbms:!postgresql
+-- comment: Without declarative partitioning a month of wallet_transactions is a created_at range
+
+CREATE INDEX IF NOT EXISTS idx_wallet_transactions_created_at ON wallet_transactions (created_at);
+
+-- rollback DROP INDEX idx_wallet_transactions_created_at;
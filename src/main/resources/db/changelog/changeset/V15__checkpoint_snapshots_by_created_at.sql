@@ -0,0 +1,22 @@
+-- liquibase formatted sql
+
+-- changeset denis:15
+-- comment: Balance checkpoints move along (created_at, id), ids written before time-ordered ids are random
+
+ALTER TABLE wallet_balance_snapshots ADD COLUMN last_created_at TIMESTAMP;
+
+UPDATE wallet_transactions
+SET created_at = COALESCE(updated_at, (SELECT MIN(created_at) FROM wallet_transactions), CURRENT_TIMESTAMP)
+WHERE created_at IS NULL;
+
+-- A checkpoint taken by id covers the rows with id <= last_transaction_id, which is not a prefix of the ledger in time.
+-- Back to the opening balance: the next snapshot run sums the ledger of these wallets again.
+UPDATE wallet_balance_snapshots
+SET balance = balance - COALESCE((SELECT SUM(CASE WHEN t.operation_type = 'DEPOSIT' THEN t.amount ELSE -t.amount END)
+                                  FROM wallet_transactions t
+                                  WHERE t.wallet_id = wallet_balance_snapshots.wallet_id
+                                    AND t.id <= wallet_balance_snapshots.last_transaction_id), 0),
+    last_transaction_id = NULL
+WHERE last_transaction_id IS NOT NULL;
+
+-- rollback ALTER TABLE wallet_balance_snapshots DROP COLUMN last_created_at;
@@ -0,0 +1,8 @@
+-- liquibase formatted sql
+
+-- changeset denis:16
+-- comment: Replayed responses carry the wallet version, the read-your-writes token of the original write
+
+ALTER TABLE idempotency_keys ADD COLUMN version BIGINT;
+
+-- rollback ALTER TABLE idempotency_keys DROP COLUMN version;
@@ -0,0 +1,16 @@
+-- liquibase formatted sql
+
+-- changeset denis:6
+-- comment: Create idempotency keys of wallet mutations
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    fingerprint BIGINT NOT NULL,
+    wallet_id UUID,
+    balance NUMERIC(19, 2),
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys (created_at);
+
+-- rollback DROP TABLE idempotency_keys;
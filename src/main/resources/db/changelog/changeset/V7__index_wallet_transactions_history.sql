@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+
+-- changeset denis:7
+-- comment: Index for keyset pagination of wallet history, newest first
+
+CREATE INDEX IF NOT EXISTS idx_wallet_transactions_wallet_created_id
+    ON wallet_transactions (wallet_id, created_at DESC, id DESC);
+
+-- rollback DROP INDEX idx_wallet_transactions_wallet_created_id;
@@ -0,0 +1,15 @@
+-- liquibase formatted sql
+
+-- changeset denis:8
+-- comment: Balance slots of sharded hot wallets
+
+CREATE TABLE IF NOT EXISTS wallet_balance_slots (
+    wallet_id UUID NOT NULL,
+    slot INTEGER NOT NULL,
+    balance NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (wallet_id, slot),
+    CONSTRAINT fk_wallet_balance_slots_wallet FOREIGN KEY (wallet_id) REFERENCES wallet (id) ON DELETE CASCADE,
+    CONSTRAINT chk_wallet_balance_slots_balance CHECK (balance >= 0)
+);
+
+-- rollback DROP TABLE wallet_balance_slots;
@@ -0,0 +1,27 @@
+-- liquibase formatted sql
+
+-- changeset denis:9
+-- comment: Ledger checkpoints of wallet balances, reconciliation sums only ledger rows after them
+
+CREATE TABLE IF NOT EXISTS wallet_balance_snapshots (
+    wallet_id UUID PRIMARY KEY,
+    balance NUMERIC(19, 2) NOT NULL,
+    last_transaction_id UUID,
+    created_at TIMESTAMP,
+    CONSTRAINT fk_wallet_balance_snapshots_wallet FOREIGN KEY (wallet_id) REFERENCES wallet (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_wallet_transactions_wallet_id_id
+    ON wallet_transactions (wallet_id, id);
+
+-- Opening balances: whatever existing wallets hold beyond their ledger (seed data) is accepted as is.
+INSERT INTO wallet_balance_snapshots (wallet_id, balance, last_transaction_id, created_at)
+SELECT w.id,
+       w.balance - COALESCE((SELECT SUM(CASE WHEN t.operation_type = 'DEPOSIT' THEN t.amount ELSE -t.amount END)
+                             FROM wallet_transactions t WHERE t.wallet_id = w.id), 0),
+       NULL,
+       now()
+FROM wallet w;
+
+-- rollback DROP INDEX idx_wallet_transactions_wallet_id_id;
+-- rollback DROP TABLE wallet_balance_snapshots;
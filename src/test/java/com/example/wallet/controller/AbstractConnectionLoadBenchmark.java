@@ -0,0 +1,168 @@
+package com.example.wallet.controller;
+
+import com.example.wallet.model.User;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.ConnectionObserver;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * HTTP load test of the server stack: {@code benchmark.connections} keep-alive connections, all open at the same
+ * time, each sending {@code benchmark.requests} deposits one after another, spread over {@code benchmark.wallets}
+ * wallets so that row locks do not dominate.
+ * <p>
+ * The subclasses differ only in configuration: the blocking Tomcat + JPA stack and the {@code reactive} profile
+ * (Netty + R2DBC), both on a pool of 8 database connections whose acquire timeout is long enough for every request
+ * to get through: the run measures how each stack queues, not how it sheds load. The client is a non-blocking Reactor Netty client,
+ * a thread per connection as in {@link AbstractWalletLoadBenchmark} does not get to 10 000.
+ * <p>
+ * Client and server run in one JVM, every connection costs two file descriptors: 10 000 connections need
+ * {@code ulimit -n} above about 20 500.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest='*ConnectionsLoadBenchmark'}; tune with
+ * {@code -Dbenchmark.connections}, {@code -Dbenchmark.requests} and {@code -Dbenchmark.wallets}.
+ */
+@Slf4j
+abstract class AbstractConnectionLoadBenchmark {
+    static final String POOL_PROPERTIES = "spring.datasource.hikari.maximum-pool-size=8";
+    static final String POOL_TIMEOUT_PROPERTIES = "spring.datasource.hikari.connection-timeout=300000";
+
+    private static final int CONNECTIONS = Integer.getInteger("benchmark.connections", 10_000);
+    private static final int REQUESTS_PER_CONNECTION = Integer.getInteger("benchmark.requests", 5);
+    private static final int WALLETS = Integer.getInteger("benchmark.wallets", 1_000);
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    protected abstract String stack();
+
+    @Test
+    void depositsOverConcurrentConnections() {
+        run(CONNECTIONS, 1);
+        Result result = run(CONNECTIONS, REQUESTS_PER_CONNECTION);
+        log.info("[{}] {} connections ({} opened) x {} requests on {} wallets: {} req/s, ok {}, failed {}, p50 {} ms, p99 {} ms, max {} ms",
+                stack(), CONNECTIONS, result.opened(), REQUESTS_PER_CONNECTION, WALLETS, Math.round(result.throughput()),
+                result.ok(), result.failed(), result.percentileMillis(0.50), result.percentileMillis(0.99),
+                result.percentileMillis(1.0));
+    }
+
+    private Result run(int connections, int requestsPerConnection) {
+        User user = createUser();
+        List<String> bodies = createWallets(user.getId()).stream()
+                .map(walletId -> "{\"wallet_id\":\"" + walletId + "\",\"operation_type\":\"DEPOSIT\",\"amount\":1}")
+                .toList();
+
+        LongAdder opened = new LongAdder();
+        ConnectionProvider provider = ConnectionProvider.builder("benchmark")
+                .maxConnections(connections)
+                .pendingAcquireTimeout(Duration.ofMinutes(10))
+                .build();
+        LoopResources loops = LoopResources.create("benchmark-client", 2, true);
+        HttpClient client = HttpClient.create(provider)
+                .runOn(loops)
+                .baseUrl("http://localhost:" + port)
+                .headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, "application/json"))
+                .responseTimeout(Duration.ofMinutes(10))
+                .observe((connection, state) -> {
+                    if (state == ConnectionObserver.State.CONNECTED) {
+                        opened.increment();
+                    }
+                });
+        try {
+            long begin = System.nanoTime();
+            long[] all = Flux.range(0, connections)
+                    .flatMap(c -> Flux.range(0, requestsPerConnection)
+                            .concatMap(i -> deposit(client, bodies.get(c % bodies.size()))), connections)
+                    .collectList()
+                    .block()
+                    .stream()
+                    .mapToLong(Long::longValue)
+                    .toArray();
+            long elapsed = System.nanoTime() - begin;
+
+            long ok = Arrays.stream(all).filter(latency -> latency > 0).count();
+            Money deposited = Money.of(jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(balance), 0) FROM wallet WHERE user_id = ?", String.class, user.getId()));
+            assertEquals(0, Money.ofMajor(ok).compareTo(deposited));
+
+            long[] sorted = Arrays.stream(all).map(Math::abs).sorted().toArray();
+            return new Result(sorted, opened.sum(), ok, all.length - ok, ok * 1_000_000_000.0 / elapsed);
+        } finally {
+            provider.disposeLater().block();
+            loops.disposeLater().block();
+        }
+    }
+
+    /**
+     * @return the latency in nanoseconds, negative for a failed request
+     */
+    private static Mono<Long> deposit(HttpClient client, String body) {
+        return Mono.defer(() -> {
+            long begin = System.nanoTime();
+            return client.post()
+                    .uri("/api/v1/wallets")
+                    .send(ByteBufFlux.fromString(Mono.just(body)))
+                    .responseSingle((response, content) -> content.then(Mono.just(response.status().code())))
+                    .map(status -> status == 200 ? System.nanoTime() - begin : begin - System.nanoTime())
+                    .onErrorResume(e -> Mono.just(begin - System.nanoTime()));
+        });
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setPassword("secret");
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        return userRepository.save(user);
+    }
+
+    private List<UUID> createWallets(UUID userId) {
+        List<UUID> walletIds = new ArrayList<>(WALLETS);
+        for (int i = 0; i < WALLETS; i++) {
+            walletIds.add(UUID.randomUUID());
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO wallet (id, user_id, balance, version, created_at, updated_at)
+                VALUES (?, ?, 0, 0, ?, ?)""", walletIds, 1_000, (ps, walletId) -> {
+            ps.setObject(1, walletId);
+            ps.setObject(2, userId);
+            ps.setTimestamp(3, now);
+            ps.setTimestamp(4, now);
+        });
+        return walletIds;
+    }
+
+    private record Result(long[] sortedLatencies, long opened, long ok, long failed, double throughput) {
+
+        long percentileMillis(double percentile) {
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(percentile * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(index, 0)] / 1_000_000;
+        }
+    }
+}
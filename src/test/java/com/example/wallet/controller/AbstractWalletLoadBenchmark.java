@@ -0,0 +1,143 @@
+package com.example.wallet.controller;
+
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * HTTP load test of the request thread model: many concurrent clients deposit into a few hot wallets
+ * through a small connection pool, so most requests wait either for a connection or for a row lock.
+ * <p>
+ * The subclasses differ only in configuration: platform threads as today, platform threads behind the
+ * connection limiter and the {@code virtual-threads} profile (Java 21+). The pool and its timeout are scaled down
+ * from production (100 connections, 2000 ms) so the H2 run shows the same saturation.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest='*LoadBenchmark'}; tune with {@code -Dbenchmark.clients},
+ * {@code -Dbenchmark.requests} and {@code -Dbenchmark.wallets}.
+ */
+@Slf4j
+abstract class AbstractWalletLoadBenchmark {
+    static final String POOL_PROPERTIES = "spring.datasource.hikari.maximum-pool-size=8";
+    static final String POOL_TIMEOUT_PROPERTIES = "spring.datasource.hikari.connection-timeout=250";
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 400);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("benchmark.requests", 25);
+    private static final int WALLETS = Integer.getInteger("benchmark.wallets", 4);
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+
+    protected abstract String threadModel();
+
+    @Test
+    void hotWalletDepositsUnderLoad() throws Exception {
+        run(CLIENTS, REQUESTS_PER_CLIENT / 5);
+        Result result = run(CLIENTS, REQUESTS_PER_CLIENT);
+        log.info("[{}] {} clients x {} requests on {} wallets: {} req/s, ok {}, failed {}, p50 {} ms, p99 {} ms, max {} ms",
+                threadModel(), CLIENTS, REQUESTS_PER_CLIENT, WALLETS, Math.round(result.throughput()),
+                result.ok(), result.failed(), result.percentileMillis(0.50), result.percentileMillis(0.99),
+                result.percentileMillis(1.0));
+    }
+
+    private Result run(int clients, int requestsPerClient) throws Exception {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        List<UUID> wallets = new ArrayList<>();
+        for (int i = 0; i < WALLETS; i++) {
+            wallets.add(createWallet().getId());
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(4))
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        URI uri = URI.create("http://localhost:" + port + "/api/v1/wallets");
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            UUID walletId = wallets.get(c % wallets.size());
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"wallet_id\":\"" + walletId + "\",\"operation_type\":\"DEPOSIT\",\"amount\":1}"))
+                    .build();
+            futures.add(executor.submit(() -> {
+                long[] latencies = new long[requestsPerClient];
+                start.await();
+                for (int i = 0; i < requestsPerClient; i++) {
+                    long begin = System.nanoTime();
+                    int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    long latency = System.nanoTime() - begin;
+                    latencies[i] = status == 200 ? latency : -latency;
+                }
+                return latencies;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] all = new long[clients * requestsPerClient];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+            offset += latencies.length;
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        long ok = Arrays.stream(all).filter(latency -> latency > 0).count();
+        Money deposited = wallets.stream()
+                .map(id -> walletRepository.findBalance(id).orElseThrow())
+                .reduce(Money.ZERO, Money::plus);
+        assertEquals(0, Money.ofMajor(ok).compareTo(deposited));
+
+        long[] sorted = Arrays.stream(all).map(Math::abs).sorted().toArray();
+        return new Result(sorted, ok, all.length - ok, ok * 1_000_000_000.0 / elapsed);
+    }
+
+    private Wallet createWallet() {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(Money.ZERO);
+        return walletRepository.save(wallet);
+    }
+
+    private record Result(long[] sortedLatencies, long ok, long failed, double throughput) {
+
+        long percentileMillis(double percentile) {
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(percentile * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(index, 0)] / 1_000_000;
+        }
+    }
+}
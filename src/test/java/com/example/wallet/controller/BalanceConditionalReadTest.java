@@ -0,0 +1,147 @@
+package com.example.wallet.controller;
+
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.service.WalletService;
+import com.example.wallet.support.SqlStatementRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "wallet.long-poll.timeout=500ms",
+        "wallet.long-poll.poll-interval=20ms"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BalanceConditionalReadTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private SqlStatementRecorder sqlStatementRecorder;
+
+    @TestConfiguration
+    static class RecorderConfiguration {
+        @Bean
+        static SqlStatementRecorder sqlStatementRecorder() {
+            return new SqlStatementRecorder();
+        }
+    }
+
+    @Test
+    void shouldAnswerUnchangedWalletWith304FromVersionAlone() throws Exception {
+        UUID walletId = createWallet(Money.of("10.00"));
+        String eTag = mockMvc.perform(get("/api/v1/wallets/" + walletId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(10.0))
+                .andReturn().getResponse().getHeader("ETag");
+        assertTrue(eTag != null && eTag.matches("\"\\d+\""), eTag);
+
+        sqlStatementRecorder.clear();
+        mockMvc.perform(get("/api/v1/wallets/" + walletId).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+        assertEquals(List.of("select w1_0.version from wallet w1_0 where w1_0.id=?"), sqlStatementRecorder.statements());
+
+        deposit(walletId, "5.00");
+        String changed = mockMvc.perform(get("/api/v1/wallets/" + walletId).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(15.0))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(eTag, changed);
+    }
+
+    @Test
+    void shouldCompleteLongPollOnceWalletChanges() throws Exception {
+        UUID walletId = createWallet(Money.of("10.00"));
+        long version = version(walletId);
+
+        MvcResult waiting = mockMvc.perform(get("/api/v1/wallets/" + walletId).param("waitForChangeAfter", String.valueOf(version)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        deposit(walletId, "2.50");
+
+        mockMvc.perform(asyncDispatch(waiting))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(12.5))
+                .andExpect(header().string("ETag", "\"" + version(walletId) + "\""));
+    }
+
+    @Test
+    void shouldAnswerLongPollAtOnceWhenWalletAlreadyChanged() throws Exception {
+        UUID walletId = createWallet(Money.of("10.00"));
+        long version = version(walletId);
+        deposit(walletId, "1.00");
+
+        MvcResult result = mockMvc.perform(get("/api/v1/wallets/" + walletId).param("waitForChangeAfter", String.valueOf(version)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(11.0));
+    }
+
+    @Test
+    void shouldAnswerLongPollWith304WhenNothingChangesInTime() throws Exception {
+        UUID walletId = createWallet(Money.of("10.00"));
+        long version = version(walletId);
+
+        MvcResult waiting = mockMvc.perform(get("/api/v1/wallets/" + walletId).param("waitForChangeAfter", String.valueOf(version)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(waiting))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"" + version + "\""));
+
+        mockMvc.perform(get("/api/v1/wallets/" + UUID.randomUUID()).param("waitForChangeAfter", "0"))
+                .andExpect(status().isNotFound());
+    }
+
+    private void deposit(UUID walletId, String amount) {
+        walletService.updateWallet(new WalletRequest(walletId, OperationType.DEPOSIT, Money.of(amount)));
+    }
+
+    private long version(UUID walletId) {
+        return walletRepository.findVersionById(walletId).orElseThrow();
+    }
+
+    private UUID createWallet(Money balance) {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(balance);
+        return walletRepository.save(wallet).getId();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.wallet.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        AbstractConnectionLoadBenchmark.POOL_PROPERTIES,
+        AbstractConnectionLoadBenchmark.POOL_TIMEOUT_PROPERTIES,
+        "server.tomcat.max-connections=20000",
+        "server.tomcat.accept-count=4096"
+})
+@ActiveProfiles("test")
+class BlockingConnectionsLoadBenchmark extends AbstractConnectionLoadBenchmark {
+
+    @Override
+    protected String stack() {
+        return "tomcat + jpa";
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.wallet.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        AbstractWalletLoadBenchmark.POOL_PROPERTIES,
+        AbstractWalletLoadBenchmark.POOL_TIMEOUT_PROPERTIES,
+        "wallet.connection-limiter.enabled=true"
+})
+@ActiveProfiles("test")
+class ConnectionLimiterLoadBenchmark extends AbstractWalletLoadBenchmark {
+
+    @Override
+    protected String threadModel() {
+        return "platform threads + connection limiter";
+    }
+}
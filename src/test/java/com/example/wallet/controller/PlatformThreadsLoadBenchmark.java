@@ -0,0 +1,17 @@
+package com.example.wallet.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        AbstractWalletLoadBenchmark.POOL_PROPERTIES,
+        AbstractWalletLoadBenchmark.POOL_TIMEOUT_PROPERTIES
+})
+@ActiveProfiles("test")
+class PlatformThreadsLoadBenchmark extends AbstractWalletLoadBenchmark {
+
+    @Override
+    protected String threadModel() {
+        return "platform threads";
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.wallet.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        AbstractConnectionLoadBenchmark.POOL_PROPERTIES,
+        AbstractConnectionLoadBenchmark.POOL_TIMEOUT_PROPERTIES,
+        "wallet.reactive.url=r2dbc:h2:mem:///testdb",
+        "wallet.reactive.username=sa",
+        "wallet.reactive.password=",
+        "wallet.reactive.max-pool-size=8",
+        "wallet.reactive.max-acquire-time=5m"
+})
+@ActiveProfiles({"test", "reactive"})
+class ReactiveConnectionsLoadBenchmark extends AbstractConnectionLoadBenchmark {
+
+    @Override
+    protected String stack() {
+        return "netty + r2dbc";
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.wallet.controller;
+
+import com.example.wallet.config.RowLockProperties;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "wallet.reactive.url=r2dbc:h2:mem:///testdb",
+        "wallet.reactive.username=sa",
+        "wallet.reactive.password=",
+        "wallet.row-lock.timeout=200ms"
+})
+@AutoConfigureWebTestClient
+@ActiveProfiles({"test", "reactive"})
+class ReactiveWalletControllerTest {
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private ApplicationContext applicationContext;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private RowLockProperties rowLockProperties;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void shouldServeWalletApiOnWebFlux() {
+        assertInstanceOf(ReactiveWebApplicationContext.class, applicationContext);
+        assertTrue(applicationContext.getBeansOfType(WalletController.class).isEmpty());
+    }
+
+    @Test
+    void shouldUpdateWalletAndWriteLedgerAndOutbox() {
+        UUID walletId = createWallet(Money.of("10.00"));
+        long version = walletRepository.findVersionById(walletId).orElseThrow();
+        int outbox = count("SELECT COUNT(*) FROM wallet_outbox WHERE wallet_id = ?", walletId);
+
+        update(walletId, "DEPOSIT", "5.50")
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("Wallet-Version", String.valueOf(version + 1))
+                .expectBody().jsonPath("$.balance").isEqualTo(15.5);
+        update(walletId, "WITHDRAW", "100")
+                .expectStatus().isBadRequest();
+        update(walletId, "WITHDRAW", "0.50")
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.balance").isEqualTo(15.0);
+
+        webTestClient.get().uri("/api/v1/wallets/{id}", walletId).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"" + (version + 2) + "\"")
+                .expectBody().jsonPath("$.wallet_id").isEqualTo(walletId.toString());
+        assertEquals(Money.of("15.00"), walletRepository.findBalance(walletId).orElseThrow());
+        assertEquals(2, count("SELECT COUNT(*) FROM wallet_transactions WHERE wallet_id = ?", walletId));
+        assertEquals(outbox + 2, count("SELECT COUNT(*) FROM wallet_outbox WHERE wallet_id = ?", walletId));
+    }
+
+    @Test
+    void shouldTransferInBothDirectionsConcurrentlyWithoutDeadlock() {
+        UUID first = createWallet(Money.of("100.00"));
+        UUID second = createWallet(Money.of("100.00"));
+
+        WebClient client = WebClient.create("http://localhost:" + port);
+        Flux.range(0, 40)
+                .flatMap(i -> client.post().uri("/api/v1/wallets/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(transfer(i % 2 == 0 ? first : second, i % 2 == 0 ? second : first, "1"))
+                        .retrieve()
+                        .toBodilessEntity(), 40)
+                .blockLast();
+
+        assertEquals(Money.of("100.00"), walletRepository.findBalance(first).orElseThrow());
+        assertEquals(Money.of("100.00"), walletRepository.findBalance(second).orElseThrow());
+        assertEquals(80, count("SELECT COUNT(*) FROM wallet_transactions WHERE wallet_id IN (?, ?)", first, second));
+
+        webTestClient.post().uri("/api/v1/wallets/transfer").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(transfer(first, second, "1000")).exchange()
+                .expectStatus().isBadRequest();
+        assertEquals(Money.of("100.00"), walletRepository.findBalance(second).orElseThrow());
+    }
+
+    @Test
+    void shouldRejectWhatTheReactiveStackDoesNotServe() {
+        UUID walletId = createWallet(Money.of("10.00"));
+
+        update(UUID.randomUUID(), "DEPOSIT", "1").expectStatus().isNotFound();
+        update(walletId, "DEPOSIT", "-1").expectStatus().isBadRequest();
+        webTestClient.post().uri("/api/v1/wallets").contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .bodyValue("{\"wallet_id\":\"" + walletId + "\",\"operation_type\":\"DEPOSIT\",\"amount\":1}")
+                .exchange()
+                .expectStatus().isEqualTo(409);
+        webTestClient.post().uri("/api/v1/wallets/transfer").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(transfer(walletId, walletId, "1")).exchange()
+                .expectStatus().isBadRequest();
+        assertEquals(Money.of("10.00"), walletRepository.findBalance(walletId).orElseThrow());
+    }
+
+    @Test
+    void shouldRejectRoutesTheReactiveStackDoesNotImplement() {
+        UUID walletId = createWallet(Money.of("10.00"));
+
+        webTestClient.get().uri("/api/v1/wallets/{id}/transactions", walletId).exchange()
+                .expectStatus().isEqualTo(409);
+        webTestClient.get().uri("/api/v1/wallets/{id}/transactions/export?format=CSV", walletId).exchange()
+                .expectStatus().isEqualTo(409);
+        webTestClient.get().uri("/api/v1/wallets/{id}?waitForChangeAfter=0", walletId).exchange()
+                .expectStatus().isEqualTo(409);
+        webTestClient.post().uri("/api/v1/wallets/balances").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[\"" + walletId + "\"]").exchange()
+                .expectStatus().isEqualTo(409);
+        webTestClient.post().uri("/api/v1/wallets/batch").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[]").exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    void shouldGiveUpOnRowLockedByAnotherTransaction() throws Exception {
+        UUID walletId = createWallet(Money.of("10.00"));
+        RowLockProperties.Mode initial = rowLockProperties.getMode();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            walletRepository.findByIdForUpdate(walletId).orElseThrow();
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        try {
+            locked.await();
+            for (RowLockProperties.Mode mode : List.of(RowLockProperties.Mode.TIMEOUT, RowLockProperties.Mode.NOWAIT,
+                    RowLockProperties.Mode.SKIP_LOCKED)) {
+                rowLockProperties.setMode(mode);
+                long startedAt = System.nanoTime();
+                update(walletId, "DEPOSIT", "1")
+                        .expectStatus().isEqualTo(503)
+                        .expectHeader().valueEquals("Retry-After", "1");
+                long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                assertTrue(mode == RowLockProperties.Mode.TIMEOUT ? millis >= 150 && millis < 5000 : millis < 2000,
+                        mode + " took " + millis + " ms");
+            }
+        } finally {
+            rowLockProperties.setMode(initial);
+            release.countDown();
+            holder.join();
+        }
+        update(walletId, "DEPOSIT", "1").expectStatus().isOk();
+        assertEquals(Money.of("11.00"), walletRepository.findBalance(walletId).orElseThrow());
+    }
+
+    private WebTestClient.ResponseSpec update(UUID walletId, String operationType, String amount) {
+        return webTestClient.post().uri("/api/v1/wallets").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"wallet_id\":\"" + walletId + "\",\"operation_type\":\"" + operationType
+                        + "\",\"amount\":" + amount + "}")
+                .exchange();
+    }
+
+    private static String transfer(UUID from, UUID to, String amount) {
+        return "{\"from_wallet_id\":\"" + from + "\",\"to_wallet_id\":\"" + to + "\",\"amount\":" + amount + "}";
+    }
+
+    private int count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, args);
+    }
+
+    private UUID createWallet(Money balance) {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(balance);
+        return walletRepository.save(wallet).getId();
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.wallet.controller;
+
+import com.example.wallet.config.RowLockProperties;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP load with one stuck transaction: the row of a hot wallet stays locked for the whole run while some clients
+ * keep depositing into it and others into cold wallets. Compares the row lock modes by the throughput left for
+ * cold wallets, the responses of hot ones and the request threads busy inside the application.
+ * <p>
+ * The session lock timeout of H2 is raised to a minute, so that {@code WAIT} waits like Postgres does. Tomcat and
+ * the pool are scaled down as in {@link AbstractWalletLoadBenchmark}.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=StuckLockLoadBenchmark}; tune with {@code -Dbenchmark.hotClients},
+ * {@code -Dbenchmark.coldClients}, {@code -Dbenchmark.stuckMillis} and {@code -Dbenchmark.lockTimeout}
+ * (milliseconds, the {@code TIMEOUT} mode).
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.threads.max=32",
+        AbstractWalletLoadBenchmark.POOL_PROPERTIES,
+        "spring.datasource.hikari.connection-timeout=2000",
+        "spring.datasource.hikari.connection-init-sql=SET LOCK_TIMEOUT 60000",
+        "wallet.row-lock.timeout=${benchmark.lockTimeout:100}ms"
+})
+@ActiveProfiles("test")
+class StuckLockLoadBenchmark {
+    private static final int HOT_CLIENTS = Integer.getInteger("benchmark.hotClients", 48);
+    private static final int COLD_CLIENTS = Integer.getInteger("benchmark.coldClients", 16);
+    private static final int COLD_WALLETS = 4;
+    private static final long STUCK_MILLIS = Long.getLong("benchmark.stuckMillis", 10_000);
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private RowLockProperties rowLockProperties;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void compareRowLockModesWithStuckHotWallet() throws Exception {
+        RowLockProperties.Mode initial = rowLockProperties.getMode();
+        try {
+            for (RowLockProperties.Mode mode : RowLockProperties.Mode.values()) {
+                rowLockProperties.setMode(mode);
+                Result result = run();
+                log.info("[row-lock] {} hot + {} cold clients, {} ms stuck, {}: cold {} req/s (p99 {} ms), hot {}, "
+                                + "busy request threads avg {} max {}",
+                        HOT_CLIENTS, COLD_CLIENTS, STUCK_MILLIS, mode, Math.round(result.coldThroughput()),
+                        result.coldP99Millis(), result.hotStatuses(), Math.round(result.busyAverage()), result.busyMax());
+            }
+        } finally {
+            rowLockProperties.setMode(initial);
+        }
+    }
+
+    private Result run() throws Exception {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        UUID hotWalletId = createWallet().getId();
+        List<UUID> coldWalletIds = new ArrayList<>();
+        for (int i = 0; i < COLD_WALLETS; i++) {
+            coldWalletIds.add(createWallet().getId());
+        }
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            walletRepository.findByIdForUpdate(hotWalletId).orElseThrow();
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        locked.await();
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(4))
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        URI uri = URI.create("http://localhost:" + port + "/api/v1/wallets");
+        Map<Integer, LongAdder> hotStatuses = new ConcurrentHashMap<>();
+        List<Long> coldLatencies = Collections.synchronizedList(new ArrayList<>());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STUCK_MILLIS);
+        ExecutorService executor = Executors.newFixedThreadPool(HOT_CLIENTS + COLD_CLIENTS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < HOT_CLIENTS + COLD_CLIENTS; c++) {
+            boolean hot = c < HOT_CLIENTS;
+            UUID walletId = hot ? hotWalletId : coldWalletIds.get(c % COLD_WALLETS);
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofMillis(STUCK_MILLIS * 2))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"wallet_id\":\"" + walletId + "\",\"operation_type\":\"DEPOSIT\",\"amount\":1}"))
+                    .build();
+            futures.add(executor.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    long begin = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (HttpTimeoutException exception) {
+                        status = 0;
+                    }
+                    long end = System.nanoTime();
+                    if (hot) {
+                        hotStatuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+                    } else if (status == 200 && end <= deadline) {
+                        coldLatencies.add(end - begin);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long busySum = 0;
+        int busyMax = 0;
+        int samples = 0;
+        while (System.nanoTime() < deadline) {
+            int busy = busyRequestThreads();
+            busySum += busy;
+            busyMax = Math.max(busyMax, busy);
+            samples++;
+            Thread.sleep(50);
+        }
+        release.countDown();
+        holder.join();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        long[] cold = coldLatencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        Map<String, Long> statuses = new TreeMap<>();
+        hotStatuses.forEach((status, count) -> statuses.put(status == 0 ? "timeout" : String.valueOf(status), count.sum()));
+        return new Result(cold.length * 1_000.0 / STUCK_MILLIS,
+                cold.length == 0 ? 0 : cold[(int) Math.ceil(cold.length * 0.99) - 1] / 1_000_000,
+                statuses, samples == 0 ? 0 : (double) busySum / samples, busyMax);
+    }
+
+    /**
+     * Tomcat request threads currently running application code, whether working or waiting on a lock or connection.
+     */
+    private static int busyRequestThreads() {
+        AtomicInteger busy = new AtomicInteger();
+        Thread.getAllStackTraces().forEach((thread, stack) -> {
+            if (thread.getName().startsWith("http-nio") && Arrays.stream(stack)
+                    .anyMatch(frame -> frame.getClassName().startsWith("com.example.wallet"))) {
+                busy.incrementAndGet();
+            }
+        });
+        return busy.get();
+    }
+
+    private Wallet createWallet() {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(Money.ZERO);
+        return walletRepository.save(wallet);
+    }
+
+    private record Result(double coldThroughput, long coldP99Millis, Map<String, Long> hotStatuses,
+                          double busyAverage, int busyMax) {
+    }
+}
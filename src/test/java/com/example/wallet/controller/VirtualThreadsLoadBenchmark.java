@@ -0,0 +1,20 @@
+package com.example.wallet.controller;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@EnabledForJreRange(min = JRE.JAVA_21)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        AbstractWalletLoadBenchmark.POOL_PROPERTIES,
+        AbstractWalletLoadBenchmark.POOL_TIMEOUT_PROPERTIES
+})
+@ActiveProfiles({"test", "virtual-threads"})
+class VirtualThreadsLoadBenchmark extends AbstractWalletLoadBenchmark {
+
+    @Override
+    protected String threadModel() {
+        return "virtual threads + connection limiter";
+    }
+}
@@ -5,6 +5,7 @@ import com.example.wallet.dto.WalletRequest;
 import com.example.wallet.enums.OperationType;
 import com.example.wallet.model.User;
 import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
 import com.example.wallet.repository.UserRepository;
 import com.example.wallet.repository.WalletRepository;
 import com.example.wallet.repository.WalletTransactionRepository;
@@ -20,8 +21,10 @@ import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 
-import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
@@ -35,6 +38,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -55,18 +59,18 @@ class WalletControllerTest {
     private final String endpointUpdateWallet = "/api/v1/wallets";
     private final String endpointTransferAmmount = "/api/v1/wallets/transfer";
     private UUID walletId;
-    private final BigDecimal initialBalance = new BigDecimal("1000.00");
+    private final Money initialBalance = Money.of("1000.00");
 
     @BeforeEach
     void setUp() {
-        walletRepository.deleteAll();
         walletTransactionRepository.deleteAll();
+        walletRepository.deleteAll();
         Wallet wallet = createWallet(initialBalance);
         walletId = wallet.getId();
         assertNotNull(wallet);
     }
 
-    public Wallet createWallet(BigDecimal initialBalance) {
+    public Wallet createWallet(Money initialBalance) {
         User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
         Wallet wallet = new Wallet();
         wallet.setUser(user);
@@ -74,18 +78,24 @@ class WalletControllerTest {
         return walletRepository.save(wallet);
     }
 
+    private ResultActions perform(RequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        MvcResult started = actions.andReturn();
+        return started.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(started)) : actions;
+    }
+
     @Test
     @Order(1)
     void shouldUpdate() throws Exception {
-        BigDecimal deposit = new BigDecimal("100.00");
+        Money deposit = Money.of("100.00");
         WalletRequest walletRequest = new WalletRequest(walletId, OperationType.DEPOSIT, deposit);
-        mockMvc.perform(post(endpointUpdateWallet)
+        perform(post(endpointUpdateWallet)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(walletRequest)))
                 .andExpect(status().isOk());
         Optional<Wallet> updatedWallet = walletRepository.findById(walletId);
         assertTrue(updatedWallet.isPresent());
-        assertEquals(initialBalance.add(deposit), updatedWallet.get().getBalance());
+        assertEquals(initialBalance.plus(deposit), updatedWallet.get().getBalance());
     }
 
     @Test
@@ -104,9 +114,9 @@ class WalletControllerTest {
                         WalletRequest request = new WalletRequest(
                                 walletId,
                                 OperationType.DEPOSIT,
-                                new BigDecimal("1.00")
+                                Money.of("1.00")
                         );
-                        mockMvc.perform(post(endpointUpdateWallet)
+                        perform(post(endpointUpdateWallet)
                                         .contentType(MediaType.APPLICATION_JSON)
                                         .content(objectMapper.writeValueAsString(request)))
                                 .andExpect(status().isOk());
@@ -125,8 +135,8 @@ class WalletControllerTest {
         assertEquals(threadCount * requestsPerThread, successCount.get());
 
         // Verify final balance
-        BigDecimal expectedBalance = initialBalance.add(
-                new BigDecimal(threadCount * requestsPerThread * 1.00)
+        Money expectedBalance = initialBalance.plus(
+                Money.ofMajor(threadCount * requestsPerThread)
         );
 
         Optional<Wallet> finalWallet = walletRepository.findById(walletId);
@@ -147,8 +157,8 @@ class WalletControllerTest {
         // Поток 1: Переводим с wallet1 на wallet2
         Thread thread1 = new Thread(() -> {
             try {
-                TransferRequest transferRequest1 = new TransferRequest(walletId, wallet2.getId(), new BigDecimal("100.00"));
-                mockMvc.perform(post(endpointTransferAmmount)
+                TransferRequest transferRequest1 = new TransferRequest(walletId, wallet2.getId(), Money.of("100.00"));
+                perform(post(endpointTransferAmmount)
                                 .contentType(MediaType.APPLICATION_JSON)
                                 .content(objectMapper.writeValueAsString(transferRequest1)))
                         .andExpect(status().isOk());
@@ -163,8 +173,8 @@ class WalletControllerTest {
         // Поток 2: Переводим с wallet2 на wallet1 (обратное направление)
         Thread thread2 = new Thread(() -> {
             try {
-                TransferRequest transferRequest1 = new TransferRequest(wallet2.getId(), walletId, new BigDecimal("100.00"));
-                mockMvc.perform(post(endpointTransferAmmount)
+                TransferRequest transferRequest1 = new TransferRequest(wallet2.getId(), walletId, Money.of("100.00"));
+                perform(post(endpointTransferAmmount)
                                 .contentType(MediaType.APPLICATION_JSON)
                                 .content(objectMapper.writeValueAsString(transferRequest1)))
                         .andExpect(status().isOk());
@@ -0,0 +1,56 @@
+package com.example.wallet.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "wallet.connection-limiter.enabled=true",
+        "wallet.connection-limiter.max-concurrency=2",
+        "wallet.connection-limiter.acquire-timeout=200ms"
+})
+@ActiveProfiles("test")
+class ConcurrencyLimitingDataSourceTest {
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void shouldQueueCallersBeyondLimitAndReleaseOnClose() throws Exception {
+        ConcurrencyLimitingDataSource limiter = dataSource.unwrap(ConcurrencyLimitingDataSource.class);
+        assertEquals(2, limiter.getMaxConcurrency());
+
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        assertEquals(2, limiter.getActive());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(1, limiter.getTimeouts());
+
+        CompletableFuture<Connection> queued = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (Exception exception) {
+                throw new IllegalStateException(exception);
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(queued.isDone());
+        first.close();
+        first.close();
+        Connection third = queued.get(1, TimeUnit.SECONDS);
+
+        third.close();
+        second.close();
+        assertEquals(0, limiter.getActive());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.wallet.metrics;
+
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.service.WalletService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class WalletMetricsTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        wallet = createWallet(Money.of("100.00"));
+    }
+
+    private Wallet createWallet(Money initialBalance) {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet newWallet = new Wallet();
+        newWallet.setUser(user);
+        newWallet.setBalance(initialBalance);
+        return walletRepository.save(newWallet);
+    }
+
+    private long operationCount(String operation, String outcome) {
+        return meterRegistry.get("wallet.operation").tag("operation", operation).tag("outcome", outcome).timer().count();
+    }
+
+    @Test
+    void shouldRecordOperationsByOutcome() throws Exception {
+        long deposits = operationCount("deposit", "success");
+        long rejectedWithdrawals = operationCount("withdraw", "insufficient_funds");
+        long transfers = operationCount("transfer", "success");
+        long sameWalletTransfers = operationCount("transfer", "rejected");
+        long balanceReads = operationCount("balance_read", "success");
+        long committedTransfers = meterRegistry.get("wallet.transaction.open")
+                .tag("operation", "transfer").tag("outcome", "committed").timer().count();
+        long lockAcquires = meterRegistry.get("wallet.lock.acquire").tag("operation", "transfer").timer().count();
+
+        Wallet other = createWallet(Money.of("0.00"));
+        walletService.updateWallet(new WalletRequest(wallet.getId(), OperationType.DEPOSIT, Money.of("1.00")));
+        assertThrows(InsufficientFundsException.class, () -> walletService.updateWallet(
+                new WalletRequest(wallet.getId(), OperationType.WITHDRAW, Money.of("500.00"))));
+        walletService.transferBetweenWallets(new TransferRequest(wallet.getId(), other.getId(), Money.of("1.00")), null);
+        assertThrows(RuntimeException.class, () -> walletService.transferBetweenWallets(
+                new TransferRequest(wallet.getId(), wallet.getId(), Money.of("1.00")), null));
+        walletService.getBalance(wallet.getId());
+
+        assertEquals(deposits + 1, operationCount("deposit", "success"));
+        assertEquals(rejectedWithdrawals + 1, operationCount("withdraw", "insufficient_funds"));
+        assertEquals(transfers + 1, operationCount("transfer", "success"));
+        assertEquals(sameWalletTransfers + 1, operationCount("transfer", "rejected"));
+        assertEquals(balanceReads + 1, operationCount("balance_read", "success"));
+        assertEquals(committedTransfers + 1, meterRegistry.get("wallet.transaction.open")
+                .tag("operation", "transfer").tag("outcome", "committed").timer().count());
+        assertEquals(lockAcquires + 2, meterRegistry.get("wallet.lock.acquire").tag("operation", "transfer").timer().count());
+        assertTrue(meterRegistry.get("wallet.transaction.commit").tag("operation", "deposit").timer().count() > 0);
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("wallet_operation_seconds_count{operation=\"transfer\",outcome=\"success\"}")));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.wallet.money;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MoneyTest {
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldParseAndPrintPlainDecimals() {
+        assertEquals(1050, Money.of("10.5").minorUnits());
+        assertEquals(-7, Money.of("-0.07").minorUnits());
+        assertEquals(100, Money.of("1.000").minorUnits());
+        assertEquals("10.50", Money.of("10.5").toString());
+        assertEquals("-0.07", Money.ofMinor(-7).toString());
+        assertEquals("-92233720368547758.08", Money.ofMinor(Long.MIN_VALUE).toString());
+        assertEquals(new BigDecimal("1000000.00"), Money.ofMajor(1_000_000).toBigDecimal());
+    }
+
+    @Test
+    void shouldRejectWhatItCannotRepresentExactly() {
+        assertThrows(ArithmeticException.class, () -> Money.of("0.001"));
+        assertThrows(ArithmeticException.class, () -> Money.of("100000000000000000"));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1.005")));
+        assertThrows(NumberFormatException.class, () -> Money.of("1e3"));
+        assertThrows(NumberFormatException.class, () -> Money.of("-"));
+    }
+
+    @Test
+    void shouldRoundTripThroughJsonAsPlainNumber() throws Exception {
+        Money amount = objectMapper.readValue("12.3", Money.class);
+
+        assertEquals(Money.of("12.30"), amount);
+        assertEquals(Money.ofMajor(7), objectMapper.readValue("7", Money.class));
+        assertEquals(Money.of("0.25"), objectMapper.readValue("\"0.25\"", Money.class));
+        assertEquals("12.30", objectMapper.writeValueAsString(amount));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("0.001", Money.class));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The row lock timeout on PostgreSQL, where it is a setting of the transaction rather than part of the query.
+ * Needs Docker, skipped without it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = "wallet.row-lock.timeout=150ms")
+@ActiveProfiles("test")
+class WalletLockRepositoryPostgresTest {
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+    }
+
+    @Test
+    void shouldResetLockTimeoutOnceRowIsLocked() {
+        UUID walletId = createWallet();
+        String sessionDefault = jdbcTemplate.queryForObject("SHOW lock_timeout", String.class);
+
+        String afterLock = transactionTemplate.execute(status -> {
+            walletRepository.findByIdForUpdate(walletId).orElseThrow();
+            return jdbcTemplate.queryForObject("SHOW lock_timeout", String.class);
+        });
+
+        assertEquals(sessionDefault, afterLock);
+    }
+
+    private UUID createWallet() {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(Money.of("10.00"));
+        return walletRepository.save(wallet).getId();
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.config.RowLockProperties;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.service.WalletService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "wallet.row-lock.timeout=200ms",
+        "wallet.retry.max-attempts=2",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=250"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class WalletLockRepositoryTest {
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private RowLockProperties rowLockProperties;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private DataSource dataSource;
+
+    @AfterEach
+    void resetMode() {
+        rowLockProperties.setMode(RowLockProperties.Mode.TIMEOUT);
+    }
+
+    @Test
+    void shouldLockFreeAndMissingRowsInEveryMode() {
+        UUID walletId = createWallet(Money.of("10.00"));
+        for (RowLockProperties.Mode mode : RowLockProperties.Mode.values()) {
+            rowLockProperties.setMode(mode);
+
+            Optional<Wallet> locked = transactionTemplate.execute(status -> walletRepository.findByIdForUpdate(walletId));
+            Optional<Wallet> missing = transactionTemplate.execute(status -> walletRepository.findByIdForUpdate(UUID.randomUUID()));
+
+            assertEquals(Money.of("10.00"), locked.orElseThrow().getBalance(), mode::name);
+            assertTrue(missing.isEmpty(), mode::name);
+        }
+    }
+
+    @Test
+    void shouldGiveUpOnRowLockedByAnotherTransaction() throws Exception {
+        UUID walletId = createWallet(Money.of("10.00"));
+        try (RowHolder ignored = new RowHolder(walletId)) {
+            rowLockProperties.setMode(RowLockProperties.Mode.TIMEOUT);
+            assertEquals(200, millisToFail(walletId), 150);
+
+            rowLockProperties.setMode(RowLockProperties.Mode.NOWAIT);
+            assertTrue(millisToFail(walletId) < 100);
+
+            rowLockProperties.setMode(RowLockProperties.Mode.SKIP_LOCKED);
+            assertTrue(millisToFail(walletId) < 100);
+        }
+    }
+
+    @Test
+    void shouldRejectUncoveredWithdrawalWithoutWaitingForLock() throws Exception {
+        UUID walletId = createWallet(Money.of("10.00"));
+        rowLockProperties.setMode(RowLockProperties.Mode.WAIT);
+        try (RowHolder ignored = new RowHolder(walletId)) {
+            long startedAt = System.nanoTime();
+            assertThrows(InsufficientFundsException.class, () -> walletService.updateWallet(
+                    new WalletRequest(walletId, OperationType.WITHDRAW, Money.of("10.01"))));
+            assertTrue(System.nanoTime() - startedAt < TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    @Test
+    void shouldAnswerServiceUnavailableWithRetryAfterOnLockTimeout() throws Exception {
+        UUID walletId = createWallet(Money.of("10.00"));
+        rowLockProperties.setMode(RowLockProperties.Mode.NOWAIT);
+        String body = "{\"wallet_id\":\"" + walletId + "\",\"operation_type\":\"DEPOSIT\",\"amount\":1}";
+        try (RowHolder ignored = new RowHolder(walletId)) {
+            mockMvc.perform(post("/api/v1/wallets").contentType("application/json").content(body))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+        }
+        assertEquals(Money.of("10.00"), walletRepository.findBalance(walletId).orElseThrow());
+    }
+
+    @Test
+    void shouldAnswerServiceUnavailableWithRetryAfterWhenPoolIsExhausted() throws Exception {
+        UUID walletId = createWallet(Money.of("10.00"));
+        String body = "{\"wallet_id\":\"" + walletId + "\",\"operation_type\":\"DEPOSIT\",\"amount\":1}";
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                connections.add(dataSource.getConnection());
+            }
+            mockMvc.perform(post("/api/v1/wallets").contentType("application/json").content(body))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+        assertEquals(Money.of("10.00"), walletRepository.findBalance(walletId).orElseThrow());
+    }
+
+    private long millisToFail(UUID walletId) {
+        long startedAt = System.nanoTime();
+        assertThrows(CannotAcquireLockException.class,
+                () -> transactionTemplate.execute(status -> walletRepository.findByIdForUpdate(walletId)));
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+    }
+
+    private UUID createWallet(Money balance) {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(balance);
+        return walletRepository.save(wallet).getId();
+    }
+
+    /**
+     * Keeps the wallet row locked by another transaction until closed.
+     */
+    private final class RowHolder implements AutoCloseable {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CompletableFuture<Void> holder;
+
+        private RowHolder(UUID walletId) throws InterruptedException {
+            CountDownLatch locked = new CountDownLatch(1);
+            holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+                walletRepository.findByIdForUpdate(walletId).orElseThrow();
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            locked.await();
+        }
+
+        @Override
+        public void close() {
+            release.countDown();
+            holder.join();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.wallet.repository;
+
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Changeset 14 on PostgreSQL: the existing ledger becomes the legacy partition without being copied, and the archival
+ * repository works across it and the monthly partitions. Needs Docker, skipped without it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class WalletTransactionPartitioningTest {
+    private static final UUID USER_ID = UUID.fromString("11111111-1111-1111-1111-111111111111");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Test
+    void shouldAttachLedgerAsLegacyPartitionAndArchiveItByMonth() throws Exception {
+        DataSource dataSource = new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(),
+                POSTGRES.getPassword());
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        migrate(dataSource, "db/changelog/db.changelog-before-partitioning.yaml");
+
+        // Rows from before time-ordered ids: random ids, two months back, one without created_at.
+        UUID walletId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO wallet (id, user_id, balance) VALUES (?, ?, 60.00)", walletId, USER_ID);
+        YearMonth current = YearMonth.now();
+        LocalDateTime old = current.minusMonths(2).atDay(3).atTime(10, 0);
+        for (int i = 0; i < 4; i++) {
+            insert(jdbcTemplate, walletId, i == 3 ? null : Timestamp.valueOf(old.plusDays(i)), i == 3 ? null : old);
+        }
+        insert(jdbcTemplate, walletId, Timestamp.valueOf(LocalDateTime.now()), LocalDateTime.now());
+        insert(jdbcTemplate, walletId, Timestamp.valueOf(LocalDateTime.now()), LocalDateTime.now());
+
+        migrate(dataSource, "db/changelog/db.changelog-master.yaml");
+
+        YearMonth cutoff = current.plusMonths(2);
+        assertEquals(Set.of("wallet_transactions_legacy", "wallet_transactions_default", partition(cutoff),
+                partition(cutoff.plusMonths(1))), Set.copyOf(jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'wallet_transactions'::regclass
+                """, String.class)));
+        assertEquals(6, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet_transactions_legacy", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM wallet_transactions WHERE created_at IS NULL", Integer.class));
+        // The indexes of the legacy table were attached, none was built again.
+        assertEquals(Set.of("wallet_transactions_legacy_pkey", "uq_wallet_transactions_legacy_id",
+                        "idx_wallet_transactions_legacy_wallet_created_id", "idx_wallet_transactions_legacy_wallet_id_id",
+                        "idx_wallet_transactions_legacy_created_at"),
+                Set.copyOf(jdbcTemplate.queryForList(
+                        "SELECT indexname FROM pg_indexes WHERE tablename = 'wallet_transactions_legacy'", String.class)));
+
+        WalletTransactionArchiveRepository repository = new WalletTransactionArchiveRepository(jdbcTemplate);
+        repository.createPartitions(current, cutoff.plusMonths(2));
+        assertTrue(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+                partition(cutoff.plusMonths(2))));
+        assertFalse(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition(current)));
+        insert(jdbcTemplate, walletId, Timestamp.valueOf(cutoff.atDay(5).atStartOfDay()), null);
+
+        List<YearMonth> months = repository.findMonthsBefore(cutoff.plusMonths(1));
+        assertEquals(List.of(current.minusMonths(2), current.minusMonths(1), current, current.plusMonths(1), cutoff),
+                months);
+        assertEquals(4, repository.countNotInSnapshots(current.minusMonths(2)));
+
+        List<UUID> streamed = new ArrayList<>();
+        repository.streamMonth(current.minusMonths(2), (wallet, row) -> streamed.add(row.id()));
+        assertEquals(4, streamed.size());
+
+        for (YearMonth month : months) {
+            repository.dropMonth(month);
+        }
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet_transactions WHERE created_at < ?",
+                Integer.class, Timestamp.valueOf(cutoff.plusMonths(1).atDay(1).atStartOfDay())));
+        assertFalse(jdbcTemplate.queryForObject("SELECT to_regclass('wallet_transactions_legacy') IS NOT NULL",
+                Boolean.class));
+        assertFalse(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition(cutoff)));
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, UUID walletId, Timestamp createdAt, LocalDateTime updatedAt) {
+        jdbcTemplate.update("INSERT INTO wallet_transactions (id, wallet_id, operation_type, amount, created_at, updated_at) "
+                        + "VALUES (?, ?, 'DEPOSIT', 10.00, ?, ?)", UUID.randomUUID(), walletId, createdAt,
+                updatedAt == null ? null : Timestamp.valueOf(updatedAt));
+    }
+
+    private static void migrate(DataSource dataSource, String changeLog) throws Exception {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:" + changeLog);
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+    }
+
+    private static String partition(YearMonth month) {
+        return "wallet_transactions_p" + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.wallet.service;
+
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.support.SqlStatementRecorder;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Balance reads go through a projection, and no wallet access drags the owning user along.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class WalletBalanceReadTest {
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private SqlStatementRecorder sqlStatementRecorder;
+
+    @TestConfiguration
+    static class RecorderConfiguration {
+        @Bean
+        static SqlStatementRecorder sqlStatementRecorder() {
+            return new SqlStatementRecorder();
+        }
+    }
+
+    @Test
+    void shouldReadBalanceWithSingleTableTwoColumnSelect() {
+        UUID walletId = createWallet(Money.of("42.00"));
+
+        sqlStatementRecorder.clear();
+        WalletResponse response = walletService.getBalance(walletId);
+        List<String> statements = sqlStatementRecorder.statements();
+
+        assertEquals(List.of("SELECT balance, version FROM wallet WHERE id = ?"), statements);
+        assertEquals(new WalletResponse(walletId, Money.of("42.00"), walletRepository.findVersionById(walletId).orElseThrow()),
+                response);
+        assertThrows(EntityNotFoundException.class, () -> walletService.getBalance(UUID.randomUUID()));
+    }
+
+    @Test
+    void shouldMutateWalletsWithoutLoadingUsers() {
+        UUID walletId = createWallet(Money.of("100.00"));
+        UUID otherWalletId = createWallet(Money.of("100.00"));
+
+        sqlStatementRecorder.clear();
+        walletService.updateWallet(new WalletRequest(walletId, OperationType.WITHDRAW, Money.of("10.00")));
+        walletService.transferBetweenWallets(new TransferRequest(walletId, otherWalletId, Money.of("5.00")), null);
+        List<String> statements = sqlStatementRecorder.statements();
+
+        assertEquals(Money.of("85.00"), walletService.getBalance(walletId).balance());
+        assertEquals(Money.of("105.00"), walletService.getBalance(otherWalletId).balance());
+        assertFalse(statements.isEmpty());
+        assertFalse(statements.stream().anyMatch(sql -> sql.toLowerCase().contains("users")), statements::toString);
+    }
+
+    private UUID createWallet(Money balance) {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(balance);
+        return walletRepository.save(wallet).getId();
+    }
+}
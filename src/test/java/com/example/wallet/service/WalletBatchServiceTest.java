@@ -0,0 +1,211 @@
+package com.example.wallet.service;
+
+import com.example.wallet.dto.BatchItemResult;
+import com.example.wallet.dto.BatchResponse;
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletOperation;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.enums.BatchItemStatus;
+import com.example.wallet.enums.BatchMode;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.exceptions.BatchSizeExceededException;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "wallet.batch.chunk-size=2",
+        "wallet.batch.max-atomic-items=5"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class WalletBatchServiceTest {
+    @Autowired
+    private WalletBatchService walletBatchService;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID first;
+    private UUID second;
+
+    @BeforeEach
+    void setUp() {
+        walletTransactionRepository.deleteAll();
+        walletRepository.deleteAll();
+        first = createWallet(Money.of("100.00")).getId();
+        second = createWallet(Money.of("50.00")).getId();
+    }
+
+    /**
+     * Locks the wallet row in another transaction for longer than {@code wallet.row-lock.timeout}.
+     */
+    private CompletableFuture<Void> holdRowLock(UUID walletId, Duration duration) throws InterruptedException {
+        CountDownLatch locked = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            walletRepository.findByIdForUpdate(walletId).orElseThrow();
+            locked.countDown();
+            LockSupport.parkNanos(duration.toNanos());
+        }));
+        locked.await();
+        return holder;
+    }
+
+    private Wallet createWallet(Money balance) {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(balance);
+        return walletRepository.save(wallet);
+    }
+
+    @Test
+    void shouldSkipFailingItemsInBestEffortMode() {
+        List<WalletOperation> items = List.of(
+                new WalletRequest(first, OperationType.DEPOSIT, Money.of("10.00")),
+                new WalletRequest(second, OperationType.WITHDRAW, Money.of("500.00")),
+                new TransferRequest(first, second, Money.of("30.00")),
+                new WalletRequest(UUID.randomUUID(), OperationType.DEPOSIT, Money.of("1.00")),
+                new WalletRequest(first, OperationType.DEPOSIT, Money.ZERO));
+
+        BatchResponse response = walletBatchService.apply(items, BatchMode.BEST_EFFORT);
+
+        assertEquals(2, response.applied());
+        assertEquals(3, response.failed());
+        assertEquals(List.of(BatchItemStatus.APPLIED, BatchItemStatus.FAILED, BatchItemStatus.APPLIED,
+                        BatchItemStatus.FAILED, BatchItemStatus.FAILED),
+                response.results().stream().map(BatchItemResult::status).toList());
+        assertEquals(Money.of("80.00"), walletRepository.findById(first).orElseThrow().getBalance());
+        assertEquals(Money.of("80.00"), walletRepository.findById(second).orElseThrow().getBalance());
+        assertEquals(3, walletTransactionRepository.count());
+    }
+
+    @Test
+    void shouldRetryChunksWhileWalletRowIsLockedPastTimeout() throws Exception {
+        List<WalletOperation> items = List.of(
+                new WalletRequest(first, OperationType.DEPOSIT, Money.of("10.00")),
+                new WalletRequest(second, OperationType.DEPOSIT, Money.of("10.00")));
+
+        for (BatchMode mode : BatchMode.values()) {
+            CompletableFuture<Void> holder = holdRowLock(first, Duration.ofMillis(250));
+            BatchResponse response = walletBatchService.apply(items, mode);
+            holder.join();
+
+            assertEquals(2, response.applied(), mode::name);
+        }
+        assertEquals(Money.of("120.00"), walletRepository.findById(first).orElseThrow().getBalance());
+        assertEquals(Money.of("70.00"), walletRepository.findById(second).orElseThrow().getBalance());
+    }
+
+    @Test
+    void shouldRollBackWholeAtomicBatchOnFirstFailure() {
+        List<WalletOperation> items = List.of(
+                new WalletRequest(first, OperationType.DEPOSIT, Money.of("10.00")),
+                new TransferRequest(first, second, Money.of("30.00")),
+                new WalletRequest(second, OperationType.WITHDRAW, Money.of("500.00")));
+
+        BatchResponse response = walletBatchService.apply(items, BatchMode.ATOMIC);
+
+        assertEquals(0, response.applied());
+        assertEquals(1, response.failed());
+        assertEquals(List.of(BatchItemStatus.ROLLED_BACK, BatchItemStatus.ROLLED_BACK, BatchItemStatus.FAILED),
+                response.results().stream().map(BatchItemResult::status).toList());
+        assertEquals(Money.of("100.00"), walletRepository.findById(first).orElseThrow().getBalance());
+        assertEquals(Money.of("50.00"), walletRepository.findById(second).orElseThrow().getBalance());
+        assertEquals(0, walletTransactionRepository.count());
+    }
+
+    @Test
+    void shouldRejectOversizedAtomicBatch() {
+        List<WalletOperation> items = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            items.add(new WalletRequest(first, OperationType.DEPOSIT, Money.ofMajor(1)));
+        }
+
+        assertThrows(BatchSizeExceededException.class, () -> walletBatchService.apply(items, BatchMode.ATOMIC));
+        assertEquals(0, walletTransactionRepository.count());
+    }
+
+    @Test
+    void shouldDeduceItemTypeFromJsonProperties() throws Exception {
+        String json = """
+                [{"wallet_id":"%s","operation_type":"DEPOSIT","amount":1},
+                 {"from_wallet_id":"%s","to_wallet_id":"%s","amount":2}]
+                """.formatted(first, first, second);
+
+        WalletOperation[] items = objectMapper.readValue(json, WalletOperation[].class);
+
+        assertInstanceOf(WalletRequest.class, items[0]);
+        assertInstanceOf(TransferRequest.class, items[1]);
+        mockMvc.perform(post("/api/v1/wallets/batch")
+                        .param("mode", "ATOMIC")
+                        .contentType("application/json")
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(2))
+                .andExpect(jsonPath("$.results[1].wallets[1].balance").value(52));
+    }
+
+    @Test
+    void shouldStreamNdjsonResults() throws Exception {
+        String body = """
+                {"wallet_id":"%s","operation_type":"DEPOSIT","amount":1}
+                {"wallet_id":"%s","operation_type":"WITHDRAW","amount":1000}
+                {"from_wallet_id":"%s","to_wallet_id":"%s","amount":2}
+                """.formatted(first, second, first, second);
+
+        MvcResult started = mockMvc.perform(post("/api/v1/wallets/batch")
+                        .contentType("application/x-ndjson")
+                        .accept("application/x-ndjson")
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().strip().split("\n");
+
+        assertEquals(3, lines.length);
+        assertEquals(BatchItemStatus.APPLIED, objectMapper.readValue(lines[0], BatchItemResult.class).status());
+        assertEquals(BatchItemStatus.FAILED, objectMapper.readValue(lines[1], BatchItemResult.class).status());
+        assertEquals(BatchItemStatus.APPLIED, objectMapper.readValue(lines[2], BatchItemResult.class).status());
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.wallet.service;
+
+import com.example.wallet.dto.TransactionHistoryResponse;
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.model.WalletTransaction;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.support.SqlStatementRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Balance mutations must cost the same number of SQL statements whatever the size of the wallet history.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class WalletHistoryIndependenceTest {
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private SqlStatementRecorder sqlStatementRecorder;
+
+    private Wallet wallet;
+    private Wallet otherWallet;
+
+    @TestConfiguration
+    static class RecorderConfiguration {
+        @Bean
+        static SqlStatementRecorder sqlStatementRecorder() {
+            return new SqlStatementRecorder();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        wallet = createWallet(Money.of("1000.00"));
+        otherWallet = createWallet(Money.of("1000.00"));
+    }
+
+    private Wallet createWallet(Money initialBalance) {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet newWallet = new Wallet();
+        newWallet.setUser(user);
+        newWallet.setBalance(initialBalance);
+        return walletRepository.save(newWallet);
+    }
+
+    private void growHistory(int rows) {
+        List<WalletTransaction> history = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            history.add(new WalletTransaction(wallet, OperationType.DEPOSIT, Money.of("0.01")));
+        }
+        walletTransactionRepository.appendAll(history);
+    }
+
+    private List<String> recordDeposit() {
+        sqlStatementRecorder.clear();
+        walletService.updateWallet(new WalletRequest(wallet.getId(), OperationType.DEPOSIT, Money.of("1.00")));
+        return sqlStatementRecorder.statements();
+    }
+
+    private List<String> recordTransfer() {
+        sqlStatementRecorder.clear();
+        walletService.transferBetweenWallets(new TransferRequest(wallet.getId(), otherWallet.getId(), Money.of("1.00")), null);
+        return sqlStatementRecorder.statements();
+    }
+
+    @Test
+    void shouldKeepStatementCountFlatAsHistoryGrows() {
+        List<String> depositOnEmptyHistory = recordDeposit();
+        List<String> transferOnEmptyHistory = recordTransfer();
+
+        growHistory(5_000);
+
+        List<String> depositOnLargeHistory = recordDeposit();
+        List<String> transferOnLargeHistory = recordTransfer();
+
+        assertFalse(depositOnEmptyHistory.isEmpty());
+        assertEquals(depositOnEmptyHistory.size(), depositOnLargeHistory.size());
+        assertEquals(transferOnEmptyHistory.size(), transferOnLargeHistory.size());
+        assertFalse(depositOnLargeHistory.stream()
+                .anyMatch(sql -> sql.toLowerCase().contains("from wallet_transactions")));
+        assertFalse(transferOnLargeHistory.stream()
+                .anyMatch(sql -> sql.toLowerCase().contains("from wallet_transactions")));
+    }
+
+    @Test
+    void shouldPageThroughHistoryNewestFirst() {
+        growHistory(3);
+        walletService.updateWallet(new WalletRequest(wallet.getId(), OperationType.WITHDRAW, Money.of("5.00")));
+
+        TransactionHistoryResponse firstPage = walletService.getTransactionHistory(wallet.getId(), null, 2);
+        TransactionHistoryResponse secondPage = walletService.getTransactionHistory(wallet.getId(), firstPage.nextCursor(), 2);
+
+        assertEquals(2, firstPage.transactions().size());
+        assertTrue(firstPage.hasNext());
+        assertEquals(OperationType.WITHDRAW, firstPage.transactions().get(0).operationType());
+        assertEquals(2, secondPage.transactions().size());
+        assertFalse(secondPage.hasNext());
+        assertNull(secondPage.nextCursor());
+    }
+}
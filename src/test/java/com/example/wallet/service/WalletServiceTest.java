@@ -5,6 +5,8 @@ import com.example.wallet.dto.WalletRequest;
 import com.example.wallet.enums.OperationType;
 import com.example.wallet.model.User;
 import com.example.wallet.model.Wallet;
+import com.example.wallet.model.WalletTransaction;
+import com.example.wallet.money.Money;
 import com.example.wallet.repository.UserRepository;
 import com.example.wallet.repository.WalletRepository;
 import com.example.wallet.repository.WalletTransactionRepository;
@@ -14,7 +16,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
-import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -36,17 +39,17 @@ class WalletServiceTest {
     private WalletTransactionRepository walletTransactionRepository;
 
     private Wallet wallet;
-    private final BigDecimal initialBalance = new BigDecimal("1000.00");
+    private final Money initialBalance = Money.of("1000.00");
 
     @BeforeEach
     void setUp() {
-        walletRepository.deleteAll();
         walletTransactionRepository.deleteAll();
+        walletRepository.deleteAll();
         wallet = createWallet(initialBalance);
         assertNotNull(wallet);
     }
 
-    public Wallet createWallet(BigDecimal initialBalance) {
+    public Wallet createWallet(Money initialBalance) {
         User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
         Wallet newWallet = new Wallet();
         newWallet.setUser(user);
@@ -56,37 +59,55 @@ class WalletServiceTest {
 
     @Test
     void shouldAddAmountToWallet() {
-        BigDecimal deposit = new BigDecimal("100.00");
+        Money deposit = Money.of("100.00");
         WalletRequest walletRequest = new WalletRequest(wallet.getId(), OperationType.DEPOSIT, deposit);
         walletService.updateWallet(walletRequest);
         Optional<Wallet> updatedWallet = walletRepository.findById(wallet.getId());
         assertTrue(updatedWallet.isPresent());
-        assertEquals(initialBalance.add(deposit), updatedWallet.get().getBalance());
+        assertEquals(initialBalance.plus(deposit), updatedWallet.get().getBalance());
     }
 
     @Test
     void shouldTransferBetweenWalletsSuccessfully() {
-        Wallet toWallet = createWallet(new BigDecimal("100.00"));
+        Wallet toWallet = createWallet(Money.of("100.00"));
 
-        TransferRequest request = new TransferRequest(wallet.getId(), toWallet.getId(), new BigDecimal("200.00"));
-        walletService.transferBetweenWallets(request);
+        TransferRequest request = new TransferRequest(wallet.getId(), toWallet.getId(), Money.of("200.00"));
+        walletService.transferBetweenWallets(request, null);
 
         Wallet updatedFrom = walletRepository.findById(wallet.getId()).orElseThrow();
         Wallet updatedTo = walletRepository.findById(toWallet.getId()).orElseThrow();
 
-        assertEquals(new BigDecimal("800.00"), updatedFrom.getBalance());
-        assertEquals(new BigDecimal("300.00"), updatedTo.getBalance());
+        assertEquals(Money.of("800.00"), updatedFrom.getBalance());
+        assertEquals(Money.of("300.00"), updatedTo.getBalance());
     }
 
     @Test
     void shouldThrowWhenInsufficientFunds() {
-        Wallet toWallet = createWallet(new BigDecimal("100.00"));
+        Wallet toWallet = createWallet(Money.of("100.00"));
 
-        TransferRequest request = new TransferRequest(wallet.getId(), toWallet.getId(), new BigDecimal("2000.00"));
+        TransferRequest request = new TransferRequest(wallet.getId(), toWallet.getId(), Money.of("2000.00"));
 
         RuntimeException ex = assertThrows(RuntimeException.class, () -> {
-            walletService.transferBetweenWallets(request);
+            walletService.transferBetweenWallets(request, null);
         });
         assertTrue(ex.getMessage().contains("Insufficient funds in wallet"));
     }
+
+    @Test
+    void shouldAppendTimeOrderedLedgerRowsOnTransfer() {
+        Wallet toWallet = createWallet(Money.of("100.00"));
+
+        walletService.transferBetweenWallets(new TransferRequest(wallet.getId(), toWallet.getId(), Money.of("10.00")), null);
+        List<UUID> firstIds = walletTransactionRepository.findAll().stream().map(WalletTransaction::getId).toList();
+        walletService.transferBetweenWallets(new TransferRequest(toWallet.getId(), wallet.getId(), Money.of("5.00")), null);
+        List<UUID> allIds = walletTransactionRepository.findAll().stream().map(WalletTransaction::getId).toList();
+
+        assertEquals(2, firstIds.size());
+        assertEquals(4, allIds.size());
+        allIds.forEach(id -> assertEquals(7, id.version()));
+        UUID lastOfFirstTransfer = firstIds.stream().max(Comparator.naturalOrder()).orElseThrow();
+        allIds.stream()
+                .filter(id -> !firstIds.contains(id))
+                .forEach(id -> assertTrue(id.compareTo(lastOfFirstTransfer) > 0));
+    }
 }
@@ -0,0 +1,156 @@
+package com.example.wallet.service;
+
+import com.example.wallet.config.WriteCombiningProperties;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "wallet.write-combining.enabled=true",
+        "wallet.write-combining.batch-window=20ms",
+        "wallet.write-combining.max-batch-size=8"
+})
+@ActiveProfiles("test")
+class WalletWriteCombinerTest {
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        walletTransactionRepository.deleteAll();
+        walletRepository.deleteAll();
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(Money.of("100.00"));
+        wallet = walletRepository.save(wallet);
+    }
+
+    @Test
+    void shouldGiveEachCallerItsOwnResult() throws Exception {
+        int callers = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        Set<Money> balances = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < callers; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    WalletResponse response = walletService.updateWallet(
+                            new WalletRequest(wallet.getId(), OperationType.WITHDRAW, Money.of("10.00")));
+                    balances.add(response.balance());
+                } catch (InsufficientFundsException exception) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(10, rejected.get());
+        assertEquals(10, balances.size());
+        assertEquals(0, Money.ZERO.compareTo(walletRepository.findById(wallet.getId()).orElseThrow().getBalance()));
+        assertEquals(10, walletTransactionRepository.count());
+    }
+
+    @Test
+    void shouldApplyLoneRequestWithoutWaitingForWindow() {
+        WalletWriteCombiner combiner = combiner(Duration.ofSeconds(5));
+        UUID walletId = UUID.randomUUID();
+
+        long startedAt = System.nanoTime();
+        WalletResponse response = combiner.submit(new WalletRequest(walletId, OperationType.DEPOSIT, Money.of("1.00")),
+                (id, requests) -> requests.stream()
+                        .map(request -> WalletWriteCombiner.BatchOutcome.success(new WalletResponse(id, request.amount())))
+                        .toList());
+
+        assertEquals(Money.of("1.00"), response.balance());
+        assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void shouldFailEveryCallerWhenBatchThrowsError() throws Exception {
+        WalletWriteCombiner combiner = combiner(Duration.ofMillis(200));
+        UUID walletId = UUID.randomUUID();
+        int callers = 4;
+        CountDownLatch applying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<Throwable>> futures = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            futures.add(executor.submit(() -> {
+                try {
+                    combiner.submit(new WalletRequest(walletId, OperationType.DEPOSIT, Money.of("1.00")), (id, requests) -> {
+                        applying.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException exception) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new LinkageError("broken batch");
+                    });
+                    return null;
+                } catch (Throwable failure) {
+                    return failure;
+                }
+            }));
+        }
+        applying.await();
+        release.countDown();
+        for (Future<Throwable> future : futures) {
+            assertInstanceOf(LinkageError.class, future.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+    }
+
+    private static WalletWriteCombiner combiner(Duration batchWindow) {
+        WriteCombiningProperties properties = new WriteCombiningProperties();
+        properties.setEnabled(true);
+        properties.setBatchWindow(batchWindow);
+        return new WalletWriteCombiner(properties);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.wallet.service.archive;
+
+import com.example.wallet.dto.WalletTransactionResponse;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.money.Money;
+import com.example.wallet.util.TimeOrderedUuid;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveSegmentTest {
+    private static final LocalDateTime MONTH = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldReadBackEveryWalletAcrossBlocks() {
+        // Ordered the way the database orders UUIDs: the wallet with the high bit set comes last.
+        Map<UUID, List<WalletTransactionResponse>> ledger = new LinkedHashMap<>();
+        ledger.put(new UUID(0x1L, 1), rows(1, LocalDateTime.of(2025, 1, 3, 10, 0, 0, 123_456_000)));
+        ledger.put(new UUID(0x2L, 1), rows(7, MONTH.plusDays(5)));
+        ledger.put(new UUID(0x3L, 1), List.of());
+        ledger.put(new UUID(0x8000_0000_0000_0000L, 1), rows(4, MONTH.plusDays(20)));
+        Path file = directory.resolve("segment.seg");
+
+        try (ArchiveSegment.Writer writer = new ArchiveSegment.Writer(file, 3)) {
+            ledger.forEach((walletId, rows) -> rows.forEach(row -> writer.append(walletId, row)));
+            assertEquals(12, writer.seal());
+        }
+        ArchiveSegment segment = ArchiveSegment.open(file);
+
+        assertEquals(12, segment.rows());
+        assertEquals(3, segment.wallets());
+        ledger.forEach((walletId, rows) -> assertEquals(rows, segment.read(walletId)));
+        assertEquals(List.of(), segment.read(UUID.randomUUID()));
+        assertFalse(Files.exists(directory.resolve("segment.seg.tmp")));
+    }
+
+    @Test
+    void shouldRejectRowsOutOfOrder() {
+        UUID first = new UUID(0x2L, 1);
+        List<WalletTransactionResponse> rows = rows(2, MONTH);
+        Path file = directory.resolve("segment.seg");
+
+        try (ArchiveSegment.Writer writer = new ArchiveSegment.Writer(file, 16)) {
+            writer.append(first, rows.get(1));
+            assertThrows(IllegalStateException.class, () -> writer.append(first, rows.get(0)));
+            assertThrows(IllegalStateException.class, () -> writer.append(new UUID(0x1L, 1), rows.get(0)));
+        }
+        assertFalse(Files.exists(file));
+        assertFalse(Files.exists(directory.resolve("segment.seg.tmp")));
+    }
+
+    @Test
+    void shouldDetectCorruptBlock() throws IOException {
+        UUID walletId = UUID.randomUUID();
+        Path file = directory.resolve("segment.seg");
+        try (ArchiveSegment.Writer writer = new ArchiveSegment.Writer(file, 16)) {
+            rows(5, MONTH).forEach(row -> writer.append(walletId, row));
+            writer.seal();
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[10] ^= 0x55;
+        Files.write(file, bytes);
+
+        ArchiveSegment segment = ArchiveSegment.open(file);
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> segment.read(walletId));
+        assertTrue(exception.getMessage().contains("corrupt"));
+    }
+
+    @Test
+    void shouldRejectFileThatIsNoSegment() throws IOException {
+        Path file = Files.writeString(directory.resolve("other.seg"), "not a segment, but long enough to have a footer");
+
+        assertThrows(IllegalStateException.class, () -> ArchiveSegment.open(file));
+    }
+
+    /**
+     * Rows one and a half hours apart, two of them in the same microsecond so that the id breaks the tie.
+     */
+    private static List<WalletTransactionResponse> rows(int count, LocalDateTime from) {
+        List<WalletTransactionResponse> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime createdAt = from.plusMinutes(90L * (i == 1 ? 0 : i));
+            rows.add(new WalletTransactionResponse(TimeOrderedUuid.next(),
+                    i % 3 == 2 ? OperationType.WITHDRAW : OperationType.DEPOSIT, Money.ofMinor(1_000L * i + 7), createdAt));
+        }
+        return rows;
+    }
+}
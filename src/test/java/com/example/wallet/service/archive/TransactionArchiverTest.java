@@ -0,0 +1,204 @@
+package com.example.wallet.service.archive;
+
+import com.example.wallet.dto.TransactionHistoryResponse;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.dto.WalletTransactionResponse;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionArchiveRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.service.WalletService;
+import com.example.wallet.service.reconciliation.LedgerReconciliationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "wallet.archive.enabled=true",
+        "wallet.archive.initial-delay=1h",
+        "wallet.archive.block-rows=4",
+        "wallet.reconciliation.settle-delay=0s"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TransactionArchiverTest {
+    private static final int WALLETS = 3;
+    private static final int DEPOSITS = 12;
+    private static final Path DIRECTORY = createDirectory();
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TransactionArchiver archiver;
+    @Autowired
+    private TransactionArchive archive;
+    @Autowired
+    private WalletTransactionArchiveRepository archiveRepository;
+    @Autowired
+    private LedgerReconciliationService reconciliationService;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Wallet> wallets = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void archiveDirectory(DynamicPropertyRegistry registry) {
+        registry.add("wallet.archive.directory", DIRECTORY::toString);
+    }
+
+    @BeforeEach
+    void setUp() {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        wallets.clear();
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        for (int i = 0; i < WALLETS; i++) {
+            Wallet wallet = new Wallet();
+            wallet.setUser(user);
+            wallet.setBalance(Money.ZERO);
+            wallets.add(walletRepository.save(wallet));
+        }
+        for (Wallet wallet : wallets) {
+            for (int i = 0; i < DEPOSITS; i++) {
+                walletService.updateWallet(new WalletRequest(wallet.getId(), OperationType.DEPOSIT, Money.ofMinor(100L + i)));
+            }
+            walletService.updateWallet(new WalletRequest(wallet.getId(), OperationType.WITHDRAW, Money.of("1.00")));
+        }
+    }
+
+    @Test
+    void shouldMoveOldMonthsToSegmentsAndKeepHistoryWhole() throws Exception {
+        // Oldest rows of every wallet: four in January, five in February, the rest stay recent.
+        backdate(0, 4, LocalDateTime.of(2024, 1, 10, 12, 0));
+        backdate(4, 9, LocalDateTime.of(2024, 2, 29, 23, 59, 50));
+        Wallet wallet = wallets.get(1);
+        List<WalletTransactionResponse> before = history(wallet.getId(), 100);
+
+        assertEquals(2, archiver.archive());
+
+        assertEquals(0, countRowsBefore(YearMonth.of(2024, 3)));
+        assertEquals(WALLETS * (DEPOSITS + 1 - 9), countRowsBefore(YearMonth.now().plusMonths(1)));
+        assertTrue(Files.exists(DIRECTORY.resolve("wallet-transactions-2024-01.seg")));
+        assertTrue(Files.exists(DIRECTORY.resolve("wallet-transactions-2024-02.seg")));
+        assertEquals(ids(before), ids(history(wallet.getId(), 3)));
+        assertEquals(DEPOSITS + 2, export(wallet.getId()).split("\n").length);
+        assertEquals(0, reconciliationService.reconcile().mismatchCount());
+        assertEquals(0, archiver.archive());
+    }
+
+    @Test
+    void shouldReturnMonthOnceWhileInSegmentAndTable() {
+        backdate(0, 6, LocalDateTime.of(2024, 3, 15, 8, 30));
+        YearMonth month = YearMonth.of(2024, 3);
+        Wallet wallet = wallets.get(0);
+        List<WalletTransactionResponse> before = history(wallet.getId(), 100);
+
+        // What a run interrupted between writing the segment and dropping the month leaves behind.
+        try (ArchiveSegment.Writer writer = archive.writer(month)) {
+            transactionTemplate.executeWithoutResult(status -> archiveRepository.streamMonth(month, writer::append));
+            writer.seal();
+        }
+        archive.add(month);
+
+        assertEquals(WALLETS * 6, countRowsBefore(month.plusMonths(1)));
+        assertEquals(ids(before), ids(history(wallet.getId(), 5)));
+
+        assertEquals(1, archiver.archive());
+
+        assertEquals(0, countRowsBefore(month.plusMonths(1)));
+        assertEquals(ids(before), ids(history(wallet.getId(), 5)));
+    }
+
+    /**
+     * Moves the rows {@code from} (inclusive) to {@code to} (exclusive) of every wallet's history, oldest first,
+     * to one second apart starting at {@code createdAt}.
+     */
+    private void backdate(int from, int to, LocalDateTime createdAt) {
+        for (Wallet wallet : wallets) {
+            List<UUID> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM wallet_transactions WHERE wallet_id = ? ORDER BY created_at, id",
+                    UUID.class, wallet.getId());
+            for (int i = from; i < to; i++) {
+                jdbcTemplate.update("UPDATE wallet_transactions SET created_at = ? WHERE id = ?",
+                        Timestamp.valueOf(createdAt.plusSeconds(i - from)), ids.get(i));
+            }
+        }
+    }
+
+    private List<WalletTransactionResponse> history(UUID walletId, int pageSize) {
+        List<WalletTransactionResponse> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionHistoryResponse page = walletService.getTransactionHistory(walletId, cursor, pageSize);
+            seen.addAll(page.transactions());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertEquals(DEPOSITS + 1, seen.size());
+        return seen;
+    }
+
+    private long countRowsBefore(YearMonth month) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet_transactions WHERE created_at < ?",
+                Long.class, Timestamp.valueOf(month.atDay(1).atStartOfDay()));
+    }
+
+    private String export(UUID walletId) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/wallets/{id}/transactions/export", walletId)
+                        .param("format", "CSV"))
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static List<UUID> ids(List<WalletTransactionResponse> rows) {
+        return rows.stream().map(WalletTransactionResponse::id).toList();
+    }
+
+    private static Path createDirectory() {
+        try {
+            return Files.createTempDirectory("wallet-archive");
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.wallet.service.balance;
+
+import com.example.wallet.config.RowLockProperties;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.model.WalletTransaction;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the balance mutation strategies on a single hot wallet.
+ * Every thread alternates deposits and withdrawals of the same amount, so the final balance is known.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; tune with {@code -Dbenchmark.threads} and {@code -Dbenchmark.operations}.
+ */
+@Slf4j
+abstract class AbstractBalanceMutationBenchmark {
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 16);
+    private static final int OPERATIONS_PER_THREAD = Integer.getInteger("benchmark.operations", 500);
+    private static final Money INITIAL_BALANCE = Money.of("1000000.00");
+    private static final Money AMOUNT = Money.of("1.00");
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    protected abstract String databaseName();
+
+    @Test
+    void compareStrategiesOnHotWallet() throws Exception {
+        Map<String, BalanceMutationStrategy> strategies = new LinkedHashMap<>();
+        strategies.put("locking", new LockingBalanceMutationStrategy(walletRepository, new RowLockProperties()));
+        strategies.put("conditional-update", new ConditionalUpdateBalanceMutationStrategy(walletRepository));
+
+        for (Map.Entry<String, BalanceMutationStrategy> entry : strategies.entrySet()) {
+            run(entry.getValue(), THREADS, OPERATIONS_PER_THREAD / 5);
+            Result result = run(entry.getValue(), THREADS, OPERATIONS_PER_THREAD);
+            log.info("[{}] {} threads x {} ops, strategy {}: {} ops/s, p50 {} us, p99 {} us, max {} us",
+                    databaseName(), THREADS, OPERATIONS_PER_THREAD, entry.getKey(),
+                    Math.round(result.throughput()), result.percentileMicros(0.50),
+                    result.percentileMicros(0.99), result.percentileMicros(1.0));
+        }
+    }
+
+    private Result run(BalanceMutationStrategy strategy, int threads, int operationsPerThread) throws Exception {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        UUID walletId = createWallet().getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                long[] latencies = new long[operationsPerThread];
+                start.await();
+                for (int i = 0; i < operationsPerThread; i++) {
+                    OperationType type = i % 2 == 0 ? OperationType.DEPOSIT : OperationType.WITHDRAW;
+                    Money delta = type == OperationType.DEPOSIT ? AMOUNT : AMOUNT.negate();
+                    long begin = System.nanoTime();
+                    transactionTemplate.executeWithoutResult(status -> {
+                        strategy.apply(walletId, delta);
+                        Wallet wallet = walletRepository.getReferenceById(walletId);
+                        walletTransactionRepository.appendAll(List.of(new WalletTransaction(wallet, type, AMOUNT)));
+                    });
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return latencies;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] all = new long[threads * operationsPerThread];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+            offset += latencies.length;
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        int expectedBalanceChange = operationsPerThread % 2 == 0 ? 0 : threads;
+        Money balance = walletRepository.findBalance(walletId).orElseThrow();
+        assertEquals(0, INITIAL_BALANCE.plus(Money.ofMajor(expectedBalanceChange)).compareTo(balance));
+
+        Arrays.sort(all);
+        return new Result(all, all.length * 1_000_000_000.0 / elapsed);
+    }
+
+    private Wallet createWallet() {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(INITIAL_BALANCE);
+        return walletRepository.save(wallet);
+    }
+
+    private record Result(long[] sortedLatencies, double throughput) {
+
+        long percentileMicros(double percentile) {
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(percentile * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(index, 0)] / 1_000;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.wallet.service.balance;
+
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.service.WalletService;
+import com.example.wallet.support.SqlStatementRecorder;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "wallet.balance-mutation.strategy=conditional-update",
+        "wallet.outbox.enabled=false"
+})
+@ActiveProfiles("test")
+class ConditionalUpdateBalanceMutationStrategyTest {
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private BalanceMutationStrategy balanceMutationStrategy;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private SqlStatementRecorder sqlStatementRecorder;
+
+    private Wallet wallet;
+
+    @TestConfiguration
+    static class RecorderConfiguration {
+        @Bean
+        static SqlStatementRecorder sqlStatementRecorder() {
+            return new SqlStatementRecorder();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        wallet = createWallet(Money.of("100.00"));
+    }
+
+    private Wallet createWallet(Money initialBalance) {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet newWallet = new Wallet();
+        newWallet.setUser(user);
+        newWallet.setBalance(initialBalance);
+        return walletRepository.save(newWallet);
+    }
+
+    @Test
+    void shouldUpdateBalanceWithOneStatementPlusLedgerInsert() {
+        assertInstanceOf(ConditionalUpdateBalanceMutationStrategy.class, balanceMutationStrategy);
+
+        sqlStatementRecorder.clear();
+        WalletResponse response = walletService.updateWallet(
+                new WalletRequest(wallet.getId(), OperationType.DEPOSIT, Money.of("25.50")));
+        List<String> statements = sqlStatementRecorder.statements();
+
+        assertEquals(Money.of("125.50"), response.balance());
+        assertEquals(2, statements.size(), statements.toString());
+        Wallet updated = walletRepository.findById(wallet.getId()).orElseThrow();
+        assertEquals(Money.of("125.50"), updated.getBalance());
+        assertEquals(wallet.getVersion() + 1, updated.getVersion());
+    }
+
+    @Test
+    void shouldRejectWithdrawalThatWouldOverdraw() {
+        WalletRequest request = new WalletRequest(wallet.getId(), OperationType.WITHDRAW, Money.of("100.01"));
+
+        assertThrows(InsufficientFundsException.class, () -> walletService.updateWallet(request));
+        assertEquals(Money.of("100.00"), walletRepository.findById(wallet.getId()).orElseThrow().getBalance());
+        assertEquals(0, walletTransactionRepository.count());
+    }
+
+    @Test
+    void shouldRejectUnknownWallet() {
+        WalletRequest request = new WalletRequest(UUID.randomUUID(), OperationType.DEPOSIT, Money.of("1.00"));
+
+        assertThrows(EntityNotFoundException.class, () -> walletService.updateWallet(request));
+    }
+
+    @Test
+    void shouldRollBackCreditWhenDebitIsRejected() {
+        Wallet other = createWallet(Money.of("10.00"));
+
+        TransferRequest tooMuchFromOther = new TransferRequest(other.getId(), wallet.getId(), Money.of("50.00"));
+        TransferRequest tooMuchFromWallet = new TransferRequest(wallet.getId(), other.getId(), Money.of("500.00"));
+        assertThrows(InsufficientFundsException.class, () -> walletService.transferBetweenWallets(tooMuchFromOther, null));
+        assertThrows(InsufficientFundsException.class, () -> walletService.transferBetweenWallets(tooMuchFromWallet, null));
+
+        walletService.transferBetweenWallets(new TransferRequest(wallet.getId(), other.getId(), Money.of("40.00")), null);
+
+        assertEquals(Money.of("60.00"), walletRepository.findById(wallet.getId()).orElseThrow().getBalance());
+        assertEquals(Money.of("50.00"), walletRepository.findById(other.getId()).orElseThrow().getBalance());
+        assertEquals(2, walletTransactionRepository.count());
+    }
+}
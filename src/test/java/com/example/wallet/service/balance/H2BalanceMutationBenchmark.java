@@ -0,0 +1,14 @@
+package com.example.wallet.service.balance;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class H2BalanceMutationBenchmark extends AbstractBalanceMutationBenchmark {
+
+    @Override
+    protected String databaseName() {
+        return "H2";
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.wallet.service.balance;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs against H2 in PostgreSQL compatibility mode unless a real server is given, e.g. the one from
+ * docker-compose.db.yml: {@code -Dbenchmark.postgres.url=jdbc:postgresql://localhost:5433/wallet_db
+ * -Dbenchmark.postgres.user=user -Dbenchmark.postgres.password=123456 -Dbenchmark.postgres.driver=org.postgresql.Driver}
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=${benchmark.postgres.url:jdbc:h2:mem:pgbench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE}",
+        "spring.datasource.username=${benchmark.postgres.user:sa}",
+        "spring.datasource.password=${benchmark.postgres.password:}",
+        "spring.datasource.driver-class-name=${benchmark.postgres.driver:org.h2.Driver}"
+})
+@ActiveProfiles("test")
+class PostgresBalanceMutationBenchmark extends AbstractBalanceMutationBenchmark {
+
+    @Override
+    protected String databaseName() {
+        return "PostgreSQL";
+    }
+}
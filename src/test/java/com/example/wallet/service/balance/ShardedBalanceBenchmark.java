@@ -0,0 +1,132 @@
+package com.example.wallet.service.balance;
+
+import com.example.wallet.config.RowLockProperties;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.model.WalletTransaction;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Deposit-heavy contention on one platform wallet: every tenth operation is a withdrawal.
+ * Compares the single-row strategies with the sharded balance, compaction running in the background.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=ShardedBalanceBenchmark}; tune with {@code -Dbenchmark.threads}
+ * and {@code -Dbenchmark.operations}.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "wallet.balance-sharding.wallets=" + ShardedBalanceBenchmark.HOT_WALLET,
+        "wallet.balance-sharding.slots=16",
+        "wallet.balance-sharding.compaction-interval=100ms"
+})
+@ActiveProfiles("test")
+class ShardedBalanceBenchmark {
+    static final String HOT_WALLET = "44444444-4444-4444-4444-444444444444";
+    private static final UUID HOT_WALLET_ID = UUID.fromString(HOT_WALLET);
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 16);
+    private static final int OPERATIONS_PER_THREAD = Integer.getInteger("benchmark.operations", 500);
+    private static final Money INITIAL_BALANCE = Money.of("1000000.00");
+    private static final Money AMOUNT = Money.of("1.00");
+
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private ShardedBalanceService shardedBalanceService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareShardedWithSingleRowOnHotWallet() throws Exception {
+        Map<String, BalanceMutationStrategy> strategies = new LinkedHashMap<>();
+        strategies.put("locking", new LockingBalanceMutationStrategy(walletRepository, new RowLockProperties()));
+        strategies.put("conditional-update", new ConditionalUpdateBalanceMutationStrategy(walletRepository));
+        strategies.put("sharded x16", shardedBalanceService::apply);
+
+        for (Map.Entry<String, BalanceMutationStrategy> entry : strategies.entrySet()) {
+            run(entry.getValue(), OPERATIONS_PER_THREAD / 5);
+            long[] result = run(entry.getValue(), OPERATIONS_PER_THREAD);
+            log.info("[sharding] {} threads x {} ops (10% withdrawals), {}: {} ops/s, p50 {} us, p99 {} us, max {} us",
+                    THREADS, OPERATIONS_PER_THREAD, entry.getKey(), result[0],
+                    result[1] / 1_000, result[2] / 1_000, result[3] / 1_000);
+        }
+    }
+
+    /**
+     * @return throughput, p50, p99 and max latency in nanoseconds
+     */
+    private long[] run(BalanceMutationStrategy strategy, int operationsPerThread) throws Exception {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        jdbcTemplate.update("""
+                INSERT INTO wallet (id, user_id, balance, version, created_at, updated_at)
+                VALUES (?, '11111111-1111-1111-1111-111111111111', ?, 0, now(), now())""", HOT_WALLET_ID, INITIAL_BALANCE.toBigDecimal());
+        shardedBalanceService.enable(HOT_WALLET_ID);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                long[] latencies = new long[operationsPerThread];
+                start.await();
+                for (int i = 0; i < operationsPerThread; i++) {
+                    OperationType type = i % 10 == 9 ? OperationType.WITHDRAW : OperationType.DEPOSIT;
+                    Money delta = type == OperationType.DEPOSIT ? AMOUNT : AMOUNT.negate();
+                    long begin = System.nanoTime();
+                    transactionTemplate.executeWithoutResult(status -> {
+                        strategy.apply(HOT_WALLET_ID, delta);
+                        Wallet wallet = walletRepository.getReferenceById(HOT_WALLET_ID);
+                        walletTransactionRepository.appendAll(List.of(new WalletTransaction(wallet, type, AMOUNT)));
+                    });
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return latencies;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] all = new long[THREADS * operationsPerThread];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+            offset += latencies.length;
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        long withdrawals = (long) THREADS * (operationsPerThread / 10);
+        Money expected = INITIAL_BALANCE.plus(Money.ofMajor(all.length - 2 * withdrawals));
+        assertEquals(0, expected.compareTo(shardedBalanceService.getBalance(HOT_WALLET_ID)));
+
+        Arrays.sort(all);
+        return new long[]{Math.round(all.length * 1_000_000_000.0 / elapsed),
+                all[all.length / 2], all[(int) Math.ceil(all.length * 0.99) - 1], all[all.length - 1]};
+    }
+}
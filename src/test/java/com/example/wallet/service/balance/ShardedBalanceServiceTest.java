@@ -0,0 +1,143 @@
+package com.example.wallet.service.balance;
+
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletBalanceSlotRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "wallet.balance-sharding.wallets=" + ShardedBalanceServiceTest.HOT_WALLET,
+        "wallet.balance-sharding.slots=4",
+        "wallet.balance-sharding.compaction-interval=1h"
+})
+@ActiveProfiles("test")
+class ShardedBalanceServiceTest {
+    static final String HOT_WALLET = "33333333-3333-3333-3333-333333333333";
+    private static final UUID HOT_WALLET_ID = UUID.fromString(HOT_WALLET);
+
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private ShardedBalanceService shardedBalanceService;
+    @Autowired
+    private WalletBalanceSlotRepository slotRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Wallet other;
+
+    @BeforeEach
+    void setUp() {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        jdbcTemplate.update("""
+                INSERT INTO wallet (id, user_id, balance, version, created_at, updated_at)
+                VALUES (?, '11111111-1111-1111-1111-111111111111', 100.00, 0, now(), now())""", HOT_WALLET_ID);
+        shardedBalanceService.enable(HOT_WALLET_ID);
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        other = new Wallet();
+        other.setUser(user);
+        other.setBalance(Money.ZERO);
+        other = walletRepository.save(other);
+    }
+
+    @Test
+    void shouldSpreadConcurrentDepositsOverSlotsWithoutTouchingWalletRow() throws Exception {
+        int threads = 8;
+        int depositsPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < depositsPerThread; i++) {
+                    walletService.updateWallet(new WalletRequest(HOT_WALLET_ID, OperationType.DEPOSIT, Money.ofMajor(1)));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(Money.of("300.00"), walletService.getBalance(HOT_WALLET_ID).balance());
+        assertEquals(0L, walletRepository.findById(HOT_WALLET_ID).orElseThrow().getVersion());
+        assertEquals(Money.of("100.00"), walletRepository.findBalance(HOT_WALLET_ID).orElseThrow());
+        assertEquals(threads * depositsPerThread, walletTransactionRepository.count());
+    }
+
+    @Test
+    void shouldWithdrawFromSlotsThenWalletRow() {
+        walletService.updateWallet(new WalletRequest(HOT_WALLET_ID, OperationType.DEPOSIT, Money.of("30.00")));
+        walletService.updateWallet(new WalletRequest(HOT_WALLET_ID, OperationType.DEPOSIT, Money.of("20.00")));
+
+        assertEquals(Money.of("90.00"), walletService.updateWallet(
+                new WalletRequest(HOT_WALLET_ID, OperationType.WITHDRAW, Money.of("60.00"))).balance());
+
+        List<Money> slots = transactionTemplate.execute(status -> slotRepository.lockSlots(HOT_WALLET_ID));
+        assertTrue(slots.stream().allMatch(slot -> slot.signum() == 0), slots::toString);
+        assertEquals(Money.of("90.00"), walletRepository.findBalance(HOT_WALLET_ID).orElseThrow());
+    }
+
+    @Test
+    void shouldRejectWithdrawalBeyondTotalAndKeepSlots() {
+        walletService.updateWallet(new WalletRequest(HOT_WALLET_ID, OperationType.DEPOSIT, Money.of("50.00")));
+
+        assertThrows(InsufficientFundsException.class, () -> walletService.transferBetweenWallets(
+                new TransferRequest(HOT_WALLET_ID, other.getId(), Money.of("150.01")), null));
+        walletService.transferBetweenWallets(new TransferRequest(HOT_WALLET_ID, other.getId(), Money.of("150.00")), null);
+
+        assertEquals(Money.of("0.00"), walletService.getBalance(HOT_WALLET_ID).balance());
+        assertEquals(Money.of("150.00"), walletService.getBalance(other.getId()).balance());
+    }
+
+    @Test
+    void shouldFoldSlotsIntoWalletRowOnCompaction() {
+        walletService.updateWallet(new WalletRequest(HOT_WALLET_ID, OperationType.DEPOSIT, Money.of("25.00")));
+        walletService.updateWallet(new WalletRequest(HOT_WALLET_ID, OperationType.DEPOSIT, Money.of("15.00")));
+
+        shardedBalanceService.compact(HOT_WALLET_ID);
+
+        assertEquals(Money.of("140.00"), walletRepository.findBalance(HOT_WALLET_ID).orElseThrow());
+        assertEquals(Money.of("140.00"), walletService.getBalance(HOT_WALLET_ID).balance());
+        assertEquals(4, slotRepository.countSlots(HOT_WALLET_ID));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.wallet.service.cache;
+
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.service.WalletService;
+import com.example.wallet.support.SqlStatementRecorder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "wallet.balance-cache.enabled=true",
+        "wallet.balance-cache.mode=version-probe",
+        "wallet.balance-cache.ttl=1m"
+})
+@ActiveProfiles("test")
+class BalanceCacheTest {
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private SqlStatementRecorder sqlStatementRecorder;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Wallet wallet;
+
+    @TestConfiguration
+    static class RecorderConfiguration {
+        @Bean
+        static SqlStatementRecorder sqlStatementRecorder() {
+            return new SqlStatementRecorder();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        wallet = createWallet(Money.of("100.00"));
+    }
+
+    private Wallet createWallet(Money initialBalance) {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet newWallet = new Wallet();
+        newWallet.setUser(user);
+        newWallet.setBalance(initialBalance);
+        return walletRepository.save(newWallet);
+    }
+
+    @Test
+    void shouldServeHitWithVersionProbeOnly() {
+        walletService.getBalance(wallet.getId());
+        double hits = meterRegistry.get("wallet.balance.cache.requests").tag("result", "hit").counter().count();
+
+        sqlStatementRecorder.clear();
+        assertEquals(Money.of("100.00"), walletService.getBalance(wallet.getId()).balance());
+        List<String> statements = sqlStatementRecorder.statements();
+
+        assertEquals(1, statements.size(), statements.toString());
+        String probe = statements.get(0).toLowerCase();
+        assertTrue(probe.contains("version") && !probe.contains("balance"), probe);
+        assertEquals(hits + 1, meterRegistry.get("wallet.balance.cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void shouldInvalidateAfterLocalWrites() {
+        Wallet other = createWallet(Money.of("0.00"));
+        walletService.getBalance(wallet.getId());
+        walletService.getBalance(other.getId());
+
+        walletService.updateWallet(new WalletRequest(wallet.getId(), OperationType.DEPOSIT, Money.of("50.00")));
+        assertEquals(Money.of("150.00"), walletService.getBalance(wallet.getId()).balance());
+
+        walletService.transferBetweenWallets(new TransferRequest(wallet.getId(), other.getId(), Money.of("30.00")), null);
+        assertEquals(Money.of("120.00"), walletService.getBalance(wallet.getId()).balance());
+        assertEquals(Money.of("30.00"), walletService.getBalance(other.getId()).balance());
+    }
+
+    @Test
+    void shouldDetectWriteMadeByAnotherInstance() {
+        walletService.getBalance(wallet.getId());
+        double stale = meterRegistry.get("wallet.balance.cache.requests").tag("result", "stale").counter().count();
+
+        walletRepository.addToBalanceIfCovered(wallet.getId(), Money.of("7.00"));
+
+        assertEquals(Money.of("107.00"), walletService.getBalance(wallet.getId()).balance());
+        assertEquals(stale + 1, meterRegistry.get("wallet.balance.cache.requests").tag("result", "stale").counter().count());
+    }
+}
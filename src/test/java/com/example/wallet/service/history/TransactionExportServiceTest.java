@@ -0,0 +1,163 @@
+package com.example.wallet.service.history;
+
+import com.example.wallet.dto.TransactionHistoryResponse;
+import com.example.wallet.dto.WalletTransactionResponse;
+import com.example.wallet.enums.ExportFormat;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.model.WalletTransaction;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.service.WalletService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TransactionExportServiceTest {
+    private static final int ROWS = 2_500;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private TransactionExportService transactionExportService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(Money.ZERO);
+        wallet = walletRepository.save(wallet);
+
+        // Appended in a few batches, so that many rows share a created_at and only the id breaks ties.
+        List<WalletTransaction> history = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            history.add(new WalletTransaction(wallet, OperationType.DEPOSIT, Money.ofMinor(i + 1)));
+        }
+        walletTransactionRepository.appendAll(history);
+    }
+
+    @Test
+    void shouldWalkWholeHistoryWithCursor() {
+        List<WalletTransactionResponse> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionHistoryResponse page = walletService.getTransactionHistory(wallet.getId(), cursor, 300);
+            seen.addAll(page.transactions());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(9, pages);
+        assertEquals(ROWS, seen.size());
+        assertEquals(ROWS, new HashSet<>(seen.stream().map(WalletTransactionResponse::id).toList()).size());
+        for (int i = 1; i < seen.size(); i++) {
+            assertFalse(seen.get(i).createdAt().isAfter(seen.get(i - 1).createdAt()));
+        }
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() throws Exception {
+        mockMvc.perform(get("/api/v1/wallets/{id}/transactions", wallet.getId()).param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldExportCsv() throws Exception {
+        String[] lines = export("CSV").split("\n");
+
+        assertEquals(ROWS + 1, lines.length);
+        assertEquals(ROWS + 1, new HashSet<>(List.of(lines)).size());
+        assertEquals("id,operation_type,amount,created_at", lines[0]);
+        assertTrue(lines[1].contains(",DEPOSIT,"));
+    }
+
+    @Test
+    void shouldExportNdjson() throws Exception {
+        String[] lines = export("NDJSON").split("\n");
+
+        assertEquals(ROWS, lines.length);
+        WalletTransactionResponse first = objectMapper.readValue(lines[0], WalletTransactionResponse.class);
+        assertEquals(OperationType.DEPOSIT, first.operationType());
+    }
+
+    @Test
+    void shouldWriteChunksOutsideTransaction() throws Exception {
+        List<Boolean> transactionActive = new ArrayList<>();
+        OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                transactionActive.add(TransactionSynchronizationManager.isActualTransactionActive());
+            }
+        };
+
+        transactionExportService.prepare(wallet.getId(), ExportFormat.NDJSON).writeTo(output);
+
+        assertFalse(transactionActive.isEmpty());
+        assertFalse(transactionActive.contains(true));
+    }
+
+    @Test
+    void shouldNotStartExportOfMissingWallet() throws Exception {
+        mockMvc.perform(get("/api/v1/wallets/{id}/transactions/export", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    private String export(String format) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/wallets/{id}/transactions/export", wallet.getId())
+                        .param("format", format))
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"wallet-" + wallet.getId()
+                        + "-transactions." + format.toLowerCase() + "\""))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.wallet.service.idempotency;
+
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.IdempotencyKeyRepository;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.support.SqlStatementRecorder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotencyStoreTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SqlStatementRecorder sqlStatementRecorder;
+
+    private Wallet wallet;
+    private Wallet other;
+
+    @TestConfiguration
+    static class RecorderConfiguration {
+        @Bean
+        static SqlStatementRecorder sqlStatementRecorder() {
+            return new SqlStatementRecorder();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys");
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        wallet = createWallet(Money.of("100.00"));
+        other = createWallet(Money.ZERO);
+    }
+
+    private Wallet createWallet(Money initialBalance) {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet newWallet = new Wallet();
+        newWallet.setUser(user);
+        newWallet.setBalance(initialBalance);
+        return walletRepository.save(newWallet);
+    }
+
+    private ResultActions perform(RequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        MvcResult started = actions.andReturn();
+        return started.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(started)) : actions;
+    }
+
+    private ResultActions deposit(String key, String amount) throws Exception {
+        return perform(post("/api/v1/wallets")
+                .header("Idempotency-Key", key)
+                .contentType("application/json")
+                .content("{\"wallet_id\":\"" + wallet.getId() + "\",\"operation_type\":\"DEPOSIT\",\"amount\":" + amount + "}"));
+    }
+
+    @Test
+    void shouldApplyRepeatedDepositOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        deposit(key, "10.00").andExpect(status().isOk()).andExpect(jsonPath("$.balance").value(110.0));
+        deposit(key, "10").andExpect(status().isOk()).andExpect(jsonPath("$.balance").value(110.0));
+
+        assertEquals(Money.of("110.00"), walletRepository.findBalance(wallet.getId()).orElseThrow());
+        assertEquals(1, walletTransactionRepository.count());
+    }
+
+    @Test
+    void shouldApplyRepeatedTransferOnce() throws Exception {
+        String body = "{\"from_wallet_id\":\"" + wallet.getId() + "\",\"to_wallet_id\":\"" + other.getId() + "\",\"amount\":30}";
+        for (int i = 0; i < 2; i++) {
+            perform(post("/api/v1/wallets/transfer").header("Idempotency-Key", "transfer-1")
+                            .contentType("application/json").content(body))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(Money.of("70.00"), walletRepository.findBalance(wallet.getId()).orElseThrow());
+        assertEquals(Money.of("30.00"), walletRepository.findBalance(other.getId()).orElseThrow());
+        assertEquals(2, walletTransactionRepository.count());
+    }
+
+    @Test
+    void shouldReplayStoredKeyWithoutLockingWallet() throws Exception {
+        long fingerprint = IdempotencyStore.fingerprint(wallet.getId(), OperationType.DEPOSIT, Money.of("5"));
+        transactionTemplate.executeWithoutResult(status -> {
+            idempotencyKeyRepository.insert("other-instance", fingerprint);
+            idempotencyKeyRepository.complete("other-instance", new WalletResponse(wallet.getId(), Money.of("105.00"), 7L));
+        });
+
+        sqlStatementRecorder.clear();
+        deposit("other-instance", "5.00").andExpect(status().isOk()).andExpect(jsonPath("$.balance").value(105.0))
+                .andExpect(header().string("Wallet-Version", "7"));
+
+        List<String> statements = sqlStatementRecorder.statements();
+        assertTrue(statements.stream().noneMatch(sql -> sql.toLowerCase().contains("update wallet")
+                || sql.toLowerCase().contains("for update")), statements::toString);
+        assertEquals(Money.of("100.00"), walletRepository.findBalance(wallet.getId()).orElseThrow());
+    }
+
+    @Test
+    void shouldApplyConcurrentDuplicatesOnce() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return deposit("concurrent", "1.00").andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString();
+            }));
+        }
+        start.countDown();
+        for (Future<String> future : futures) {
+            WalletResponse response = objectMapper.readValue(future.get(), WalletResponse.class);
+            assertEquals(Money.of("101.00"), response.balance());
+        }
+        executor.shutdown();
+
+        assertEquals(Money.of("101.00"), walletRepository.findBalance(wallet.getId()).orElseThrow());
+        assertEquals(1, walletTransactionRepository.count());
+    }
+
+    @Test
+    void shouldRejectKeyReusedForDifferentRequest() throws Exception {
+        deposit("reused", "10.00").andExpect(status().isOk());
+        deposit("reused", "20.00").andExpect(status().isUnprocessableEntity());
+        deposit("x".repeat(256), "10.00").andExpect(status().isBadRequest());
+
+        assertEquals(Money.of("110.00"), walletRepository.findBalance(wallet.getId()).orElseThrow());
+    }
+
+    @Test
+    void shouldForgetKeyOfFailedRequest() throws Exception {
+        String body = "{\"wallet_id\":\"" + wallet.getId() + "\",\"operation_type\":\"WITHDRAW\",\"amount\":500}";
+        perform(post("/api/v1/wallets").header("Idempotency-Key", "failed")
+                        .contentType("application/json").content(body))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys", Integer.class));
+    }
+}
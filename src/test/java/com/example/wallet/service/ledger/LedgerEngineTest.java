@@ -0,0 +1,257 @@
+package com.example.wallet.service.ledger;
+
+import com.example.wallet.config.BalanceShardingProperties;
+import com.example.wallet.config.LedgerProperties;
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.enums.BatchMode;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.exceptions.SameWalletTransferException;
+import com.example.wallet.exceptions.UnsupportedInLedgerModeException;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.service.WalletBatchService;
+import com.example.wallet.service.WalletService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "wallet.ledger.enabled=true",
+        "wallet.ledger.journal-directory=${java.io.tmpdir}/wallet-ledger-test-${random.uuid}",
+        "wallet.ledger.segment-size=1MB",
+        "wallet.ledger.projection-interval=1h"
+})
+@ActiveProfiles("test")
+class LedgerEngineTest {
+    private static final UUID USER_ID = UUID.fromString("11111111-1111-1111-1111-111111111111");
+
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private WalletBatchService walletBatchService;
+    @Autowired
+    private LedgerEngine ledgerEngine;
+    @Autowired
+    private LedgerProjector ledgerProjector;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void shouldApplyInMemoryAndProjectIntoTablesLater() {
+        UUID walletId = createWallet(Money.of("100.00"));
+
+        assertEquals(Money.of("150.00"), walletService.updateWallet(
+                new WalletRequest(walletId, OperationType.DEPOSIT, Money.of("50.00"))).balance());
+        assertEquals(Money.of("120.00"), walletService.updateWallet(
+                new WalletRequest(walletId, OperationType.WITHDRAW, Money.of("30.00"))).balance());
+        assertThrows(InsufficientFundsException.class, () -> walletService.updateWallet(
+                new WalletRequest(walletId, OperationType.WITHDRAW, Money.of("120.01"))));
+        assertThrows(SameWalletTransferException.class, () -> walletService.transferBetweenWallets(
+                new TransferRequest(walletId, walletId, Money.of("1.00")), null));
+
+        assertEquals(Money.of("120.00"), walletService.getBalance(walletId).balance());
+        assertEquals(Money.of("100.00"), walletRepository.findBalance(walletId).orElseThrow());
+
+        ledgerEngine.projectPending();
+
+        assertEquals(Money.of("120.00"), walletRepository.findBalance(walletId).orElseThrow());
+        assertEquals(2, countLedgerRows(walletId));
+    }
+
+    @Test
+    void shouldKeepTotalUnderConcurrentTransfers() throws Exception {
+        int walletCount = 4;
+        List<UUID> walletIds = new ArrayList<>();
+        for (int i = 0; i < walletCount; i++) {
+            walletIds.add(createWallet(Money.of("10.00")));
+        }
+        int threads = 8;
+        int transfersPerThread = 200;
+        AtomicInteger applied = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < transfersPerThread; i++) {
+                    int from = random.nextInt(walletCount);
+                    int to = (from + 1 + random.nextInt(walletCount - 1)) % walletCount;
+                    try {
+                        walletService.transferBetweenWallets(
+                                new TransferRequest(walletIds.get(from), walletIds.get(to), Money.of("3.00")), null);
+                        applied.incrementAndGet();
+                    } catch (InsufficientFundsException ignored) {
+                        // expected once a wallet runs dry
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Money inMemory = Money.ZERO;
+        for (UUID walletId : walletIds) {
+            inMemory = inMemory.plus(walletService.getBalance(walletId).balance());
+        }
+        assertEquals(Money.of("40.00"), inMemory);
+
+        ledgerEngine.projectPending();
+
+        Money projected = Money.ZERO;
+        int rows = 0;
+        for (UUID walletId : walletIds) {
+            Money balance = walletRepository.findBalance(walletId).orElseThrow();
+            assertEquals(walletService.getBalance(walletId).balance(), balance);
+            projected = projected.plus(balance);
+            rows += countLedgerRows(walletId);
+        }
+        assertEquals(Money.of("40.00"), projected);
+        assertEquals(applied.get() * 2, rows);
+    }
+
+    @Test
+    void shouldProjectUnprojectedJournalTailOnStartup() {
+        UUID walletId = createWallet(Money.of("10.00"));
+        ledgerEngine.projectPending();
+
+        LedgerEngine crashed = newEngine(tempDir);
+        crashed.recover();
+        for (int i = 0; i < 3; i++) {
+            crashed.update(new WalletRequest(walletId, OperationType.DEPOSIT, Money.of("5.00")));
+        }
+        assertEquals(Money.of("10.00"), walletRepository.findBalance(walletId).orElseThrow());
+
+        LedgerEngine restarted = newEngine(tempDir);
+        restarted.recover();
+
+        assertEquals(Money.of("25.00"), walletRepository.findBalance(walletId).orElseThrow());
+        assertEquals(3, countLedgerRows(walletId));
+        assertEquals(Money.of("25.00"), restarted.getBalance(walletId).balance());
+    }
+
+    @Test
+    void shouldDropTornTailAndContinueBehindLastIntactRecord() throws Exception {
+        long segmentSize = 4L * LedgerJournal.RECORD_SIZE;
+        UUID walletId = UUID.randomUUID();
+        LedgerJournal journal = new LedgerJournal(tempDir, segmentSize, true);
+        journal.open(0);
+        for (int i = 1; i <= 10; i++) {
+            journal.awaitDurable(journal.append(deposit(walletId, i)));
+        }
+        journal.close();
+
+        Path lastSegment;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            lastSegment = files.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(lastSegment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), LedgerJournal.RECORD_SIZE + 50L);
+        }
+
+        LedgerJournal recovered = new LedgerJournal(tempDir, segmentSize, true);
+        recovered.open(0);
+        List<LedgerEntry> entries = recovered.readAfter(0, 100);
+        assertEquals(9, entries.size());
+        assertEquals(9, entries.get(8).sequence());
+        assertEquals(Money.ofMinor(9), entries.get(8).amount());
+
+        long next = recovered.append(deposit(walletId, 42));
+        recovered.awaitDurable(next);
+        assertEquals(10, next);
+        assertEquals(Money.ofMinor(42), recovered.readAfter(9, 1).get(0).amount());
+
+        recovered.deleteSegmentsThrough(8);
+        assertEquals(List.of(9L, 10L), recovered.readAfter(8, 100).stream().map(LedgerEntry::sequence).toList());
+        recovered.close();
+    }
+
+    @Test
+    void shouldRejectBatchesInLedgerMode() {
+        UUID walletId = createWallet(Money.of("10.00"));
+
+        assertThrows(UnsupportedInLedgerModeException.class, () -> walletBatchService.apply(
+                List.of(new WalletRequest(walletId, OperationType.DEPOSIT, Money.of("1.00"))), BatchMode.BEST_EFFORT));
+    }
+
+    @Test
+    void shouldRejectIdempotencyKeysInLedgerMode() {
+        UUID walletId = createWallet(Money.of("10.00"));
+        UUID otherWalletId = createWallet(Money.of("10.00"));
+
+        assertThrows(UnsupportedInLedgerModeException.class, () -> walletService.updateWallet(
+                new WalletRequest(walletId, OperationType.DEPOSIT, Money.of("1.00")), "ledger-key"));
+        assertThrows(UnsupportedInLedgerModeException.class, () -> walletService.transferBetweenWallets(
+                new TransferRequest(walletId, otherWalletId, Money.of("1.00")), "ledger-key"));
+
+        assertEquals(Money.of("10.00"), walletService.getBalance(walletId).balance());
+        assertEquals(Money.of("10.00"), walletService.getBalance(otherWalletId).balance());
+    }
+
+    private LedgerEngine newEngine(Path journalDirectory) {
+        LedgerProperties properties = new LedgerProperties();
+        properties.setEnabled(true);
+        properties.setJournalDirectory(journalDirectory);
+        return new LedgerEngine(properties, ledgerProjector, walletRepository, new BalanceShardingProperties(),
+                new SimpleMeterRegistry());
+    }
+
+    private static LedgerEntry deposit(UUID walletId, long minorUnits) {
+        return LedgerEntry.update(LedgerEntry.Kind.DEPOSIT, walletId, Money.ofMinor(minorUnits), UUID.randomUUID(), Instant.now());
+    }
+
+    private UUID createWallet(Money balance) {
+        User user = userRepository.findById(USER_ID).orElseThrow();
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(balance);
+        return walletRepository.save(wallet).getId();
+    }
+
+    private int countLedgerRows(UUID walletId) {
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet_transactions WHERE wallet_id = ?",
+                Integer.class, walletId);
+        return rows == null ? 0 : rows;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.wallet.service.lookup;
+
+import com.example.wallet.model.User;
+import com.example.wallet.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Balances of 1, 100 and 10 000 wallets read by one single-wallet request each, by one
+ * {@code POST /api/v1/wallets/balances} and by one {@code GET /api/v1/users/{userId}/wallets}. Every user owns exactly
+ * the wallets of its size, so all three read the same balances. Times are the best of {@code benchmark.rounds}.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=BalanceLookupBenchmark}; tune with {@code -Dbenchmark.rounds}.
+ */
+@Slf4j
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BalanceLookupBenchmark {
+    private static final int[] SIZES = {1, 100, 10_000};
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 5);
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareSingleReadsWithMultiWalletLookup() throws Exception {
+        for (int size : SIZES) {
+            User user = createUser();
+            List<UUID> walletIds = createWallets(user.getId(), size);
+            String body = walletIds.stream().map(id -> "\"" + id + "\"").toList().toString();
+
+            long single = Long.MAX_VALUE;
+            long byIds = Long.MAX_VALUE;
+            long byUser = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long startedAt = System.nanoTime();
+                for (UUID walletId : walletIds) {
+                    perform(get("/api/v1/wallets/" + walletId));
+                }
+                single = Math.min(single, System.nanoTime() - startedAt);
+
+                startedAt = System.nanoTime();
+                String byIdsResponse = perform(post("/api/v1/wallets/balances").contentType("application/json").content(body));
+                byIds = Math.min(byIds, System.nanoTime() - startedAt);
+
+                startedAt = System.nanoTime();
+                String byUserResponse = perform(get("/api/v1/users/" + user.getId() + "/wallets"));
+                byUser = Math.min(byUser, System.nanoTime() - startedAt);
+
+                assertEquals(size, count(byIdsResponse));
+                assertEquals(size, count(byUserResponse));
+            }
+            log.info("[balance-lookup] {} wallets: {} single reads {} ms, POST /wallets/balances {} ms, GET /users/{userId}/wallets {} ms",
+                    size, size, millis(single), millis(byIds), millis(byUser));
+        }
+    }
+
+    private String perform(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        assertEquals(200, result.getResponse().getStatus());
+        return result.getResponse().getContentAsString();
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setPassword("secret");
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        return userRepository.save(user);
+    }
+
+    private List<UUID> createWallets(UUID userId, int count) {
+        List<UUID> walletIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            walletIds.add(UUID.randomUUID());
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO wallet (id, user_id, balance, version, created_at, updated_at)
+                VALUES (?, ?, 100, 0, ?, ?)""", walletIds, 1_000, (ps, walletId) -> {
+            ps.setObject(1, walletId);
+            ps.setObject(2, userId);
+            ps.setTimestamp(3, now);
+            ps.setTimestamp(4, now);
+        });
+        return walletIds;
+    }
+
+    private static int count(String json) {
+        return json.split("\"wallet_id\"", -1).length - 1;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.wallet.service.lookup;
+
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.support.SqlStatementRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "wallet.balance-lookup.batch-size=2",
+        "wallet.balance-lookup.max-wallets=5"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BalanceLookupServiceTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private SqlStatementRecorder sqlStatementRecorder;
+    @Autowired
+    private BalanceLookupService balanceLookupService;
+
+    @TestConfiguration
+    static class RecorderConfiguration {
+        @Bean
+        static SqlStatementRecorder sqlStatementRecorder() {
+            return new SqlStatementRecorder();
+        }
+    }
+
+    @Test
+    void shouldReadListedWalletsInChunksKeepingRequestOrder() throws Exception {
+        User user = createUser();
+        UUID first = createWallet(user, Money.of("1.00"));
+        UUID second = createWallet(user, Money.of("2.00"));
+        UUID third = createWallet(user, Money.of("3.00"));
+
+        sqlStatementRecorder.clear();
+        perform(post("/api/v1/wallets/balances").contentType("application/json")
+                .content(json(third, UUID.randomUUID(), first, third, second)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].wallet_id").value(third.toString()))
+                .andExpect(jsonPath("$[0].balance").value(3.0))
+                .andExpect(jsonPath("$[1].wallet_id").value(first.toString()))
+                .andExpect(jsonPath("$[2].wallet_id").value(second.toString()))
+                .andExpect(jsonPath("$[2].balance").value(2.0));
+        assertEquals(2, sqlStatementRecorder.statements().stream().filter(sql -> sql.contains(" IN (")).count(),
+                sqlStatementRecorder.statements()::toString);
+
+        mockMvc.perform(post("/api/v1/wallets/balances").contentType("application/json")
+                        .content(json(Stream.generate(UUID::randomUUID).limit(6).toArray(UUID[]::new))))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    void shouldReadAllWalletsOfUserInChunks() throws Exception {
+        User user = createUser();
+        List<UUID> walletIds = Stream.of("5.00", "6.00", "7.00")
+                .map(balance -> createWallet(user, Money.of(balance)))
+                .sorted(Comparator.comparing(UUID::toString))
+                .toList();
+
+        sqlStatementRecorder.clear();
+        perform(get("/api/v1/users/" + user.getId() + "/wallets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].wallet_id").value(walletIds.get(0).toString()))
+                .andExpect(jsonPath("$[1].wallet_id").value(walletIds.get(1).toString()))
+                .andExpect(jsonPath("$[2].wallet_id").value(walletIds.get(2).toString()));
+        assertEquals(2, sqlStatementRecorder.statements().stream().filter(sql -> sql.contains("FROM wallet")).count(),
+                sqlStatementRecorder.statements()::toString);
+
+        mockMvc.perform(get("/api/v1/users/" + UUID.randomUUID() + "/wallets"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldWriteChunksOutsideTransaction() throws Exception {
+        User user = createUser();
+        List<UUID> walletIds = Stream.of("1.00", "2.00", "3.00").map(balance -> createWallet(user, Money.of(balance)))
+                .toList();
+        List<Boolean> transactionActive = new ArrayList<>();
+        OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                transactionActive.add(TransactionSynchronizationManager.isActualTransactionActive());
+            }
+        };
+
+        balanceLookupService.prepare(walletIds).writeTo(output);
+        balanceLookupService.prepareForUser(user.getId()).writeTo(output);
+
+        assertFalse(transactionActive.isEmpty());
+        assertFalse(transactionActive.contains(true));
+    }
+
+    private ResultActions perform(RequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        MvcResult started = actions.andReturn();
+        return started.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(started)) : actions;
+    }
+
+    private static String json(UUID... walletIds) {
+        return Stream.of(walletIds).map(id -> "\"" + id + "\"").toList().toString();
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setPassword("secret");
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        return userRepository.save(user);
+    }
+
+    private UUID createWallet(User user, Money balance) {
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(balance);
+        return walletRepository.save(wallet).getId();
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.wallet.service.outbox;
+
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletEvent;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletOutboxRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "wallet.outbox.batch-size=3",
+        "wallet.outbox.relay-enabled=true",
+        "wallet.outbox.poll-interval=1h",
+        "wallet.outbox.settle-delay=0s"
+})
+@ActiveProfiles("test")
+class OutboxRelayTest {
+
+    @Autowired
+    private OutboxRelay relay;
+    @Autowired
+    private QueueSink sink;
+    @Autowired
+    private WalletOutboxRepository outboxRepository;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Wallet first;
+    private Wallet second;
+
+    @BeforeEach
+    void setUp() {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM wallet_outbox");
+        sink.queue.clear();
+        sink.failing = false;
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        first = newWallet(user);
+        second = newWallet(user);
+    }
+
+    @Test
+    void shouldRelayCommittedLedgerRowsInOrder() {
+        walletService.updateWallet(new WalletRequest(first.getId(), OperationType.DEPOSIT, Money.of("100.00")));
+        walletService.transferBetweenWallets(new TransferRequest(first.getId(), second.getId(), Money.of("40.00")), null);
+        assertThrows(InsufficientFundsException.class, () -> walletService.updateWallet(
+                new WalletRequest(second.getId(), OperationType.WITHDRAW, Money.of("41.00"))));
+
+        assertEquals(3, relay.relayBatch());
+        assertEquals(0, relay.relayBatch());
+
+        List<WalletEvent> events = new ArrayList<>(sink.queue);
+        assertEquals(List.of(OperationType.DEPOSIT, OperationType.WITHDRAW, OperationType.DEPOSIT),
+                events.stream().map(WalletEvent::operationType).toList());
+        assertEquals(List.of(first.getId(), first.getId(), second.getId()),
+                events.stream().map(WalletEvent::walletId).toList());
+        assertTrue(events.get(0).eventId() < events.get(1).eventId() && events.get(1).eventId() < events.get(2).eventId());
+        List<UUID> ledgerIds = walletTransactionRepository.findAll().stream().map(t -> t.getId()).toList();
+        assertTrue(ledgerIds.containsAll(events.stream().map(WalletEvent::transactionId).toList()));
+        assertEquals(0, countOutbox());
+    }
+
+    @Test
+    void shouldKeepEventsWhenSinkFailsAndRelayThemLater() {
+        walletService.updateWallet(new WalletRequest(first.getId(), OperationType.DEPOSIT, Money.ofMajor(10)));
+        sink.failing = true;
+
+        relay.poll();
+        assertEquals(1, countOutbox());
+        sink.failing = false;
+        relay.poll();
+        assertEquals(1, countOutbox(), "backing off after a failure");
+
+        assertEquals(1, relay.relayBatch());
+        assertEquals(0, countOutbox());
+        assertEquals(1, sink.queue.size());
+    }
+
+    @Test
+    void shouldNotClaimEventsYoungerThanSettleDelay() {
+        walletService.updateWallet(new WalletRequest(first.getId(), OperationType.DEPOSIT, Money.ofMajor(1)));
+
+        assertTrue(transactionTemplate.execute(status ->
+                outboxRepository.claimBatch(10, LocalDateTime.now().minusSeconds(1))).isEmpty());
+        assertEquals(1, transactionTemplate.execute(status ->
+                outboxRepository.claimBatch(10, LocalDateTime.now().plusSeconds(1))).size());
+    }
+
+    @Test
+    void shouldNotHandOutRowsClaimedByAnotherRelay() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            walletService.updateWallet(new WalletRequest(first.getId(), OperationType.DEPOSIT, Money.ofMajor(1)));
+        }
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<WalletEvent>> other = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            List<WalletEvent> events = outboxRepository.claimBatch(2, LocalDateTime.now());
+            claimed.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return events;
+        }));
+        assertTrue(claimed.await(10, TimeUnit.SECONDS));
+
+        List<WalletEvent> mine = transactionTemplate.execute(status -> outboxRepository.claimBatch(10, LocalDateTime.now()));
+        release.countDown();
+        List<WalletEvent> theirs = other.get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, theirs.size());
+        assertEquals(3, mine.size());
+        assertTrue(mine.stream().noneMatch(theirs::contains));
+    }
+
+    private Wallet newWallet(User user) {
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(Money.ZERO);
+        return walletRepository.save(wallet);
+    }
+
+    private int countOutbox() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet_outbox", Integer.class);
+    }
+
+    /**
+     * Bounded in-memory stand-in for a broker: rejects a batch when it is full or told to fail.
+     */
+    static class QueueSink implements OutboxSink {
+        final BlockingQueue<WalletEvent> queue = new ArrayBlockingQueue<>(1_000);
+        volatile boolean failing;
+
+        @Override
+        public void publish(List<WalletEvent> events) {
+            if (failing || queue.remainingCapacity() < events.size()) {
+                throw new IllegalStateException("sink unavailable");
+            }
+            queue.addAll(events);
+        }
+    }
+
+    @TestConfiguration
+    static class QueueSinkConfiguration {
+
+        @Bean
+        @Primary
+        QueueSink queueSink() {
+            return new QueueSink();
+        }
+    }
+}
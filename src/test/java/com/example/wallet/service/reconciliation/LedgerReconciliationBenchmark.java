@@ -0,0 +1,90 @@
+package com.example.wallet.service.reconciliation;
+
+import com.example.wallet.dto.ReconciliationReport;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.model.WalletTransaction;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reconciliation time with and without snapshots over a large history and a small amount of new activity.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=LedgerReconciliationBenchmark}; tune with {@code -Dbenchmark.wallets},
+ * {@code -Dbenchmark.history} (rows per wallet) and {@code -Dbenchmark.fresh} (new rows per wallet).
+ */
+@Slf4j
+@SpringBootTest(properties = "wallet.reconciliation.settle-delay=0s")
+@ActiveProfiles("test")
+class LedgerReconciliationBenchmark {
+    private static final int WALLETS = Integer.getInteger("benchmark.wallets", 200);
+    private static final int HISTORY = Integer.getInteger("benchmark.history", 2_000);
+    private static final int FRESH = Integer.getInteger("benchmark.fresh", 10);
+
+    @Autowired
+    private LedgerReconciliationService reconciliationService;
+    @Autowired
+    private BalanceSnapshotService snapshotService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareFullAndIncrementalReconciliation() {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        List<Wallet> wallets = new ArrayList<>();
+        for (int i = 0; i < WALLETS; i++) {
+            Wallet wallet = new Wallet();
+            wallet.setUser(user);
+            wallet.setBalance(Money.ofMajor(HISTORY));
+            wallets.add(walletRepository.save(wallet));
+        }
+        append(wallets, HISTORY);
+
+        reconciliationService.reconcile();
+        ReconciliationReport full = reconciliationService.reconcile();
+        snapshotService.takeSnapshots();
+        append(wallets, FRESH);
+        jdbcTemplate.update("UPDATE wallet SET balance = balance + ?", FRESH);
+        reconciliationService.reconcile();
+        ReconciliationReport incremental = reconciliationService.reconcile();
+
+        assertEquals(0, full.mismatchCount());
+        assertEquals(0, incremental.mismatchCount());
+        log.info("[reconciliation] {} wallets, {} history + {} new rows each: full {} ms ({} rows), incremental {} ms ({} rows)",
+                WALLETS, HISTORY, FRESH, full.durationMillis(), full.ledgerRowsScanned(),
+                incremental.durationMillis(), incremental.ledgerRowsScanned());
+    }
+
+    private void append(List<Wallet> wallets, int rowsPerWallet) {
+        for (Wallet wallet : wallets) {
+            List<WalletTransaction> rows = new ArrayList<>(rowsPerWallet);
+            for (int i = 0; i < rowsPerWallet; i++) {
+                rows.add(new WalletTransaction(wallet, OperationType.DEPOSIT, Money.ofMajor(1)));
+            }
+            walletTransactionRepository.appendAll(rows);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.wallet.service.reconciliation;
+
+import com.example.wallet.dto.ReconciliationReport;
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "wallet.reconciliation.settle-delay=0s",
+        "wallet.reconciliation.partitions=4"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LedgerReconciliationServiceTest {
+    private static final int WALLETS = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private LedgerReconciliationService reconciliationService;
+    @Autowired
+    private BalanceSnapshotService snapshotService;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ScheduledTaskHolder scheduledTaskHolder;
+    @Autowired
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    private final List<Wallet> wallets = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        wallets.clear();
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        for (int i = 0; i < WALLETS; i++) {
+            Wallet wallet = new Wallet();
+            wallet.setUser(user);
+            wallet.setBalance(Money.ZERO);
+            wallets.add(walletRepository.save(wallet));
+        }
+        for (Wallet wallet : wallets) {
+            deposit(wallet, "100.00");
+            deposit(wallet, "50.00");
+            walletService.updateWallet(new WalletRequest(wallet.getId(), OperationType.WITHDRAW, Money.of("30.00")));
+        }
+        walletService.transferBetweenWallets(
+                new TransferRequest(wallets.get(0).getId(), wallets.get(1).getId(), Money.of("20.00")), null);
+    }
+
+    @Test
+    void shouldGiveEveryScheduledJobItsOwnThread() {
+        // A long reconciliation must not hold back the ledger projection or the outbox relay.
+        assertTrue(taskScheduler.getPoolSize() >= scheduledTaskHolder.getScheduledTasks().size(),
+                taskScheduler.getPoolSize() + " threads for " + scheduledTaskHolder.getScheduledTasks().size() + " jobs");
+    }
+
+    @Test
+    void shouldMatchLedgerAcrossAllRanges() {
+        ReconciliationReport report = reconciliationService.reconcile();
+
+        assertEquals(WALLETS, report.walletsChecked());
+        assertEquals(WALLETS * 3 + 2, report.ledgerRowsScanned());
+        assertEquals(0, report.mismatchCount());
+    }
+
+    @Test
+    void shouldSumOnlyLedgerRowsAfterSnapshot() {
+        assertEquals(WALLETS, snapshotService.takeSnapshots());
+        deposit(wallets.get(2), "5.00");
+        deposit(wallets.get(3), "7.00");
+
+        ReconciliationReport report = reconciliationService.reconcile();
+
+        assertEquals(WALLETS, report.walletsChecked());
+        assertEquals(2, report.ledgerRowsScanned());
+        assertEquals(0, report.mismatchCount());
+        assertEquals(2, snapshotService.takeSnapshots());
+        assertEquals(0, reconciliationService.reconcile().ledgerRowsScanned());
+    }
+
+    @Test
+    void shouldMoveSnapshotPastRandomLegacyIds() {
+        // Rows written before time-ordered ids: random v4 ids, these sort above every time-ordered one.
+        Wallet legacy = wallets.get(5);
+        for (int i = 0; i < 3; i++) {
+            UUID id = UUID.fromString("f" + UUID.randomUUID().toString().substring(1));
+            jdbcTemplate.update("INSERT INTO wallet_transactions (id, wallet_id, operation_type, amount, created_at) "
+                    + "VALUES (?, ?, 'DEPOSIT', 10.00, ?)", id, legacy.getId(), LocalDateTime.now().minusDays(1));
+        }
+        jdbcTemplate.update("UPDATE wallet SET balance = balance + 30.00 WHERE id = ?", legacy.getId());
+        snapshotService.takeSnapshots();
+
+        deposit(legacy, "5.00");
+
+        ReconciliationReport report = reconciliationService.reconcile();
+        assertEquals(1, report.ledgerRowsScanned());
+        assertEquals(0, report.mismatchCount());
+        assertEquals(1, snapshotService.takeSnapshots());
+        assertEquals(0, reconciliationService.reconcile().ledgerRowsScanned());
+        assertEquals(0, reconciliationService.reconcile().mismatchCount());
+    }
+
+    @Test
+    void shouldReportTamperedBalance() throws Exception {
+        snapshotService.takeSnapshots();
+        Wallet tampered = wallets.get(4);
+        jdbcTemplate.update("UPDATE wallet SET balance = balance + 1 WHERE id = ?", tampered.getId());
+
+        mockMvc.perform(post("/api/v1/reconciliation"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mismatch_count").value(1))
+                .andExpect(jsonPath("$.mismatches[0].wallet_id").value(tampered.getId().toString()))
+                .andExpect(jsonPath("$.mismatches[0].balance").value(121.00))
+                .andExpect(jsonPath("$.mismatches[0].expected_balance").value(120.00));
+        mockMvc.perform(get("/api/v1/reconciliation"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.wallets_checked").value(WALLETS));
+    }
+
+    private void deposit(Wallet wallet, String amount) {
+        walletService.updateWallet(new WalletRequest(wallet.getId(), OperationType.DEPOSIT, Money.of(amount)));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.wallet.service.replica;
+
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "wallet.read-replica.enabled=true",
+        "wallet.read-replica.url=" + ReplicaBalanceReaderTest.REPLICA_URL,
+        "wallet.read-replica.username=sa",
+        "wallet.read-replica.password="
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReplicaBalanceReaderTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @BeforeEach
+    void createReplicaSchema() {
+        replica.execute("CREATE TABLE IF NOT EXISTS wallet (id UUID PRIMARY KEY, balance NUMERIC(19, 2) NOT NULL, version BIGINT NOT NULL)");
+    }
+
+    @Test
+    void shouldRouteOnlyReadOnlyTransactionsToReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        assertEquals("REPLICA", readOnly.execute(status -> database()));
+        assertEquals("TESTDB", new TransactionTemplate(transactionManager).execute(status -> database()));
+        assertEquals("TESTDB", database());
+        assertEquals("TESTDB", new TransactionTemplate(transactionManager).execute(status -> {
+            readOnly.execute(inner -> database());
+            return database();
+        }));
+    }
+
+    @Test
+    void shouldReadOwnWriteFromPrimaryUntilReplicaCatchesUp() throws Exception {
+        UUID walletId = createWallet(Money.of("10.00"));
+        long created = jdbcTemplate.queryForObject("SELECT version FROM wallet WHERE id = ?", Long.class, walletId);
+        replicate(walletId);
+
+        String versionHeader = perform(post("/api/v1/wallets").contentType("application/json")
+                .content("{\"wallet_id\":\"" + walletId + "\",\"operation_type\":\"DEPOSIT\",\"amount\":5}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andReturn().getResponse().getHeader("Wallet-Version");
+        long written = Long.parseLong(versionHeader);
+        assertTrue(written > created);
+
+        mockMvc.perform(get("/api/v1/wallets/" + walletId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(10.0))
+                .andExpect(header().string("Wallet-Version", String.valueOf(created)));
+
+        double primaryReads = reads("primary");
+        mockMvc.perform(get("/api/v1/wallets/" + walletId).header("Wallet-Min-Version", written))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(15.0))
+                .andExpect(header().string("Wallet-Version", versionHeader));
+        assertEquals(primaryReads + 1, reads("primary"));
+
+        replicate(walletId);
+        double replicaReads = reads("replica");
+        mockMvc.perform(get("/api/v1/wallets/" + walletId).header("Wallet-Min-Version", written))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(15.0));
+        assertEquals(replicaReads + 1, reads("replica"));
+    }
+
+    @Test
+    void shouldFallBackToPrimaryForWalletsReplicaDoesNotHaveYet() throws Exception {
+        UUID walletId = createWallet(Money.of("7.00"));
+
+        mockMvc.perform(get("/api/v1/wallets/" + walletId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(7.0));
+        mockMvc.perform(get("/api/v1/wallets/" + UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    private String database() {
+        return jdbcTemplate.queryForObject("SELECT DATABASE()", String.class);
+    }
+
+    private double reads(String source) {
+        return meterRegistry.get("wallet.replica.reads").tag("source", source).counter().count();
+    }
+
+    /**
+     * Copies the committed row of the primary to the replica, as replication eventually would.
+     */
+    private void replicate(UUID walletId) {
+        jdbcTemplate.query("SELECT balance, version FROM wallet WHERE id = ?", rs -> {
+            replica.update("MERGE INTO wallet (id, balance, version) KEY (id) VALUES (?, ?, ?)",
+                    walletId, rs.getBigDecimal(1), rs.getLong(2));
+        }, walletId);
+    }
+
+    private ResultActions perform(RequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        MvcResult started = actions.andReturn();
+        return started.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(started)) : actions;
+    }
+
+    /**
+     * Runs in a read-write transaction, Spring Data would read the user from the replica otherwise.
+     */
+    private UUID createWallet(Money balance) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+            Wallet wallet = new Wallet();
+            wallet.setUser(user);
+            wallet.setBalance(balance);
+            return walletRepository.save(wallet).getId();
+        });
+    }
+}
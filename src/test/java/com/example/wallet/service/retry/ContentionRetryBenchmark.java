@@ -0,0 +1,152 @@
+package com.example.wallet.service.retry;
+
+import com.example.wallet.config.RetryProperties;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.exceptions.WalletContendedException;
+import com.example.wallet.metrics.MeteredOperation;
+import com.example.wallet.metrics.WalletMetrics;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.model.WalletTransaction;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.service.balance.BalanceMutationStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deposits on one hot wallet with a short lock timeout, so that attempts fail on the row lock. Compares the former
+ * fixed retry (3 attempts, 100 ms backoff doubling, no jitter) with the contention-aware one. Latency percentiles
+ * cover all requests, shed and failed ones included.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=ContentionRetryBenchmark}; tune with {@code -Dbenchmark.threads},
+ * {@code -Dbenchmark.operations} and {@code -Dbenchmark.lockTimeout} (milliseconds).
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.connection-init-sql=SET LOCK_TIMEOUT ${benchmark.lockTimeout:20}",
+        "wallet.row-lock.timeout=${benchmark.lockTimeout:20}ms"
+})
+@ActiveProfiles("test")
+class ContentionRetryBenchmark {
+    private static final UUID HOT_WALLET_ID = UUID.fromString("55555555-5555-5555-5555-555555555555");
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 32);
+    private static final int OPERATIONS_PER_THREAD = Integer.getInteger("benchmark.operations", 200);
+    private static final Money AMOUNT = Money.of("1.00");
+
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private BalanceMutationStrategy balanceMutationStrategy;
+    @Autowired
+    private WalletMetrics walletMetrics;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareFixedWithContentionAwareRetry() throws Exception {
+        RetryProperties fixed = new RetryProperties();
+        fixed.setMaxAttempts(3);
+        fixed.setInitialBackoff(Duration.ofMillis(100));
+        fixed.setMaxBackoff(Duration.ofMillis(400));
+        fixed.setJitter(false);
+        fixed.setContentionScale(0);
+        fixed.setBudgetEnabled(false);
+
+        Map<String, RetryProperties> policies = new LinkedHashMap<>();
+        policies.put("fixed 100 ms x2", fixed);
+        policies.put("contention-aware", new RetryProperties());
+
+        for (Map.Entry<String, RetryProperties> entry : policies.entrySet()) {
+            run(entry.getValue(), OPERATIONS_PER_THREAD / 5);
+            long[] result = run(entry.getValue(), OPERATIONS_PER_THREAD);
+            log.info("[retry] {} threads x {} deposits, {}: {} ok/s, ok {}, shed {}, failed {}, p50 {} us, p90 {} us, p99 {} us, max {} us",
+                    THREADS, OPERATIONS_PER_THREAD, entry.getKey(), result[0], result[1], result[2], result[3],
+                    result[4] / 1_000, result[5] / 1_000, result[6] / 1_000, result[7] / 1_000);
+        }
+    }
+
+    /**
+     * @return successful throughput, successes, shed, failed, and p50, p90, p99, max latency in nanoseconds
+     */
+    private long[] run(RetryProperties properties, int operationsPerThread) throws Exception {
+        ContentionRetry retry = new ContentionRetry(properties, walletMetrics, new SimpleMeterRegistry());
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        jdbcTemplate.update("""
+                INSERT INTO wallet (id, user_id, balance, version, created_at, updated_at)
+                VALUES (?, '11111111-1111-1111-1111-111111111111', 0, 0, now(), now())""", HOT_WALLET_ID);
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger shed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                long[] latencies = new long[operationsPerThread];
+                start.await();
+                for (int i = 0; i < operationsPerThread; i++) {
+                    long begin = System.nanoTime();
+                    try {
+                        retry.execute(MeteredOperation.DEPOSIT, HOT_WALLET_ID, () -> transactionTemplate.execute(status -> {
+                            balanceMutationStrategy.apply(HOT_WALLET_ID, AMOUNT);
+                            Wallet wallet = walletRepository.getReferenceById(HOT_WALLET_ID);
+                            walletTransactionRepository.appendAll(List.of(
+                                    new WalletTransaction(wallet, OperationType.DEPOSIT, AMOUNT)));
+                            return null;
+                        }));
+                        succeeded.incrementAndGet();
+                    } catch (WalletContendedException exception) {
+                        shed.incrementAndGet();
+                    } catch (PessimisticLockingFailureException exception) {
+                        failed.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return latencies;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] all = new long[THREADS * operationsPerThread];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+            offset += latencies.length;
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        Arrays.sort(all);
+        return new long[]{Math.round(succeeded.get() * 1_000_000_000.0 / elapsed), succeeded.get(), shed.get(), failed.get(),
+                all[all.length / 2], all[(int) Math.ceil(all.length * 0.9) - 1],
+                all[(int) Math.ceil(all.length * 0.99) - 1], all[all.length - 1]};
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.wallet.service.retry;
+
+import com.example.wallet.exceptions.WalletContendedException;
+import com.example.wallet.metrics.MeteredOperation;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "wallet.retry.max-attempts=5",
+        "wallet.retry.budget-capacity=3",
+        "wallet.retry.budget-ratio=0.1",
+        "spring.datasource.hikari.connection-init-sql=SET LOCK_TIMEOUT 50",
+        "wallet.row-lock.timeout=50ms"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ContentionRetryTest {
+    @Autowired
+    private ContentionRetry contentionRetry;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void shouldRetryLockFailuresWithSubMillisecondBackoff() {
+        UUID walletId = UUID.randomUUID();
+        double retries = meterRegistry.get("wallet.retry.attempts").tag("operation", "deposit").counter().count();
+        AtomicInteger attempts = new AtomicInteger();
+
+        long startedAt = System.nanoTime();
+        String result = contentionRetry.execute(MeteredOperation.DEPOSIT, walletId, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new CannotAcquireLockException("locked");
+            }
+            return "applied";
+        });
+
+        assertEquals("applied", result);
+        assertEquals(3, attempts.get());
+        assertTrue(System.nanoTime() - startedAt < TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(retries + 2, meterRegistry.get("wallet.retry.attempts").tag("operation", "deposit").counter().count());
+    }
+
+    @Test
+    void shouldShedOnceRetryBudgetOfWalletIsUsedUp() {
+        UUID walletId = UUID.randomUUID();
+        double shed = meterRegistry.get("wallet.retry.shed").tag("operation", "withdraw").counter().count();
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(WalletContendedException.class, () -> contentionRetry.execute(MeteredOperation.WITHDRAW, walletId,
+                () -> failOnLock(attempts)));
+        assertEquals(4, attempts.get());
+        assertTrue(contentionRetry.contention(walletId) > 0.5);
+
+        attempts.set(0);
+        assertThrows(WalletContendedException.class, () -> contentionRetry.execute(MeteredOperation.WITHDRAW, walletId,
+                () -> failOnLock(attempts)));
+        assertEquals(1, attempts.get());
+        assertEquals(shed + 2, meterRegistry.get("wallet.retry.shed").tag("operation", "withdraw").counter().count());
+
+        for (int i = 0; i < 20; i++) {
+            contentionRetry.execute(MeteredOperation.WITHDRAW, walletId, () -> null);
+        }
+        assertTrue(contentionRetry.contention(walletId) < 0.1);
+    }
+
+    @Test
+    void shouldAnswerTooManyRequestsWhileWalletRowStaysLocked() throws Exception {
+        UUID walletId = createWallet(Money.of("10.00"));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            walletRepository.findByIdForUpdate(walletId).orElseThrow();
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        locked.await();
+
+        String body = "{\"wallet_id\":\"" + walletId + "\",\"operation_type\":\"DEPOSIT\",\"amount\":1}";
+        try {
+            mockMvc.perform(post("/api/v1/wallets").contentType("application/json").content(body))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "1"));
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+
+        MvcResult started = mockMvc.perform(post("/api/v1/wallets").contentType("application/json").content(body))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+        assertEquals(Money.of("11.00"), walletRepository.findBalance(walletId).orElseThrow());
+    }
+
+    private static Object failOnLock(AtomicInteger attempts) {
+        attempts.incrementAndGet();
+        throw new CannotAcquireLockException("locked");
+    }
+
+    private UUID createWallet(Money balance) {
+        User user = userRepository.findById(UUID.fromString("11111111-1111-1111-1111-111111111111")).orElseThrow();
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(balance);
+        return walletRepository.save(wallet).getId();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.wallet.service.shard;
+
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.TransferHandoffRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.service.WalletService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Random transfers between a handful of hot wallets. Compares the locking transfer with its retries on the calling
+ * thread against the same transfers routed through the shard executors, where cross-shard ones are two-phase.
+ * Latency of a sharded transfer is measured until its debit is committed.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=ShardedCommandBenchmark}; tune with {@code -Dbenchmark.threads},
+ * {@code -Dbenchmark.operations}, {@code -Dbenchmark.wallets} and {@code -Dbenchmark.shards}.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "wallet.command-sharding.enabled=true",
+        "wallet.command-sharding.shards=${benchmark.shards:8}"
+})
+@ActiveProfiles("test")
+class ShardedCommandBenchmark {
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 32);
+    private static final int OPERATIONS_PER_THREAD = Integer.getInteger("benchmark.operations", 200);
+    private static final int WALLETS = Integer.getInteger("benchmark.wallets", 8);
+    private static final Money INITIAL_BALANCE = Money.of("1000000.00");
+    private static final Money AMOUNT = Money.of("1.00");
+
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+    @Autowired
+    private TransferHandoffRepository transferHandoffRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareLockingWithShardedTransfersBetweenHotWallets() throws Exception {
+        for (boolean sharded : new boolean[]{false, true}) {
+            run(sharded, OPERATIONS_PER_THREAD / 5);
+            long[] result = run(sharded, OPERATIONS_PER_THREAD);
+            log.info("[command-sharding] {} threads x {} transfers between {} wallets, {}: {} ops/s, p50 {} us, p99 {} us, max {} us",
+                    THREADS, OPERATIONS_PER_THREAD, WALLETS, sharded ? "sharded" : "locking", result[0],
+                    result[1] / 1_000, result[2] / 1_000, result[3] / 1_000);
+        }
+    }
+
+    /**
+     * @return throughput, p50, p99 and max latency in nanoseconds
+     */
+    private long[] run(boolean sharded, int operationsPerThread) throws Exception {
+        walletTransactionRepository.deleteAllInBatch();
+        walletRepository.deleteAll();
+        List<UUID> walletIds = new ArrayList<>();
+        for (int i = 0; i < WALLETS; i++) {
+            UUID walletId = UUID.randomUUID();
+            jdbcTemplate.update("""
+                    INSERT INTO wallet (id, user_id, balance, version, created_at, updated_at)
+                    VALUES (?, '11111111-1111-1111-1111-111111111111', ?, 0, now(), now())""", walletId, INITIAL_BALANCE.toBigDecimal());
+            walletIds.add(walletId);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                long[] latencies = new long[operationsPerThread];
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                start.await();
+                for (int i = 0; i < operationsPerThread; i++) {
+                    int from = random.nextInt(WALLETS);
+                    int to = (from + 1 + random.nextInt(WALLETS - 1)) % WALLETS;
+                    TransferRequest request = new TransferRequest(walletIds.get(from), walletIds.get(to), AMOUNT);
+                    long begin = System.nanoTime();
+                    if (sharded) {
+                        walletService.transferBetweenWalletsAsync(request, null).join();
+                    } else {
+                        walletService.transferBetweenWallets(request, null);
+                    }
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return latencies;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] all = new long[THREADS * operationsPerThread];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+            offset += latencies.length;
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        while (!transferHandoffRepository.findCreatedBefore(LocalDateTime.now().plusDays(1), 1).isEmpty()) {
+            Thread.sleep(10);
+        }
+        Money total = Money.ZERO;
+        for (UUID walletId : walletIds) {
+            total = total.plus(walletRepository.findBalance(walletId).orElseThrow());
+        }
+        assertEquals(Money.ofMajor(1_000_000L * WALLETS), total);
+
+        Arrays.sort(all);
+        return new long[]{Math.round(all.length * 1_000_000_000.0 / elapsed),
+                all[all.length / 2], all[(int) Math.ceil(all.length * 0.99) - 1], all[all.length - 1]};
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.wallet.service.shard;
+
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.exceptions.InsufficientFundsException;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.TransferHandoffRepository;
+import com.example.wallet.repository.TransferHandoffRepository.Handoff;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.service.WalletService;
+import com.example.wallet.util.TimeOrderedUuid;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "wallet.command-sharding.enabled=true",
+        "wallet.command-sharding.shards=4",
+        "wallet.command-sharding.handoff-retry-interval=1h"
+})
+@ActiveProfiles("test")
+class WalletCommandProcessorTest {
+    private static final UUID USER_ID = UUID.fromString("11111111-1111-1111-1111-111111111111");
+
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private WalletCommandProcessor commandProcessor;
+    @Autowired
+    private TransferHandoffRecovery transferHandoffRecovery;
+    @Autowired
+    private TransferHandoffRepository transferHandoffRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldKeepTotalUnderConcurrentSameAndCrossShardTransfers() throws Exception {
+        List<UUID> walletIds = new ArrayList<>();
+        while (walletIds.size() < 4 || walletIds.stream().allMatch(id -> commandProcessor.sameShard(id, walletIds.get(0)))) {
+            walletIds.add(createWallet(Money.of("10.00")));
+        }
+        Money total = Money.ofMajor(10L * walletIds.size());
+
+        List<CompletableFuture<Boolean>> transfers = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 400; i++) {
+            int from = random.nextInt(walletIds.size());
+            int to = (from + 1 + random.nextInt(walletIds.size() - 1)) % walletIds.size();
+            transfers.add(walletService.transferBetweenWalletsAsync(
+                            new TransferRequest(walletIds.get(from), walletIds.get(to), Money.of("3.00")), null)
+                    .handle((ignored, exception) -> {
+                        if (exception != null && !(exception.getCause() instanceof InsufficientFundsException)) {
+                            throw new AssertionError(exception);
+                        }
+                        return exception == null;
+                    }));
+        }
+        long applied = 0;
+        for (CompletableFuture<Boolean> transfer : transfers) {
+            if (transfer.get()) {
+                applied++;
+            }
+        }
+        awaitHandoffsDelivered();
+
+        Money balances = Money.ZERO;
+        int rows = 0;
+        for (UUID walletId : walletIds) {
+            balances = balances.plus(walletRepository.findBalance(walletId).orElseThrow());
+            rows += countLedgerRows(walletId);
+        }
+        assertEquals(total, balances);
+        assertEquals(applied * 2, rows);
+    }
+
+    @Test
+    void shouldCompleteFuturesWithCommandOutcome() {
+        UUID walletId = createWallet(Money.of("10.00"));
+
+        assertEquals(Money.of("15.00"), walletService.updateWalletAsync(
+                new WalletRequest(walletId, OperationType.DEPOSIT, Money.of("5.00")), null).join().balance());
+        CompletionException insufficient = assertThrows(CompletionException.class, () -> walletService.updateWalletAsync(
+                new WalletRequest(walletId, OperationType.WITHDRAW, Money.of("15.01")), null).join());
+        assertInstanceOf(InsufficientFundsException.class, insufficient.getCause());
+
+        UUID missing = UUID.randomUUID();
+        while (commandProcessor.sameShard(walletId, missing)) {
+            missing = UUID.randomUUID();
+        }
+        TransferRequest toMissing = new TransferRequest(walletId, missing, Money.of("1.00"));
+        CompletionException notFound = assertThrows(CompletionException.class,
+                () -> walletService.transferBetweenWalletsAsync(toMissing, null).join());
+        assertInstanceOf(EntityNotFoundException.class, notFound.getCause());
+        assertEquals(Money.of("15.00"), walletRepository.findBalance(walletId).orElseThrow());
+    }
+
+    @Test
+    void shouldDeliverStaleHandoffExactlyOnce() {
+        UUID fromId = createWallet(Money.ZERO);
+        UUID toId = createWallet(Money.of("1.00"));
+        Handoff handoff = new Handoff(TimeOrderedUuid.next(), fromId, toId, Money.of("2.50"),
+                LocalDateTime.now().minusDays(1));
+        transferHandoffRepository.insert(handoff);
+
+        transferHandoffRecovery.deliverStale();
+        transferHandoffRecovery.deliverStale();
+
+        assertFalse(walletService.applyHandoff(handoff));
+        assertEquals(Money.of("3.50"), walletRepository.findBalance(toId).orElseThrow());
+        assertEquals(1, countLedgerRows(toId));
+        assertEquals(0, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet_transactions WHERE id = ?",
+                Integer.class, handoff.id()));
+    }
+
+    private void awaitHandoffsDelivered() throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (transferHandoffRepository.findCreatedBefore(LocalDateTime.now().plusDays(1), 1).size() > 0) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Transfer hand-offs were not delivered");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private UUID createWallet(Money balance) {
+        User user = userRepository.findById(USER_ID).orElseThrow();
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(balance);
+        return walletRepository.save(wallet).getId();
+    }
+
+    private int countLedgerRows(UUID walletId) {
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet_transactions WHERE wallet_id = ?",
+                Integer.class, walletId);
+        return rows == null ? 0 : rows;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.wallet.benchmark;
+
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.money.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON (de)serialisation of the request and response bodies with an {@link ObjectMapper} configured like
+ * the one Spring MVC uses. Run with {@code -prof gc} to see the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class JsonSerializationBenchmark {
+    private ObjectReader walletRequestReader;
+    private ObjectReader transferRequestReader;
+    private ObjectReader walletResponseReader;
+    private ObjectWriter writer;
+
+    private WalletRequest walletRequest;
+    private TransferRequest transferRequest;
+    private WalletResponse walletResponse;
+    private byte[] walletRequestJson;
+    private byte[] transferRequestJson;
+    private byte[] walletResponseJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        walletRequestReader = objectMapper.readerFor(WalletRequest.class);
+        transferRequestReader = objectMapper.readerFor(TransferRequest.class);
+        walletResponseReader = objectMapper.readerFor(WalletResponse.class);
+        writer = objectMapper.writer();
+
+        UUID walletId = UUID.fromString("11111111-1111-1111-1111-111111111112");
+        UUID otherWalletId = UUID.fromString("11111111-1111-1111-1111-111111111113");
+        walletRequest = new WalletRequest(walletId, OperationType.DEPOSIT, Money.of("1000.50"));
+        transferRequest = new TransferRequest(walletId, otherWalletId, Money.of("1000.50"));
+        walletResponse = new WalletResponse(walletId, Money.of("123456.78"));
+        walletRequestJson = writer.writeValueAsBytes(walletRequest);
+        transferRequestJson = writer.writeValueAsBytes(transferRequest);
+        walletResponseJson = writer.writeValueAsBytes(walletResponse);
+    }
+
+    @Benchmark
+    public WalletRequest readWalletRequest() throws IOException {
+        return walletRequestReader.readValue(walletRequestJson);
+    }
+
+    @Benchmark
+    public byte[] writeWalletRequest() throws IOException {
+        return writer.writeValueAsBytes(walletRequest);
+    }
+
+    @Benchmark
+    public TransferRequest readTransferRequest() throws IOException {
+        return transferRequestReader.readValue(transferRequestJson);
+    }
+
+    @Benchmark
+    public byte[] writeTransferRequest() throws IOException {
+        return writer.writeValueAsBytes(transferRequest);
+    }
+
+    @Benchmark
+    public WalletResponse readWalletResponse() throws IOException {
+        return walletResponseReader.readValue(walletResponseJson);
+    }
+
+    @Benchmark
+    public byte[] writeWalletResponse() throws IOException {
+        return writer.writeValueAsBytes(walletResponse);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.wallet.benchmark;
+
+import com.example.wallet.money.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The money arithmetic of one wallet update, {@link BigDecimal} against {@link Money}: validate the amount against
+ * the request limits, apply it to the balance, check the result is not negative and render the response.
+ * The JSON benchmarks read and write an amount field the same way the request and response DTOs do; values are
+ * computed per operation, as in a response, since {@code BigDecimal} caches its text.
+ * Run with {@code -prof gc} to compare allocation per operation ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class MoneyBenchmark {
+    private static final BigDecimal DECIMAL_MIN = new BigDecimal("0.01");
+    private static final BigDecimal DECIMAL_MAX = new BigDecimal("1000000");
+    private static final Money MONEY_MIN = Money.of("0.01");
+    private static final Money MONEY_MAX = Money.of("1000000");
+
+    private BigDecimal decimalBalance;
+    private BigDecimal decimalAmount;
+    private Money moneyBalance;
+    private Money moneyAmount;
+
+    private ObjectReader decimalReader;
+    private ObjectReader moneyReader;
+    private ObjectWriter writer;
+    private byte[] amountJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        decimalBalance = new BigDecimal("123456.78");
+        decimalAmount = new BigDecimal("1000.50");
+        moneyBalance = Money.of("123456.78");
+        moneyAmount = Money.of("1000.50");
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        decimalReader = objectMapper.readerFor(DecimalAmount.class);
+        moneyReader = objectMapper.readerFor(MoneyAmount.class);
+        writer = objectMapper.writer();
+        amountJson = "{\"amount\":1000.50}".getBytes();
+    }
+
+    @Benchmark
+    public String updateWithBigDecimal() {
+        if (decimalAmount.compareTo(DECIMAL_MIN) < 0 || decimalAmount.compareTo(DECIMAL_MAX) > 0) {
+            throw new IllegalArgumentException();
+        }
+        BigDecimal deposited = decimalBalance.add(decimalAmount);
+        BigDecimal withdrawn = deposited.subtract(decimalAmount);
+        if (withdrawn.signum() < 0) {
+            throw new IllegalStateException();
+        }
+        return withdrawn.toPlainString();
+    }
+
+    @Benchmark
+    public String updateWithMoney() {
+        if (moneyAmount.isLessThan(MONEY_MIN) || MONEY_MAX.isLessThan(moneyAmount)) {
+            throw new IllegalArgumentException();
+        }
+        Money deposited = moneyBalance.plus(moneyAmount);
+        Money withdrawn = deposited.minus(moneyAmount);
+        if (withdrawn.isNegative()) {
+            throw new IllegalStateException();
+        }
+        return withdrawn.toString();
+    }
+
+    @Benchmark
+    public DecimalAmount readBigDecimal() throws IOException {
+        return decimalReader.readValue(amountJson);
+    }
+
+    @Benchmark
+    public MoneyAmount readMoney() throws IOException {
+        return moneyReader.readValue(amountJson);
+    }
+
+    @Benchmark
+    public byte[] writeBigDecimal() throws IOException {
+        return writer.writeValueAsBytes(new DecimalAmount(decimalBalance.add(decimalAmount)));
+    }
+
+    @Benchmark
+    public byte[] writeMoney() throws IOException {
+        return writer.writeValueAsBytes(new MoneyAmount(moneyBalance.plus(moneyAmount)));
+    }
+
+    public record DecimalAmount(BigDecimal amount) {
+    }
+
+    public record MoneyAmount(Money amount) {
+    }
+}
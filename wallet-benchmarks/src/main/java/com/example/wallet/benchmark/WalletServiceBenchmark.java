@@ -0,0 +1,158 @@
+package com.example.wallet.benchmark;
+
+import com.example.wallet.WalletApplication;
+import com.example.wallet.dto.TransferRequest;
+import com.example.wallet.dto.WalletRequest;
+import com.example.wallet.dto.WalletResponse;
+import com.example.wallet.enums.OperationType;
+import com.example.wallet.model.User;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.money.Money;
+import com.example.wallet.repository.UserRepository;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletTransactionRepository;
+import com.example.wallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hot paths of {@link WalletService} against in-memory H2, with the full Spring context of the application.
+ * <p>
+ * Workloads: every thread on its own wallet (uncontended), all threads on one wallet (hot wallet)
+ * and transfers between random pairs of a wallet pool. The ledger is truncated after every iteration
+ * so that iterations stay comparable. {@code ledger} runs the in-memory ledger mode with its journal
+ * in a temporary directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(4)
+public class WalletServiceBenchmark {
+    private static final UUID USER_ID = UUID.fromString("11111111-1111-1111-1111-111111111111");
+    private static final Money INITIAL_BALANCE = Money.of("1000000000.00");
+    private static final Money AMOUNT = Money.of("0.01");
+
+    @Param({"locking", "conditional-update", "ledger"})
+    public String strategy;
+
+    @Param("64")
+    public int wallets;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private WalletTransactionRepository walletTransactionRepository;
+    private UUID[] walletIds;
+    private UUID hotWalletId;
+    private final AtomicInteger nextThreadWallet = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        boolean ledger = "ledger".equals(strategy);
+        context = new SpringApplicationBuilder(WalletApplication.class)
+                .profiles("test")
+                .properties(
+                        "spring.main.web-application-type=none",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                // Arguments, unlike default properties, take precedence over application.yaml.
+                .run("--wallet.balance-mutation.strategy=" + (ledger ? "locking" : strategy),
+                        "--wallet.ledger.enabled=" + ledger,
+                        "--wallet.ledger.journal-directory=" + Files.createTempDirectory("wallet-ledger"));
+        walletService = context.getBean(WalletService.class);
+        walletTransactionRepository = context.getBean(WalletTransactionRepository.class);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        WalletRepository walletRepository = context.getBean(WalletRepository.class);
+        User user = userRepository.findById(USER_ID).orElseThrow();
+        walletIds = new UUID[wallets];
+        for (int i = 0; i < wallets; i++) {
+            Wallet wallet = new Wallet();
+            wallet.setUser(user);
+            wallet.setBalance(INITIAL_BALANCE);
+            walletIds[i] = walletRepository.save(wallet).getId();
+        }
+        hotWalletId = walletIds[0];
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncateLedger() {
+        walletTransactionRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadWallet {
+        UUID walletId;
+
+        @Setup(Level.Trial)
+        public void pick(WalletServiceBenchmark benchmark) {
+            int index = benchmark.nextThreadWallet.getAndIncrement() % benchmark.walletIds.length;
+            walletId = benchmark.walletIds[index];
+        }
+    }
+
+    @Benchmark
+    public WalletResponse updateWalletUncontended(ThreadWallet threadWallet) {
+        return walletService.updateWallet(new WalletRequest(threadWallet.walletId, OperationType.DEPOSIT, AMOUNT));
+    }
+
+    @Benchmark
+    public WalletResponse updateWalletHotWallet() {
+        return walletService.updateWallet(new WalletRequest(hotWalletId, OperationType.DEPOSIT, AMOUNT));
+    }
+
+    @Benchmark
+    public void transferRandomPair() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(walletIds.length);
+        int to = random.nextInt(walletIds.length - 1);
+        if (to >= from) {
+            to++;
+        }
+        walletService.transferBetweenWallets(new TransferRequest(walletIds[from], walletIds[to], AMOUNT), null);
+    }
+
+    @Benchmark
+    public void transferIntoHotWallet() {
+        int from = 1 + ThreadLocalRandom.current().nextInt(walletIds.length - 1);
+        walletService.transferBetweenWallets(new TransferRequest(walletIds[from], hotWalletId, AMOUNT), null);
+    }
+
+    @Benchmark
+    public WalletResponse getBalanceUncontended(ThreadWallet threadWallet) {
+        return walletService.getBalance(threadWallet.walletId);
+    }
+
+    @Benchmark
+    public WalletResponse getBalanceHotWallet() {
+        return walletService.getBalance(hotWalletId);
+    }
+}